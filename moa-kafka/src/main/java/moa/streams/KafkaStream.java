@@ -20,8 +20,10 @@
 
 package moa.streams;
 
+import com.github.javacliparser.IntOption;
 import com.github.javacliparser.StringOption;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.capabilities.CapabilitiesHandler;
@@ -32,18 +34,21 @@ import moa.core.InstanceExample;
 import moa.core.ObjectRepository;
 import moa.options.AbstractOptionHandler;
 import moa.tasks.TaskMonitor;
+import moa.util.InstanceCodec;
 import moa.util.KafkaUtils;
 import moa.util.ObjectDeserializer;
 import moa.util.ObjectSerializer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.LongDeserializer;
 
 import java.io.Closeable;
-import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -61,8 +66,13 @@ import java.util.Queue;
  *     partition.
  *   - The stream is considered ended when a record with a null
  *     value is found.
- *   - The serialised form of the instances is using Java's own
- *     serialisation tools (i.e. {@link ObjectSerializer}).
+ *   - The instances are either encoded with {@link InstanceCodec},
+ *     in which case the header record comes before them, or use
+ *     Java's own serialisation tools (i.e. {@link ObjectSerializer}).
+ *
+ * Records are kept in their serialised form until they are read, and
+ * {@link #nextInstances(InstanceBatch)} decodes compact records straight
+ * into the batch.
  *
  * @author Corey Sterling (csterlin at waikato dot ac dot nz)
  */
@@ -86,13 +96,20 @@ public class KafkaStream extends AbstractOptionHandler implements
   public StringOption portOption = new StringOption("port", 'p',
     "The Kafka broker port", "9092");
 
+  // The number of records to fetch per poll
+  public IntOption maxPollRecordsOption = new IntOption("maxPollRecords", 'b',
+    "The maximum number of records fetched from Kafka at once", 10000, 1, Integer.MAX_VALUE);
+
   // -- TRANSIENTS -- //
 
   // The consumer which will retrieve records from the Kafka stream
-  protected transient KafkaConsumer<Long, Instance> m_Consumer = null;
+  protected transient Consumer<Long, byte[]> m_Consumer = null;
 
-  // A buffer of instances retrieved from the Kafka stream
-  protected transient Queue<Instance> m_InstanceBuffer = null;
+  // A buffer of serialised instances retrieved from the Kafka stream
+  protected transient Queue<byte[]> m_RecordBuffer = null;
+
+  // The codec for compact records, created from the header record
+  protected transient InstanceCodec m_Codec = null;
 
   // Whether we have reached the end of the stream
   protected transient boolean m_EndOfStreamReached = false;
@@ -124,7 +141,7 @@ public class KafkaStream extends AbstractOptionHandler implements
     // If we've reached the end of the stream, what's in the buffer is all
     // that remain
     if (m_EndOfStreamReached)
-      return m_InstanceBuffer.size();
+      return m_RecordBuffer == null ? 0 : m_RecordBuffer.size();
 
     // Other than that we can't know this
     return -1;
@@ -147,7 +164,25 @@ public class KafkaStream extends AbstractOptionHandler implements
       return null;
 
     // Return the next instance from the buffer
-    return new InstanceExample(m_InstanceBuffer.remove());
+    return new InstanceExample(decode(m_RecordBuffer.remove()));
+  }
+
+  @Override
+  public int nextInstances(InstanceBatch batch) {
+    int added = 0;
+    while (!batch.isFull() && hasMoreInstances()) {
+      byte[] record = m_RecordBuffer.remove();
+
+      // Compact records are decoded in place, others through an instance
+      if (m_Codec != null && !InstanceCodec.isJavaSerialized(record))
+        m_Codec.decodeInto(record, batch);
+      else
+        batch.add(decode(record));
+
+      added++;
+    }
+
+    return added;
   }
 
   @Override
@@ -161,7 +196,7 @@ public class KafkaStream extends AbstractOptionHandler implements
     restartConsumer();
 
     // Throw away any buffered instances
-    m_InstanceBuffer = null;
+    m_RecordBuffer = null;
 
     // Mark the stream as not complete
     m_EndOfStreamReached = false;
@@ -207,7 +242,7 @@ public class KafkaStream extends AbstractOptionHandler implements
       return;
 
     // Create the consumer
-    m_Consumer = new KafkaConsumer<>(createConsumerConfiguration());
+    m_Consumer = createConsumer();
 
     // Subscribe to the given topic
     m_Consumer.subscribe(Collections.singletonList(topicOption.getValue()));
@@ -216,6 +251,13 @@ public class KafkaStream extends AbstractOptionHandler implements
     restartConsumer();
   }
 
+  /**
+   * Creates the Kafka consumer.
+   */
+  protected Consumer<Long, byte[]> createConsumer() {
+    return new KafkaConsumer<>(createConsumerConfiguration());
+  }
+
   /**
    * Creates the configuration for the Kafka consumer.
    */
@@ -223,11 +265,12 @@ public class KafkaStream extends AbstractOptionHandler implements
     Map<String, Object> config = new HashMap<>();
 
     config.put("key.deserializer", LongDeserializer.class);
-    config.put("value.deserializer", ObjectDeserializer.class);
+    config.put("value.deserializer", ByteArrayDeserializer.class);
     config.put("bootstrap.servers", broker());
     config.put("fetch.min.bytes", 1);
     config.put("group.id", KafkaUtils.uniqueGroupIDString(this));
     config.put("max.partition.fetch.bytes", 1 << 20); // 1MB
+    config.put("max.poll.records", maxPollRecordsOption.getValue());
     config.put("allow.auto.create.topics", false);
     config.put("auto.offset.reset", "earliest");
     config.put("enable.auto.commit", true);
@@ -283,63 +326,80 @@ public class KafkaStream extends AbstractOptionHandler implements
 
   /**
    * Retrieves more instances from Kafka and places them in the buffer.
+   * Polls until there is at least one instance and the header is known,
+   * or the stream has ended.
    */
   protected void fillBufferIfNecessary() {
-    // If we've reached the end of stream, we can't fill the buffer
-    if (m_EndOfStreamReached)
-      return;
-
     // If the buffer isn't empty, no need to fill it yet
-    if (!bufferIsEmpty())
-      return;
-
-    // Make sure we have a consumer instance to use
-    establishConsumer();
-
-    // If the buffer isn't there, create it
-    if (m_InstanceBuffer == null)
-      m_InstanceBuffer = new LinkedList<>();
-
-    // Get some records from Kafka
-    ConsumerRecords<Long, Instance> records = m_Consumer.poll(KafkaUtils.WAIT_AS_LONG_AS_POSSIBLE);
-
-    // Add each instance to the buffer
-    for (ConsumerRecord<Long, Instance> record : records) {
-      // Extract the instance from the record
-      Instance instance = record.value();
-
-      // If it's null, this is the sentinel that the end of stream has been reached
-      if (instance == null) {
-        m_EndOfStreamReached = true;
-        close();
-        break;
+    while (!m_EndOfStreamReached && (bufferIsEmpty() || m_Header == null)) {
+      // Make sure we have a consumer instance to use
+      establishConsumer();
+
+      // If the buffer isn't there, create it
+      if (m_RecordBuffer == null)
+        m_RecordBuffer = new ArrayDeque<>();
+
+      // Get some records from Kafka
+      ConsumerRecords<Long, byte[]> records = m_Consumer.poll(KafkaUtils.WAIT_AS_LONG_AS_POSSIBLE);
+
+      // Add each serialised instance to the buffer
+      for (ConsumerRecord<Long, byte[]> record : records) {
+        byte[] value = record.value();
+
+        // If it's null, this is the sentinel that the end of stream has been reached
+        if (value == null) {
+          m_EndOfStreamReached = true;
+          close();
+          break;
+        }
+
+        // The header record sets up decoding of the compact records
+        if (InstanceCodec.isHeaderRecord(value)) {
+          m_Header = InstanceCodec.decodeHeader(value);
+          m_Codec = new InstanceCodec(m_Header);
+          continue;
+        }
+
+        // Add the instance to the buffer
+        m_RecordBuffer.add(value);
       }
 
-      // Add the instance to the buffer
-      m_InstanceBuffer.add(record.value());
+      // Save the header if we can and need to
+      cacheHeaderIfNecessary();
     }
+  }
+
+  /**
+   * Decodes a serialised instance from the buffer.
+   */
+  protected Instance decode(byte[] record) {
+    // Records written with Java serialisation carry their own header
+    if (InstanceCodec.isJavaSerialized(record))
+      return new ObjectDeserializer<Instance>().deserialize(topicOption.getValue(), record);
+
+    if (m_Codec == null)
+      throw new RuntimeException("No header record found before the instances in topic " + topicOption.getValue());
 
-    // Save the header if we can and need to
-    cacheHeaderIfNecessary();
+    return m_Codec.decode(record);
   }
 
   /**
-   * Caches the header for these instances if it hasn't already.
+   * Caches the header for Java-serialised instances if it hasn't already.
    */
   protected void cacheHeaderIfNecessary() {
     // Skip if we've already cached a header
     if (m_Header != null)
       return;
 
-    // Get one of the instances
-    Instance instance = m_InstanceBuffer.peek();
+    // Get one of the serialised instances
+    byte[] record = m_RecordBuffer == null ? null : m_RecordBuffer.peek();
 
-    // If there isn't one (should always be at this point), abort
-    if (instance == null)
+    // If there isn't one, or it needs the header record, abort
+    if (record == null || !InstanceCodec.isJavaSerialized(record))
       return;
 
     // Get it's dataset
-    Instances dataset = instance.dataset();
+    Instances dataset = decode(record).dataset();
 
     // Save it for future reference
     if (dataset instanceof InstancesHeader)
@@ -352,6 +412,6 @@ public class KafkaStream extends AbstractOptionHandler implements
    * Whether the instance buffer is empty.
    */
   protected boolean bufferIsEmpty() {
-    return m_InstanceBuffer == null || m_InstanceBuffer.peek() == null;
+    return m_RecordBuffer == null || m_RecordBuffer.peek() == null;
   }
 }
@@ -0,0 +1,228 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * MeasureKafkaCodecSpeed.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package moa.tasks;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.options.ClassOption;
+import moa.streams.InstanceStream;
+import moa.streams.KafkaStream;
+import moa.util.InstanceCodec;
+import moa.util.ObjectSerializer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Task for comparing the Java-serialised and the compact encoding of
+ * instances in Kafka records, without a broker. The instances of a stream
+ * are encoded both ways and replayed through {@link KafkaStream} from an
+ * in-JVM mock consumer, which hands out a fixed number of records per poll.
+ * Reports the record sizes, the encoding speed and the instances read per
+ * second, one at a time and in batches.
+ */
+public class MeasureKafkaCodecSpeed extends AuxiliarMainTask {
+
+  // The topic name used for the mock consumer
+  protected static final String TOPIC = "benchmark";
+
+  // The source of the instances to encode
+  public ClassOption streamOption = new ClassOption(
+        "stream",
+        's',
+        "Stream to encode",
+        InstanceStream.class,
+        "generators.RandomTreeGenerator"
+  );
+
+  // The number of instances to encode
+  public IntOption numInstancesOption = new IntOption(
+        "numInstances",
+        'n',
+        "Number of instances to encode",
+        20000,
+        1,
+        Integer.MAX_VALUE
+  );
+
+  // The number of records returned by each poll
+  public IntOption pollSizeOption = new IntOption(
+        "pollSize",
+        'b',
+        "Number of records returned by each poll of the mock consumer",
+        10000,
+        1,
+        Integer.MAX_VALUE
+  );
+
+  /**
+   * Kafka stream reading from a mock consumer instead of a broker.
+   */
+  protected static class MockKafkaStream extends KafkaStream {
+
+    private static final long serialVersionUID = 1L;
+
+    // The consumer to hand out
+    protected transient Consumer<Long, byte[]> m_MockConsumer;
+
+    public MockKafkaStream(Consumer<Long, byte[]> consumer) {
+      m_MockConsumer = consumer;
+      topicOption.setValue(TOPIC);
+    }
+
+    @Override
+    protected Consumer<Long, byte[]> createConsumer() {
+      return m_MockConsumer;
+    }
+  }
+
+  @Override
+  public String getPurposeString() {
+    return "Compares the size and speed of the Java-serialised and the compact Kafka encoding.";
+  }
+
+  @Override
+  protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+    InstanceStream stream = (InstanceStream) getPreparedClassOption(streamOption);
+    int numInstances = numInstancesOption.getValue();
+
+    // Read the instances up front so both encodings see the same data
+    List<Instance> instances = new ArrayList<>();
+    while (instances.size() < numInstances && stream.hasMoreInstances())
+      instances.add(stream.nextInstance().getData());
+
+    // Encode the instances both ways
+    monitor.setCurrentActivity("Encoding instances...", 0.0);
+    ObjectSerializer<Instance> javaSerializer = new ObjectSerializer<>();
+    InstanceCodec codec = new InstanceCodec(stream.getHeader());
+    List<byte[]> javaRecords = new ArrayList<>();
+    List<byte[]> compactRecords = new ArrayList<>();
+    long javaBytes = 0;
+    long compactBytes = 0;
+    long start = System.nanoTime();
+    for (Instance instance : instances) {
+      byte[] record = javaSerializer.serialize(TOPIC, instance);
+      javaRecords.add(record);
+      javaBytes += record.length;
+    }
+    long javaEncodeTime = System.nanoTime() - start;
+    byte[] headerRecord = InstanceCodec.encodeHeader(stream.getHeader());
+    compactRecords.add(headerRecord);
+    start = System.nanoTime();
+    for (Instance instance : instances) {
+      byte[] record = codec.encode(instance);
+      compactRecords.add(record);
+      compactBytes += record.length;
+    }
+    long compactEncodeTime = System.nanoTime() - start;
+
+    // Read them back through the Kafka stream
+    monitor.setCurrentActivity("Reading Java-serialised records...", 0.25);
+    long javaReadTime = consume(javaRecords, instances.size(), false);
+    if (monitor.taskShouldAbort())
+      return null;
+    monitor.setCurrentActivity("Reading compact records...", 0.5);
+    long compactReadTime = consume(compactRecords, instances.size(), false);
+    if (monitor.taskShouldAbort())
+      return null;
+    monitor.setCurrentActivity("Reading compact records in batches...", 0.75);
+    long batchReadTime = consume(compactRecords, instances.size(), true);
+
+    double n = instances.size();
+    return new LearningEvaluation(
+          new Measurement[]{
+                new Measurement("Instances", n),
+                new Measurement("Java record bytes per instance", javaBytes / n),
+                new Measurement("Compact record bytes per instance", compactBytes / n),
+                new Measurement("Compact header record bytes", headerRecord.length),
+                new Measurement("Java encoded instances per second", n / (javaEncodeTime / 1e9)),
+                new Measurement("Compact encoded instances per second", n / (compactEncodeTime / 1e9)),
+                new Measurement("Java read instances per second", n / (javaReadTime / 1e9)),
+                new Measurement("Compact read instances per second", n / (compactReadTime / 1e9)),
+                new Measurement("Compact batch read instances per second", n / (batchReadTime / 1e9))});
+  }
+
+  /**
+   * Replays the records through a Kafka stream and reads all instances.
+   *
+   * @param records The record values, followed by the end-of-stream marker.
+   * @param numInstances The number of instances the records hold.
+   * @param batched Whether to read the instances in batches.
+   * @return The time taken in nanoseconds.
+   */
+  protected long consume(List<byte[]> records, int numInstances, boolean batched) {
+    TopicPartition partition = new TopicPartition(TOPIC, 0);
+    MockConsumer<Long, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    consumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+
+    // Each poll adds the next slice of records
+    int pollSize = pollSizeOption.getValue();
+    for (int from = 0; from < records.size(); from += pollSize) {
+      final int first = from;
+      final int last = Math.min(records.size(), from + pollSize);
+      consumer.schedulePollTask(() -> {
+        if (first == 0)
+          consumer.rebalance(Collections.singletonList(partition));
+        for (int offset = first; offset < last; offset++)
+          consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, offset, (long) offset, records.get(offset)));
+        if (last == records.size())
+          consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, last, (long) last, null));
+      });
+    }
+
+    KafkaStream kafkaStream = new MockKafkaStream(consumer);
+    kafkaStream.prepareForUse();
+    long start = System.nanoTime();
+    int read = 0;
+    if (batched) {
+      InstanceBatch batch = new InstanceBatch(kafkaStream.getHeader(), 256);
+      while (kafkaStream.hasMoreInstances()) {
+        batch.clear();
+        read += kafkaStream.nextInstances(batch);
+      }
+    } else {
+      while (kafkaStream.hasMoreInstances()) {
+        kafkaStream.nextInstance();
+        read++;
+      }
+    }
+    long time = System.nanoTime() - start;
+    if (read != numInstances)
+      throw new IllegalStateException("Read " + read + " of " + numInstances + " instances");
+
+    return time;
+  }
+
+  @Override
+  public Class<?> getTaskResultType() {
+    return LearningEvaluation.class;
+  }
+}
@@ -20,6 +20,7 @@
 
 package moa.tasks;
 
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.StringOption;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -30,10 +31,12 @@ import moa.core.Example;
 import moa.core.ObjectRepository;
 import moa.options.ClassOption;
 import moa.streams.InstanceStream;
+import moa.util.InstanceCodec;
 import moa.util.KafkaUtils;
 import moa.util.ObjectSerializer;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.LongSerializer;
 
 import java.util.HashMap;
@@ -42,6 +45,11 @@ import java.util.Map;
 /**
  * Task to write instances from a stream to a Kafka topic.
  *
+ * By default the header of the stream is written once, as the first record
+ * of the topic, and the instances are encoded with {@link InstanceCodec}.
+ * Alternatively each instance can be written with Java serialisation, as
+ * read by older versions of {@link moa.streams.KafkaStream}.
+ *
  * @author Corey Sterling (csterlin at waikato dot ac dot nz)
  */
 public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHandler {
@@ -89,6 +97,13 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
         ""
   );
 
+  // Whether to write the instances with Java serialisation
+  public FlagOption javaSerializationOption = new FlagOption(
+        "javaSerialization",
+        'j',
+        "Write each instance with Java serialisation instead of the compact encoding"
+  );
+
   /**
    * Creates the configuration for the Kakfa producer.
    *
@@ -100,7 +115,7 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
     Map<String, Object> config = new HashMap<>();
 
     config.put("key.serializer", LongSerializer.class);
-    config.put("value.serializer", ObjectSerializer.class);
+    config.put("value.serializer", ByteArraySerializer.class);
     config.put("bootstrap.servers", KafkaUtils.broker(host, port));
     config.put("fetch.min.bytes", 1);
     config.put("group.id", KafkaUtils.uniqueGroupIDString(this));
@@ -111,6 +126,8 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
     config.put("fetch.max.bytes", 1 << 24); // 16MB
     config.put("isolation.level", "read_committed");
     config.put("client.id", this.getClass().getName());
+    config.put("linger.ms", 5); // give the producer time to fill its batches
+    config.put("batch.size", 1 << 18); // 256KB
 
     return config;
   }
@@ -125,10 +142,25 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
     String port = portOption.getValue();
 
     // Create the Kakfa producer
-    KafkaProducer<Long, Instance> producer = new KafkaProducer<>(
+    KafkaProducer<Long, byte[]> producer = new KafkaProducer<>(
           getProducerConfig(host, port)
     );
 
+    // Choose how the instances are serialised
+    ObjectSerializer<Instance> javaSerializer = null;
+    InstanceCodec codec = null;
+    if (javaSerializationOption.isSet()) {
+      javaSerializer = new ObjectSerializer<>();
+    } else {
+      // Send the header once, ahead of the instances
+      codec = new InstanceCodec(stream.getHeader());
+      producer.send(
+            new ProducerRecord<>(
+                  topic, -1L, InstanceCodec.encodeHeader(stream.getHeader())
+            )
+      );
+    }
+
     int i = 0;
     while (i < maxInstances) {
       // If the stream is depleted, finalise the topic
@@ -138,15 +170,21 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
       Example<Instance> inst = stream.nextInstance();
 
       // Create a record of the instance for the topic
-      ProducerRecord<Long, Instance> record = new ProducerRecord<>(
-            topic, (long) i++, inst.getData()
+      byte[] value = codec != null
+            ? codec.encode(inst.getData())
+            : javaSerializer.serialize(topic, inst.getData());
+      ProducerRecord<Long, byte[]> record = new ProducerRecord<>(
+            topic, (long) i++, value
       );
 
       // Send the record to the Kafka instance
       producer.send(record);
 
       // Abort if the task is cancelled (leaves the topic unfinished)
-      if (monitor.isCancelled()) return null;
+      if (monitor.isCancelled()) {
+        producer.close();
+        return null;
+      }
 
       // Estimate the number of instances left in the source stream
       long remainingInstances = stream.estimatedRemainingInstances();
@@ -167,6 +205,9 @@ public class WriteToTopicTask extends AuxiliarMainTask implements CapabilitiesHa
           )
     );
 
+    // Wait for all records to be sent
+    producer.close();
+
     return null;
   }
 
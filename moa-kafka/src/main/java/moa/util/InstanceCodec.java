@@ -0,0 +1,365 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * InstanceCodec.java
+ * Copyright (C) 2026 University of Waikato, Hamilton, NZ
+ */
+
+package moa.util;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of instances for Kafka records. The header of a
+ * topic is sent once, in a record of its own, and every other record only
+ * holds the weight and the values of one instance. All numbers are
+ * little-endian.
+ *
+ * <pre>
+ * header record := magic('M' 'O' 'A' 'H') version(byte) Java-serialized InstancesHeader
+ * instance      := kind(byte) [weight(double)] body
+ * packed body   := one value per attribute, as a byte (nominal attributes with
+ *                  fewer than 255 values, 0xFF missing), a short (nominal
+ *                  attributes with fewer than 65535 values, 0xFFFF missing)
+ *                  or a double
+ * doubles body  := one double per attribute
+ * sparse body   := nnz(int) index(int) * nnz value(double) * nnz
+ * </pre>
+ *
+ * The weight is only written when it is not 1. Dense instances whose
+ * nominal values do not fit the widths derived from the header, e.g.
+ * because the attribute gained values after the header was sent, are
+ * written as doubles.
+ *
+ * Records written with Java serialization (see {@link ObjectSerializer})
+ * start with a different magic number, so both kinds can be told apart.
+ */
+public class InstanceCodec {
+
+  // The magic number at the start of a header record
+  public static final byte[] HEADER_MAGIC = {'M', 'O', 'A', 'H'};
+
+  // The version of the encoding
+  public static final byte VERSION = 1;
+
+  // Kinds of instance records
+  public static final byte DENSE_PACKED = 1;
+
+  public static final byte DENSE_DOUBLES = 2;
+
+  public static final byte SPARSE = 3;
+
+  // Set on the kind when a weight follows
+  public static final byte WEIGHTED = 0x10;
+
+  // The widths of packed values
+  protected static final int BYTE_WIDTH = 1;
+
+  protected static final int SHORT_WIDTH = 2;
+
+  protected static final int DOUBLE_WIDTH = 8;
+
+  // The header of the encoded instances
+  protected InstancesHeader m_Header;
+
+  // The number of attributes of the header
+  protected int m_NumAttributes;
+
+  // The width of each attribute in a packed record
+  protected int[] m_Widths;
+
+  // The size of the body of a packed record
+  protected int m_PackedLength;
+
+  /**
+   * Creates a codec for instances of the given header.
+   *
+   * @param header The header of the instances.
+   */
+  public InstanceCodec(InstancesHeader header) {
+    m_Header = header;
+    m_NumAttributes = header.numAttributes();
+    m_Widths = new int[m_NumAttributes];
+    m_PackedLength = 0;
+    for (int i = 0; i < m_NumAttributes; i++) {
+      Attribute attribute = header.attribute(i);
+      if (attribute.isNominal() && attribute.numValues() < 0xFF)
+        m_Widths[i] = BYTE_WIDTH;
+      else if (attribute.isNominal() && attribute.numValues() < 0xFFFF)
+        m_Widths[i] = SHORT_WIDTH;
+      else
+        m_Widths[i] = DOUBLE_WIDTH;
+      m_PackedLength += m_Widths[i];
+    }
+  }
+
+  /**
+   * Gets the header of the instances.
+   */
+  public InstancesHeader getHeader() {
+    return m_Header;
+  }
+
+  /**
+   * Encodes a header into the record that starts a topic.
+   *
+   * @param header The header to encode.
+   * @return The header record.
+   */
+  public static byte[] encodeHeader(InstancesHeader header) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      bytes.write(HEADER_MAGIC);
+      bytes.write(VERSION);
+      ObjectOutputStream objectStream = new ObjectOutputStream(bytes);
+      objectStream.writeObject(header);
+      objectStream.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to serialise header for Kafka", e);
+    }
+  }
+
+  /**
+   * Decodes a header record.
+   *
+   * @param bytes The record value.
+   * @return The header.
+   */
+  public static InstancesHeader decodeHeader(byte[] bytes) {
+    if (bytes[HEADER_MAGIC.length] != VERSION)
+      throw new RuntimeException("Unsupported header record version: " + bytes[HEADER_MAGIC.length]);
+
+    int offset = HEADER_MAGIC.length + 1;
+    try {
+      ObjectInputStream objectStream = new ObjectInputStream(
+        new ByteArrayInputStream(bytes, offset, bytes.length - offset));
+      return (InstancesHeader) objectStream.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      throw new RuntimeException("Failed to deserialise header from Kafka", e);
+    }
+  }
+
+  /**
+   * Whether a record value is a header record.
+   */
+  public static boolean isHeaderRecord(byte[] bytes) {
+    if (bytes == null || bytes.length <= HEADER_MAGIC.length)
+      return false;
+
+    for (int i = 0; i < HEADER_MAGIC.length; i++)
+      if (bytes[i] != HEADER_MAGIC[i])
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Whether a record value was written with Java serialization.
+   */
+  public static boolean isJavaSerialized(byte[] bytes) {
+    return bytes != null && bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+  }
+
+  /**
+   * Encodes an instance.
+   *
+   * @param instance The instance to encode.
+   * @return The record value.
+   */
+  public byte[] encode(Instance instance) {
+    double weight = instance.weight();
+    int weightLength = weight == 1.0 ? 0 : 8;
+    ByteBuffer buffer;
+    byte kind;
+
+    if (instance.numValues() != m_NumAttributes) {
+      // Sparse instance: only the stored values
+      int nnz = instance.numValues();
+      kind = SPARSE;
+      buffer = allocate(1 + weightLength + 4 + 12 * nnz);
+      buffer.put(weight == 1.0 ? kind : (byte) (kind | WEIGHTED));
+      if (weightLength > 0)
+        buffer.putDouble(weight);
+      buffer.putInt(nnz);
+      for (int i = 0; i < nnz; i++)
+        buffer.putInt(instance.index(i));
+      for (int i = 0; i < nnz; i++)
+        buffer.putDouble(instance.valueSparse(i));
+    } else if (fitsPacked(instance)) {
+      kind = DENSE_PACKED;
+      buffer = allocate(1 + weightLength + m_PackedLength);
+      buffer.put(weight == 1.0 ? kind : (byte) (kind | WEIGHTED));
+      if (weightLength > 0)
+        buffer.putDouble(weight);
+      for (int i = 0; i < m_NumAttributes; i++) {
+        double value = instance.value(i);
+        switch (m_Widths[i]) {
+          case BYTE_WIDTH:
+            buffer.put(Double.isNaN(value) ? (byte) 0xFF : (byte) value);
+            break;
+          case SHORT_WIDTH:
+            buffer.putShort(Double.isNaN(value) ? (short) 0xFFFF : (short) value);
+            break;
+          default:
+            buffer.putDouble(value);
+        }
+      }
+    } else {
+      kind = DENSE_DOUBLES;
+      buffer = allocate(1 + weightLength + 8 * m_NumAttributes);
+      buffer.put(weight == 1.0 ? kind : (byte) (kind | WEIGHTED));
+      if (weightLength > 0)
+        buffer.putDouble(weight);
+      for (int i = 0; i < m_NumAttributes; i++)
+        buffer.putDouble(instance.value(i));
+    }
+
+    return buffer.array();
+  }
+
+  /**
+   * Whether all nominal values of a dense instance fit their packed width.
+   */
+  protected boolean fitsPacked(Instance instance) {
+    for (int i = 0; i < m_NumAttributes; i++) {
+      if (m_Widths[i] == DOUBLE_WIDTH)
+        continue;
+
+      double value = instance.value(i);
+      if (Double.isNaN(value))
+        continue;
+
+      int limit = m_Widths[i] == BYTE_WIDTH ? 0xFF : 0xFFFF;
+      if (value < 0 || value >= limit || value != Math.rint(value))
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Decodes an instance record.
+   *
+   * @param bytes The record value.
+   * @return The instance, with the header of this codec as its dataset.
+   */
+  public Instance decode(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    byte kind = buffer.get();
+    double weight = (kind & WEIGHTED) != 0 ? buffer.getDouble() : 1.0;
+    Instance instance;
+
+    if ((kind & ~WEIGHTED) == SPARSE) {
+      int nnz = buffer.getInt();
+      int[] indices = new int[nnz];
+      double[] values = new double[nnz];
+      for (int i = 0; i < nnz; i++)
+        indices[i] = buffer.getInt();
+      for (int i = 0; i < nnz; i++)
+        values[i] = buffer.getDouble();
+      instance = new SparseInstance(weight, values, indices, m_NumAttributes);
+    } else {
+      double[] values = new double[m_NumAttributes];
+      readDense(buffer, kind, values, 0);
+      instance = new DenseInstance(weight, values);
+    }
+
+    instance.setDataset(m_Header);
+    return instance;
+  }
+
+  /**
+   * Decodes an instance record straight into the next row of a batch,
+   * without creating an instance object.
+   *
+   * @param bytes The record value.
+   * @param batch The batch to append to, with the header of this codec.
+   * @return The index of the new row.
+   */
+  public int decodeInto(byte[] bytes, InstanceBatch batch) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    byte kind = buffer.get();
+    double weight = (kind & WEIGHTED) != 0 ? buffer.getDouble() : 1.0;
+
+    // Reserve the row, then write its values in place
+    int row = batch.size();
+    batch.setSize(row + 1);
+    batch.setWeight(row, weight);
+    double[] values = batch.getValues();
+    int offset = row * m_NumAttributes;
+
+    if ((kind & ~WEIGHTED) == SPARSE) {
+      Arrays.fill(values, offset, offset + m_NumAttributes, 0.0);
+      int nnz = buffer.getInt();
+      int indexStart = buffer.position();
+      int valueStart = indexStart + 4 * nnz;
+      for (int i = 0; i < nnz; i++)
+        values[offset + buffer.getInt(indexStart + 4 * i)] = buffer.getDouble(valueStart + 8 * i);
+    } else {
+      readDense(buffer, kind, values, offset);
+    }
+
+    return row;
+  }
+
+  /**
+   * Reads the values of a dense record into an array.
+   */
+  protected void readDense(ByteBuffer buffer, byte kind, double[] values, int offset) {
+    if ((kind & ~WEIGHTED) == DENSE_DOUBLES) {
+      for (int i = 0; i < m_NumAttributes; i++)
+        values[offset + i] = buffer.getDouble();
+      return;
+    }
+
+    for (int i = 0; i < m_NumAttributes; i++) {
+      switch (m_Widths[i]) {
+        case BYTE_WIDTH:
+          int b = buffer.get() & 0xFF;
+          values[offset + i] = b == 0xFF ? Double.NaN : b;
+          break;
+        case SHORT_WIDTH:
+          int s = buffer.getShort() & 0xFFFF;
+          values[offset + i] = s == 0xFFFF ? Double.NaN : s;
+          break;
+        default:
+          values[offset + i] = buffer.getDouble();
+      }
+    }
+  }
+
+  /**
+   * Allocates a little-endian buffer of exactly the record size.
+   */
+  protected static ByteBuffer allocate(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * A reusable instance view over one row of an {@link InstanceBatch}. Reads and
+ * writes go straight to the batch arrays; {@link #copy()} returns a detached
+ * {@link DenseInstance}.
+ */
+public class BatchInstance extends InstanceImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The batch holding the values.
+     */
+    protected InstanceBatch batch;
+
+    /**
+     * The row this view points to.
+     */
+    protected int row;
+
+    /**
+     * Instantiates a new batch instance.
+     *
+     * @param batch the batch
+     * @param row the row
+     */
+    public BatchInstance(InstanceBatch batch, int row) {
+        super(1.0, new BatchInstanceData(batch, row));
+        this.batch = batch;
+        this.instanceHeader = batch.header;
+        setRow(row);
+    }
+
+    /**
+     * Moves this view to another row of the batch.
+     *
+     * @param row the row
+     * @return this view
+     */
+    public BatchInstance setRow(int row) {
+        this.row = row;
+        this.weight = this.batch.weights[row];
+        ((BatchInstanceData) this.instanceData).setRow(row);
+        return this;
+    }
+
+    /**
+     * Gets the row.
+     *
+     * @return the row this view points to
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    @Override
+    public double weight() {
+        return this.batch.weights[this.row];
+    }
+
+    @Override
+    public void setWeight(double weight) {
+        this.weight = weight;
+        this.batch.weights[this.row] = weight;
+    }
+
+    @Override
+    public void addSparseValues(int[] indexValues, double[] attributeValues, int numberAttributes) {
+        throw new UnsupportedOperationException("Batch rows are dense");
+    }
+
+    /**
+     * Creates a dense copy of the row that stays valid after the batch is
+     * refilled.
+     *
+     * @return the copy
+     */
+    @Override
+    public Instance copy() {
+        return this.batch.materialize(this.row);
+    }
+}
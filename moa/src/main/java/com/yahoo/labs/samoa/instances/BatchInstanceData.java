@@ -0,0 +1,121 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * Instance data reading one row of an {@link InstanceBatch} in place.
+ */
+public class BatchInstanceData implements InstanceData {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The batch holding the values.
+     */
+    protected InstanceBatch batch;
+
+    /**
+     * The offset of the row in the batch value array.
+     */
+    protected int offset;
+
+    /**
+     * Instantiates a new batch instance data.
+     *
+     * @param batch the batch
+     * @param row the row
+     */
+    public BatchInstanceData(InstanceBatch batch, int row) {
+        this.batch = batch;
+        setRow(row);
+    }
+
+    /**
+     * Moves this data to another row of the batch.
+     *
+     * @param row the row
+     */
+    public void setRow(int row) {
+        this.offset = row * this.batch.numAttributes;
+    }
+
+    @Override
+    public int numAttributes() {
+        return this.batch.numAttributes;
+    }
+
+    @Override
+    public double value(int instAttIndex) {
+        return this.batch.values[this.offset + instAttIndex];
+    }
+
+    @Override
+    public boolean isMissing(int instAttIndex) {
+        return Double.isNaN(value(instAttIndex));
+    }
+
+    @Override
+    public int numValues() {
+        return numAttributes();
+    }
+
+    @Override
+    public int index(int i) {
+        return i;
+    }
+
+    @Override
+    public double valueSparse(int i) {
+        return value(i);
+    }
+
+    @Override
+    public boolean isMissingSparse(int p1) {
+        return isMissing(p1);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] res = new double[numAttributes()];
+        System.arraycopy(this.batch.values, this.offset, res, 0, res.length);
+        return res;
+    }
+
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        this.batch.values[this.offset + attributeIndex] = d;
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        throw new UnsupportedOperationException("Batch rows have a fixed schema");
+    }
+
+    @Override
+    public void insertAttributeAt(int index) {
+        throw new UnsupportedOperationException("Batch rows have a fixed schema");
+    }
+
+    /**
+     * Produces a detached dense copy of the row.
+     *
+     * @return the copy
+     */
+    @Override
+    public InstanceData copy() {
+        return new DenseInstanceData(toDoubleArray());
+    }
+}
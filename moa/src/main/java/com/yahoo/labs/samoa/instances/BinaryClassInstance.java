@@ -0,0 +1,109 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable one-vs-rest view of an instance. The view has the attributes of
+ * the source instance without its class attribute, followed by a nominal
+ * class attribute with the values "0" and "1". Attribute values are not
+ * copied: the view reads them from the source, so it is only valid while the
+ * source is not modified, and {@link #copy()} returns a detached
+ * {@link DenseInstance}.
+ *
+ * The header of the view is built once with {@link #createHeader(Instances)}
+ * and can be shared by all views of the same source header.
+ */
+public class BinaryClassInstance extends InstanceImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Instantiates a new binary-class view.
+     *
+     * @param header the binary-class header, see {@link #createHeader(Instances)}
+     */
+    public BinaryClassInstance(InstancesHeader header) {
+        super(1.0, new BinaryClassInstanceData());
+        this.instanceHeader = header;
+    }
+
+    /**
+     * Creates the header of the binary-class views of instances with the
+     * given header. The attributes are shared with the source header.
+     *
+     * @param source the header of the source instances
+     * @return the binary-class header
+     */
+    public static InstancesHeader createHeader(Instances source) {
+        int classIndex = source.classIndex();
+        ArrayList<Attribute> attributes = new ArrayList<>(source.numAttributes());
+        for (int i = 0; i < source.numAttributes(); i++) {
+            if (i != classIndex) {
+                attributes.add(source.attribute(i));
+            }
+        }
+        List<String> classAttributeValues = new ArrayList<>();
+        classAttributeValues.add("0");
+        classAttributeValues.add("1");
+        attributes.add(new Attribute("classAttribute", classAttributeValues));
+        Instances header = new Instances("Copy", attributes, 0);
+        header.setClassIndex(header.numAttributes() - 1);
+        return new InstancesHeader(header);
+    }
+
+    /**
+     * Points this view to a source instance.
+     *
+     * @param source the source instance
+     * @param classValue the binary class value, 0 or 1
+     * @return this view
+     */
+    public BinaryClassInstance setSource(Instance source, double classValue) {
+        ((BinaryClassInstanceData) this.instanceData).setSource(source, classValue);
+        this.weight = source.weight();
+        return this;
+    }
+
+    /**
+     * Gets the source instance.
+     *
+     * @return the source instance
+     */
+    public Instance getSource() {
+        return ((BinaryClassInstanceData) this.instanceData).getSource();
+    }
+
+    @Override
+    public void addSparseValues(int[] indexValues, double[] attributeValues, int numberAttributes) {
+        throw new UnsupportedOperationException("Binary-class views read their values from the source");
+    }
+
+    /**
+     * Creates a dense copy of the view that stays valid after the view is
+     * pointed to another source.
+     *
+     * @return the copy
+     */
+    @Override
+    public Instance copy() {
+        Instance inst = new DenseInstance(this.weight, this.instanceData.toDoubleArray());
+        inst.setDataset(this.instanceHeader);
+        return inst;
+    }
+}
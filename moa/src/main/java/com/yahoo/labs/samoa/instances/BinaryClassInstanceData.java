@@ -0,0 +1,146 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+/**
+ * Instance data presenting another instance as a binary-class instance: the
+ * class attribute of the source is dropped, the remaining attributes keep
+ * their order, and a class value set on the view is appended as the last
+ * attribute. Attribute values are read from the source on demand.
+ */
+public class BinaryClassInstanceData implements InstanceData {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The source instance.
+     */
+    protected Instance source;
+
+    /**
+     * The class index of the source instance.
+     */
+    protected int sourceClassIndex;
+
+    /**
+     * The binary class value.
+     */
+    protected double classValue;
+
+    /**
+     * Points this data to a source instance.
+     *
+     * @param source the source instance
+     * @param classValue the binary class value
+     */
+    public void setSource(Instance source, double classValue) {
+        this.source = source;
+        this.sourceClassIndex = source.classIndex();
+        this.classValue = classValue;
+    }
+
+    /**
+     * Gets the source instance.
+     *
+     * @return the source instance
+     */
+    public Instance getSource() {
+        return this.source;
+    }
+
+    @Override
+    public int numAttributes() {
+        return this.source.numAttributes();
+    }
+
+    @Override
+    public double value(int instAttIndex) {
+        int sourceIndex = instAttIndex < this.sourceClassIndex ? instAttIndex : instAttIndex + 1;
+        if (sourceIndex == this.source.numAttributes()) {
+            return this.classValue;
+        }
+        return this.source.value(sourceIndex);
+    }
+
+    @Override
+    public boolean isMissing(int instAttIndex) {
+        return Double.isNaN(value(instAttIndex));
+    }
+
+    @Override
+    public int numValues() {
+        return numAttributes();
+    }
+
+    @Override
+    public int index(int i) {
+        return i;
+    }
+
+    @Override
+    public double valueSparse(int i) {
+        return value(i);
+    }
+
+    @Override
+    public boolean isMissingSparse(int p1) {
+        return isMissing(p1);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        double[] res = new double[numAttributes()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = value(i);
+        }
+        return res;
+    }
+
+    /**
+     * Sets a value. Only the class value can be set, the attributes of the
+     * source are read-only.
+     *
+     * @param attributeIndex the attribute index
+     * @param d the value
+     */
+    @Override
+    public void setValue(int attributeIndex, double d) {
+        if (attributeIndex != numAttributes() - 1) {
+            throw new UnsupportedOperationException("Only the class value of a binary-class view can be set");
+        }
+        this.classValue = d;
+    }
+
+    @Override
+    public void deleteAttributeAt(int index) {
+        throw new UnsupportedOperationException("Binary-class views have a fixed schema");
+    }
+
+    @Override
+    public void insertAttributeAt(int index) {
+        throw new UnsupportedOperationException("Binary-class views have a fixed schema");
+    }
+
+    /**
+     * Produces a detached dense copy of the view.
+     *
+     * @return the copy
+     */
+    @Override
+    public InstanceData copy() {
+        return new DenseInstanceData(toDoubleArray());
+    }
+}
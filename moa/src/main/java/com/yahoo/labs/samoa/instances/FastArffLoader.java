@@ -0,0 +1,696 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import moa.core.MappedFileInputStream;
+import moa.core.ReadAheadInputStream;
+
+/**
+ * Loads the data section of an ARFF file by scanning bytes directly, without
+ * a <code>StreamTokenizer</code> and without a String per token. The header is
+ * handed to {@link ArffLoader}, so attributes and class index are set up
+ * exactly as for the ARFF file streams; data lines follow the
+ * same tokenization rules (whitespace and commas separate values, '%' starts
+ * a comment, single or double quotes delimit values, '?' is missing and
+ * sparse rows are enclosed in braces). Unknown nominal values extend the
+ * attribute as in {@link Attribute#indexOfValue(String)}. The file is
+ * decoded as UTF-8.
+ *
+ * Numbers that fit the exact fast path (at most 18 significant digits with a
+ * mantissa below 2^53 and a decimal exponent within 10^22) are computed
+ * directly; anything else falls back to <code>Double.parseDouble</code>, so
+ * the values are always identical to the ones produced by ArffLoader.
+ */
+public class FastArffLoader implements Closeable {
+
+    /** The default size of the read buffer, 1MB */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Open-addressing map from the UTF-8 bytes of a nominal label to its
+     * index, so labels can be resolved without creating a String.
+     */
+    protected static class NominalIndex {
+
+        protected final Attribute attribute;
+
+        protected byte[][] keys;
+
+        protected int[] values;
+
+        protected int count;
+
+        protected NominalIndex(Attribute attribute) {
+            this.attribute = attribute;
+            int capacity = 16;
+            List<String> labels = attribute.getAttributeValues();
+            while (capacity < labels.size() * 2) {
+                capacity <<= 1;
+            }
+            this.keys = new byte[capacity][];
+            this.values = new int[capacity];
+            for (String label : labels) {
+                byte[] key = label.getBytes(StandardCharsets.UTF_8);
+                put(key, attribute.indexOfValue(label));
+            }
+        }
+
+        protected static int hash(byte[] b, int off, int len) {
+            int h = 0x811C9DC5;
+            for (int i = off; i < off + len; i++) {
+                h = (h ^ b[i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+
+        protected void put(byte[] key, int value) {
+            if ((this.count + 1) * 2 > this.keys.length) {
+                byte[][] oldKeys = this.keys;
+                int[] oldValues = this.values;
+                this.keys = new byte[oldKeys.length * 2][];
+                this.values = new int[oldKeys.length * 2];
+                this.count = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            int mask = this.keys.length - 1;
+            int slot = hash(key, 0, key.length) & mask;
+            while (this.keys[slot] != null) {
+                if (Arrays.equals(this.keys[slot], key)) {
+                    this.values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = value;
+            this.count++;
+        }
+
+        protected int indexOf(byte[] b, int off, int len) {
+            int mask = this.keys.length - 1;
+            int slot = hash(b, off, len) & mask;
+            byte[] key;
+            while ((key = this.keys[slot]) != null) {
+                if (key.length == len && rangeEquals(key, b, off, len)) {
+                    return this.values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            String label = new String(b, off, len, StandardCharsets.UTF_8);
+            int value = this.attribute.indexOfValue(label);
+            put(Arrays.copyOfRange(b, off, off + len), value);
+            return value;
+        }
+
+        protected static boolean rangeEquals(byte[] key, byte[] b, int off, int len) {
+            for (int i = 0; i < len; i++) {
+                if (key[i] != b[off + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    protected InputStream input;
+
+    protected InstancesHeader header;
+
+    protected int numAttributes;
+
+    protected boolean[] isNumeric;
+
+    protected NominalIndex[] nominalIndices;
+
+    protected byte[] buffer;
+
+    /** The first unread byte in the buffer */
+    protected int position;
+
+    /** The end of the valid bytes in the buffer */
+    protected int limit;
+
+    protected boolean endOfInput;
+
+    /** The end of the current data line, -1 if no line has been located */
+    protected int lineEnd = -1;
+
+    protected long bytesConsumed;
+
+    /** Scratch arrays for sparse rows */
+    protected int[] sparseIndices = new int[16];
+
+    protected double[] sparseValues = new double[16];
+
+    /** Start and end of the last token, and whether it contained escapes */
+    protected int tokenStart;
+
+    protected int tokenEnd;
+
+    protected boolean tokenEscaped;
+
+    /**
+     * Instantiates a new fast arff loader.
+     *
+     * @param input the input, positioned at the start of the ARFF header
+     * @param classAttribute the class attribute, as for {@link ArffLoader}:
+     * negative for the last attribute, 0 for none, otherwise 1-based
+     */
+    public FastArffLoader(InputStream input, int classAttribute) throws IOException {
+        this(input, classAttribute, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new fast arff loader.
+     *
+     * @param input the input, positioned at the start of the ARFF header
+     * @param classAttribute the class attribute, as for {@link ArffLoader}
+     * @param bufferSize the initial size of the read buffer
+     */
+    public FastArffLoader(InputStream input, int classAttribute, int bufferSize) throws IOException {
+        this.input = input;
+        this.buffer = new byte[Math.max(bufferSize, 1024)];
+        Instances structure = new Instances(new StringReader(readHeaderText()), 1, classAttribute);
+        if (classAttribute < 0) {
+            structure.setClassIndex(structure.numAttributes() - 1);
+        } else if (classAttribute > 0) {
+            structure.setClassIndex(classAttribute - 1);
+        }
+        this.header = new InstancesHeader(structure);
+        this.numAttributes = this.header.numAttributes();
+        this.isNumeric = new boolean[this.numAttributes];
+        this.nominalIndices = new NominalIndex[this.numAttributes];
+        for (int i = 0; i < this.numAttributes; i++) {
+            Attribute attribute = this.header.attribute(i);
+            this.isNumeric[i] = !attribute.isNominal();
+            if (attribute.isNominal()) {
+                this.nominalIndices[i] = new NominalIndex(attribute);
+            }
+        }
+    }
+
+    /**
+     * Opens a file for loading. Gzip-compressed files are detected by their
+     * magic number.
+     *
+     * @param file the file to open
+     * @param bufferSize the size of the read buffers
+     * @param memoryMap whether to read the file through memory-mapped windows
+     * @param readAhead whether to read (and decompress) on a background thread
+     * @return the input stream
+     */
+    public static InputStream openFile(File file, int bufferSize, boolean memoryMap, boolean readAhead) throws IOException {
+        InputStream in = memoryMap ? new MappedFileInputStream(file) : new FileInputStream(file);
+        if (isGzipped(file)) {
+            in = new GZIPInputStream(memoryMap ? in : new BufferedInputStream(in, bufferSize), bufferSize);
+        }
+        if (readAhead) {
+            in = new ReadAheadInputStream(in, bufferSize, 4);
+        }
+        return in;
+    }
+
+    /**
+     * Checks for the gzip magic number.
+     *
+     * @param file the file to check
+     * @return true if the file is gzip-compressed
+     */
+    public static boolean isGzipped(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return in.read() == 0x1F && in.read() == 0x8B;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Gets the header.
+     *
+     * @return the header read from the file
+     */
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    /**
+     * Gets the number of (decompressed) bytes consumed so far.
+     *
+     * @return the bytes consumed
+     */
+    public long getBytesConsumed() {
+        return this.bytesConsumed + this.position;
+    }
+
+    /**
+     * Checks if another instance can be read. Blank and comment-only lines are
+     * skipped.
+     *
+     * @return true, if there is another data line
+     */
+    public boolean hasMoreInstances() {
+        return locateDataLine();
+    }
+
+    /**
+     * Reads the next instance.
+     *
+     * @return the instance, null at the end of the file
+     */
+    public Instance readInstance() {
+        if (!locateDataLine()) {
+            return null;
+        }
+        Instance instance;
+        if (buffer[firstToken(this.position, this.lineEnd)] == '{') {
+            int n = parseSparse(null, 0);
+            instance = new SparseInstance(1.0, Arrays.copyOf(this.sparseValues, n),
+                    Arrays.copyOf(this.sparseIndices, n), this.numAttributes);
+        } else {
+            double[] values = new double[this.numAttributes];
+            parseDense(values, 0);
+            instance = new DenseInstance(1.0, values);
+        }
+        instance.setDataset(this.header);
+        nextLine();
+        return instance;
+    }
+
+    /**
+     * Reads instances straight into the batch arrays until the batch is full
+     * or the file ends. Sparse rows are expanded.
+     *
+     * @param batch the batch to fill
+     * @return the number of instances read
+     */
+    public int readInstances(InstanceBatch batch) {
+        int read = 0;
+        while (!batch.isFull() && locateDataLine()) {
+            int row = batch.nextRow();
+            int offset = row * batch.numAttributes;
+            if (buffer[firstToken(this.position, this.lineEnd)] == '{') {
+                Arrays.fill(batch.values, offset, offset + batch.numAttributes, 0.0);
+                parseSparse(batch.values, offset);
+            } else {
+                Arrays.fill(batch.values, offset, offset + batch.numAttributes, 0.0);
+                parseDense(batch.values, offset);
+            }
+            batch.weights[row] = 1.0;
+            nextLine();
+            read++;
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+
+    /**
+     * Reads everything up to and including the @data line.
+     *
+     * @return the header text
+     */
+    protected String readHeaderText() throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        while (findLineEnd()) {
+            int start = firstToken(this.position, this.lineEnd);
+            boolean isData = startsWithIgnoreCase(start, this.lineEnd, "@data");
+            text.write(this.buffer, this.position, this.lineEnd - this.position);
+            text.write('\n');
+            skipLine();
+            if (isData) {
+                break;
+            }
+        }
+        return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    protected boolean startsWithIgnoreCase(int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase((char) this.buffer[start + i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the next line holding a value, leaving {@link #lineEnd} set.
+     *
+     * @return false at the end of the file
+     */
+    protected boolean locateDataLine() {
+        if (this.lineEnd >= 0) {
+            return true;
+        }
+        try {
+            while (findLineEnd()) {
+                int first = firstToken(this.position, this.lineEnd);
+                if (first < this.lineEnd && this.buffer[first] != '%') {
+                    return true;
+                }
+                skipLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("FastArffLoader failed to read from stream.", e);
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the current data line.
+     */
+    protected void nextLine() {
+        skipLine();
+    }
+
+    protected void skipLine() {
+        this.position = Math.min(this.lineEnd + 1, this.limit);
+        this.lineEnd = -1;
+    }
+
+    /**
+     * Sets {@link #lineEnd} to the next '\n' or '\r' at or after the current
+     * position, refilling and growing the buffer as needed. At the end of the
+     * input the last unterminated line ends at the limit.
+     *
+     * @return false if no bytes are left
+     */
+    protected boolean findLineEnd() throws IOException {
+        int scan = this.position;
+        while (true) {
+            byte[] b = this.buffer;
+            for (int i = scan; i < this.limit; i++) {
+                if (b[i] == '\n' || b[i] == '\r') {
+                    this.lineEnd = i;
+                    return true;
+                }
+            }
+            scan = this.limit - this.position;
+            if (!refill()) {
+                if (this.position < this.limit) {
+                    this.lineEnd = this.limit;
+                    return true;
+                }
+                return false;
+            }
+            scan += this.position;
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer and reads more.
+     *
+     * @return false if the input is exhausted
+     */
+    protected boolean refill() throws IOException {
+        if (this.endOfInput) {
+            return false;
+        }
+        if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+            this.limit -= this.position;
+            this.bytesConsumed += this.position;
+            this.position = 0;
+        }
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        }
+        int n = this.input.read(this.buffer, this.limit, this.buffer.length - this.limit);
+        while (n == 0) {
+            n = this.input.read(this.buffer, this.limit, this.buffer.length - this.limit);
+        }
+        if (n < 0) {
+            this.endOfInput = true;
+            return false;
+        }
+        this.limit += n;
+        return true;
+    }
+
+    protected static boolean isSeparator(byte b) {
+        return (b >= 0 && b <= ' ') || b == ',';
+    }
+
+    protected static boolean isWordByte(byte b) {
+        return !isSeparator(b) && b != '%' && b != '"' && b != '\'' && b != '{' && b != '}';
+    }
+
+    protected int firstToken(int from, int end) {
+        while (from < end && isSeparator(this.buffer[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Scans the token starting at <code>p</code>, setting {@link #tokenStart}
+     * and {@link #tokenEnd}.
+     *
+     * @return the position after the token
+     */
+    protected int scanToken(int p, int end) {
+        byte[] b = this.buffer;
+        byte c = b[p];
+        this.tokenEscaped = false;
+        if (c == '"' || c == '\'') {
+            this.tokenStart = ++p;
+            while (p < end && b[p] != c) {
+                if (b[p] == '\\' && p + 1 < end) {
+                    this.tokenEscaped = true;
+                    p++;
+                }
+                p++;
+            }
+            this.tokenEnd = p;
+            return (p < end) ? p + 1 : p;
+        }
+        this.tokenStart = p;
+        while (p < end && isWordByte(b[p])) {
+            p++;
+        }
+        this.tokenEnd = p;
+        return p;
+    }
+
+    /**
+     * Parses a dense line into <code>dest</code>.
+     */
+    protected void parseDense(double[] dest, int offset) {
+        int end = this.lineEnd;
+        int p = this.position;
+        int att = 0;
+        while (true) {
+            p = firstToken(p, end);
+            if (p >= end || this.buffer[p] == '%') {
+                break;
+            }
+            if (this.buffer[p] == '{' || this.buffer[p] == '}') {
+                p++;
+                continue;
+            }
+            p = scanToken(p, end);
+            if (att >= this.numAttributes) {
+                throw new IllegalStateException("Too many values in data line: " + lineText());
+            }
+            dest[offset + att] = tokenValue(att);
+            att++;
+        }
+    }
+
+    /**
+     * Parses a sparse line. With <code>dest</code> null the entries go to the
+     * scratch arrays, otherwise they are written into the dense row.
+     *
+     * @return the number of entries
+     */
+    protected int parseSparse(double[] dest, int offset) {
+        int end = this.lineEnd;
+        int p = firstToken(this.position, end) + 1;
+        int n = 0;
+        while (true) {
+            p = firstToken(p, end);
+            if (p >= end || this.buffer[p] == '}' || this.buffer[p] == '%') {
+                break;
+            }
+            p = scanToken(p, end);
+            int att = (int) parseNumber(this.tokenStart, this.tokenEnd);
+            p = firstToken(p, end);
+            if (p >= end || this.buffer[p] == '}') {
+                throw new IllegalStateException("Missing value in sparse data line: " + lineText());
+            }
+            p = scanToken(p, end);
+            double value = tokenValue(att);
+            if (dest != null) {
+                dest[offset + att] = value;
+            } else {
+                if (n == this.sparseIndices.length) {
+                    this.sparseIndices = Arrays.copyOf(this.sparseIndices, n * 2);
+                    this.sparseValues = Arrays.copyOf(this.sparseValues, n * 2);
+                }
+                this.sparseIndices[n] = att;
+                this.sparseValues[n] = value;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Converts the last scanned token for the given attribute.
+     */
+    protected double tokenValue(int att) {
+        int start = this.tokenStart;
+        int len = this.tokenEnd - start;
+        if (len == 1 && this.buffer[start] == '?') {
+            return Double.NaN;
+        }
+        if (this.tokenEscaped) {
+            String text = unescape(start, this.tokenEnd);
+            if (this.isNumeric[att]) {
+                return Double.valueOf(text);
+            }
+            return this.header.attribute(att).indexOfValue(text);
+        }
+        if (this.isNumeric[att]) {
+            return parseNumber(start, this.tokenEnd);
+        }
+        return this.nominalIndices[att].indexOf(this.buffer, start, len);
+    }
+
+    /**
+     * Parses a decimal number, using the exact fast path when possible.
+     */
+    protected double parseNumber(int start, int end) {
+        byte[] b = this.buffer;
+        int p = start;
+        boolean negative = false;
+        if (p < end && (b[p] == '-' || b[p] == '+')) {
+            negative = b[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        while (p < end && b[p] >= '0' && b[p] <= '9') {
+            anyDigit = true;
+            if (mantissa != 0 || b[p] != '0') {
+                mantissa = mantissa * 10 + (b[p] - '0');
+                digits++;
+            }
+            p++;
+        }
+        if (p < end && b[p] == '.') {
+            p++;
+            while (p < end && b[p] >= '0' && b[p] <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || b[p] != '0') {
+                    mantissa = mantissa * 10 + (b[p] - '0');
+                    digits++;
+                }
+                exponent--;
+                p++;
+            }
+        }
+        if (anyDigit && p < end && (b[p] == 'e' || b[p] == 'E')) {
+            p++;
+            boolean negativeExponent = false;
+            if (p < end && (b[p] == '-' || b[p] == '+')) {
+                negativeExponent = b[p] == '-';
+                p++;
+            }
+            int e = 0;
+            boolean anyExponentDigit = false;
+            while (p < end && b[p] >= '0' && b[p] <= '9' && e < 10000) {
+                e = e * 10 + (b[p] - '0');
+                anyExponentDigit = true;
+                p++;
+            }
+            if (!anyExponentDigit) {
+                return slowParse(start, end);
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (!anyDigit || p != end || digits > 18 || mantissa > MAX_EXACT_MANTISSA
+                || exponent < -22 || exponent > 22) {
+            return slowParse(start, end);
+        }
+        double value = (double) mantissa;
+        if (exponent < 0) {
+            value /= POWERS_OF_TEN[-exponent];
+        } else if (exponent > 0) {
+            value *= POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    protected double slowParse(int start, int end) {
+        return Double.parseDouble(new String(this.buffer, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    protected String unescape(int start, int end) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            byte c = this.buffer[i];
+            if (c == '\\' && i + 1 < end) {
+                c = this.buffer[++i];
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    default: break;
+                }
+            }
+            out.write(c);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    protected String lineText() {
+        return new String(this.buffer, this.position, this.lineEnd - this.position, StandardCharsets.UTF_8);
+    }
+}
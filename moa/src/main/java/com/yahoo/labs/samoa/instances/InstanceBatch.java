@@ -0,0 +1,369 @@
+/*
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the
+ * License.
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity block of instances sharing one header. The attribute values
+ * of all rows are kept in a single row-major <code>double[]</code> and the
+ * weights in a parallel array, so filling and scanning a batch does not create
+ * one <code>InstanceImpl</code> per row.
+ *
+ * Rows are accessed either through the primitive accessors or through
+ * {@link BatchInstance} views. A view is only valid until the batch is cleared
+ * or refilled; call {@link #materialize(int)} (or <code>copy()</code> on the
+ * view) to obtain an instance that can be retained.
+ */
+public class InstanceBatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The header shared by all rows.
+     */
+    protected InstancesHeader header;
+
+    /**
+     * The number of attributes of each row.
+     */
+    protected int numAttributes;
+
+    /**
+     * The attribute values, row-major.
+     */
+    protected double[] values;
+
+    /**
+     * The weight of each row.
+     */
+    protected double[] weights;
+
+    /**
+     * The number of rows currently stored.
+     */
+    protected int size;
+
+    /**
+     * Instantiates a new instance batch.
+     *
+     * @param header the header of the rows
+     * @param capacity the maximum number of rows
+     */
+    public InstanceBatch(InstancesHeader header, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Batch capacity must be positive: " + capacity);
+        }
+        this.header = header;
+        this.numAttributes = header.numAttributes();
+        this.values = new double[capacity * this.numAttributes];
+        this.weights = new double[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the header shared by all rows.
+     *
+     * @return the header
+     */
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    /**
+     * Num attributes.
+     *
+     * @return the number of attributes of each row
+     */
+    public int numAttributes() {
+        return this.numAttributes;
+    }
+
+    /**
+     * Size.
+     *
+     * @return the number of rows currently stored
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Capacity.
+     *
+     * @return the maximum number of rows
+     */
+    public int capacity() {
+        return this.weights.length;
+    }
+
+    /**
+     * Checks if is empty.
+     *
+     * @return true, if no rows are stored
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Checks if is full.
+     *
+     * @return true, if no more rows can be added
+     */
+    public boolean isFull() {
+        return this.size == this.weights.length;
+    }
+
+    /**
+     * Removes all rows. The backing arrays are kept for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Appends a row with the given values. The values are copied.
+     *
+     * @param weight the weight of the row
+     * @param attributeValues the dense attribute values
+     * @return the index of the new row
+     */
+    public int add(double weight, double[] attributeValues) {
+        int row = nextRow();
+        System.arraycopy(attributeValues, 0, this.values, row * this.numAttributes, this.numAttributes);
+        this.weights[row] = weight;
+        return row;
+    }
+
+    /**
+     * Appends a row whose values start at the given offset of an array, e.g.
+     * a row of another batch. The values are copied.
+     *
+     * @param weight the weight of the row
+     * @param source the array holding the dense attribute values
+     * @param offset the offset of the first value
+     * @return the index of the new row
+     */
+    public int add(double weight, double[] source, int offset) {
+        int row = nextRow();
+        System.arraycopy(source, offset, this.values, row * this.numAttributes, this.numAttributes);
+        this.weights[row] = weight;
+        return row;
+    }
+
+    /**
+     * Appends a copy of the given instance. Sparse instances are expanded.
+     *
+     * @param inst the instance to add
+     * @return the index of the new row
+     */
+    public int add(Instance inst) {
+        int row = nextRow();
+        int offset = row * this.numAttributes;
+        if (inst.numValues() == this.numAttributes) {
+            for (int i = 0; i < this.numAttributes; i++) {
+                this.values[offset + i] = inst.value(i);
+            }
+        } else {
+            Arrays.fill(this.values, offset, offset + this.numAttributes, 0.0);
+            for (int i = 0; i < inst.numValues(); i++) {
+                this.values[offset + inst.index(i)] = inst.valueSparse(i);
+            }
+        }
+        this.weights[row] = inst.weight();
+        return row;
+    }
+
+    /**
+     * Sets the number of valid rows, after they have been written directly
+     * into {@link #getValues()} and {@link #getWeights()}.
+     *
+     * @param size the number of rows
+     */
+    public void setSize(int size) {
+        if (size < 0 || size > capacity()) {
+            throw new IllegalArgumentException("Invalid batch size: " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Reserves the next free row.
+     *
+     * @return the index of the reserved row
+     */
+    protected int nextRow() {
+        if (isFull()) {
+            throw new IllegalStateException("Batch is full: " + capacity());
+        }
+        return this.size++;
+    }
+
+    /**
+     * Value.
+     *
+     * @param row the row
+     * @param attIndex the attribute index
+     * @return the value
+     */
+    public double value(int row, int attIndex) {
+        return this.values[row * this.numAttributes + attIndex];
+    }
+
+    /**
+     * Sets the value.
+     *
+     * @param row the row
+     * @param attIndex the attribute index
+     * @param d the value
+     */
+    public void setValue(int row, int attIndex, double d) {
+        this.values[row * this.numAttributes + attIndex] = d;
+    }
+
+    /**
+     * Weight.
+     *
+     * @param row the row
+     * @return the weight of the row
+     */
+    public double weight(int row) {
+        return this.weights[row];
+    }
+
+    /**
+     * Sets the weight.
+     *
+     * @param row the row
+     * @param weight the new weight
+     */
+    public void setWeight(int row, double weight) {
+        this.weights[row] = weight;
+    }
+
+    /**
+     * Class value.
+     *
+     * @param row the row
+     * @return the class value of the row
+     */
+    public double classValue(int row) {
+        return value(row, classIndex());
+    }
+
+    /**
+     * Class index, resolved the same way as {@link InstanceImpl#classIndex()}.
+     *
+     * @return the class index
+     */
+    public int classIndex() {
+        int classIndex = this.header.classIndex();
+        if (classIndex == Integer.MAX_VALUE) {
+            if (this.header.instanceInformation.range != null) {
+                classIndex = this.header.instanceInformation.range.getStart();
+            } else {
+                classIndex = 0;
+            }
+        }
+        return classIndex;
+    }
+
+    /**
+     * Copies one attribute of all rows into the given array.
+     *
+     * @param attIndex the attribute index
+     * @param dest the destination, at least {@link #size()} long, or null
+     * @return the destination array
+     */
+    public double[] column(int attIndex, double[] dest) {
+        if (dest == null || dest.length < this.size) {
+            dest = new double[this.size];
+        }
+        for (int row = 0, offset = attIndex; row < this.size; row++, offset += this.numAttributes) {
+            dest[row] = this.values[offset];
+        }
+        return dest;
+    }
+
+    /**
+     * Gets the backing value array, row-major. Only the first
+     * <code>size() * numAttributes()</code> entries are valid.
+     *
+     * @return the backing array
+     */
+    public double[] getValues() {
+        return this.values;
+    }
+
+    /**
+     * Gets the backing weight array. Only the first <code>size()</code>
+     * entries are valid.
+     *
+     * @return the backing array
+     */
+    public double[] getWeights() {
+        return this.weights;
+    }
+
+    /**
+     * Returns a new view positioned on the given row.
+     *
+     * @param row the row
+     * @return the view
+     */
+    public BatchInstance instance(int row) {
+        return new BatchInstance(this, row);
+    }
+
+    /**
+     * Returns a new view positioned on the first row, to be moved with
+     * {@link BatchInstance#setRow(int)}.
+     *
+     * @return the view
+     */
+    public BatchInstance newView() {
+        return new BatchInstance(this, 0);
+    }
+
+    /**
+     * Creates a stand-alone dense copy of the given row.
+     *
+     * @param row the row
+     * @return the instance
+     */
+    public Instance materialize(int row) {
+        double[] res = new double[this.numAttributes];
+        System.arraycopy(this.values, row * this.numAttributes, res, 0, this.numAttributes);
+        Instance inst = new DenseInstance(this.weights[row], res);
+        inst.setDataset(this.header);
+        return inst;
+    }
+
+    /**
+     * Creates a new dataset holding dense copies of all rows.
+     *
+     * @return the dataset
+     */
+    public Instances toInstances() {
+        Instances result = new Instances(this.header, this.size);
+        for (int row = 0; row < this.size; row++) {
+            result.add(materialize(row));
+        }
+        return result;
+    }
+}
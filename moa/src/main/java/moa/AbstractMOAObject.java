@@ -19,8 +19,8 @@
  */
 package moa;
 
-import moa.core.SerializeUtils;
 import moa.core.SizeOf;
+import moa.core.StructuralCopier;
 
 /**
  * Abstract MOA Object. All classes that are serializable, copiable,
@@ -54,14 +54,15 @@ public abstract class AbstractMOAObject implements MOAObject {
     }
 
     /**
-     * This method produces a copy of an object.
+     * This method produces a copy of an object. The object graph is copied
+     * structurally, falling back to serialization for objects that need it.
      *
      * @param obj object to copy
      * @return a copy of the object
      */
     public static MOAObject copy(MOAObject obj) {
         try {
-            return (MOAObject) SerializeUtils.copyObject(obj);
+            return (MOAObject) StructuralCopier.copyObject(obj);
         } catch (Exception e) {
             throw new RuntimeException("Object copy failed.", e);
         }
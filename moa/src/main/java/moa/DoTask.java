@@ -209,7 +209,9 @@ public class DoTask {
                             progressAnimIndex = 0;
                         }
                         try {
-                            Thread.sleep(statusUpdateFrequencyOption.getValue());
+                            // returns as soon as the task ends, so short tasks
+                            // do not wait for the next status update
+                            taskThread.join(Math.max(1, statusUpdateFrequencyOption.getValue()));
                         } catch (InterruptedException ignored) {
                             // wake up
                         }
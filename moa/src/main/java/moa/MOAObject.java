@@ -38,6 +38,19 @@ public interface MOAObject extends Serializable {
      */
     public long measureByteSize();
 
+    /**
+     * Gets a cheap estimate of the memory size of this object. Unlike
+     * <code>measureByteSize</code>, implementations do not walk the object
+     * graph reflectively but compute the size from counters and array
+     * lengths, so it can be called at every evaluation sample. Classes
+     * without an estimate fall back to the exact measurement.
+     *
+     * @return the estimated memory size of this object
+     */
+    public default long estimateByteSize() {
+        return measureByteSize();
+    }
+
     /**
      * This method produces a copy of this object.
      *
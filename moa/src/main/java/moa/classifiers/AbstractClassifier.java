@@ -34,7 +34,9 @@ import moa.core.Example;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 
 import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.core.StringUtils;
 import moa.gui.AWTRenderer;
 import moa.learners.Learner;
@@ -74,6 +76,9 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
     /** Random Generator used in randomizable learners  */
     public Random classifierRandom;
 
+    /** Measurer of the reported model size, null to measure exactly */
+    protected transient ModelSizeMeasurer modelSizeMeasurer;
+
     /**
      * Creates an classifier and setups the random seed option
      * if the classifier is randomizable.
@@ -204,7 +209,8 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
         measurementList.add(new Measurement("model training instances",
                 trainingWeightSeenByModel()));
         measurementList.add(new Measurement("model serialized size (bytes)",
-                measureByteSize()));
+                this.modelSizeMeasurer != null ? this.modelSizeMeasurer.measureByteSize(this)
+                : measureByteSize()));
         Measurement[] modelMeasurements = getModelMeasurementsImpl();
         if (modelMeasurements != null) {
             measurementList.addAll(Arrays.asList(modelMeasurements));
@@ -214,6 +220,10 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
         if ((subModels != null) && (subModels.length > 0)) {
             List<Measurement[]> subMeasurements = new LinkedList<Measurement[]>();
             for (Learner subModel : subModels) {
+                if (this.modelSizeMeasurer != null && subModel instanceof AbstractClassifier
+                        && ((AbstractClassifier) subModel).modelSizeMeasurer == null) {
+                    ((AbstractClassifier) subModel).setModelSizeMeasurer(this.modelSizeMeasurer.newMeasurer());
+                }
                 if (subModel != null) {
                     subMeasurements.add(subModel.getModelMeasurements());
                 }
@@ -241,6 +251,36 @@ public abstract class AbstractClassifier extends AbstractOptionHandler
         }
     }
 
+    /**
+     * Sets how the model size reported in the model measurements is
+     * measured. Sub-models get a measurer of their own with the same mode.
+     *
+     * @param modelSizeMeasurer the measurer, or null to measure exactly
+     */
+    @Override
+    public void setModelSizeMeasurer(ModelSizeMeasurer modelSizeMeasurer) {
+        this.modelSizeMeasurer = modelSizeMeasurer;
+    }
+
+    /**
+     * Estimates the size of ensembles from the estimates of their
+     * sub-classifiers. Other classifiers are measured exactly unless they
+     * provide an estimate of their own.
+     */
+    @Override
+    public long estimateByteSize() {
+        Classifier[] subClassifiers = getSubClassifiers();
+        if (subClassifiers == null) {
+            return measureByteSize();
+        }
+        long size = SizeOf.estimateObject(8, 2 * 4 + 8)
+                + SizeOf.estimateArray(subClassifiers.length, SizeOf.REFERENCE);
+        for (Classifier subClassifier : subClassifiers) {
+            size += SizeOf.estimate(subClassifier);
+        }
+        return size;
+    }
+
     @Override
     public Learner[] getSublearners() {
         return getSubClassifiers();
@@ -22,7 +22,9 @@ package moa.classifiers;
 import moa.core.Example;
 import moa.learners.Learner;
 
+import com.yahoo.labs.samoa.instances.BatchInstance;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 import com.yahoo.labs.samoa.instances.InstanceData;
 import com.yahoo.labs.samoa.instances.Prediction;
 
@@ -77,6 +79,36 @@ public interface Classifier extends Learner<Example<Instance>> {
      */
     public double[] getVotesForInstance(Instance inst);
 
+    /**
+     * Trains this learner on every row of the given batch, in order. The
+     * default materializes each row, since a learner may keep a reference to
+     * the instances it is trained on. Learners that never retain instances
+     * can override this and train on a reused batch view instead.
+     *
+     * @param batch the instances to be used for training
+     */
+    default void trainOnInstances(InstanceBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            trainOnInstance(batch.materialize(i));
+        }
+    }
+
+    /**
+     * Predicts the class memberships for every row of the given batch, using
+     * a single reused view over the batch.
+     *
+     * @param batch the instances to be classified
+     * @return the votes for each row, in order
+     */
+    default double[][] getVotesForInstances(InstanceBatch batch) {
+        double[][] votes = new double[batch.size()][];
+        BatchInstance view = batch.newView();
+        for (int i = 0; i < votes.length; i++) {
+            votes[i] = getVotesForInstance(view.setRow(i));
+        }
+        return votes;
+    }
+
     /**
      * Sets the reference to the header of the data stream. The header of the
      * data stream is extended from WEKA
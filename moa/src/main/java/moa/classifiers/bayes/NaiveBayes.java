@@ -30,8 +30,11 @@ import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserve
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
+import moa.core.SizeOf;
 import moa.core.StringUtils;
+import com.yahoo.labs.samoa.instances.BatchInstance;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 
 /**
  * Naive Bayes incremental learner.
@@ -82,12 +85,31 @@ public class NaiveBayes extends AbstractClassifier  implements MultiClassClassif
         }
     }
 
+    /**
+     * Naive Bayes only keeps sufficient statistics, so the rows are trained
+     * through a single reused view instead of being materialized.
+     */
+    @Override
+    public void trainOnInstances(InstanceBatch batch) {
+        BatchInstance view = batch.newView();
+        for (int i = 0; i < batch.size(); i++) {
+            trainOnInstance(view.setRow(i));
+        }
+    }
+
     @Override
     public double[] getVotesForInstance(Instance inst) {
         return doNaiveBayesPrediction(inst, this.observedClassDistribution,
                 this.attributeObservers);
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(6, 8 + 4)
+                + SizeOf.estimate(this.observedClassDistribution)
+                + SizeOf.estimate(this.attributeObservers);
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
@@ -0,0 +1,393 @@
+/*
+ *    ArrayBinaryTreeNumericAttributeClassObserver.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.attributeclassobservers;
+
+import java.util.Arrays;
+
+import com.github.javacliparser.IntOption;
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.GaussianEstimator;
+import moa.core.ObjectRepository;
+import moa.core.SizeOf;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Class for observing the class data distribution for a numeric attribute
+ * using a binary tree stored in primitive arrays.
+ *
+ * It builds the same tree as {@link BinaryTreeNumericAttributeClassObserver}
+ * and gives the same split suggestions, but keeps the cut points, the child
+ * indices and the class counts of all nodes in parallel arrays instead of one
+ * node object with two <code>DoubleVector</code>s per distinct value. The
+ * class counts of node <code>n</code> are stored at
+ * <code>n * stride .. n * stride + stride - 1</code>, where the stride is the
+ * number of classes seen so far.
+ *
+ * The number of nodes can be bounded. Once the limit is reached, new values
+ * are only added to the counts of the nodes on their path, so they are
+ * attributed to the cut point of the last node visited.
+ *
+ * The probability of a value given a class, used by naive Bayes leaves, is
+ * estimated from a normal distribution per class, as by
+ * {@link GaussianNumericAttributeClassObserver}.
+ */
+public class ArrayBinaryTreeNumericAttributeClassObserver extends AbstractOptionHandler
+        implements NumericAttributeClassObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption maxNodesOption = new IntOption("maxNodes", 'm',
+            "Maximum number of distinct values kept in the tree, 0 for no limit.",
+            0, 0, Integer.MAX_VALUE);
+
+    protected static final int NONE = -1;
+
+    protected static final int INITIAL_CAPACITY = 8;
+
+    /** The number of nodes in use. Node 0 is the root. */
+    protected int numNodes;
+
+    /** The number of class counts stored per node. */
+    protected int stride;
+
+    protected double[] cutPoints;
+
+    /** The left and the right child of each node, interleaved. */
+    protected int[] children;
+
+    /**
+     * The lengths of the left and the right class count vectors of each node,
+     * interleaved, as a <code>DoubleVector</code> would have grown them.
+     */
+    protected int[] lengths;
+
+    protected double[] countsLeft;
+
+    protected double[] countsRight;
+
+    /** Weight, mean and variance sum of the values of each class, as kept by a GaussianEstimator. */
+    protected double[] classWeights;
+
+    protected double[] classMeans;
+
+    protected double[] classVarianceSums;
+
+    /** Left and right distributions of each depth of the split search. */
+    protected transient double[] searchBuffer;
+
+    /** Arrays of each length handed to the split criterion. */
+    protected transient double[][] evaluationLeft;
+
+    protected transient double[][] evaluationRight;
+
+    @Override
+    public void observeAttributeClass(double attVal, int classVal, double weight) {
+        if (Double.isNaN(attVal)) { //Instance.isMissingValue(attVal)
+            return;
+        }
+        ensureStride(classVal + 1);
+        addToGaussian(classVal, attVal, weight);
+        if (this.numNodes == 0) {
+            newNode(attVal, classVal, weight);
+            return;
+        }
+        double[] cutPoints = this.cutPoints;
+        int[] children = this.children;
+        int[] lengths = this.lengths;
+        int stride = this.stride;
+        int node = 0;
+        while (true) {
+            double cutPoint = cutPoints[node];
+            int side;
+            if (attVal <= cutPoint) {
+                this.countsLeft[node * stride + classVal] += weight;
+                side = 0;
+            } else { // attVal > cutPoint
+                this.countsRight[node * stride + classVal] += weight;
+                side = 1;
+            }
+            if (lengths[2 * node + side] <= classVal) {
+                lengths[2 * node + side] = classVal + 1;
+            }
+            if (attVal == cutPoint) {
+                return;
+            }
+            int child = children[2 * node + side];
+            if (child == NONE) {
+                int maxNodes = this.maxNodesOption.getValue();
+                if (maxNodes == 0 || this.numNodes < maxNodes) {
+                    child = newNode(attVal, classVal, weight);
+                    this.children[2 * node + side] = child;
+                }
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Updates the normal distribution of a class like
+     * {@link GaussianEstimator#addObservation}.
+     */
+    protected void addToGaussian(int classVal, double value, double weight) {
+        if (Double.isInfinite(value)) {
+            return;
+        }
+        double weightSum = this.classWeights[classVal];
+        if (weightSum > 0.0) {
+            weightSum += weight;
+            this.classWeights[classVal] = weightSum;
+            double lastMean = this.classMeans[classVal];
+            double mean = lastMean + weight * (value - lastMean) / weightSum;
+            this.classMeans[classVal] = mean;
+            this.classVarianceSums[classVal] += weight * (value - lastMean) * (value - mean);
+        } else {
+            this.classMeans[classVal] = value;
+            this.classWeights[classVal] = weight;
+        }
+    }
+
+    protected void addToCounts(double[] counts, int node, int side, int classVal, double weight) {
+        counts[node * this.stride + classVal] += weight;
+        if (this.lengths[2 * node + side] <= classVal) {
+            this.lengths[2 * node + side] = classVal + 1;
+        }
+    }
+
+    protected int newNode(double val, int classVal, double weight) {
+        if (this.cutPoints == null) {
+            allocate(INITIAL_CAPACITY);
+        } else if (this.numNodes == this.cutPoints.length) {
+            allocate(2 * this.cutPoints.length);
+        }
+        int node = this.numNodes++;
+        this.cutPoints[node] = val;
+        this.children[2 * node] = NONE;
+        this.children[2 * node + 1] = NONE;
+        addToCounts(this.countsLeft, node, 0, classVal, weight);
+        return node;
+    }
+
+    protected void allocate(int capacity) {
+        if (this.cutPoints == null) {
+            this.cutPoints = new double[capacity];
+            this.children = new int[2 * capacity];
+            this.lengths = new int[2 * capacity];
+            this.countsLeft = new double[capacity * this.stride];
+            this.countsRight = new double[capacity * this.stride];
+        } else {
+            this.cutPoints = Arrays.copyOf(this.cutPoints, capacity);
+            this.children = Arrays.copyOf(this.children, 2 * capacity);
+            this.lengths = Arrays.copyOf(this.lengths, 2 * capacity);
+            this.countsLeft = Arrays.copyOf(this.countsLeft, capacity * this.stride);
+            this.countsRight = Arrays.copyOf(this.countsRight, capacity * this.stride);
+        }
+    }
+
+    /**
+     * Widens the rows of class counts when a new class index is observed.
+     */
+    protected void ensureStride(int numClasses) {
+        if (numClasses <= this.stride) {
+            return;
+        }
+        if (this.cutPoints != null) {
+            this.countsLeft = widen(this.countsLeft, numClasses);
+            this.countsRight = widen(this.countsRight, numClasses);
+        }
+        if (this.classWeights == null) {
+            this.classWeights = new double[numClasses];
+            this.classMeans = new double[numClasses];
+            this.classVarianceSums = new double[numClasses];
+        } else {
+            this.classWeights = Arrays.copyOf(this.classWeights, numClasses);
+            this.classMeans = Arrays.copyOf(this.classMeans, numClasses);
+            this.classVarianceSums = Arrays.copyOf(this.classVarianceSums, numClasses);
+        }
+        this.stride = numClasses;
+    }
+
+    protected double[] widen(double[] counts, int newStride) {
+        double[] widened = new double[this.cutPoints.length * newStride];
+        for (int node = 0; node < this.numNodes; node++) {
+            System.arraycopy(counts, node * this.stride, widened, node * newStride, this.stride);
+        }
+        return widened;
+    }
+
+    /**
+     * Gets the number of distinct values stored in the tree.
+     *
+     * @return the number of nodes
+     */
+    public int getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Gets the density of the value in the normal distribution of the class,
+     * like {@link GaussianEstimator#probabilityDensity}.
+     */
+    @Override
+    public double probabilityOfAttributeValueGivenClass(double attVal,
+            int classVal) {
+        if (classVal >= this.stride) {
+            return 0.0;
+        }
+        double weightSum = this.classWeights[classVal];
+        if (weightSum > 0.0) {
+            double mean = this.classMeans[classVal];
+            double variance = weightSum > 1.0 ? this.classVarianceSums[classVal] / (weightSum - 1.0) : 0.0;
+            double stdDev = Math.sqrt(variance);
+            if (stdDev > 0.0) {
+                double diff = attVal - mean;
+                return (1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev))
+                        * Math.exp(-(diff * diff / (2.0 * stdDev * stdDev)));
+            }
+            return attVal == mean ? 1.0 : 0.0;
+        }
+        return 0.0;
+    }
+
+    @Override
+    public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
+            SplitCriterion criterion, double[] preSplitDist, int attIndex,
+            boolean binaryOnly) {
+        if (this.numNodes == 0) {
+            return null;
+        }
+        if (this.evaluationLeft == null || this.evaluationLeft.length <= this.stride) {
+            this.evaluationLeft = new double[this.stride + 1][];
+            this.evaluationRight = new double[this.stride + 1][];
+            for (int length = 0; length <= this.stride; length++) {
+                this.evaluationLeft[length] = new double[length];
+                this.evaluationRight[length] = new double[length];
+            }
+        }
+        if (this.searchBuffer == null) {
+            this.searchBuffer = new double[16 * this.stride];
+        }
+        return searchForBestSplitOption(0, null, NONE, 0, 0, false,
+                criterion, preSplitDist, attIndex, 0);
+    }
+
+    /**
+     * Walks the tree like
+     * {@link BinaryTreeNumericAttributeClassObserver#searchForBestSplitOption},
+     * doing the same arithmetic on the rows of the search buffer. The
+     * distributions of the parent are the rows of the previous depth.
+     */
+    protected AttributeSplitSuggestion searchForBestSplitOption(
+            int node, AttributeSplitSuggestion currentBestOption,
+            int parentNode, int parentLeftLength, int parentRightLength, boolean leftChild,
+            SplitCriterion criterion, double[] preSplitDist, int attIndex, int depth) {
+        if (node == NONE) {
+            return currentBestOption;
+        }
+        int stride = this.stride;
+        int offset = 2 * stride * depth;
+        if (this.searchBuffer.length < offset + 2 * stride) {
+            this.searchBuffer = Arrays.copyOf(this.searchBuffer,
+                    Math.max(offset + 2 * stride, 2 * this.searchBuffer.length));
+        }
+        double[] buffer = this.searchBuffer;
+        int left = offset;
+        int right = offset + stride;
+        int counts = node * stride;
+        int nodeLeftLength = this.lengths[2 * node];
+        int nodeRightLength = this.lengths[2 * node + 1];
+        int leftLength;
+        int rightLength;
+        if (parentNode == NONE) {
+            System.arraycopy(this.countsLeft, counts, buffer, left, stride);
+            System.arraycopy(this.countsRight, counts, buffer, right, stride);
+            leftLength = nodeLeftLength;
+            rightLength = nodeRightLength;
+        } else {
+            int parentLeft = offset - 2 * stride;
+            int parentRight = parentLeft + stride;
+            if (leftChild) {
+                //get the exact statistics of the parent value
+                int parentCounts = parentNode * stride;
+                for (int i = 0; i < stride; i++) {
+                    double exactParent = this.countsLeft[parentCounts + i]
+                            - this.countsLeft[counts + i] - this.countsRight[counts + i];
+                    // move the subtrees and the exact value from the parent
+                    buffer[left + i] = buffer[parentLeft + i] - this.countsRight[counts + i] - exactParent;
+                    buffer[right + i] = buffer[parentRight + i] + this.countsRight[counts + i] + exactParent;
+                }
+                int exactLength = Math.max(this.lengths[2 * parentNode],
+                        Math.max(nodeLeftLength, nodeRightLength));
+                leftLength = Math.max(parentLeftLength, Math.max(nodeRightLength, exactLength));
+                rightLength = Math.max(parentRightLength, Math.max(nodeRightLength, exactLength));
+            } else {
+                for (int i = 0; i < stride; i++) {
+                    buffer[left + i] = buffer[parentLeft + i] + this.countsLeft[counts + i];
+                    buffer[right + i] = buffer[parentRight + i] - this.countsLeft[counts + i];
+                }
+                leftLength = Math.max(parentLeftLength, nodeLeftLength);
+                rightLength = Math.max(parentRightLength, nodeLeftLength);
+            }
+        }
+        double[] leftDist = this.evaluationLeft[leftLength];
+        double[] rightDist = this.evaluationRight[rightLength];
+        System.arraycopy(buffer, left, leftDist, 0, leftLength);
+        System.arraycopy(buffer, right, rightDist, 0, rightLength);
+        double[][] postSplitDists = new double[][]{leftDist, rightDist};
+        double merit = criterion.getMeritOfSplit(preSplitDist, postSplitDists);
+        if ((currentBestOption == null) || (merit > currentBestOption.merit)) {
+            currentBestOption = new AttributeSplitSuggestion(
+                    new NumericAttributeBinaryTest(attIndex,
+                    this.cutPoints[node], true),
+                    new double[][]{leftDist.clone(), rightDist.clone()}, merit);
+        }
+        currentBestOption = searchForBestSplitOption(this.children[2 * node],
+                currentBestOption, node, leftLength, rightLength, true,
+                criterion, preSplitDist, attIndex, depth + 1);
+        currentBestOption = searchForBestSplitOption(this.children[2 * node + 1],
+                currentBestOption, node, leftLength, rightLength, false,
+                criterion, preSplitDist, attIndex, depth + 1);
+        return currentBestOption;
+    }
+
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(12, 2 * 4)
+                + SizeOf.estimateArray(this.cutPoints) + SizeOf.estimateArray(this.children)
+                + SizeOf.estimateArray(this.lengths) + SizeOf.estimateArray(this.countsLeft)
+                + SizeOf.estimateArray(this.countsRight) + SizeOf.estimateArray(this.classWeights)
+                + SizeOf.estimateArray(this.classMeans) + SizeOf.estimateArray(this.classVarianceSums);
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
+    }
+
+    @Override
+    public void observeAttributeTarget(double attVal, double target) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+}
@@ -26,6 +26,7 @@ import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.DoubleVector;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 import moa.tasks.TaskMonitor;
 
@@ -80,6 +81,19 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
                 }
             }
         }
+
+        public long estimateByteSizeIncludingSubtree() {
+            long byteSize = SizeOf.estimateObject(5, 8)
+                    + this.classCountsLeft.estimateByteSize()
+                    + this.classCountsRight.estimateByteSize();
+            if (this.left != null) {
+                byteSize += this.left.estimateByteSizeIncludingSubtree();
+            }
+            if (this.right != null) {
+                byteSize += this.right.estimateByteSizeIncludingSubtree();
+            }
+            return byteSize;
+        }
     }
 
     public Node root = null;
@@ -165,6 +179,12 @@ public class BinaryTreeNumericAttributeClassObserver extends AbstractOptionHandl
         return currentBestOption;
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(2, 0)
+                + (this.root == null ? 0 : this.root.estimateByteSizeIncludingSubtree());
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
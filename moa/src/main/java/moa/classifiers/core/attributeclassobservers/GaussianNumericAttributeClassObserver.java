@@ -32,6 +32,7 @@ import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.GaussianEstimator;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 import com.github.javacliparser.IntOption;
 
@@ -86,6 +87,14 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         return obs != null ? obs.probabilityDensity(attVal) : 0.0;
     }
 
+    /**
+     * Gets the estimator of the values observed with a class, or null if no
+     * value was observed with it.
+     */
+    public GaussianEstimator getEstimator(int classVal) {
+        return this.attValDistPerClass.get(classVal);
+    }
+
     @Override
     public AttributeSplitSuggestion getBestEvaluatedSplitSuggestion(
             SplitCriterion criterion, double[] preSplitDist, int attIndex,
@@ -171,6 +180,14 @@ public class GaussianNumericAttributeClassObserver extends AbstractOptionHandler
         return new double[][]{lhsDist.getArrayRef(), rhsDist.getArrayRef()};
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(5, 0)
+                + this.minValueObservedPerClass.estimateByteSize()
+                + this.maxValueObservedPerClass.estimateByteSize()
+                + this.attValDistPerClass.estimateByteSize();
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -29,6 +29,7 @@ import moa.core.Utils;
 
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
+import moa.core.SizeOf;
 import moa.options.AbstractOptionHandler;
 
 /**
@@ -187,6 +188,12 @@ public class NominalAttributeClassObserver extends AbstractOptionHandler impleme
                 notEqualDist.getArrayRef()};
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(2, 2 * 8)
+                + this.attValDistPerClass.estimateByteSize();
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
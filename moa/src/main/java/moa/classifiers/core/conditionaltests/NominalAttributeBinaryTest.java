@@ -21,6 +21,7 @@ package moa.classifiers.core.conditionaltests;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.SizeOf;
 
 /**
  * Nominal binary conditional test for instances to use to split nodes in Hoeffding trees.
@@ -64,6 +65,11 @@ public class NominalAttributeBinaryTest extends InstanceConditionalBinaryTest {
         throw new IndexOutOfBoundsException();
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(0, 8);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
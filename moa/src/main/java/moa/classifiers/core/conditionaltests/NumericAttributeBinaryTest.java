@@ -21,6 +21,7 @@ package moa.classifiers.core.conditionaltests;
 
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import com.yahoo.labs.samoa.instances.Instance;
+import moa.core.SizeOf;
 
 /**
  * Numeric binary conditional test for instances to use to split nodes in Hoeffding trees.
@@ -49,6 +50,14 @@ public class NumericAttributeBinaryTest extends InstanceConditionalBinaryTest {
         return attValue;
     }
 
+    /**
+     * Whether instances with a value equal to the split value go to the
+     * first branch.
+     */
+    public boolean isEqualsPassesTest() {
+        return equalsPassesTest;
+    }
+
     @Override
     public int branchForInstance(Instance inst) {
         int instAttIndex = this.attIndex ; // < inst.classIndex() ? this.attIndex
@@ -79,6 +88,11 @@ public class NumericAttributeBinaryTest extends InstanceConditionalBinaryTest {
         throw new IndexOutOfBoundsException();
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(0, 13);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
@@ -20,6 +20,7 @@
 package moa.classifiers.core.driftdetection;
 
 import moa.AbstractMOAObject;
+import moa.core.SizeOf;
 
 /**
  * ADaptive sliding WINdow method. This method is a change detector and estimator.
@@ -602,6 +603,19 @@ public class ADWIN extends AbstractMOAObject {
     public void setW(int W0) {
     }
 
+    /**
+     * Estimates the size from the number of bucket rows, which is kept up to
+     * date as the window grows and shrinks.
+     */
+    @Override
+    public long estimateByteSize() {
+        long bucketRow = SizeOf.estimateObject(3, 2 * 4)
+                + 2 * SizeOf.estimateArray(MAXBUCKETS + 1, 8);
+        return SizeOf.estimateObject(1, 4 * 8 + 10 * 4 + 1)
+                + SizeOf.estimateObject(3, 4)
+                + (this.listRowBuckets == null ? 0 : this.listRowBuckets.size() * bucketRow);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
     }
@@ -20,6 +20,7 @@ package moa.classifiers.core.driftdetection;
 
 import com.github.javacliparser.FloatOption;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.tasks.TaskMonitor;
 
 /**
@@ -63,6 +64,11 @@ public class ADWINChangeDetector extends AbstractChangeDetector {
         super.resetLearning();
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(3, 3 + 2 * 8) + SizeOf.estimate(this.adwin);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
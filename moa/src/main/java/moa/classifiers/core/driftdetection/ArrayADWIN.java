@@ -0,0 +1,412 @@
+/*
+ *    ArrayADWIN.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.driftdetection;
+
+import moa.AbstractMOAObject;
+import moa.core.SizeOf;
+
+/**
+ * ADaptive sliding WINdow method with the exponential histogram kept in flat
+ * arrays. It detects the same changes and gives the same estimates as
+ * {@link ADWIN}, but stores all buckets in a single <code>double[]</code>
+ * instead of a linked list of rows, so inserting an element never allocates
+ * (apart from growing the arrays when the window doubles) and an instance
+ * needs roughly half the memory.
+ *
+ * Row <code>i</code> holds the buckets of size <code>2^i</code>. Each row is a
+ * ring of <code>MAXBUCKETS</code> slots, so removing the oldest buckets of a
+ * row when merging or shrinking the window does not shift the others. Unlike
+ * ADWIN, which appends to a row and then merges its two oldest buckets once it
+ * holds <code>MAXBUCKETS + 1</code>, full rows are merged before appending;
+ * the buckets, and so the statistics, are the same.
+ *
+ * @version $Revision: 7 $
+ */
+public class ArrayADWIN extends AbstractMOAObject {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final double DELTA = ADWIN.DELTA;
+
+    public static final int MAXBUCKETS = ADWIN.MAXBUCKETS;
+
+    /** The number of slots of a row. */
+    private static final int ROW_SLOTS = MAXBUCKETS;
+
+    private static final int mintMinimLongitudWindow = 10;
+
+    private double mdbldelta = .002;
+
+    private int mintTime = 0;
+
+    private int mintClock = 32;
+
+    private double mdblWidth = 0;
+
+    private int lastBucketRow = 0;
+
+    private double TOTAL = 0;
+
+    private double VARIANCE = 0;
+
+    private int WIDTH = 0;
+
+    private int BucketNumber = 0;
+
+    private int Detect = 0;
+
+    private int numberDetections = 0;
+
+    private int DetectTwice = 0;
+
+    private boolean blnBucketDeleted = false;
+
+    private int BucketNumberMAX = 0;
+
+    private int mintMinWinLength = 5;
+
+    /**
+     * Total and variance of each bucket, interleaved: the bucket in slot
+     * <code>s</code> of row <code>i</code> is at
+     * <code>2 * (i * ROW_SLOTS + s)</code>.
+     */
+    private double[] buckets;
+
+    /**
+     * First slot and number of buckets of each row, interleaved.
+     */
+    private int[] rows;
+
+    public ArrayADWIN() {
+        this(DELTA);
+    }
+
+    public ArrayADWIN(double d) {
+        mdbldelta = d;
+        initBuckets();
+        Detect = 0;
+        numberDetections = 0;
+        DetectTwice = 0;
+    }
+
+    public ArrayADWIN(int cl) {
+        this(DELTA);
+        mintClock = cl;
+    }
+
+    public boolean getChange() {
+        return blnBucketDeleted;
+    }
+
+    public void resetChange() {
+        blnBucketDeleted = false;
+    }
+
+    public int getBucketsUsed() {
+        return BucketNumberMAX;
+    }
+
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    public void setClock(int intClock) {
+        mintClock = intClock;
+    }
+
+    public int getClock() {
+        return mintClock;
+    }
+
+    public boolean getWarning() {
+        return false;
+    }
+
+    public boolean getDetect() {
+        return (Detect == mintTime);
+    }
+
+    public int getNumberDetections() {
+        return numberDetections;
+    }
+
+    public double getTotal() {
+        return TOTAL;
+    }
+
+    public double getEstimation() {
+        return TOTAL / WIDTH;
+    }
+
+    public double getVariance() {
+        return VARIANCE / WIDTH;
+    }
+
+    public double getWidthT() {
+        return mdblWidth;
+    }
+
+    private void initBuckets() {
+        buckets = new double[2 * ROW_SLOTS];
+        rows = new int[2];
+        lastBucketRow = 0;
+        TOTAL = 0;
+        VARIANCE = 0;
+        WIDTH = 0;
+        BucketNumber = 0;
+    }
+
+    /**
+     * Gets the number of buckets in a row.
+     */
+    private int rowSize(int row) {
+        return rows[2 * row + 1];
+    }
+
+    /**
+     * Gets the index in <code>buckets</code> of the k-th oldest bucket of a
+     * row.
+     */
+    private int bucketIndex(int row, int k) {
+        int slot = rows[2 * row] + k;
+        if (slot >= ROW_SLOTS) {
+            slot -= ROW_SLOTS;
+        }
+        return 2 * (row * ROW_SLOTS + slot);
+    }
+
+    /**
+     * Appends a bucket to the end of a row.
+     */
+    private void insertBucket(int row, double value, double variance) {
+        int index = bucketIndex(row, rows[2 * row + 1]);
+        buckets[index] = value;
+        buckets[index + 1] = variance;
+        rows[2 * row + 1]++;
+    }
+
+    /**
+     * Removes the oldest buckets of a row.
+     */
+    private void removeBuckets(int row, int numberItemsDeleted) {
+        int start = rows[2 * row] + numberItemsDeleted;
+        rows[2 * row] = start >= ROW_SLOTS ? start - ROW_SLOTS : start;
+        rows[2 * row + 1] -= numberItemsDeleted;
+    }
+
+    /**
+     * Adds an empty row after the last one. The arrays grow by one row at a
+     * time: a new row is only needed when the window doubles, so the copies
+     * cost amortized O(1) per element while keeping the arrays tight.
+     */
+    private void addRow() {
+        lastBucketRow++;
+        if (2 * lastBucketRow >= rows.length) {
+            double[] newBuckets = new double[buckets.length + 2 * ROW_SLOTS];
+            System.arraycopy(buckets, 0, newBuckets, 0, buckets.length);
+            buckets = newBuckets;
+            int[] newRows = new int[rows.length + 2];
+            System.arraycopy(rows, 0, newRows, 0, rows.length);
+            rows = newRows;
+        }
+        rows[2 * lastBucketRow] = 0;
+        rows[2 * lastBucketRow + 1] = 0;
+    }
+
+    private void insertElement(double Value) {
+        WIDTH++;
+        BucketNumber++;
+        if (BucketNumber > BucketNumberMAX) {
+            BucketNumberMAX = BucketNumber;
+        }
+        compressBuckets();
+        insertBucket(0, Value, 0);
+        double incVariance = 0;
+        if (WIDTH > 1) {
+            incVariance = (WIDTH - 1) * (Value - TOTAL / (WIDTH - 1)) * (Value - TOTAL / (WIDTH - 1)) / WIDTH;
+        }
+        VARIANCE += incVariance;
+        TOTAL += Value;
+    }
+
+    private int bucketSize(int Row) {
+        return 1 << Row;
+    }
+
+    public int deleteElement() {
+        //Update statistics with the oldest bucket
+        int oldest = bucketIndex(lastBucketRow, 0);
+        int n1 = bucketSize(lastBucketRow);
+        WIDTH -= n1;
+        TOTAL -= buckets[oldest];
+        double u1 = buckets[oldest] / n1;
+        double incVariance = buckets[oldest + 1] + n1 * WIDTH * (u1 - TOTAL / WIDTH) * (u1 - TOTAL / WIDTH) / (n1 + WIDTH);
+        VARIANCE -= incVariance;
+
+        //Delete Bucket
+        removeBuckets(lastBucketRow, 1);
+        BucketNumber--;
+        if (rowSize(lastBucketRow) == 0) {
+            lastBucketRow--;
+        }
+        return n1;
+    }
+
+    /**
+     * Makes room for a new bucket in the first row. Starting from the last of
+     * the leading full rows, the two oldest buckets of each are merged into
+     * the next row, exactly as ADWIN does after the insertion.
+     */
+    private void compressBuckets() {
+        int full = 0;
+        while (full <= lastBucketRow && rowSize(full) == MAXBUCKETS) {
+            full++;
+        }
+        if (full > lastBucketRow) {
+            addRow();
+        }
+        int n1, n2;
+        double u2, u1, incVariance;
+        for (int i = full - 1; i >= 0; i--) {
+            int first = bucketIndex(i, 0);
+            int second = bucketIndex(i, 1);
+            n1 = bucketSize(i);
+            n2 = bucketSize(i);
+            u1 = buckets[first] / n1;
+            u2 = buckets[second] / n2;
+            incVariance = n1 * n2 * (u1 - u2) * (u1 - u2) / (n1 + n2);
+
+            insertBucket(i + 1, buckets[first] + buckets[second], buckets[first + 1] + buckets[second + 1] + incVariance);
+            BucketNumber++;
+            removeBuckets(i, 2);
+        }
+    }
+
+    public boolean setInput(double intEntrada) {
+        return setInput(intEntrada, mdbldelta);
+    }
+
+    public boolean setInput(double intEntrada, double delta) {
+        boolean blnChange = false;
+        boolean blnExit = false;
+        mintTime++;
+
+        //1,2)Increment window in one element
+        insertElement(intEntrada);
+        blnBucketDeleted = false;
+        //3)Reduce  window
+        if (mintTime % mintClock == 0 && getWidth() > mintMinimLongitudWindow) {
+            boolean blnReduceWidth = true;
+
+            while (blnReduceWidth) {
+                blnReduceWidth = false;
+                blnExit = false;
+                int n0 = 0;
+                int n1 = WIDTH;
+                double u0 = 0;
+                double u1 = getTotal();
+                double v0 = 0;
+                double v1 = VARIANCE;
+                double n2 = 0;
+                double u2 = 0;
+
+                //Traverse the buckets from the oldest to the newest
+                int i = lastBucketRow;
+                do {
+                    int rowSize = rowSize(i);
+                    for (int k = 0; k <= (rowSize - 1); k++) {
+                        int index = bucketIndex(i, k);
+                        n2 = bucketSize(i);
+                        u2 = buckets[index];
+                        if (n0 > 0) {
+                            v0 += buckets[index + 1] + (double) n0 * n2 * (u0 / n0 - u2 / n2) * (u0 / n0 - u2 / n2) / (n0 + n2);
+                        }
+                        if (n1 > 0) {
+                            v1 -= buckets[index + 1] + (double) n1 * n2 * (u1 / n1 - u2 / n2) * (u1 / n1 - u2 / n2) / (n1 + n2);
+                        }
+
+                        n0 += bucketSize(i);
+                        n1 -= bucketSize(i);
+                        u0 += buckets[index];
+                        u1 -= buckets[index];
+
+                        if (i == 0 && k == rowSize - 1) {
+                            blnExit = true;
+                            break;
+                        }
+                        double absvalue = (double) (u0 / n0) - (u1 / n1);
+                        if ((n1 > mintMinWinLength + 1 && n0 > mintMinWinLength + 1)
+                                && blnCutexpression(n0, n1, u0, u1, v0, v1, absvalue, delta)) {
+                            blnBucketDeleted = true;
+                            Detect = mintTime;
+
+                            if (Detect == 0) {
+                                Detect = mintTime;
+                            } else if (DetectTwice == 0) {
+                                DetectTwice = mintTime;
+                            }
+                            blnReduceWidth = true;
+                            blnChange = true;
+                            if (getWidth() > 0) { //Reduce width of the window
+                                n0 -= deleteElement();
+                                blnExit = true;
+                                break;
+                            }
+                        }
+                    }
+                    i--;
+                } while (!blnExit && i >= 0);
+            }
+        }
+
+        mdblWidth += getWidth();
+        if (blnChange) {
+            numberDetections++;
+        }
+        return blnChange;
+    }
+
+    private boolean blnCutexpression(int n0, int n1, double u0, double u1, double v0, double v1, double absvalue, double delta) {
+        int n = getWidth();
+        double dd = Math.log(2 * Math.log(n) / delta);
+        double v = getVariance();
+        double m = ((double) 1 / ((n0 - mintMinWinLength + 1))) + ((double) 1 / ((n1 - mintMinWinLength + 1)));
+        double epsilon = Math.sqrt(2 * m * v * dd) + (double) 2 / 3 * dd * m;
+
+        return (Math.abs(absvalue) > epsilon);
+    }
+
+    public String getEstimatorInfo() {
+        return "ADWIN;;";
+    }
+
+    public void setW(int W0) {
+    }
+
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(2, 4 * 8 + 11 * 4 + 1)
+                + SizeOf.estimateArray(this.buckets)
+                + SizeOf.estimateArray(this.rows);
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *    ArrayADWINChangeDetector.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.driftdetection;
+
+import com.github.javacliparser.FloatOption;
+import moa.core.ObjectRepository;
+import moa.core.SizeOf;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Drift detection method based in ADWIN, backed by {@link ArrayADWIN}. It
+ * detects the same changes as {@link ADWINChangeDetector} with a smaller and
+ * faster window, which pays off when a detector is kept per ensemble member
+ * or per tree node.
+ *
+ * @version $Revision: 7 $
+ */
+public class ArrayADWINChangeDetector extends AbstractChangeDetector {
+
+    private static final long serialVersionUID = 1L;
+
+    protected ArrayADWIN adwin;
+
+    public FloatOption deltaAdwinOption = new FloatOption("deltaAdwin", 'a',
+            "Delta of Adwin change detection", 0.002, 0.0, 1.0);
+
+    @Override
+    public void input(double inputValue) {
+        this.isChangeDetected = false;
+        if (this.adwin == null) {
+            resetLearning();
+        }
+        double ErrEstim = this.adwin.getEstimation();
+        if (this.adwin.setInput(inputValue)) {
+            if (this.adwin.getEstimation() > ErrEstim) {
+                this.isChangeDetected = true;
+            }
+        }
+        this.isWarningZone = false;
+        this.delay = 0.0;
+        this.estimation = this.adwin.getEstimation();
+    }
+
+    @Override
+    public void resetLearning() {
+        this.adwin = new ArrayADWIN((double) this.deltaAdwinOption.getValue());
+        super.resetLearning();
+    }
+
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(3, 3 + 2 * 8) + SizeOf.estimate(this.adwin);
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    protected void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+    }
+}
@@ -16,6 +16,7 @@
  *
  */
 package moa.classifiers.lazy;
+import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -27,6 +28,7 @@ import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.lazy.neighboursearch.KDTree;
 import moa.classifiers.lazy.neighboursearch.LinearNNSearch;
 import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
+import moa.classifiers.lazy.neighboursearch.WindowedNeighbourIndex;
 import moa.core.Measurement;
 /**
  * Reservoir Window k-Nearest Neighbors (RW_kNN)
@@ -62,12 +64,20 @@ public class RW_kNN extends AbstractClassifier implements MultiClassClassifier {
 
     public IntOption limitOptionReservoir = new IntOption("limitR", 'r', "The maximum number of instances to store in the reservoir", 500, 1, Integer.MAX_VALUE);
 
-    public MultiChoiceOption nearestNeighbourSearchOption = new MultiChoiceOption("nearestNeighbourSearch", 'n', "Nearest Neighbour Search to use", new String[]{"LinearNN", "KDTree"}, new String[]{"Brute force search algorithm for nearest neighbour search. ", "KDTree search algorithm for nearest neighbour search"}, 0);
+    public MultiChoiceOption nearestNeighbourSearchOption = new MultiChoiceOption("nearestNeighbourSearch", 'n', "Nearest Neighbour Search to use", new String[]{"LinearNN", "KDTree", "WindowIndex"}, new String[]{"Brute force search algorithm for nearest neighbour search. ", "KDTree search algorithm for nearest neighbour search", "Incremental indexes over the window and the reservoir, exact unless an approximation is set"}, 0);
+
+    public FloatOption approximationOption = new FloatOption("approximation", 'e', "Relative error allowed for the distance of the neighbours found by the window index (0 = exact search).", 0.0, 0.0, Double.MAX_VALUE);
 
     int C = 0;
     protected Instances window;
     protected Instances reservoir;
 
+    // the window and the reservoir when the window index is used
+    protected WindowedNeighbourIndex windowIndex;
+    protected WindowedNeighbourIndex reservoirIndex;
+    // the slot of each position of the reservoir
+    protected int[] reservoirSlots;
+
 
     @Override
     public void setModelContext(InstancesHeader context) {
@@ -87,6 +97,47 @@ public class RW_kNN extends AbstractClassifier implements MultiClassClassifier {
     public void resetLearningImpl() {
         this.window = null;
         this.reservoir = null;
+        this.windowIndex = null;
+        this.reservoirIndex = null;
+        this.reservoirSlots = null;
+    }
+
+    protected boolean useWindowIndex() {
+        return this.nearestNeighbourSearchOption.getChosenIndex() == 2;
+    }
+
+    protected void trainWindowIndex(Instance inst) {
+        if (this.windowIndex == null) {
+            this.windowIndex = new WindowedNeighbourIndex(inst.dataset(), true, this.approximationOption.getValue());
+            this.reservoirIndex = new WindowedNeighbourIndex(inst.dataset(), true, this.approximationOption.getValue());
+            this.reservoirSlots = new int[this.limitOptionReservoir.getValue()];
+        }
+        if (this.limitOptionReservoir.getValue() <= this.reservoirIndex.size()) {
+            int replaceIndex = this.classifierRandom.nextInt(this.limitOptionReservoir.getValue() - 1);
+            this.reservoirIndex.remove(this.reservoirSlots[replaceIndex]);
+            this.reservoirSlots[replaceIndex] = this.reservoirIndex.add(inst);
+        } else {
+            int position = this.reservoirIndex.size();
+            this.reservoirSlots[position] = this.reservoirIndex.add(inst);
+        }
+
+        if (this.limitOptionWindow.getValue() <= this.windowIndex.size())
+            this.windowIndex.removeOldest();
+
+        this.windowIndex.add(inst);
+    }
+
+    /**
+     * Gets the class values of the nearest neighbours in an index, including
+     * those at the same distance as the k-th neighbour as LinearNNSearch does.
+     */
+    protected double[] getNeighbourClassValues(WindowedNeighbourIndex index, Instance inst) {
+        int num = index.kNearestNeighbours(inst, Math.min(this.kOption.getValue(), index.size()), true);
+        double[] classValues = new double[num];
+        for (int i = 0; i < num; i++) {
+            classValues[i] = index.classValue(index.neighbour(i));
+        }
+        return classValues;
     }
 
     public void trainOnInstanceImpl(Instance inst) {
@@ -94,6 +145,10 @@ public class RW_kNN extends AbstractClassifier implements MultiClassClassifier {
         if (inst.classValue() > (double)this.C)
             this.C = (int)inst.classValue();
 
+        if (useWindowIndex()) {
+            trainWindowIndex(inst);
+            return;
+        }
         if (this.window == null) {
             this.window = new Instances(inst.dataset());
             this.reservoir = new Instances(inst.dataset());
@@ -113,6 +168,17 @@ public class RW_kNN extends AbstractClassifier implements MultiClassClassifier {
     public double[] getVotesForInstance(Instance inst) {
         double[] v = new double[this.C + 1];
         try {
+            if (useWindowIndex()) {
+                if (this.windowIndex != null && this.windowIndex.size() > 0) {
+                    double[] neighbours_Wind = getNeighbourClassValues(this.windowIndex, inst);
+                    double[] neighbours_Reser = getNeighbourClassValues(this.reservoirIndex, inst);
+                    for(int i = 0; i < neighbours_Reser.length; i++) {
+                        v[(int)neighbours_Wind[i]]++;
+                        v[(int)neighbours_Reser[i]]++;
+                    }
+                }
+                return v;
+            }
             NearestNeighbourSearch search;
             NearestNeighbourSearch searchR;
             if (this.nearestNeighbourSearchOption.getChosenIndex() == 0) {
@@ -1,19 +1,23 @@
 package moa.classifiers.lazy;
 
+import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.lazy.neighboursearch.WindowedNeighbourIndex;
 import moa.core.Measurement;
+import moa.core.SizeOf;
 
 /**
  * Weighted k-Nearest Neighbor.<p>
  *
  * Valid options are:<p>
  *
- * -k number of neighbours <br> -m max instances <br> 
+ * -k number of neighbours <br> -m max instances <br> -n nearest neighbour search <br> 
  *
  * @author Maroua Bahri (maroua.bahri@inria.fr)
  * Paper:
@@ -38,6 +42,17 @@ public class WeightedkNN extends AbstractClassifier implements MultiClassClassif
 
 	public IntOption limitOption = new IntOption( "limit", 'w', "The maximum number of instances to store", 1000, 1, Integer.MAX_VALUE);
 
+	public MultiChoiceOption nearestNeighbourSearchOption = new MultiChoiceOption(
+			"nearestNeighbourSearch", 'n', "Nearest Neighbour Search to use", new String[]{
+				"LinearNN", "WindowIndex"},
+			new String[]{"Brute force search algorithm for nearest neighbour search. ",
+				"Incremental index over the window, exact unless an approximation is set"
+			}, 0);
+
+	public FloatOption approximationOption = new FloatOption("approximation", 'e',
+			"Relative error allowed for the distance of the neighbours found by the window index (0 = exact search).",
+			0.0, 0.0, Double.MAX_VALUE);
+
 	int C = 0;
     @Override
     public String getPurposeString() {
@@ -46,6 +61,9 @@ public class WeightedkNN extends AbstractClassifier implements MultiClassClassif
 
     protected Instances window;
 
+	// the window when the window index is used, indexed for the unnormalized Euclidean distance
+	protected WindowedNeighbourIndex index;
+
 
 	@Override
 	public void setModelContext(InstancesHeader context) {
@@ -62,10 +80,27 @@ public class WeightedkNN extends AbstractClassifier implements MultiClassClassif
     @Override
     public void resetLearningImpl() {
 		this.window = null;
+		this.index = null;
+	}
+
+	protected boolean useWindowIndex() {
+		return this.nearestNeighbourSearchOption.getChosenIndex() == 1;
 	}
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
+		if (useWindowIndex()) {
+			if (inst.classValue() > C)
+				C = (int)inst.classValue();
+			if (this.index == null) {
+				this.index = new WindowedNeighbourIndex(inst.dataset(), false, this.approximationOption.getValue());
+			}
+			if (this.limitOption.getValue() <= this.index.size()) {
+				this.index.removeOldest();
+			}
+			this.index.add(inst);
+			return;
+		}
 		// Weight the most recent instance
 		inst.setWeight(2);
 		if (inst.classValue() > C)
@@ -97,12 +132,35 @@ public class WeightedkNN extends AbstractClassifier implements MultiClassClassif
 		}
 	}
 
+	/** The weight of the instance in a slot of the window index, the same as the one
+	 *  updateWeights() gives to the instance at that position of the window. The weights
+	 *  are computed when voting instead of being stored in the instances.
+	 */
+	private double getWeight(int slot){
+		int size = this.index.size();
+		if (size == 1) {
+			return 2;
+		}
+		int i = (int) (this.index.sequence(slot) - this.index.sequence(this.index.first()));
+		return 2-(double)(size-i-1)/(size-1);
+	}
+
 
 	@Override
 	public double[] getVotesForInstance(Instance inst) {
 		double v[] = new double[C+1];
 		try {
-			if(this.window.numInstances()>0) {
+			if (useWindowIndex()) {
+				if (this.index != null && this.index.size()>0) {
+					// exactly k neighbours, the oldest first among equally distant ones
+					int num = this.index.kNearestNeighbours(inst, Math.min(kOption.getValue(), this.index.size()), false);
+
+					for (int i = 0; i < num; i++) {
+						int slot = this.index.neighbour(i);
+						v[(int) this.index.classValue(slot)]+=getWeight(slot);
+					}
+				}
+			} else if(this.window.numInstances()>0) {
 				int [] knnW = kNN(inst, this.window, Math.min(kOption.getValue(), this.window.numInstances()));
 
 				for (int nnIdx : knnW) {
@@ -210,6 +268,12 @@ public class WeightedkNN extends AbstractClassifier implements MultiClassClassif
 		return nArgMin(n, values, 0, values.length-1);
 	}
 
+	@Override
+	public long estimateByteSize() {
+		return SizeOf.estimateObject(10, 8 + 4) + SizeOf.estimateDense(this.window)
+				+ (this.index == null ? 0 : this.index.estimateByteSize());
+	}
+
 	@Override
 	protected Measurement[] getModelMeasurementsImpl() {
 		return null;
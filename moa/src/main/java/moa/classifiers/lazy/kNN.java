@@ -21,13 +21,16 @@ import java.io.StringReader;
 import java.util.Arrays;
 
 import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.FloatOption;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.Regressor;
 import moa.classifiers.lazy.neighboursearch.KDTree;
 import moa.classifiers.lazy.neighboursearch.LinearNNSearch;
 import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
+import moa.classifiers.lazy.neighboursearch.WindowedNeighbourIndex;
 import moa.core.Measurement;
+import moa.core.SizeOf;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
@@ -40,6 +43,7 @@ import com.github.javacliparser.MultiChoiceOption;
  * Valid options are:<p>
  *
  * -k number of neighbours <br> -m max instances <br> 
+ * -n nearest neighbour search <br> -e approximation of the window index <br>
  *
  * @author Jesse Read (jesse@tsc.uc3m.es)
  * @version 03.2012
@@ -57,11 +61,16 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 
         public MultiChoiceOption nearestNeighbourSearchOption = new MultiChoiceOption(
             "nearestNeighbourSearch", 'n', "Nearest Neighbour Search to use", new String[]{
-                "LinearNN", "KDTree"},
+                "LinearNN", "KDTree", "WindowIndex"},
             new String[]{"Brute force search algorithm for nearest neighbour search. ",
-                "KDTree search algorithm for nearest neighbour search"
+                "KDTree search algorithm for nearest neighbour search",
+                "Incremental index over the window, exact unless an approximation is set"
             }, 0);
 
+	public FloatOption approximationOption = new FloatOption("approximation", 'e',
+			"Relative error allowed for the distance of the neighbours found by the window index (0 = exact search).",
+			0.0, 0.0, Double.MAX_VALUE);
+
 
 	int C = 0;
 
@@ -72,6 +81,9 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 
     protected Instances window; 
 
+	// the window when the window index is used, instead of the window instances
+	protected WindowedNeighbourIndex index;
+
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
@@ -87,12 +99,31 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
     @Override
     public void resetLearningImpl() {
 		this.window = null;
+		this.index = null;
     }
 
+	protected boolean useWindowIndex() {
+		return this.nearestNeighbourSearchOption.getChosenIndex() == 2;
+	}
+
+	protected WindowedNeighbourIndex newWindowIndex(Instance inst) {
+		return new WindowedNeighbourIndex(inst.dataset(), true, this.approximationOption.getValue());
+	}
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
 		if (inst.classValue() > C)
 			C = (int)inst.classValue();
+		if (useWindowIndex()) {
+			if (this.index == null) {
+				this.index = newWindowIndex(inst);
+			}
+			if (this.limitOption.getValue() <= this.index.size()) {
+				this.index.removeOldest();
+			}
+			this.index.add(inst);
+			return;
+		}
 		if (this.window == null) {
 			this.window = new Instances(inst.dataset());
 		}
@@ -102,33 +133,64 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 		this.window.add(inst);
     }
 
+	/**
+	 * Gets the class values of the nearest neighbours of an instance in the
+	 * window, including those at the same distance as the k-th neighbour.
+	 *
+	 * @param inst the instance
+	 * @return the class values, empty if the window is empty
+	 * @throws Exception if the search fails
+	 */
+	protected double[] getNeighbourClassValues(Instance inst) throws Exception {
+		if (useWindowIndex()) {
+			if (this.index == null) {
+				return new double[0];
+			}
+			int num = this.index.kNearestNeighbours(inst, Math.min(kOption.getValue(), this.index.size()), true);
+			double[] classValues = new double[num];
+			for (int i = 0; i < num; i++) {
+				classValues[i] = this.index.classValue(this.index.neighbour(i));
+			}
+			return classValues;
+		}
+		NearestNeighbourSearch search;
+		if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
+			search = new LinearNNSearch(this.window);  
+		} else {
+			search = new KDTree();
+			search.setInstances(this.window);
+		}	
+		if (this.window.numInstances() == 0) {
+			return new double[0];
+		}
+		Instances neighbours = search.kNearestNeighbours(inst,Math.min(kOption.getValue(),this.window.numInstances()));
+		double[] classValues = new double[neighbours.numInstances()];
+		for (int i = 0; i < classValues.length; i++) {
+			classValues[i] = neighbours.instance(i).classValue();
+		}
+		return classValues;
+	}
+
 	@Override
     public double[] getVotesForInstance(Instance inst) {
 		double v[] = new double[C+1];
 		try {
-			NearestNeighbourSearch search;
-			if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
-				search = new LinearNNSearch(this.window);  
-			} else {
-				search = new KDTree();
-				search.setInstances(this.window);
-			}	
-			if (this.window.numInstances()>0) {	
-				Instances neighbours = search.kNearestNeighbours(inst,Math.min(kOption.getValue(),this.window.numInstances()));
+			double[] neighbourClassValues = getNeighbourClassValues(inst);
+			if (neighbourClassValues.length>0) {	
 				//================== Regression ====================
 				if(inst.classAttribute().isNumeric()){
 					double[] result = new double[1];
 					// For storing the sum of class values of all the k nearest neighbours
 					double sum = 0;
 					// For storing the number of the nearest neighbours
-					int num = neighbours.numInstances();
+					int num = neighbourClassValues.length;
 					//================== Median ====================
 					if(medianOption.isSet()){
 						// For storing every neighbour's class value
 						double[] classValues = new double[num];
 
 						for(int i=0;i<num;i++){
-							classValues[i] = neighbours.instance(i).classValue();
+							classValues[i] = neighbourClassValues[i];
 						}
 						// Sort the class values
 						Arrays.sort(classValues);
@@ -143,7 +205,7 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 					}else{
 						//================== Mean ==================
 						for(int i=0;i<num;i++){
-							sum += neighbours.instance(i).classValue();
+							sum += neighbourClassValues[i];
 						}
 						// Calculate the mean of all k nearest neighbours' class values
 						result[0] = sum / num;
@@ -152,8 +214,8 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 					}
 					//============= End of Regression ==============
 				}else{
-					for (int i = 0; i < neighbours.numInstances(); i++) {
-						v[(int) neighbours.instance(i).classValue()]++;
+					for (int i = 0; i < neighbourClassValues.length; i++) {
+						v[(int) neighbourClassValues[i]]++;
 					}
 				}
 			}
@@ -166,6 +228,12 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier, Reg
 		return v;
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(10, 8 + 4) + SizeOf.estimateDense(this.window)
+                + (this.index == null ? 0 : this.index.estimateByteSize());
+    }
+
     @Override
     protected Measurement[] getModelMeasurementsImpl() {
         return null;
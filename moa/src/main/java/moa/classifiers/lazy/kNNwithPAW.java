@@ -49,6 +49,7 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
     @Override
     public void resetLearningImpl() {
         this.window = null;
+        this.index = null;
         this.prob = Math.pow(2.0, -1.0 / this.limitOption.getValue());
     }
 
@@ -57,6 +58,22 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
         if (inst.classValue() > C) {
             C = (int) inst.classValue();
         }
+        if (useWindowIndex()) {
+            if (this.index == null) {
+                this.index = newWindowIndex(inst);
+            }
+            for (int slot = this.index.first(); slot != -1; ) {
+                int next = this.index.next(slot);
+                if (this.classifierRandom.nextDouble() > this.prob) {
+                    this.index.remove(slot);
+                    // as with the window below, the instance after a removed one is not tested
+                    next = next == -1 ? -1 : this.index.next(next);
+                }
+                slot = next;
+            }
+            this.index.add(inst);
+            return;
+        }
         if (this.window == null) {
             this.window = new Instances(inst.dataset());
         }
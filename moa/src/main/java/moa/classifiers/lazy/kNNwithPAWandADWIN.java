@@ -55,6 +55,7 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
     @Override
     public void resetLearningImpl() {
         this.window = null;
+        this.index = null;
         this.adwin = new ADWIN();
         this.prob = Math.pow(2.0, -1.0 / this.limitOption.getValue());
         this.time = 0;
@@ -67,6 +68,10 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
         if (inst.classValue() > C) {
             C = (int) inst.classValue();
         }
+        if (useWindowIndex()) {
+            trainWindowIndex(inst);
+            return;
+        }
         // ADWIN
         if (this.window == null) {
             this.window = new Instances(inst.dataset());
@@ -98,6 +103,39 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
 
     }
 
+    /**
+     * Same as the training on the window, with the timestamps given by the
+     * sequence numbers of the index.
+     */
+    protected void trainWindowIndex(Instance inst) {
+        if (this.index == null) {
+            this.index = newWindowIndex(inst);
+        }
+        for (int slot = this.index.first(); slot != -1; ) {
+            int next = this.index.next(slot);
+            if (this.classifierRandom.nextDouble() > this.prob) {
+                this.index.remove(slot);
+                next = next == -1 ? -1 : this.index.next(next);
+            }
+            slot = next;
+        }
+        this.index.add(inst);
+        this.time++;
+        boolean correctlyClassifies = this.correctlyClassifies(inst);
+        if (this.adwin.setInput(correctlyClassifies ? 0 : 1)) {
+            //Change
+            long size = (long) this.adwin.getWidth();
+            for (int slot = this.index.first(); slot != -1; ) {
+                int next = this.index.next(slot);
+                if (this.index.sequence(slot) < this.index.numAdded() - size) {
+                    this.index.remove(slot);
+                    next = next == -1 ? -1 : this.index.next(next);
+                }
+                slot = next;
+            }
+        }
+    }
+
     @Override
     public void getModelDescription(StringBuilder out, int indent) {
     }
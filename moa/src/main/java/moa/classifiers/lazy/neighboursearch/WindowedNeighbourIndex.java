@@ -0,0 +1,968 @@
+/*
+ *    WindowedNeighbourIndex.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.lazy.neighboursearch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import moa.core.SizeOf;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Nearest neighbour index over a window of instances that changes by one
+ * instance at a time, as kept by the sliding-window lazy learners.
+ *
+ * The attribute values are copied into a flat <code>double[]</code> with one
+ * row per slot; freed slots are reused and the slots are linked in insertion
+ * order, so expiring the oldest instance or any other one is O(1). Instances
+ * without missing values are also kept in a kd-tree over the raw attribute
+ * values, which is updated on insert and remove and rebuilt after as many
+ * inserts as the window holds, i.e. in amortized O(log n). Instances with
+ * missing values are scanned linearly.
+ *
+ * Two metrics are supported. The normalized metric is the one of
+ * {@link EuclideanDistance} over the current window: each numeric attribute
+ * is scaled by its range in the window, and the ranges are maintained
+ * incrementally (an attribute is only rescanned when its minimum or maximum
+ * expires). The raw metric is the unscaled Euclidean distance used by
+ * WeightedkNN. Because the tree is built on raw values and the scaling is only
+ * applied when searching, range changes never invalidate it. In exact mode
+ * the results are those of a linear scan, including the floating point
+ * values of the distances: lower bounds are summed in the same order as the
+ * distances, so a subtree is only pruned if none of its instances can be
+ * among the neighbours. In approximate mode a subtree is pruned when it
+ * cannot contain an instance that is closer than the current k-th neighbour
+ * divided by (1 + epsilon).
+ */
+public class WindowedNeighbourIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The number of instances in a leaf above which it is split. */
+    protected static final int LEAF_SIZE = 16;
+
+    /** The minimum number of inserts between two rebuilds of the tree. */
+    protected static final int MIN_REBUILD_INTERVAL = 64;
+
+    /** The leaf marker of slots with missing values, which are not in the tree. */
+    protected static final int NOT_IN_TREE = -1;
+
+    /** Whether distances are normalized by the attribute ranges. */
+    protected final boolean normalize;
+
+    /** The factor applied to lower bounds before pruning, 1 in exact mode. */
+    protected final double pruningFactor;
+
+    /** The number of attributes used in distances. */
+    protected final int numDims;
+
+    /** The index of the attribute of each dimension: all but the class. */
+    protected final int[] attributeIndices;
+
+    /** Whether each dimension is nominal. */
+    protected final boolean[] nominal;
+
+    // ---- slots ----
+
+    protected double[] values;
+
+    protected double[] classValues;
+
+    protected Instance[] instances;
+
+    protected long[] sequences;
+
+    protected int[] nextSlot;
+
+    protected int[] prevSlot;
+
+    /** The oldest and newest slots, -1 if empty. */
+    protected int head = -1, tail = -1;
+
+    /** The first free slot, free slots are chained through nextSlot. */
+    protected int freeSlot = -1;
+
+    /** The number of slots ever used. */
+    protected int numSlots;
+
+    protected int size;
+
+    protected long numAdded;
+
+    // ---- attribute ranges ----
+
+    protected double[] rangeMin;
+
+    protected double[] rangeMax;
+
+    /** Whether the minimum or maximum of a dimension has expired. */
+    protected boolean[] rangeStale;
+
+    protected boolean anyRangeStale;
+
+    // ---- slots with missing values ----
+
+    protected int[] missingSlots = new int[8];
+
+    protected int numMissingSlots;
+
+    /** The leaf of each slot, or NOT_IN_TREE. */
+    protected int[] slotLeaf;
+
+    /** The position of each slot in its leaf or in missingSlots. */
+    protected int[] slotPosition;
+
+    // ---- kd-tree ----
+
+    protected int root = -1;
+
+    protected int numNodes;
+
+    /** The split dimension of each node, -1 for leaves. */
+    protected int[] splitDim = new int[16];
+
+    protected double[] splitValue = new double[16];
+
+    protected int[] leftChild = new int[16];
+
+    protected int[] rightChild = new int[16];
+
+    /** The bounding box of each node, numDims values per node. */
+    protected double[] lower;
+
+    protected double[] upper;
+
+    protected int[][] leafSlots = new int[16][];
+
+    protected int[] leafSize = new int[16];
+
+    /** The size at which a leaf is split, raised when it cannot be split. */
+    protected int[] leafLimit = new int[16];
+
+    protected int addsSinceRebuild;
+
+    // ---- search state ----
+
+    protected transient double[] query;
+
+    protected transient double[] queryNorm;
+
+    protected transient double[] width;
+
+    protected transient Instance target;
+
+    protected transient int heapSize;
+
+    protected transient int[] heapSlots;
+
+    protected transient double[] heapKeys;
+
+    protected transient boolean includeTies;
+
+    protected transient int numCandidates;
+
+    protected transient int[] candidateSlots;
+
+    protected transient double[] candidateKeys;
+
+    protected transient int numResults;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param header the header of the instances
+     * @param normalize whether to normalize numeric attributes by their range
+     * in the window, as EuclideanDistance does
+     * @param epsilon 0 for exact search, otherwise the relative error allowed
+     * for the distance of the neighbours
+     */
+    public WindowedNeighbourIndex(Instances header, boolean normalize, double epsilon) {
+        this.normalize = normalize;
+        // keys are squared distances when normalizing, see distanceKey
+        this.pruningFactor = normalize ? (1.0 + epsilon) * (1.0 + epsilon) : 1.0 + epsilon;
+        int classIndex = header.classIndex();
+        this.numDims = classIndex >= 0 && classIndex < header.numAttributes()
+                ? header.numAttributes() - 1 : header.numAttributes();
+        this.attributeIndices = new int[this.numDims];
+        this.nominal = new boolean[this.numDims];
+        for (int i = 0, d = 0; i < header.numAttributes(); i++) {
+            if (i != classIndex) {
+                this.attributeIndices[d] = i;
+                this.nominal[d] = header.attribute(i).isNominal();
+                d++;
+            }
+        }
+        this.rangeMin = new double[this.numDims];
+        this.rangeMax = new double[this.numDims];
+        this.rangeStale = new boolean[this.numDims];
+        resetRanges();
+        allocateSlots(16);
+        this.lower = new double[16 * this.numDims];
+        this.upper = new double[16 * this.numDims];
+    }
+
+    /**
+     * Gets the number of instances in the index.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of instances added since the index was created. This is
+     * also the sequence number of the next instance.
+     *
+     * @return the number of added instances
+     */
+    public long numAdded() {
+        return this.numAdded;
+    }
+
+    /**
+     * Gets the slot of the oldest instance.
+     *
+     * @return the slot, or -1 if the index is empty
+     */
+    public int first() {
+        return this.head;
+    }
+
+    /**
+     * Gets the slot of the instance added after the one in the given slot.
+     *
+     * @param slot the slot
+     * @return the next slot, or -1 if the given slot holds the newest instance
+     */
+    public int next(int slot) {
+        return this.nextSlot[slot];
+    }
+
+    public Instance instance(int slot) {
+        return this.instances[slot];
+    }
+
+    public double classValue(int slot) {
+        return this.classValues[slot];
+    }
+
+    /**
+     * Gets the sequence number of the instance in a slot, i.e. the number of
+     * instances added before it.
+     *
+     * @param slot the slot
+     * @return the sequence number
+     */
+    public long sequence(int slot) {
+        return this.sequences[slot];
+    }
+
+    /**
+     * Adds an instance. The instance is kept by reference and its values are
+     * copied, so it must not be modified while it is in the index.
+     *
+     * @param inst the instance
+     * @return the slot of the instance
+     */
+    public int add(Instance inst) {
+        int slot = allocateSlot();
+        int offset = slot * this.numDims;
+        boolean hasMissing = false;
+        for (int d = 0; d < this.numDims; d++) {
+            double v = inst.value(this.attributeIndices[d]);
+            this.values[offset + d] = v;
+            if (Double.isNaN(v)) {
+                hasMissing = true;
+            } else {
+                if (v < this.rangeMin[d]) {
+                    this.rangeMin[d] = v;
+                }
+                if (v > this.rangeMax[d]) {
+                    this.rangeMax[d] = v;
+                }
+            }
+        }
+        this.classValues[slot] = inst.classValue();
+        this.instances[slot] = inst;
+        this.sequences[slot] = this.numAdded++;
+        this.nextSlot[slot] = -1;
+        this.prevSlot[slot] = this.tail;
+        if (this.tail == -1) {
+            this.head = slot;
+        } else {
+            this.nextSlot[this.tail] = slot;
+        }
+        this.tail = slot;
+        this.size++;
+        if (hasMissing) {
+            if (this.numMissingSlots == this.missingSlots.length) {
+                this.missingSlots = Arrays.copyOf(this.missingSlots, 2 * this.numMissingSlots);
+            }
+            this.slotLeaf[slot] = NOT_IN_TREE;
+            this.slotPosition[slot] = this.numMissingSlots;
+            this.missingSlots[this.numMissingSlots++] = slot;
+        } else if (++this.addsSinceRebuild >= Math.max(this.size, MIN_REBUILD_INTERVAL)) {
+            rebuild();
+        } else {
+            insertIntoTree(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the oldest instance.
+     *
+     * @return the slot the instance was in, or -1 if the index is empty
+     */
+    public int removeOldest() {
+        int slot = this.head;
+        if (slot != -1) {
+            remove(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the instance in a slot. The slot may be reused by the next add.
+     *
+     * @param slot the slot
+     */
+    public void remove(int slot) {
+        int offset = slot * this.numDims;
+        for (int d = 0; d < this.numDims; d++) {
+            double v = this.values[offset + d];
+            if (v <= this.rangeMin[d] || v >= this.rangeMax[d]) {
+                this.rangeStale[d] = true;
+                this.anyRangeStale = true;
+            }
+        }
+        int leaf = this.slotLeaf[slot];
+        int position = this.slotPosition[slot];
+        if (leaf == NOT_IN_TREE) {
+            int moved = this.missingSlots[--this.numMissingSlots];
+            this.missingSlots[position] = moved;
+            this.slotPosition[moved] = position;
+        } else {
+            int[] bucket = this.leafSlots[leaf];
+            int moved = bucket[--this.leafSize[leaf]];
+            bucket[position] = moved;
+            this.slotPosition[moved] = position;
+        }
+        int prev = this.prevSlot[slot];
+        int next = this.nextSlot[slot];
+        if (prev == -1) {
+            this.head = next;
+        } else {
+            this.nextSlot[prev] = next;
+        }
+        if (next == -1) {
+            this.tail = prev;
+        } else {
+            this.prevSlot[next] = prev;
+        }
+        this.instances[slot] = null;
+        this.nextSlot[slot] = this.freeSlot;
+        this.freeSlot = slot;
+        this.size--;
+        if (this.size == 0) {
+            resetRanges();
+            this.root = -1;
+            this.numNodes = 0;
+            this.addsSinceRebuild = 0;
+        }
+    }
+
+    /**
+     * Searches the k nearest neighbours of an instance. The target itself is
+     * skipped if it is in the index, as in LinearNNSearch. The neighbours are
+     * read with {@link #neighbour(int)} and {@link #neighbourDistance(int)},
+     * ordered by distance and then by age.
+     *
+     * @param target the instance
+     * @param k the number of neighbours
+     * @param includeTies whether to also return all instances at the same
+     * distance as the k-th neighbour, as LinearNNSearch does, instead of the
+     * oldest of them
+     * @return the number of neighbours found
+     */
+    public int kNearestNeighbours(Instance target, int k, boolean includeTies) {
+        this.numResults = 0;
+        if (k <= 0 || this.size == 0) {
+            return 0;
+        }
+        prepareSearch(target, k, includeTies);
+        for (int i = 0; i < this.numMissingSlots; i++) {
+            visit(this.missingSlots[i], k);
+        }
+        if (this.root != -1) {
+            search(this.root, k);
+        }
+        if (includeTies) {
+            double kth = this.heapSize < k ? Double.POSITIVE_INFINITY : this.heapKeys[0];
+            for (int i = 0; i < this.numCandidates; i++) {
+                if (this.candidateKeys[i] <= kth) {
+                    this.candidateSlots[this.numResults] = this.candidateSlots[i];
+                    this.candidateKeys[this.numResults] = this.candidateKeys[i];
+                    this.numResults++;
+                }
+            }
+        } else {
+            System.arraycopy(this.heapSlots, 0, this.candidateSlots, 0, this.heapSize);
+            System.arraycopy(this.heapKeys, 0, this.candidateKeys, 0, this.heapSize);
+            this.numResults = this.heapSize;
+        }
+        sortResults();
+        this.target = null;
+        return this.numResults;
+    }
+
+    /**
+     * Gets the slot of a neighbour found by the last search.
+     *
+     * @param i the rank of the neighbour
+     * @return the slot
+     */
+    public int neighbour(int i) {
+        return this.candidateSlots[i];
+    }
+
+    /**
+     * Gets the distance of a neighbour found by the last search.
+     *
+     * @param i the rank of the neighbour
+     * @return the distance
+     */
+    public double neighbourDistance(int i) {
+        return this.normalize ? Math.sqrt(this.candidateKeys[i]) : this.candidateKeys[i];
+    }
+
+    /**
+     * Gets a cheap estimate of the memory size of the index, without the
+     * instances it references.
+     *
+     * @return the estimated size in bytes
+     */
+    public long estimateByteSize() {
+        int slots = this.classValues.length;
+        int nodes = this.splitDim.length;
+        long size = SizeOf.estimateObject(40, 64)
+                + SizeOf.estimateArray(this.values)
+                + SizeOf.estimateArray(slots, 8 + 8 + 4 + 4 + 4 + 4 + SizeOf.REFERENCE)
+                + SizeOf.estimateArray(this.lower) + SizeOf.estimateArray(this.upper)
+                + SizeOf.estimateArray(nodes, 4 + 8 + 4 + 4 + 4 + 4 + SizeOf.REFERENCE)
+                + SizeOf.estimateArray(this.missingSlots);
+        for (int node = 0; node < this.numNodes; node++) {
+            size += SizeOf.estimateArray(this.leafSlots[node]);
+        }
+        return size;
+    }
+
+    // ---- storage ----
+
+    protected void allocateSlots(int capacity) {
+        this.values = this.values == null ? new double[capacity * this.numDims]
+                : Arrays.copyOf(this.values, capacity * this.numDims);
+        this.classValues = this.classValues == null ? new double[capacity] : Arrays.copyOf(this.classValues, capacity);
+        this.instances = this.instances == null ? new Instance[capacity] : Arrays.copyOf(this.instances, capacity);
+        this.sequences = this.sequences == null ? new long[capacity] : Arrays.copyOf(this.sequences, capacity);
+        this.nextSlot = this.nextSlot == null ? new int[capacity] : Arrays.copyOf(this.nextSlot, capacity);
+        this.prevSlot = this.prevSlot == null ? new int[capacity] : Arrays.copyOf(this.prevSlot, capacity);
+        this.slotLeaf = this.slotLeaf == null ? new int[capacity] : Arrays.copyOf(this.slotLeaf, capacity);
+        this.slotPosition = this.slotPosition == null ? new int[capacity] : Arrays.copyOf(this.slotPosition, capacity);
+    }
+
+    protected int allocateSlot() {
+        if (this.freeSlot != -1) {
+            int slot = this.freeSlot;
+            this.freeSlot = this.nextSlot[slot];
+            return slot;
+        }
+        if (this.numSlots == this.classValues.length) {
+            allocateSlots(2 * this.numSlots);
+        }
+        return this.numSlots++;
+    }
+
+    // ---- ranges ----
+
+    protected void resetRanges() {
+        Arrays.fill(this.rangeMin, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.rangeMax, Double.NEGATIVE_INFINITY);
+        Arrays.fill(this.rangeStale, false);
+        this.anyRangeStale = false;
+    }
+
+    /**
+     * Recomputes the ranges whose minimum or maximum has expired.
+     */
+    protected void refreshRanges() {
+        if (!this.anyRangeStale) {
+            return;
+        }
+        for (int d = 0; d < this.numDims; d++) {
+            if (this.rangeStale[d]) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int slot = this.head; slot != -1; slot = this.nextSlot[slot]) {
+                    double v = this.values[slot * this.numDims + d];
+                    // NaN fails both comparisons
+                    if (v < min) {
+                        min = v;
+                    }
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+                this.rangeMin[d] = min;
+                this.rangeMax[d] = max;
+                this.rangeStale[d] = false;
+            }
+        }
+        this.anyRangeStale = false;
+    }
+
+    /**
+     * Normalizes a value as NormalizableDistance.norm does.
+     */
+    protected double norm(double x, int d) {
+        if (this.rangeMax[d] == this.rangeMin[d]) {
+            return 0;
+        }
+        return (x - this.rangeMin[d]) / this.width[d];
+    }
+
+    // ---- distances ----
+
+    /**
+     * Gets the difference of two values of a dimension, as
+     * NormalizableDistance.difference does for the normalized metric.
+     */
+    protected double difference(int d, double val1, double val2) {
+        if (this.nominal[d]) {
+            if (Double.isNaN(val1) || Double.isNaN(val2) || ((int) val1 != (int) val2)) {
+                return 1;
+            }
+            return 0;
+        }
+        if (Double.isNaN(val1) || Double.isNaN(val2)) {
+            if (Double.isNaN(val1) && Double.isNaN(val2)) {
+                return 1;
+            }
+            double diff = Double.isNaN(val2) ? val1 : val2;
+            if (this.normalize) {
+                diff = norm(diff, d);
+                if (diff < 0.5) {
+                    diff = 1.0 - diff;
+                }
+            }
+            return diff;
+        }
+        return this.normalize ? this.queryNorm[d] - norm(val2, d) : val1 - val2;
+    }
+
+    /**
+     * Gets the key the instance in a slot is ranked by: the squared distance
+     * for the normalized metric, whose square root is only taken for the
+     * results as in EuclideanDistance, and the distance itself for the raw
+     * metric, which WeightedkNN ranks after taking the square root.
+     *
+     * @return the key, or infinity if it exceeds the cut off value
+     */
+    protected double distanceKey(int slot, double cutOff) {
+        int offset = slot * this.numDims;
+        double sum = 0;
+        for (int d = 0; d < this.numDims; d++) {
+            double diff = difference(d, this.query[d], this.values[offset + d]);
+            sum += diff * diff;
+            if (sum > cutOff) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        return this.normalize ? sum : Math.sqrt(sum);
+    }
+
+    /**
+     * Gets a lower bound of the key of any instance in the box of a node. The
+     * terms are never larger than those of distanceKey and are summed in the
+     * same order, so the bound is never larger than the key of an instance
+     * in the box, also after rounding.
+     */
+    protected double lowerBoundKey(int node, double cutOff) {
+        int offset = node * this.numDims;
+        double sum = 0;
+        for (int d = 0; d < this.numDims; d++) {
+            double q = this.query[d];
+            if (this.nominal[d] || Double.isNaN(q)) {
+                continue;
+            }
+            double bound;
+            if (q < this.lower[offset + d]) {
+                bound = this.lower[offset + d];
+            } else if (q > this.upper[offset + d]) {
+                bound = this.upper[offset + d];
+            } else {
+                continue;
+            }
+            double diff = this.normalize ? this.queryNorm[d] - norm(bound, d) : q - bound;
+            sum += diff * diff;
+            if (sum > cutOff) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        return this.normalize ? sum : Math.sqrt(sum);
+    }
+
+    // ---- search ----
+
+    protected void prepareSearch(Instance target, int k, boolean includeTies) {
+        if (this.query == null || this.query.length != this.numDims) {
+            this.query = new double[this.numDims];
+            this.queryNorm = new double[this.numDims];
+            this.width = new double[this.numDims];
+        }
+        refreshRanges();
+        for (int d = 0; d < this.numDims; d++) {
+            // an attribute with no values in the window has an infinite width
+            this.width[d] = this.rangeMin[d] > this.rangeMax[d] ? Double.POSITIVE_INFINITY
+                    : this.rangeMax[d] - this.rangeMin[d];
+            this.query[d] = target.value(this.attributeIndices[d]);
+            this.queryNorm[d] = norm(this.query[d], d);
+        }
+        this.target = target;
+        this.includeTies = includeTies;
+        this.heapSize = 0;
+        this.numCandidates = 0;
+        if (this.heapSlots == null || this.heapSlots.length < k) {
+            this.heapSlots = new int[k];
+            this.heapKeys = new double[k];
+        }
+        if (this.candidateSlots == null || this.candidateSlots.length < k) {
+            this.candidateSlots = new int[Math.max(k, 16)];
+            this.candidateKeys = new double[this.candidateSlots.length];
+        }
+    }
+
+    protected double threshold(int k) {
+        return this.heapSize < k ? Double.POSITIVE_INFINITY : this.heapKeys[0];
+    }
+
+    protected void search(int node, int k) {
+        if (this.lowerBoundKey(node, Double.POSITIVE_INFINITY) * this.pruningFactor > threshold(k)) {
+            return;
+        }
+        int dim = this.splitDim[node];
+        if (dim == -1) {
+            int[] bucket = this.leafSlots[node];
+            for (int i = 0; i < this.leafSize[node]; i++) {
+                visit(bucket[i], k);
+            }
+        } else if (this.query[dim] <= this.splitValue[node]) {
+            search(this.leftChild[node], k);
+            search(this.rightChild[node], k);
+        } else {
+            search(this.rightChild[node], k);
+            search(this.leftChild[node], k);
+        }
+    }
+
+    protected void visit(int slot, int k) {
+        if (this.instances[slot] == this.target) {
+            return;
+        }
+        double threshold = threshold(k);
+        // raw keys are square roots, which cannot be compared with partial sums without rounding issues
+        double key = distanceKey(slot, this.normalize ? threshold : Double.POSITIVE_INFINITY);
+        if (key > threshold) {
+            return;
+        }
+        if (this.includeTies) {
+            if (this.numCandidates == this.candidateSlots.length) {
+                this.candidateSlots = Arrays.copyOf(this.candidateSlots, 2 * this.numCandidates);
+                this.candidateKeys = Arrays.copyOf(this.candidateKeys, 2 * this.numCandidates);
+            }
+            this.candidateSlots[this.numCandidates] = slot;
+            this.candidateKeys[this.numCandidates++] = key;
+        }
+        if (this.heapSize < k) {
+            this.heapSlots[this.heapSize] = slot;
+            this.heapKeys[this.heapSize] = key;
+            siftUp(this.heapSize++);
+        } else if (isFarther(this.heapKeys[0], this.heapSlots[0], key, slot)) {
+            this.heapSlots[0] = slot;
+            this.heapKeys[0] = key;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Compares two neighbours by key and then by age, the younger being the
+     * farther one.
+     */
+    protected boolean isFarther(double key1, int slot1, double key2, int slot2) {
+        return key1 > key2 || (key1 == key2 && this.sequences[slot1] > this.sequences[slot2]);
+    }
+
+    protected void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isFarther(this.heapKeys[i], this.heapSlots[i], this.heapKeys[parent], this.heapSlots[parent])) {
+                break;
+            }
+            swapHeap(i, parent);
+            i = parent;
+        }
+    }
+
+    protected void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+            if (child + 1 < this.heapSize && isFarther(this.heapKeys[child + 1], this.heapSlots[child + 1],
+                    this.heapKeys[child], this.heapSlots[child])) {
+                child++;
+            }
+            if (!isFarther(this.heapKeys[child], this.heapSlots[child], this.heapKeys[i], this.heapSlots[i])) {
+                break;
+            }
+            swapHeap(i, child);
+            i = child;
+        }
+    }
+
+    protected void swapHeap(int i, int j) {
+        int slot = this.heapSlots[i];
+        this.heapSlots[i] = this.heapSlots[j];
+        this.heapSlots[j] = slot;
+        double key = this.heapKeys[i];
+        this.heapKeys[i] = this.heapKeys[j];
+        this.heapKeys[j] = key;
+    }
+
+    protected void sortResults() {
+        // insertion sort, the number of results is about k
+        for (int i = 1; i < this.numResults; i++) {
+            int slot = this.candidateSlots[i];
+            double key = this.candidateKeys[i];
+            int j = i - 1;
+            while (j >= 0 && isFarther(this.candidateKeys[j], this.candidateSlots[j], key, slot)) {
+                this.candidateSlots[j + 1] = this.candidateSlots[j];
+                this.candidateKeys[j + 1] = this.candidateKeys[j];
+                j--;
+            }
+            this.candidateSlots[j + 1] = slot;
+            this.candidateKeys[j + 1] = key;
+        }
+    }
+
+    // ---- kd-tree maintenance ----
+
+    protected int newNode() {
+        if (this.numNodes == this.splitDim.length) {
+            int capacity = 2 * this.numNodes;
+            this.splitDim = Arrays.copyOf(this.splitDim, capacity);
+            this.splitValue = Arrays.copyOf(this.splitValue, capacity);
+            this.leftChild = Arrays.copyOf(this.leftChild, capacity);
+            this.rightChild = Arrays.copyOf(this.rightChild, capacity);
+            this.leafSlots = Arrays.copyOf(this.leafSlots, capacity);
+            this.leafSize = Arrays.copyOf(this.leafSize, capacity);
+            this.leafLimit = Arrays.copyOf(this.leafLimit, capacity);
+            this.lower = Arrays.copyOf(this.lower, capacity * this.numDims);
+            this.upper = Arrays.copyOf(this.upper, capacity * this.numDims);
+        }
+        int node = this.numNodes++;
+        this.splitDim[node] = -1;
+        this.leafSize[node] = 0;
+        this.leafLimit[node] = LEAF_SIZE;
+        return node;
+    }
+
+    protected void expandBox(int node, int slot) {
+        int nodeOffset = node * this.numDims;
+        int slotOffset = slot * this.numDims;
+        for (int d = 0; d < this.numDims; d++) {
+            double v = this.values[slotOffset + d];
+            if (v < this.lower[nodeOffset + d]) {
+                this.lower[nodeOffset + d] = v;
+            }
+            if (v > this.upper[nodeOffset + d]) {
+                this.upper[nodeOffset + d] = v;
+            }
+        }
+    }
+
+    protected void addToLeaf(int leaf, int slot) {
+        int[] bucket = this.leafSlots[leaf];
+        if (bucket == null) {
+            bucket = this.leafSlots[leaf] = new int[LEAF_SIZE + 1];
+        } else if (this.leafSize[leaf] == bucket.length) {
+            bucket = this.leafSlots[leaf] = Arrays.copyOf(bucket, 2 * bucket.length);
+        }
+        this.slotLeaf[slot] = leaf;
+        this.slotPosition[slot] = this.leafSize[leaf];
+        bucket[this.leafSize[leaf]++] = slot;
+    }
+
+    protected void insertIntoTree(int slot) {
+        if (this.root == -1) {
+            this.root = build(new int[]{slot}, 0, 1);
+            return;
+        }
+        int parent = -1;
+        int node = this.root;
+        while (this.splitDim[node] != -1) {
+            expandBox(node, slot);
+            parent = node;
+            node = this.values[slot * this.numDims + this.splitDim[node]] <= this.splitValue[node]
+                    ? this.leftChild[node] : this.rightChild[node];
+        }
+        expandBox(node, slot);
+        addToLeaf(node, slot);
+        if (this.leafSize[node] > this.leafLimit[node]) {
+            int[] bucket = Arrays.copyOf(this.leafSlots[node], this.leafSize[node]);
+            int replacement = build(bucket, 0, bucket.length);
+            if (this.splitDim[replacement] == -1) {
+                // all values are equal, retry when the leaf has doubled
+                this.leafLimit[replacement] = 2 * this.leafLimit[node];
+            }
+            // the old leaf is dropped at the next rebuild
+            this.leafSize[node] = 0;
+            if (parent == -1) {
+                this.root = replacement;
+            } else if (this.leftChild[parent] == node) {
+                this.leftChild[parent] = replacement;
+            } else {
+                this.rightChild[parent] = replacement;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the instances without missing values, splitting
+     * at the median of the dimension with the widest spread.
+     */
+    protected void rebuild() {
+        refreshRanges();
+        int[] slots = new int[this.size - this.numMissingSlots];
+        int n = 0;
+        for (int slot = this.head; slot != -1; slot = this.nextSlot[slot]) {
+            if (!hasMissingValue(slot)) {
+                slots[n++] = slot;
+            }
+        }
+        this.numNodes = 0;
+        this.root = n == 0 ? -1 : build(slots, 0, n);
+        this.addsSinceRebuild = 0;
+    }
+
+    protected boolean hasMissingValue(int slot) {
+        int offset = slot * this.numDims;
+        for (int d = 0; d < this.numDims; d++) {
+            if (Double.isNaN(this.values[offset + d])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected int build(int[] slots, int from, int to) {
+        int node = newNode();
+        int offset = node * this.numDims;
+        Arrays.fill(this.lower, offset, offset + this.numDims, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.upper, offset, offset + this.numDims, Double.NEGATIVE_INFINITY);
+        for (int i = from; i < to; i++) {
+            expandBox(node, slots[i]);
+        }
+        int dim = -1;
+        if (to - from > LEAF_SIZE) {
+            double widest = 0;
+            for (int d = 0; d < this.numDims; d++) {
+                if (this.nominal[d]) {
+                    continue;
+                }
+                double spread = this.upper[offset + d] - this.lower[offset + d];
+                if (this.normalize) {
+                    double range = this.rangeMax[d] - this.rangeMin[d];
+                    spread = range > 0 ? spread / range : 0;
+                }
+                if (spread > widest) {
+                    widest = spread;
+                    dim = d;
+                }
+            }
+        }
+        if (dim == -1) {
+            this.leafSlots[node] = null;
+            for (int i = from; i < to; i++) {
+                addToLeaf(node, slots[i]);
+            }
+            return node;
+        }
+        int middle = (from + to) >>> 1;
+        select(slots, from, to - 1, middle, dim);
+        this.splitDim[node] = dim;
+        this.splitValue[node] = this.values[slots[middle] * this.numDims + dim];
+        this.leafSlots[node] = null;
+        // the left child holds the values up to the split value
+        int left = build(slots, from, middle + 1);
+        this.leftChild[node] = left;
+        int right = build(slots, middle + 1, to);
+        this.rightChild[node] = right;
+        return node;
+    }
+
+    /**
+     * Partially sorts slots so that the k-th holds the median value of a
+     * dimension, with smaller or equal values before and larger or equal
+     * values after it.
+     */
+    protected void select(int[] slots, int left, int right, int k, int dim) {
+        while (left < right) {
+            double pivot = this.values[slots[(left + right) >>> 1] * this.numDims + dim];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (this.values[slots[i] * this.numDims + dim] < pivot) {
+                    i++;
+                }
+                while (this.values[slots[j] * this.numDims + dim] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = slots[i];
+                    slots[i] = slots[j];
+                    slots[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -18,7 +18,9 @@
  */
 package moa.classifiers.meta;
 
+import com.yahoo.labs.samoa.instances.BatchInstance;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 
 import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
@@ -30,21 +32,18 @@ import moa.core.DoubleVector;
 import moa.core.InstanceExample;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
 import moa.options.ClassOption;
 
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.Callable;
-
 import moa.classifiers.trees.ARFHoeffdingTree;
+import moa.classifiers.trees.CompiledForest;
+import moa.classifiers.trees.CompiledTree;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import moa.AbstractMOAObject;
 import moa.classifiers.core.driftdetection.ChangeDetector;
 
@@ -73,7 +72,7 @@ import moa.classifiers.core.driftdetection.ChangeDetector;
  * <li>-m : Number of features allowed considered for each split. Negative 
  * values corresponds to M - m</li>
  * <li>-a : The lambda value for bagging (lambda=6 corresponds to levBag)</li>
- * <li>-j : Number of threads to be used for training</li>
+ * <li>-j : Number of threads to be used for training and voting</li>
  * <li>-x : Change detector for drifts and its parameters</li>
  * <li>-p : Change detector for warnings (start training bkg learner)</li>
  * <li>-w : Should use weighted voting?</li>
@@ -114,7 +113,7 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         "The lambda parameter for bagging.", 6.0, 1.0, Float.MAX_VALUE);
 
     public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
-        "Total number of concurrent jobs used for processing (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+        "Total number of concurrent jobs used for training and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
     
     public ClassOption driftDetectionMethodOption = new ClassOption("driftDetectionMethod", 'x',
         "Change detector for drifts and its parameters", ChangeDetector.class, "ADWINChangeDetector -a 1.0E-3");
@@ -142,8 +141,6 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
     protected long instancesSeen;
     protected int subspaceSize;
     protected BasicClassificationPerformanceEvaluator evaluator;
-
-    private ExecutorService executor;
     
     @Override
     public void resetLearningImpl() {
@@ -152,17 +149,6 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         this.subspaceSize = 0;
         this.instancesSeen = 0;
         this.evaluator = new BasicClassificationPerformanceEvaluator();
-        
-        // Multi-threading
-        int numberOfJobs;
-        if(this.numberOfJobsOption.getValue() == -1) 
-            numberOfJobs = Runtime.getRuntime().availableProcessors();
-        else 
-            numberOfJobs = this.numberOfJobsOption.getValue();
-        // SINGLE_THREAD and requesting for only 1 thread are equivalent. 
-        // this.executor will be null and not used...
-        if(numberOfJobs != AdaptiveRandomForest.SINGLE_THREAD && numberOfJobs != 1)
-            this.executor = Executors.newFixedThreadPool(numberOfJobs);
     }
 
     @Override
@@ -171,30 +157,62 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         if(this.ensemble == null) 
             initEnsemble(instance);
         
-        Collection<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
-        for (int i = 0 ; i < this.ensemble.length ; i++) {
+        // Draw the weights up front so that parallel runs match sequential ones
+        int[] k = new int[this.ensemble.length];
+        for (int i = 0 ; i < k.length ; i++)
+            k[i] = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
+        long instancesSeen = this.instancesSeen;
+        getExecutor().forEachMember(this.ensemble.length, i -> {
             DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(instance));
             InstanceExample example = new InstanceExample(instance);
             this.ensemble[i].evaluator.addResult(example, vote.getArrayRef());
-            int k = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
-            if (k > 0) {
-                if(this.executor != null) {
-                    TrainingRunnable trainer = new TrainingRunnable(this.ensemble[i], 
-                        instance, k, this.instancesSeen);
-                    trainers.add(trainer);
-                }
-                else { // SINGLE_THREAD is in-place... 
-                    this.ensemble[i].trainOnInstance(instance, k, this.instancesSeen);
-                }
-            }
+            if (k[i] > 0)
+                this.ensemble[i].trainOnInstance(instance, k[i], instancesSeen);
+        });
+    }
+
+    /**
+     * Trains on a mini-batch with a single hand-off to the executor: each
+     * tree processes all rows of the batch, in order. The weights are drawn
+     * in the same order as when training instance by instance.
+     */
+    @Override
+    public void trainOnInstances(InstanceBatch batch) {
+        BatchInstance view = batch.newView();
+        int[][] k = null;
+        long[] instancesSeen = new long[batch.size()];
+        for (int row = 0 ; row < batch.size() ; row++) {
+            view.setRow(row);
+            if (view.weight() <= 0.0 || view.classIsMissing())
+                continue;
+            this.trainingWeightSeenByModel += view.weight();
+            instancesSeen[row] = ++this.instancesSeen;
+            if(this.ensemble == null) 
+                initEnsemble(view);
+            if (k == null)
+                k = new int[this.ensemble.length][batch.size()];
+            for (int i = 0 ; i < k.length ; i++)
+                k[i][row] = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
         }
-        if(this.executor != null) {
-            try {
-                this.executor.invokeAll(trainers);
-            } catch (InterruptedException ex) {
-                throw new RuntimeException("Could not call invokeAll() on training threads.");
+        if (k == null)
+            return;
+        int[][] weights = k;
+        getExecutor().forEachMember(this.ensemble.length, i -> {
+            BatchInstance instance = batch.newView();
+            for (int row = 0 ; row < batch.size() ; row++) {
+                if (instancesSeen[row] == 0)
+                    continue;
+                instance.setRow(row);
+                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(instance));
+                this.ensemble[i].evaluator.addResult(new InstanceExample(instance), vote.getArrayRef());
+                if (weights[i][row] > 0)
+                    this.ensemble[i].trainOnInstance(instance, weights[i][row], instancesSeen[row]);
             }
-        }
+        });
+    }
+
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
     }
 
     @Override
@@ -203,9 +221,12 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         if(this.ensemble == null) 
             initEnsemble(testInstance);
         DoubleVector combinedVote = new DoubleVector();
+        double[][] votes = new double[this.ensemble.length][];
+        getExecutor().forEachMember(this.ensemble.length,
+                i -> votes[i] = this.ensemble[i].getVotesForInstance(testInstance));
 
         for(int i = 0 ; i < this.ensemble.length ; ++i) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(testInstance));
+            DoubleVector vote = new DoubleVector(votes[i]);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 double acc = this.ensemble[i].evaluator.getPerformanceMeasurements()[1].getValue();
@@ -220,6 +241,25 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         return combinedVote.getArrayRef();
     }
 
+    /**
+     * Compiles the current trees and their voting weights for inference. The
+     * compiled forest gives the votes of getVotesForInstance and does not
+     * change when the forest keeps learning.
+     */
+    public CompiledForest compileForInference() {
+        if (this.ensemble == null) {
+            return new CompiledForest(new CompiledTree[0], new double[0]);
+        }
+        CompiledTree[] trees = new CompiledTree[this.ensemble.length];
+        double[] weights = new double[this.ensemble.length];
+        for (int i = 0; i < this.ensemble.length; ++i) {
+            trees[i] = CompiledTree.compile(this.ensemble[i].classifier);
+            double acc = this.ensemble[i].evaluator.getPerformanceMeasurements()[1].getValue();
+            weights[i] = (! this.disableWeightedVote.isSet() && acc > 0.0) ? acc : 1.0;
+        }
+        return new CompiledForest(trees, weights);
+    }
+
     @Override
     public boolean isRandomizable() {
         return true;
@@ -315,6 +355,18 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         return forest;
 
     }
+
+    @Override
+    public long estimateByteSize() {
+        long size = SizeOf.estimateObject(24, 8 + 4) + SizeOf.estimate(this.evaluator);
+        if (this.ensemble != null) {
+            size += SizeOf.estimateArray(this.ensemble.length, SizeOf.REFERENCE);
+            for (ARFBaseLearner learner : this.ensemble) {
+                size += SizeOf.estimate(learner);
+            }
+        }
+        return size;
+    }
     
     /**
      * Inner class that represents a single tree member of the forest. 
@@ -453,36 +505,17 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         }
 
         @Override
-        public void getDescription(StringBuilder sb, int indent) {
-        }
-    }
-    
-    /***
-     * Inner class to assist with the multi-thread execution. 
-     */
-    protected class TrainingRunnable implements Runnable, Callable<Integer> {
-        final private ARFBaseLearner learner;
-        final private Instance instance;
-        final private double weight;
-        final private long instancesSeen;
-
-        public TrainingRunnable(ARFBaseLearner learner, Instance instance, 
-                double weight, long instancesSeen) {
-            this.learner = learner;
-            this.instance = instance;
-            this.weight = weight;
-            this.instancesSeen = instancesSeen;
+        public long estimateByteSize() {
+            return SizeOf.estimateObject(7, 4 + 3 * 8 + 4 * 1 + 2 * 4)
+                    + SizeOf.estimate(this.classifier)
+                    + SizeOf.estimate(this.driftDetectionMethod)
+                    + SizeOf.estimate(this.warningDetectionMethod)
+                    + SizeOf.estimate(this.bkgLearner)
+                    + SizeOf.estimate(this.evaluator);
         }
 
         @Override
-        public void run() {
-            learner.trainOnInstance(this.instance, this.weight, this.instancesSeen);
-        }
-
-        @Override
-        public Integer call() {
-            run();
-            return 0;
+        public void getDescription(StringBuilder sb, int indent) {
         }
     }
 }
@@ -72,6 +72,9 @@ public class DynamicWeightedMajority extends AbstractClassifier implements Multi
             "Maximum number of allowed experts.", Integer.MAX_VALUE, 2,
             Integer.MAX_VALUE);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for training and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected List<Classifier> experts;
     protected List<Double> weights;
     protected long epochs;
@@ -115,9 +118,11 @@ public class DynamicWeightedMajority extends AbstractClassifier implements Multi
         double maxWeight = 0.0;
         double weakestExpertWeight = 1.0;
         int weakestExpertIndex = -1;
+        double[][] votes = getExecutor().getVotesForInstance(
+                this.experts.toArray(new Classifier[this.experts.size()]), inst);
         // Loop over experts
         for (int i = 0; i < this.experts.size(); i++) {
-            double[] pr = this.experts.get(i).getVotesForInstance(inst);
+            double[] pr = votes[i];
             int yHat = Utils.maxIndex(pr);
             if ((yHat != (int) inst.classValue())
                     && this.epochs % this.periodOption.getValue() == 0) {
@@ -146,9 +151,12 @@ public class DynamicWeightedMajority extends AbstractClassifier implements Multi
             }
         }
         // train experts
-        for (Classifier expert : this.experts) {
-            expert.trainOnInstance(inst);
-        }
+        Classifier[] members = this.experts.toArray(new Classifier[this.experts.size()]);
+        getExecutor().forEachMember(members.length, i -> members[i].trainOnInstance(inst));
+    }
+
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
     }
 
     @Override
@@ -159,8 +167,10 @@ public class DynamicWeightedMajority extends AbstractClassifier implements Multi
     @Override
     public double[] getVotesForInstance(Instance inst) {
         double[] Pr = new double[inst.numClasses()];
+        double[][] votes = getExecutor().getVotesForInstance(
+                this.experts.toArray(new Classifier[this.experts.size()]), inst);
         for (int i = 0; i < this.experts.size(); i++) {
-            double[] pr = this.experts.get(i).getVotesForInstance(inst);
+            double[] pr = votes[i];
             int yHat = Utils.maxIndex(pr);
             Pr[yHat] += this.weights.get(i);
         } // for
@@ -0,0 +1,183 @@
+/*
+ *    EnsembleExecutor.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import moa.classifiers.Classifier;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Shared execution layer for ensembles that train or query their members in
+ * parallel. Members are split into contiguous shards that run as fork/join
+ * tasks, so idle workers steal shards from busy ones. One pool per degree of
+ * parallelism is shared by all ensembles, which keeps the number of threads
+ * bounded when many ensembles (e.g. cross-validation folds or nested meta
+ * learners) run at once.
+ *
+ * Parallel runs give the same results as sequential ones as long as each
+ * member task only touches the state of its own member: ensembles draw all
+ * their random numbers on the calling thread before dispatching, and combine
+ * the member results in member order afterwards.
+ */
+public class EnsembleExecutor {
+
+    /** The value of a numberOfJobs option that disables multithreading. */
+    public static final int SINGLE_THREAD = 0;
+
+    /** The number of shards created per worker, for load balancing. */
+    protected static final int SHARDS_PER_WORKER = 4;
+
+    private static final EnsembleExecutor SEQUENTIAL = new EnsembleExecutor(1, null);
+
+    private static final ConcurrentHashMap<Integer, EnsembleExecutor> EXECUTORS =
+            new ConcurrentHashMap<Integer, EnsembleExecutor>();
+
+    protected final int numberOfJobs;
+
+    protected final ForkJoinPool pool;
+
+    protected EnsembleExecutor(int numberOfJobs, ForkJoinPool pool) {
+        this.numberOfJobs = numberOfJobs;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the shared executor for the value of a numberOfJobs option.
+     *
+     * @param numberOfJobs the number of concurrent jobs, -1 for as many as
+     * there are processors, 0 or 1 for sequential execution
+     * @return the executor
+     */
+    public static EnsembleExecutor forJobs(int numberOfJobs) {
+        if (numberOfJobs == -1) {
+            numberOfJobs = Runtime.getRuntime().availableProcessors();
+        }
+        if (numberOfJobs == SINGLE_THREAD || numberOfJobs == 1) {
+            return SEQUENTIAL;
+        }
+        if (numberOfJobs < 0) {
+            throw new IllegalArgumentException("Invalid number of jobs: " + numberOfJobs);
+        }
+        EnsembleExecutor executor = EXECUTORS.get(numberOfJobs);
+        if (executor == null) {
+            executor = new EnsembleExecutor(numberOfJobs, new ForkJoinPool(numberOfJobs));
+            EnsembleExecutor previous = EXECUTORS.putIfAbsent(numberOfJobs, executor);
+            if (previous != null) {
+                executor.pool.shutdown();
+                executor = previous;
+            }
+        }
+        return executor;
+    }
+
+    public int getNumberOfJobs() {
+        return this.numberOfJobs;
+    }
+
+    public boolean isParallel() {
+        return this.pool != null;
+    }
+
+    /**
+     * Runs a task for every member and waits for all of them to finish.
+     * Exceptions thrown by a member task are rethrown on the calling thread.
+     *
+     * @param numMembers the number of members
+     * @param task the task, called with the index of the member
+     */
+    public void forEachMember(int numMembers, IntConsumer task) {
+        if (this.pool == null || numMembers < 2) {
+            for (int i = 0; i < numMembers; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+        int shardSize = Math.max(1, numMembers / (this.numberOfJobs * SHARDS_PER_WORKER));
+        this.pool.invoke(new ShardAction(task, 0, numMembers, shardSize));
+    }
+
+    /**
+     * Gets the votes of all members for an instance. The members must not
+     * modify the instance while voting.
+     *
+     * @param members the members
+     * @param inst the instance to classify
+     * @return the votes of each member, in member order
+     */
+    public double[][] getVotesForInstance(Classifier[] members, Instance inst) {
+        return getVotesForInstance(members, members.length, inst);
+    }
+
+    /**
+     * Gets the votes of the first members for an instance, e.g. the members
+     * of a boosting ensemble that have a positive weight.
+     *
+     * @param members the members
+     * @param numMembers the number of leading members to query
+     * @param inst the instance to classify
+     * @return the votes of each queried member, in member order
+     */
+    public double[][] getVotesForInstance(final Classifier[] members, int numMembers, final Instance inst) {
+        final double[][] votes = new double[numMembers][];
+        forEachMember(numMembers, i -> votes[i] = members[i].getVotesForInstance(inst));
+        return votes;
+    }
+
+    /**
+     * Fork/join task over a range of members, split in halves until the
+     * range is no longer than the shard size.
+     */
+    protected static class ShardAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final IntConsumer task;
+
+        protected final int from;
+
+        protected final int to;
+
+        protected final int shardSize;
+
+        public ShardAction(IntConsumer task, int from, int to, int shardSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.shardSize) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.task.accept(i);
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ShardAction(this.task, this.from, middle, this.shardSize),
+                        new ShardAction(this.task, middle, this.to, this.shardSize));
+            }
+        }
+    }
+}
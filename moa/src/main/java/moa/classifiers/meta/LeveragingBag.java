@@ -36,6 +36,7 @@ import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
 
 /**
  * Leveraging Bagging for evolving data streams using ADWIN. Leveraging Bagging
@@ -84,6 +85,9 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
                 "Leveraging Subagging using resampling without replacement."
             }, 0);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for training and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
@@ -146,11 +150,16 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         }
 
 
-        boolean Change = false;
+        // One copy is shared by the members when they are trained in
+        // sequence, parallel members each train on their own copy
         Instance weightedInst = (Instance) inst.copy();
         double w = this.weightShrinkOption.getValue();
 
-        //Train ensemble of classifiers
+        // Draw the weights on this thread, in member order, so that parallel
+        // runs match sequential ones. checkClassValues keeps the class value
+        // each member is checked against after training.
+        double[] weights = new double[this.ensemble.length];
+        double[] checkClassValues = new double[this.ensemble.length];
         for (int i = 0; i < this.ensemble.length; i++) {
             double k = 0.0;
             switch (this.leveraginBagAlgorithmOption.getChosenIndex()) {
@@ -175,20 +184,37 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
                     k = (k > 0) ? w : 0;
                     break;
             }
-            if (k > 0) {
+            if (k > 0 && this.outputCodesOption.isSet()) {
+                weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+            }
+            weights[i] = k;
+            checkClassValues[i] = weightedInst.classValue();
+        }
+
+        //Train ensemble of classifiers
+        boolean[] changes = new boolean[this.ensemble.length];
+        EnsembleExecutor executor = getExecutor();
+        executor.forEachMember(this.ensemble.length, i -> {
+            Instance memberInst = executor.isParallel() ? (Instance) inst.copy() : weightedInst;
+            if (weights[i] > 0) {
                 if (this.outputCodesOption.isSet()) {
-                    weightedInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
+                    memberInst.setClassValue((double) this.matrixCodes[i][(int) inst.classValue()]);
                 }
-                weightedInst.setWeight(inst.weight() * k);
-                this.ensemble[i].trainOnInstance(weightedInst);
+                memberInst.setWeight(inst.weight() * weights[i]);
+                this.ensemble[i].trainOnInstance(memberInst);
             }
-            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(weightedInst);
+            memberInst.setClassValue(checkClassValues[i]);
+            boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(memberInst);
             double ErrEstim = this.ADError[i].getEstimation();
             if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
                 if (this.ADError[i].getEstimation() > ErrEstim) {
-                    Change = true;
+                    changes[i] = true;
                 }
             }
+        });
+        boolean Change = false;
+        for (boolean change : changes) {
+            Change |= change;
         }
         if (Change) {
             numberOfChangesDetected++;
@@ -214,8 +240,9 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
             return getVotesForInstanceBinary(inst);
         }
         DoubleVector combinedVote = new DoubleVector();
+        double[][] votes = getExecutor().getVotesForInstance(this.ensemble, inst);
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            DoubleVector vote = new DoubleVector(votes[i]);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 combinedVote.addValues(vote);
@@ -224,6 +251,10 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         return combinedVote.getArrayRef();
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     public double[] getVotesForInstanceBinary(Instance inst) {
         double combinedVote[] = new double[(int) inst.numClasses()];
         Instance weightedInst = (Instance) inst.copy();
@@ -273,6 +304,24 @@ public class LeveragingBag extends AbstractClassifier implements MultiClassClass
         return this.ensemble.clone();
     }
 
+    @Override
+    public long estimateByteSize() {
+        long size = super.estimateByteSize();
+        if (this.ADError != null) {
+            size += SizeOf.estimateArray(this.ADError.length, SizeOf.REFERENCE);
+            for (ADWIN adwin : this.ADError) {
+                size += SizeOf.estimate(adwin);
+            }
+        }
+        if (this.matrixCodes != null) {
+            size += SizeOf.estimateArray(this.matrixCodes.length, SizeOf.REFERENCE);
+            for (int[] codes : this.matrixCodes) {
+                size += SizeOf.estimateArray(codes);
+            }
+        }
+        return size;
+    }
+
     @Override
     public ImmutableCapabilities defineImmutableCapabilities() {
         if (this.getClass() == LeveragingBag.class)
@@ -37,7 +37,8 @@ import moa.options.ClassOption;
  * <p>See details in:<br /> </p>
  *
  * <p>Parameters:</p> <ul> <li>-l : Classiﬁer to train</li> <li>-s : The number
- * of models to boost</li> 
+ * of models to boost</li> <li>-j : The number of concurrent jobs used for
+ * voting</li>
  * </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
@@ -66,6 +67,9 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
             "The value of the gamma parameter.",
             0.1, 0.0, 1.0);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected double[] alpha;
@@ -103,6 +107,10 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
 
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     protected double getEnsembleMemberWeight(int i) {
         return this.alpha[i];
     }
@@ -110,17 +118,18 @@ public class OnlineSmoothBoost extends AbstractClassifier implements MultiClassC
     public double[] getVotesForInstance(Instance inst) {
                
         DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            double memberWeight = getEnsembleMemberWeight(i);
-            if (memberWeight > 0.0) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-                if (vote.sumOfValues() > 0.0) {
-                    vote.normalize();
-                    vote.scaleValues(memberWeight);
-                    combinedVote.addValues(vote);
-                }
-            } else {
-                break;
+        // only the members before the first one without weight take part
+        int numVoters = 0;
+        while (numVoters < this.ensemble.length && getEnsembleMemberWeight(numVoters) > 0.0) {
+            numVoters++;
+        }
+        double[][] votes = getExecutor().getVotesForInstance(this.ensemble, numVoters, inst);
+        for (int i = 0; i < numVoters; i++) {
+            DoubleVector vote = new DoubleVector(votes[i]);
+            if (vote.sumOfValues() > 0.0) {
+                vote.normalize();
+                vote.scaleValues(getEnsembleMemberWeight(i));
+                combinedVote.addValues(vote);
             }
         }
         return combinedVote.getArrayRef();
@@ -25,12 +25,14 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.Classifier;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.Regressor;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.Utils;
 import moa.options.ClassOption;
 import com.github.javacliparser.IntOption;
 
@@ -49,7 +51,8 @@ import com.github.javacliparser.IntOption;
  *
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-j : The number of concurrent jobs used for training and voting</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -70,6 +73,9 @@ public class OzaBag extends AbstractClassifier implements MultiClassClassifier,
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for training and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     @Override
@@ -84,31 +90,67 @@ public class OzaBag extends AbstractClassifier implements MultiClassClassifier,
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
+        // draw the weights up front so that parallel runs match sequential ones
+        int[] k = new int[this.ensemble.length];
+        for (int i = 0; i < k.length; i++) {
+            k[i] = MiscUtils.poisson(1.0, this.classifierRandom);
+        }
+        getExecutor().forEachMember(this.ensemble.length, i -> {
+            if (k[i] > 0) {
                 Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
+                weightedInst.setWeight(inst.weight() * k[i]);
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
+        });
+    }
+
+    /**
+     * Trains on a mini-batch with a single hand-off to the executor: each
+     * member trains on all rows of the batch, in order. The weights are
+     * drawn in the same order as when training instance by instance.
+     */
+    @Override
+    public void trainOnInstances(InstanceBatch batch) {
+        int[][] k = new int[this.ensemble.length][batch.size()];
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.weight(row) > 0.0 && !Utils.isMissingValue(batch.classValue(row))) {
+                this.trainingWeightSeenByModel += batch.weight(row);
+                for (int i = 0; i < k.length; i++) {
+                    k[i][row] = MiscUtils.poisson(1.0, this.classifierRandom);
+                }
+            }
         }
+        getExecutor().forEachMember(this.ensemble.length, i -> {
+            for (int row = 0; row < batch.size(); row++) {
+                if (k[i][row] > 0) {
+                    Instance weightedInst = batch.materialize(row);
+                    weightedInst.setWeight(batch.weight(row) * k[i][row]);
+                    this.ensemble[i].trainOnInstance(weightedInst);
+                }
+            }
+        });
+    }
+
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
     }
 
     @Override
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
+        double[][] votes = getExecutor().getVotesForInstance(this.ensemble, inst);
 
         if (inst.classAttribute().isNumeric()){ //regression
             double sumOfPredictions = 0;
             int length = this.ensemble.length;
             for (int i = 0; i <  length; i++) {
                 // getVotesForInstance returns an array with one element from each regressor
-                sumOfPredictions += this.ensemble[i].getVotesForInstance(inst)[0];
+                sumOfPredictions += votes[i][0];
             }
             return new double[]{sumOfPredictions/length};
         }else { // classification
             for (int i = 0; i < this.ensemble.length; i++) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+                DoubleVector vote = new DoubleVector(votes[i]);
                 if (vote.sumOfValues() > 0.0) {
                     vote.normalize();
                     combinedVote.addValues(vote);
@@ -78,7 +78,8 @@ import com.github.javacliparser.IntOption;
  * <code>OzaBagAdwin -l HoeffdingTreeNBAdaptive -s 10</code>
  * <p>Parameters:</p> <ul>
  * <li>-l : Classiﬁer to train</li>
- * <li>-s : The number of models in the bag</li> </ul>
+ * <li>-s : The number of models in the bag</li>
+ * <li>-j : The number of concurrent jobs used for training and voting</li> </ul>
  *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
@@ -99,6 +100,9 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
     public IntOption ensembleSizeOption = new IntOption("ensembleSize", 's',
             "The number of models in the bag.", 10, 1, Integer.MAX_VALUE);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for training and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected ADWIN[] ADError;
@@ -119,21 +123,29 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
-        boolean Change = false;
-        for (int i = 0; i < this.ensemble.length; i++) {
-            int k = MiscUtils.poisson(1.0, this.classifierRandom);
-            if (k > 0) {
+        // draw the weights up front so that parallel runs match sequential ones
+        int[] k = new int[this.ensemble.length];
+        for (int i = 0; i < k.length; i++) {
+            k[i] = MiscUtils.poisson(1.0, this.classifierRandom);
+        }
+        boolean[] changes = new boolean[this.ensemble.length];
+        getExecutor().forEachMember(this.ensemble.length, i -> {
+            if (k[i] > 0) {
                 Instance weightedInst = (Instance) inst.copy();
-                weightedInst.setWeight(inst.weight() * k);
+                weightedInst.setWeight(inst.weight() * k[i]);
                 this.ensemble[i].trainOnInstance(weightedInst);
             }
             boolean correctlyClassifies = this.ensemble[i].correctlyClassifies(inst);
             double ErrEstim = this.ADError[i].getEstimation();
             if (this.ADError[i].setInput(correctlyClassifies ? 0 : 1)) {
                 if (this.ADError[i].getEstimation() > ErrEstim) {
-                    Change = true;
+                    changes[i] = true;
                 }
             }
+        });
+        boolean Change = false;
+        for (boolean change : changes) {
+            Change |= change;
         }
         if (Change) {
             double max = 0.0;
@@ -152,11 +164,16 @@ public class OzaBagAdwin extends AbstractClassifier implements MultiClassClassif
         }
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     @Override
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
+        double[][] votes = getExecutor().getVotesForInstance(this.ensemble, inst);
         for (int i = 0; i < this.ensemble.length; i++) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
+            DoubleVector vote = new DoubleVector(votes[i]);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 combinedVote.addValues(vote);
@@ -47,7 +47,7 @@ import com.github.javacliparser.IntOption;
  *
  * <p>Parameters:</p> <ul> <li>-l : Classiﬁer to train</li> <li>-s : The number
  * of models to boost</li> <li>-p : Boost with weights only; no poisson</li>
- * </ul>
+ * <li>-j : The number of concurrent jobs used for voting</li> </ul>
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
@@ -70,6 +70,9 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
     public FlagOption pureBoostOption = new FlagOption("pureBoost", 'p',
             "Boost with weights only; no poisson.");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     protected Classifier[] ensemble;
 
     protected double[] scms;
@@ -108,6 +111,10 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
         }
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     protected double getEnsembleMemberWeight(int i) {
         double em = this.swms[i] / (this.scms[i] + this.swms[i]);
         if ((em == 0.0) || (em > 0.5)) {
@@ -119,17 +126,18 @@ public class OzaBoost extends AbstractClassifier implements MultiClassClassifier
 
     public double[] getVotesForInstance(Instance inst) {
         DoubleVector combinedVote = new DoubleVector();
-        for (int i = 0; i < this.ensemble.length; i++) {
-            double memberWeight = getEnsembleMemberWeight(i);
-            if (memberWeight > 0.0) {
-                DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(inst));
-                if (vote.sumOfValues() > 0.0) {
-                    vote.normalize();
-                    vote.scaleValues(memberWeight);
-                    combinedVote.addValues(vote);
-                }
-            } else {
-                break;
+        // only the members before the first one without weight take part
+        int numVoters = 0;
+        while (numVoters < this.ensemble.length && getEnsembleMemberWeight(numVoters) > 0.0) {
+            numVoters++;
+        }
+        double[][] votes = getExecutor().getVotesForInstance(this.ensemble, numVoters, inst);
+        for (int i = 0; i < numVoters; i++) {
+            DoubleVector vote = new DoubleVector(votes[i]);
+            if (vote.sumOfValues() > 0.0) {
+                vote.normalize();
+                vote.scaleValues(getEnsembleMemberWeight(i));
+                combinedVote.addValues(vote);
             }
         }
         return combinedVote.getArrayRef();
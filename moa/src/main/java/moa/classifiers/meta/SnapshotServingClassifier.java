@@ -0,0 +1,332 @@
+/*
+ *    SnapshotServingClassifier.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.meta;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.trees.CompiledForest;
+import moa.classifiers.trees.CompiledTree;
+import moa.core.Measurement;
+import moa.options.ClassOption;
+
+/**
+ * Serves predictions of a classifier that is learning, from read-only
+ * snapshots of its model.
+ *
+ * <p>The base learner is trained by a single thread, the one that calls
+ * trainOnInstance. Every publishPeriod instances that thread publishes a
+ * snapshot of the model through a volatile reference, each snapshot with an
+ * epoch one higher than the previous one. getVotesForInstance can be called
+ * by any number of threads concurrently with training: it predicts with the
+ * latest snapshot without waiting for training, so its predictions are those of the model
+ * at most publishPeriod instances ago. Readers that need several predictions
+ * from the same model can pin a snapshot with getSnapshot.</p>
+ *
+ * <p>Trees and forests that can be compiled by CompiledTree are published
+ * as compiled trees, which are immutable. Other models are published as a
+ * pool of readerCopies copies, made by the training thread when it publishes.
+ * A reader predicts with a copy no other reader is using, and waits for one
+ * only when more readers than copies predict at once.</p>
+ *
+ * <p>Parameters:</p> <ul> <li>-l : Classifier to train</li> <li>-p : The
+ * number of instances between two published snapshots</li> <li>-c : The
+ * number of copies published for models that cannot be compiled</li> </ul>
+ */
+public class SnapshotServingClassifier extends AbstractClassifier implements MultiClassClassifier {
+
+    @Override
+    public String getPurposeString() {
+        return "Serves lock-free predictions from periodically published snapshots of a learning classifier.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption baseLearnerOption = new ClassOption("baseLearner", 'l',
+            "Classifier to train.", Classifier.class, "trees.HoeffdingTree");
+
+    public IntOption publishPeriodOption = new IntOption("publishPeriod", 'p',
+            "The number of instances between two published snapshots of the model.", 1000, 1, Integer.MAX_VALUE);
+
+    public IntOption readerCopiesOption = new IntOption("readerCopies", 'c',
+            "The number of copies published for models that cannot be compiled, at most one per concurrent reader.",
+            4, 1, Integer.MAX_VALUE);
+
+    /** The model being trained, only used by the training thread. */
+    protected Classifier learner;
+
+    protected volatile Snapshot snapshot;
+
+    /** Whether the snapshots of the learner are compiled. */
+    protected boolean compilable;
+
+    protected long instancesSeen;
+
+    protected long instancesSinceLastPublication;
+
+    protected long publications;
+
+    protected long totalPublishTime;
+
+    protected long lastPublishTime;
+
+    protected long resetTime;
+
+    protected final LongAdder predictions = new LongAdder();
+
+    @Override
+    public void resetLearningImpl() {
+        this.learner = ((Classifier) getPreparedClassOption(this.baseLearnerOption)).copy();
+        this.learner.resetLearning();
+        this.compilable = true;
+        this.snapshot = null;
+        this.instancesSeen = 0;
+        this.instancesSinceLastPublication = 0;
+        this.publications = 0;
+        this.totalPublishTime = 0;
+        this.lastPublishTime = 0;
+        this.resetTime = System.nanoTime();
+        this.predictions.reset();
+    }
+
+    @Override
+    public void trainOnInstanceImpl(Instance inst) {
+        this.learner.trainOnInstance(inst);
+        this.instancesSeen++;
+        this.instancesSinceLastPublication++;
+        if (this.instancesSinceLastPublication >= this.publishPeriodOption.getValue()) {
+            publish();
+        }
+    }
+
+    /**
+     * Publishes a snapshot of the current model. Must only be called by the
+     * training thread.
+     */
+    public void publish() {
+        long start = System.nanoTime();
+        Snapshot previous = this.snapshot;
+        long epoch = previous == null ? 1 : previous.getEpoch() + 1;
+        Snapshot next = null;
+        if (this.compilable) {
+            try {
+                if (this.learner.getClass() == AdaptiveRandomForest.class) {
+                    next = new CompiledForestSnapshot(epoch, this.instancesSeen,
+                            ((AdaptiveRandomForest) this.learner).compileForInference());
+                } else {
+                    next = new CompiledTreeSnapshot(epoch, this.instancesSeen, CompiledTree.compile(this.learner));
+                }
+            } catch (IllegalArgumentException e) {
+                // the learner cannot be compiled, use copies from now on
+                this.compilable = false;
+            }
+        }
+        if (next == null) {
+            Classifier[] copies = new Classifier[this.readerCopiesOption.getValue()];
+            for (int i = 0; i < copies.length; i++) {
+                copies[i] = this.learner.copy();
+            }
+            next = new CopySnapshot(epoch, this.instancesSeen, copies);
+        }
+        this.snapshot = next;
+        this.instancesSinceLastPublication = 0;
+        this.publications++;
+        this.lastPublishTime = System.nanoTime() - start;
+        this.totalPublishTime += this.lastPublishTime;
+    }
+
+    /**
+     * Gets the latest published snapshot, or null if none was published since
+     * the last reset. Can be called by any thread.
+     */
+    public Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    @Override
+    public double[] getVotesForInstance(Instance inst) {
+        Snapshot current = this.snapshot;
+        this.predictions.increment();
+        if (current == null) {
+            return new double[0];
+        }
+        return current.getVotesForInstance(inst);
+    }
+
+    @Override
+    public boolean isRandomizable() {
+        return false;
+    }
+
+    @Override
+    protected Measurement[] getModelMeasurementsImpl() {
+        Snapshot current = this.snapshot;
+        double seconds = (System.nanoTime() - this.resetTime) / 1e9;
+        long served = this.predictions.sum();
+        List<Measurement> measurementList = new LinkedList<Measurement>();
+        measurementList.add(new Measurement("snapshot epoch", current == null ? 0 : current.getEpoch()));
+        measurementList.add(new Measurement("snapshot staleness (instances)", this.instancesSinceLastPublication));
+        measurementList.add(new Measurement("mean publish time (ms)",
+                this.publications == 0 ? 0.0 : this.totalPublishTime / 1e6 / this.publications));
+        measurementList.add(new Measurement("last publish time (ms)", this.lastPublishTime / 1e6));
+        measurementList.add(new Measurement("predictions served", served));
+        measurementList.add(new Measurement("reader throughput (predictions per second)",
+                seconds > 0.0 ? served / seconds : 0.0));
+        Measurement[] modelMeasurements = ((AbstractClassifier) this.learner).getModelMeasurements();
+        if (modelMeasurements != null) {
+            for (Measurement measurement : modelMeasurements) {
+                measurementList.add(measurement);
+            }
+        }
+        return measurementList.toArray(new Measurement[measurementList.size()]);
+    }
+
+    @Override
+    public void getModelDescription(StringBuilder out, int indent) {
+        this.learner.getDescription(out, indent);
+    }
+
+    /**
+     * A read-only version of the model, that can predict from several threads
+     * at once.
+     */
+    public abstract static class Snapshot implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final long epoch;
+
+        protected final long instancesSeen;
+
+        public Snapshot(long epoch, long instancesSeen) {
+            this.epoch = epoch;
+            this.instancesSeen = instancesSeen;
+        }
+
+        /**
+         * Gets the version of the snapshot, 1 for the first snapshot after a
+         * reset.
+         */
+        public long getEpoch() {
+            return this.epoch;
+        }
+
+        /**
+         * Gets the number of instances the model had been trained on when the
+         * snapshot was published.
+         */
+        public long getInstancesSeen() {
+            return this.instancesSeen;
+        }
+
+        public abstract double[] getVotesForInstance(Instance inst);
+    }
+
+    protected static class CompiledTreeSnapshot extends Snapshot {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final CompiledTree tree;
+
+        public CompiledTreeSnapshot(long epoch, long instancesSeen, CompiledTree tree) {
+            super(epoch, instancesSeen);
+            this.tree = tree;
+        }
+
+        @Override
+        public double[] getVotesForInstance(Instance inst) {
+            return this.tree.getVotesForInstance(inst);
+        }
+    }
+
+    protected static class CompiledForestSnapshot extends Snapshot {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final CompiledForest forest;
+
+        public CompiledForestSnapshot(long epoch, long instancesSeen, CompiledForest forest) {
+            super(epoch, instancesSeen);
+            this.forest = forest;
+        }
+
+        @Override
+        public double[] getVotesForInstance(Instance inst) {
+            return this.forest.getVotesForInstance(inst);
+        }
+    }
+
+    /**
+     * Copies of a model that is not known to be safe for concurrent
+     * predictions: each copy is used by one reader at a time. All copies are
+     * made when the snapshot is published, so readers never copy the model.
+     */
+    protected static class CopySnapshot extends Snapshot {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final Classifier[] models;
+
+        protected final ReentrantLock[] locks;
+
+        public CopySnapshot(long epoch, long instancesSeen, Classifier[] models) {
+            super(epoch, instancesSeen);
+            this.models = models;
+            this.locks = new ReentrantLock[models.length];
+            for (int i = 0; i < models.length; i++) {
+                this.locks[i] = new ReentrantLock();
+            }
+        }
+
+        @Override
+        public double[] getVotesForInstance(Instance inst) {
+            int n = this.models.length;
+            // readers start at different copies so that they rarely collide
+            int start = (int) (Thread.currentThread().getId() % n);
+            for (int i = 0; i < n; i++) {
+                int index = (start + i) % n;
+                if (this.locks[index].tryLock()) {
+                    return getVotes(index, inst);
+                }
+            }
+            this.locks[start].lock();
+            return getVotes(start, inst);
+        }
+
+        /**
+         * Predicts with a copy whose lock is held, and releases it.
+         */
+        protected double[] getVotes(int index, Instance inst) {
+            try {
+                return this.models[index].getVotesForInstance(inst);
+            } finally {
+                this.locks[index].unlock();
+            }
+        }
+    }
+}
@@ -21,9 +21,11 @@ package moa.classifiers.meta;
 
 import com.github.javacliparser.*;
 import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.BinaryClassInstance;
 import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
 import moa.AbstractMOAObject;
 import moa.capabilities.Capabilities;
 import moa.classifiers.*;
@@ -34,7 +36,6 @@ import moa.classifiers.meta.StreamingRandomPatches;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 import java.util.stream.IntStream;
 
@@ -60,6 +61,7 @@ import java.util.stream.IntStream;
  * <li>-M : Multiple training iterations by Ceiling (Hessian * M).</li>
  * <li>-S : Randomly skipp 1/S th of instances at training (S=1: No Skip, use all instances for training).</li>
  * <li>-K : Use Squared Loss for Classification.</li>
+ * <li>-j : Number of concurrent jobs for the one-vs-rest committee.</li>
  * </ul>
  *
  * @author Nuwan Gunasekara (ng98 at students dot waikato dot ac dot nz)
@@ -86,6 +88,8 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
             "Randomly skip 1/S th of instances at training (S=1: No Skip, use all instances for training).", 1, 1, Integer.MAX_VALUE);
     public FlagOption useSquaredLossForClassification = new FlagOption("useSquaredLossForClassification", 'K', "Use Squared Loss for Classification.");
     public IntOption randomSeedOption = new IntOption("randomSeed", 'r', "The random seed", 1);
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for training and voting the one-vs-rest committee (-1 = as much as possible, 0 = do not use multithreading)", -1, -1, Integer.MAX_VALUE);
     //endregion ================ OPTIONS ================
 
     //region ================ VARIABLES ================
@@ -93,6 +97,10 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
     protected boolean reset;
     protected int numberClasses;
     protected double[] lastPrediction = null;
+    // reusable one-vs-rest views of the current instance, one per committee member
+    protected transient BinaryClassInstance[] binaryClassInstances;
+    // the header the views were built for
+    protected transient Instances binaryClassInstancesSource;
     //endregion ================ VARIABLES ================
 
     //region ================ OVERRIDDEN METHODS ================
@@ -164,9 +172,8 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
         }else {  // multi class classification
             Instance[] binaryClassInstanceArray = getBinaryClassInstanceArray(inst);
             // train each learner
-            IntStream.range(0, SGBTCommittee.length)
-                    .parallel()
-                    .forEach(i -> SGBTCommittee[i].trainOnInstance(binaryClassInstanceArray[i]));
+            getExecutor().forEachMember(SGBTCommittee.length,
+                    i -> SGBTCommittee[i].trainOnInstance(binaryClassInstanceArray[i]));
         }
     }
 
@@ -179,9 +186,8 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
             }else { // multi class classification
                 Instance[] binaryClassInstanceArray = getBinaryClassInstanceArray(inst);
                 // get prediction from each base learner
-                IntStream.range(0, SGBTCommittee.length)
-                        .parallel()
-                        .forEach(i -> votes[i] = getVoteForPositiveClass(SGBTCommittee[i], binaryClassInstanceArray[i]));
+                getExecutor().forEachMember(SGBTCommittee.length,
+                        i -> votes[i] = getVoteForPositiveClass(SGBTCommittee[i], binaryClassInstanceArray[i]));
 
                 if (Utils.sum(votes) > 0.0) {
                     try {
@@ -200,41 +206,10 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
 
     //region ================ STATIC METHODS ================
     static public Instance newBinaryClassInstance(Instance instance){
-        int classIndex = instance.classIndex();
-        ArrayList<Attribute> attributes = new ArrayList<>();
-        ArrayList<Double> v = new ArrayList<>();
-        List<String> classAttributeValues = new ArrayList<>();
-
-        // set attributes and values for all except class attribute
-        for (int i = 0; i < instance.numAttributes(); i++){
-            if (i != classIndex){
-                attributes.add(instance.attribute(i));
-                v.add(instance.value(i));
-            }
-        }
-
-        // set class information
-        classAttributeValues.add(0,"0");
-        classAttributeValues.add(1,"1");
-        Attribute classAttribute = new Attribute("classAttribute", classAttributeValues);
-
-        attributes.add(classAttribute);
-        v.add(0.0);
-
-        Instances newInstances = new Instances("Copy", attributes, 100);
-        newInstances.setClassIndex(newInstances.numAttributes()-1);
-
-        double[] values = v.stream()
-//                .parallel()
-                .mapToDouble(Double::doubleValue).toArray();
-        double weight = instance.weight();
-
-        DenseInstance newInstance = new DenseInstance(weight, values);
-        newInstance.setWeight(weight);
-        newInstance.setDataset(newInstances);
-
-        newInstances.add(newInstance);
-        return newInstance;
+        // detached copy with class value 0, see getBinaryClassInstanceArray for the reusable views
+        return new BinaryClassInstance(BinaryClassInstance.createHeader(instance.dataset()))
+                .setSource(instance, 0.0)
+                .copy();
     }
     static double getVoteForPositiveClass(SGBT binarySgbt, Instance inst){
         DoubleVector votes = new DoubleVector(binarySgbt.getVotesForInstance(inst));
@@ -253,36 +228,52 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
         }
     }
     public static Instance getSubInstance(Instance instance, double weight, ArrayList<Integer> subSpaceFeaturesIndexes, boolean setNumericClassAttribute, double numericClassValue, boolean useOneHotEncoding) {
-        Instances subset;
+        InstancesHeader subset = getSubInstanceHeader(instance, subSpaceFeaturesIndexes, setNumericClassAttribute, useOneHotEncoding);
+        return getSubInstance(instance, weight, subSpaceFeaturesIndexes, subset, setNumericClassAttribute, numericClassValue, useOneHotEncoding);
+    }
+
+    public static Instance getSubInstance(Instance instance, double weight, ArrayList<Integer> subSpaceFeaturesIndexes, InstancesHeader subset, boolean setNumericClassAttribute, double numericClassValue, boolean useOneHotEncoding) {
+        double[] values = new double[subset.numAttributes()];
+        int index = 0;
+        for (Integer featuresIndex : subSpaceFeaturesIndexes) {
+            if (useOneHotEncoding && instance.attribute(featuresIndex).isNominal()) {
+                int numValues = instance.attribute(featuresIndex).numValues();
+                if (numValues > 2){
+                    // Do one hot-encoding
+                    values[index + (int) instance.value(featuresIndex)] = 1.0;
+                    index += numValues;
+                }else{ // binary feature
+                    values[index++] = instance.value(featuresIndex); // sets the index as value
+                }
+            } else {
+                values[index++] = instance.value(featuresIndex);
+            }
+        }
+        // set class value
+        values[index] = setNumericClassAttribute ? numericClassValue : instance.classValue();
+
+        DenseInstance subInstance = new DenseInstance(weight, values);
+        subInstance.setDataset(subset);
+        return subInstance;
+    }
+
+    public static InstancesHeader getSubInstanceHeader(Instance instance, ArrayList<Integer> subSpaceFeaturesIndexes, boolean setNumericClassAttribute, boolean useOneHotEncoding) {
         ArrayList<Attribute> attSub = new ArrayList<>();
-        ArrayList<Double> v = new ArrayList<>();
         Attribute classAttribute;
-        int totalOneHotEncodedSize = 0;
-        int totalOneHotEncodedInstances = 0;
-        int i = 0;
         // Add attributes of the selected subset
         for (Integer featuresIndex : subSpaceFeaturesIndexes) {
-            int index = i + totalOneHotEncodedSize - totalOneHotEncodedInstances;
             if (useOneHotEncoding && instance.attribute(featuresIndex).isNominal()) {
                 if (instance.attribute(featuresIndex).numValues() > 2){
-                    // Do one hot-encoding
+                    // one numeric attribute per nominal value
                     for (int j = 0; j < instance.attribute(featuresIndex).numValues(); j++) {
                         attSub.add(new Attribute(""));
-                        v.add(0.0);
                     }
-                    v.set(index + (int) instance.value(featuresIndex), 1.0);
-
-                    totalOneHotEncodedSize += instance.attribute(featuresIndex).numValues();
-                    totalOneHotEncodedInstances++;
                 }else{ // binary feature
                     attSub.add(new Attribute("")); // create a numeric attribute
-                    v.add(instance.value(featuresIndex)); // sets the index as value
                 }
             } else {
                 attSub.add(instance.attribute(featuresIndex));
-                v.add(instance.value(featuresIndex));
             }
-            i++;
         }
         // add class attribute
         if (setNumericClassAttribute) {
@@ -292,30 +283,29 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
             classAttribute = instance.classAttribute();
         }
         attSub.add(classAttribute);
-        v.add(setNumericClassAttribute ? numericClassValue : instance.classValue());
-        subset = new Instances("Subsets Candidate Instances", attSub, 100);
+        Instances subset = new Instances("Subsets Candidate Instances", attSub, 0);
         subset.setClassIndex(subset.numAttributes() - 1);
+        return new InstancesHeader(subset);
+    }
 
-        // Set the class value for each value array.
-        double[] values = new double[v.size()];
-        for (int k = 0; k < v.size(); k++) {
-            values[k] = v.get(k);
+    static int getSubInstanceSize(Instance instance, ArrayList<Integer> subSpaceFeaturesIndexes, boolean useOneHotEncoding) {
+        int size = 1; // class attribute
+        for (Integer featuresIndex : subSpaceFeaturesIndexes) {
+            if (useOneHotEncoding && instance.attribute(featuresIndex).isNominal() && instance.attribute(featuresIndex).numValues() > 2) {
+                size += instance.attribute(featuresIndex).numValues();
+            } else {
+                size++;
+            }
         }
-
-        DenseInstance subInstance = new DenseInstance(weight, values);
-        subInstance.setWeight(weight);
-        subInstance.setDataset(subset);
-
-        subset.add(subInstance);
-        return subInstance;
+        return size;
     }
 
     public static double[] getScoresWhenNullTree(int outputSize) {
         return new double[outputSize];
     }
 
-    static double[] getScoreFromSubInstance(Instance inst, ArrayList<Integer> subSpaceFeaturesIndexes, boolean setNumericClassAttribute, SGBT.BoostingCommittee b, boolean useOneHotEncoding) {
-        Instance subInstance = getSubInstance(inst, 1.0, subSpaceFeaturesIndexes, setNumericClassAttribute, -1, useOneHotEncoding);
+    static double[] getScoreFromSubInstance(Instance inst, ArrayList<Integer> subSpaceFeaturesIndexes, InstancesHeader subset, boolean setNumericClassAttribute, SGBT.BoostingCommittee b, boolean useOneHotEncoding) {
+        Instance subInstance = getSubInstance(inst, 1.0, subSpaceFeaturesIndexes, subset, setNumericClassAttribute, -1, useOneHotEncoding);
         return b.getScoresForInstance(subInstance);
     }
     //endregion ================ STATIC METHODS ================
@@ -343,24 +333,28 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
         }
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     Instance[] getBinaryClassInstanceArray(Instance inst){
         int actualClass = (int) inst.classValue();
 
-        // create binaryClassInstanceArray
-        Instance binaryInstance = newBinaryClassInstance(inst);
-
-        // generate multiple instances
-        Instance[] binaryClassInstanceArray = new Instance[SGBTCommittee.length];
-        IntStream.range(0, SGBTCommittee.length)
-//                .parallel()
-                .forEach(i -> binaryClassInstanceArray[i] = binaryInstance.copy());
+        // the views share one header and read the features from inst, so only the label differs per member
+        if (this.binaryClassInstances == null || this.binaryClassInstancesSource != inst.dataset()) {
+            InstancesHeader header = BinaryClassInstance.createHeader(inst.dataset());
+            this.binaryClassInstances = new BinaryClassInstance[SGBTCommittee.length];
+            for (int i = 0; i < this.binaryClassInstances.length; i++) {
+                this.binaryClassInstances[i] = new BinaryClassInstance(header);
+            }
+            this.binaryClassInstancesSource = inst.dataset();
+        }
 
         // set label based on actualClass binaryClassInstanceArray
-        IntStream.range(0, SGBTCommittee.length)
-//                .parallel()
-                .forEach(i -> binaryClassInstanceArray[i].setClassValue((i == actualClass) ? 1.0 : 0.0));
-
-        return binaryClassInstanceArray;
+        for (int i = 0; i < this.binaryClassInstances.length; i++) {
+            this.binaryClassInstances[i].setSource(inst, (i == actualClass) ? 1.0 : 0.0);
+        }
+        return this.binaryClassInstances;
     }
     //endregion ================ OTHER METHODS ================
 
@@ -392,6 +386,10 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
             private long instancesSeenAtTrain;
             private Classifier baseLearner = null;
             private Random classifierRandom = null;
+            // headers of the sub instances of each boosting iteration
+            private transient InstancesHeader[] subInstanceHeaders;
+            // the header the sub instance headers were built for
+            private transient Instances subInstanceHeadersSource;
             // endregion ================ SGBT VARIABLES ================
 
             // region ================ SGBT METHODS ================
@@ -528,6 +526,7 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
                 }
                 // get initial score, this is 0.0 for all the trees in the committee
                 DoubleVector rawScore = new DoubleVector(getScoresWhenNullTree(committeeSize));
+                InstancesHeader[] headers = getSubInstanceHeaders(inst);
 
                 for (int m = 0; m < booster.size(); m++) {
                     Instance subInstance;
@@ -535,7 +534,7 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
                     // at m th iteration, gets the adjustment by the m th committee considering all the previous adjustments
                     GradHess[] gradHess = mObjective.computeDerivatives(groundTruth, rawScore.getArrayRef(), false, false);
                     // create a sub instance from the inst
-                    subInstance = getSubInstance(inst, 1.0, subSpacesForEachBoostingIteration.get(m), true, -1, useOneHotEncoding.isSet());
+                    subInstance = getSubInstance(inst, 1.0, subSpacesForEachBoostingIteration.get(m), getCachedSubInstanceHeader(headers, m, inst), true, -1, useOneHotEncoding.isSet());
                     //create sub instance for each committee member
                     Instance[] subInstArray = new Instance[gradHess.length];
                     if (gradHess.length == 1) {
@@ -564,18 +563,34 @@ public class StreamingGradientBoostedTrees extends AbstractClassifier implements
                 DoubleVector rawScore = new DoubleVector(getScoresWhenNullTree(committeeSize));
 
                 double[][] s = new double[booster.size()][];
+                InstancesHeader[] headers = getSubInstanceHeaders(inst);
                 if (booster.size() == 1) {
-                    s[0] = getScoreFromSubInstance(inst, subSpacesForEachBoostingIteration.get(0), true, booster.get(0), useOneHotEncoding.isSet());
+                    s[0] = getScoreFromSubInstance(inst, subSpacesForEachBoostingIteration.get(0), getCachedSubInstanceHeader(headers, 0, inst), true, booster.get(0), useOneHotEncoding.isSet());
                 } else {
                         IntStream.range(0, booster.size())
                                 .parallel()
-                                .forEach(m -> s[m] = getScoreFromSubInstance(inst, subSpacesForEachBoostingIteration.get(m), true, booster.get(m), useOneHotEncoding.isSet()));
+                                .forEach(m -> s[m] = getScoreFromSubInstance(inst, subSpacesForEachBoostingIteration.get(m), getCachedSubInstanceHeader(headers, m, inst), true, booster.get(m), useOneHotEncoding.isSet()));
                 }
                 for (int i = 0; i < booster.size(); i++) {
                     rawScore.addValues(s[i]);
                 }
                 return rawScore;
             }
+            InstancesHeader[] getSubInstanceHeaders(Instance inst) {
+                if (subInstanceHeaders == null || subInstanceHeadersSource != inst.dataset()) {
+                    subInstanceHeaders = new InstancesHeader[booster.size()];
+                    subInstanceHeadersSource = inst.dataset();
+                }
+                return subInstanceHeaders;
+            }
+            InstancesHeader getCachedSubInstanceHeader(InstancesHeader[] headers, int m, Instance inst) {
+                // rebuilt when a nominal attribute gained values, as this changes the one-hot encoding
+                ArrayList<Integer> subspace = subSpacesForEachBoostingIteration.get(m);
+                if (headers[m] == null || headers[m].numAttributes() != getSubInstanceSize(inst, subspace, useOneHotEncoding.isSet())) {
+                    headers[m] = getSubInstanceHeader(inst, subspace, true, useOneHotEncoding.isSet());
+                }
+                return headers[m];
+            }
             public double[] getVotesForInstance(Instance inst) {
                 double[] prediction = null;
                 if (booster == null) {
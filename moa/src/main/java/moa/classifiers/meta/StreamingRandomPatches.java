@@ -37,6 +37,7 @@ import moa.core.*;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 import moa.options.ClassOption;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Random;
 
@@ -65,6 +66,7 @@ import java.util.Random;
  * <li>-w : Should use weighted voting?</li>
  * <li>-u : Should use drift detection? If disabled, then the bkg learner is also disabled.</li>
  * <li>-q : Should use bkg learner? If disabled, then trees are reset immediately.</li>
+ * <li>-j : Number of concurrent jobs used for testing and voting.</li>
  * </ul>
  *
  * @author Heitor Murilo Gomes (heitor dot gomes at waikato dot ac dot nz)
@@ -118,6 +120,9 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
     public FlagOption disableBackgroundLearnerOption = new FlagOption("disableBackgroundLearner", 'q',
             "Should use bkg learner? If disabled, then trees are reset immediately.");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for testing and voting (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     public static final int TRAIN_RANDOM_SUBSPACES = 0;
     public static final int TRAIN_RESAMPLING = 1;
     public static final int TRAIN_RANDOM_PATCHES = 2;
@@ -142,12 +147,16 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
         if(this.ensemble == null)
             initEnsemble(instance);
 
-        for (int i = 0 ; i < this.ensemble.length ; i++) {
+        // Testing only touches the member itself, so it can run in parallel. Training stays
+        // sequential as warnings and drifts draw new subspaces from the shared classifierRandom.
+        getExecutor().forEachMember(this.ensemble.length, i -> {
             double[] rawVote = this.ensemble[i].getVotesForInstance(instance);
             DoubleVector vote = new DoubleVector(rawVote);
             InstanceExample example = new InstanceExample(instance);
 
             this.ensemble[i].evaluator.addResult(example, vote.getArrayRef());
+        });
+        for (int i = 0 ; i < this.ensemble.length ; i++) {
             // Train using random subspaces without resampling, i.e. all instances are used for training.
             if(this.trainingMethodOption.getChosenIndex() == TRAIN_RANDOM_SUBSPACES) {
                 this.ensemble[i].trainOnInstance(instance,1, this.instancesSeen, this.classifierRandom, true);
@@ -172,8 +181,10 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
             initEnsemble(testInstance);
         DoubleVector combinedVote = new DoubleVector();
 
+        double[][] votes = new double[this.ensemble.length][];
+        getExecutor().forEachMember(this.ensemble.length, i -> votes[i] = this.ensemble[i].getVotesForInstance(testInstance));
         for(int i = 0 ; i < this.ensemble.length ; ++i) {
-            DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(testInstance));
+            DoubleVector vote = new DoubleVector(votes[i]);
             if (vote.sumOfValues() > 0.0) {
                 vote.normalize();
                 double acc = this.ensemble[i].evaluator.getPerformanceMeasurements()[1].getValue();
@@ -188,6 +199,10 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
         return combinedVote.getArrayRef();
     }
 
+    protected EnsembleExecutor getExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     @Override
     public boolean isRandomizable() {
         return true;
@@ -325,6 +340,18 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
         return baseModels;
     }
 
+    @Override
+    public long estimateByteSize() {
+        long size = SizeOf.estimateObject(24, 8);
+        if (this.ensemble != null) {
+            size += SizeOf.estimateArray(this.ensemble.length, SizeOf.REFERENCE);
+            for (StreamingRandomPatchesClassifier learner : this.ensemble) {
+                size += learner.estimateByteSize();
+            }
+        }
+        return size;
+    }
+
     public static ArrayList<ArrayList<Integer>> localRandomKCombinations(int k, int length,
                                                                          int nCombinations, Random random) {
         ArrayList<ArrayList<Integer>> combinations = new ArrayList<>();
@@ -364,7 +391,10 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
     }
 
     // Inner class representing the base learner of SRP.
-    public class StreamingRandomPatchesClassifier {
+    public class StreamingRandomPatchesClassifier implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
         public int indexOriginal;
         public long createdOn;
         public Classifier classifier;
@@ -614,6 +644,19 @@ public class StreamingRandomPatches extends AbstractClassifier implements MultiC
             DoubleVector vote = new DoubleVector(this.classifier.getVotesForInstance(instance));
             return vote.getArrayRef();
         }
+
+        /**
+         * @return the estimated size of the base learner and its detectors
+         */
+        public long estimateByteSize() {
+            return SizeOf.estimateObject(10, 4 + 8 + 3 * 1 + 4 * 4)
+                    + SizeOf.estimateArray(this.featureIndexes)
+                    + SizeOf.estimate(this.classifier)
+                    + SizeOf.estimate(this.driftDetectionMethod)
+                    + SizeOf.estimate(this.warningDetectionMethod)
+                    + SizeOf.estimate(this.evaluator)
+                    + (this.bkgLearner != null ? this.bkgLearner.estimateByteSize() : 0);
+        }
     }
 
     public StreamingRandomPatchesClassifier[] getEnsembleMembers() {
@@ -0,0 +1,85 @@
+/*
+ *    AttributeSplitEvaluator.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.meta.EnsembleExecutor;
+
+/**
+ * Evaluates the best split suggestion of every attribute observer of a
+ * leaf, concurrently when the leaf has enough attributes. Every observer is
+ * only touched by the job that evaluates it and the split criterion and the
+ * pre-split distribution are only read, so the suggestions are the same as
+ * the ones of a sequential evaluation and are returned in attribute order.
+ */
+public class AttributeSplitEvaluator {
+
+    /**
+     * The minimum number of attribute observers for which the suggestions
+     * are evaluated concurrently. Below that, scheduling the jobs costs more
+     * than evaluating the observers.
+     */
+    public static final int MIN_PARALLEL_ATTRIBUTES = 64;
+
+    private AttributeSplitEvaluator() {
+    }
+
+    /**
+     * Adds the best split suggestion of every attribute observer to a list,
+     * in attribute order. Missing observers and observers without a
+     * suggestion are skipped.
+     *
+     * @param suggestions the list the suggestions are added to
+     * @param observers the attribute observers, indexed by attribute
+     * @param criterion the split criterion
+     * @param preSplitDist the distribution before the split
+     * @param binaryOnly whether only binary splits are allowed
+     * @param executor the executor used to evaluate the observers
+     */
+    public static void addBestEvaluatedSplitSuggestions(List<AttributeSplitSuggestion> suggestions,
+            final List<? extends AttributeClassObserver> observers, final SplitCriterion criterion,
+            final double[] preSplitDist, final boolean binaryOnly, EnsembleExecutor executor) {
+        int numAttributes = observers.size();
+        final AttributeSplitSuggestion[] bestSuggestions = new AttributeSplitSuggestion[numAttributes];
+        IntConsumer evaluation = i -> {
+            AttributeClassObserver obs = observers.get(i);
+            if (obs != null) {
+                bestSuggestions[i] = obs.getBestEvaluatedSplitSuggestion(criterion,
+                        preSplitDist, i, binaryOnly);
+            }
+        };
+        if (executor.isParallel() && numAttributes >= MIN_PARALLEL_ATTRIBUTES) {
+            executor.forEachMember(numAttributes, evaluation);
+        } else {
+            for (int i = 0; i < numAttributes; i++) {
+                evaluation.accept(i);
+            }
+        }
+        for (AttributeSplitSuggestion bestSuggestion : bestSuggestions) {
+            if (bestSuggestion != null) {
+                suggestions.add(bestSuggestion);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *    CompiledForest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * An ensemble of compiled trees, combined as in AdaptiveRandomForest: the
+ * votes of every tree whose votes have a positive sum are normalized,
+ * multiplied by the weight of the tree and added up.
+ *
+ * @see CompiledTree
+ * @see moa.classifiers.meta.AdaptiveRandomForest#compileForInference()
+ */
+public class CompiledForest implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final CompiledTree[] trees;
+
+    protected final double[] weights;
+
+    /**
+     * Creates an ensemble of compiled trees.
+     *
+     * @param weights the weight of every tree; a weight of 1 leaves the
+     * normalized votes of the tree unchanged
+     */
+    public CompiledForest(CompiledTree[] trees, double[] weights) {
+        if (trees.length != weights.length) {
+            throw new IllegalArgumentException("Every tree needs a weight");
+        }
+        this.trees = trees;
+        this.weights = weights;
+    }
+
+    public int getNumTrees() {
+        return this.trees.length;
+    }
+
+    public double[] getVotesForInstance(Instance inst) {
+        double[] combinedVote = new double[0];
+        for (int i = 0; i < this.trees.length; i++) {
+            combinedVote = addVote(combinedVote, this.trees[i].getVotesForInstance(inst), this.weights[i]);
+        }
+        return combinedVote;
+    }
+
+    /**
+     * Gets the votes for a batch of instances. The trees are applied one
+     * after the other to the whole batch, so that the arrays of a tree stay
+     * in the cache while it is used.
+     */
+    public double[][] getVotesForInstances(Instance[] instances) {
+        double[][] combinedVotes = new double[instances.length][];
+        Arrays.fill(combinedVotes, new double[0]);
+        for (int i = 0; i < this.trees.length; i++) {
+            for (int j = 0; j < instances.length; j++) {
+                combinedVotes[j] = addVote(combinedVotes[j], this.trees[i].getVotesForInstance(instances[j]), this.weights[i]);
+            }
+        }
+        return combinedVotes;
+    }
+
+    /**
+     * Adds the weighted votes of a tree, making the operations of
+     * DoubleVector.normalize and DoubleVector.addValues.
+     *
+     * @return the combined votes, grown if the votes of the tree are longer
+     */
+    protected static double[] addVote(double[] combinedVote, double[] vote, double weight) {
+        double sum = 0.0;
+        double sumOfAbsoluteValues = 0.0;
+        for (double v : vote) {
+            sum += v;
+            sumOfAbsoluteValues += (v > 0.0) ? v : -v;
+        }
+        if (sum > 0.0) {
+            double multiplier = 1.0 / sumOfAbsoluteValues;
+            if (vote.length > combinedVote.length) {
+                combinedVote = Arrays.copyOf(combinedVote, vote.length);
+            }
+            for (int i = 0; i < vote.length; i++) {
+                combinedVote[i] += vote[i] * multiplier * weight;
+            }
+        }
+        return combinedVote;
+    }
+}
@@ -0,0 +1,811 @@
+/*
+ *    CompiledTree.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.core.attributeclassobservers.ArrayBinaryTreeNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.BinaryTreeNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.BinaryTreeNumericAttributeClassObserverRegression;
+import moa.classifiers.core.attributeclassobservers.FIMTDDNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GreenwaldKhannaNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.VFMLNumericAttributeClassObserver;
+import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
+import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.core.AutoExpandVector;
+import moa.core.DoubleVector;
+import moa.core.GaussianEstimator;
+import moa.core.Utils;
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * A tree compiled for inference.
+ *
+ * The split tests and leaf models of a trained tree are copied into flat
+ * primitive arrays, so that prediction is a loop over node indices instead
+ * of a walk over node objects. Majority class leaves keep a copy of their
+ * class distribution, naive Bayes leaves keep the class priors and, for
+ * every attribute, the probability table of a nominal observer or the
+ * Gaussian parameters of every class of a numeric observer, and the model
+ * trees of FIMTDD keep the perceptron weights of the leaves and the
+ * normalization statistics of the tree.
+ *
+ * A compiled tree is a snapshot: it does not change when the original tree
+ * keeps learning, and it gives exactly the votes getVotesForInstance of the
+ * tree gave when it was compiled. HoeffdingTree (and its subclasses that use
+ * its nodes, such as ARFHoeffdingTree), HoeffdingAdaptiveTree, EFDT, FIMTDD
+ * and ARFFIMTDD can be compiled.
+ *
+ * @see CompiledForest
+ */
+public class CompiledTree implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final int LEAF = 0;
+
+    protected static final int NUMERIC_EQUAL_FIRST = 1;
+
+    protected static final int NUMERIC_EQUAL_SECOND = 2;
+
+    protected static final int NOMINAL_BINARY = 3;
+
+    protected static final int NOMINAL_MULTIWAY = 4;
+
+    protected static final int MAJORITY_CLASS = 0;
+
+    protected static final int NAIVE_BAYES = 1;
+
+    protected static final int TARGET_MEAN = 2;
+
+    protected static final int PERCEPTRON = 3;
+
+    protected static final int NOMINAL_OBSERVER = 0;
+
+    protected static final int GAUSSIAN_OBSERVER = 1;
+
+    protected static final int ZERO_OBSERVER = 2;
+
+    protected static final int NO_DENSITY = 0;
+
+    protected static final int POINT_DENSITY = 1;
+
+    protected static final int NORMAL_DENSITY = 2;
+
+    /** The number of values stored for every class of a Gaussian observer. */
+    protected static final int GAUSSIAN_WIDTH = 4;
+
+    /** Whether the votes of all the leaves reached, as in HoeffdingAdaptiveTree, are added. */
+    protected boolean multiPath;
+
+    protected boolean regression;
+
+    /** The length of the votes of an empty tree, -1 for the number of classes. */
+    protected int emptyVotesLength;
+
+    protected int root = -1;
+
+    protected int numNodes;
+
+    protected int[] nodeTest = new int[16];
+
+    protected int[] nodeAttribute = new int[16];
+
+    protected double[] nodeValue = new double[16];
+
+    protected int[] nodeFirstChild = new int[16];
+
+    protected int[] nodeNumChildren = new int[16];
+
+    /** The model giving the votes of a node where the instance stops. */
+    protected int[] nodeModel = new int[16];
+
+    protected int[] nodeAlternate = new int[16];
+
+    protected int numChildren;
+
+    protected int[] children = new int[16];
+
+    protected int numModels;
+
+    protected int[] modelKind = new int[16];
+
+    protected int[] modelOffset = new int[16];
+
+    protected int[] modelLength = new int[16];
+
+    protected int[] modelFirstObserver = new int[16];
+
+    protected int[] modelNumObservers = new int[16];
+
+    /** Error estimation of the leaves of HoeffdingAdaptiveTree, NaN if the votes are not weighted. */
+    protected double[] modelErrorEstimation = new double[16];
+
+    protected int numModelValues;
+
+    protected double[] modelValues = new double[64];
+
+    protected int numObservers;
+
+    protected int[] observerAttribute = new int[16];
+
+    protected int[] observerKind = new int[16];
+
+    protected int[] observerOffset = new int[16];
+
+    /** The number of values of the probability table of a nominal observer. */
+    protected int[] observerWidth = new int[16];
+
+    protected int numObserverValues;
+
+    protected double[] observerValues = new double[64];
+
+    protected double[] attributeMean;
+
+    /** Three standard deviations of every attribute, or 0 if the attribute is not normalized. */
+    protected double[] attributeScale;
+
+    protected double bias;
+
+    protected boolean denormalize;
+
+    protected double targetMean;
+
+    protected double targetDeviation;
+
+    protected CompiledTree(boolean multiPath, boolean regression, int emptyVotesLength) {
+        this.multiPath = multiPath;
+        this.regression = regression;
+        this.emptyVotesLength = emptyVotesLength;
+    }
+
+    /**
+     * Compiles a tree for inference.
+     *
+     * @throws IllegalArgumentException if the tree, one of its nodes, split
+     * tests or attribute observers has a type whose predictions are not known
+     */
+    public static CompiledTree compile(Classifier tree) {
+        Class<?> predictor;
+        try {
+            predictor = tree.getClass().getMethod("getVotesForInstance", Instance.class).getDeclaringClass();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+        CompiledTree compiled;
+        if (predictor == HoeffdingTree.class || predictor == HoeffdingAdaptiveTree.class) {
+            HoeffdingTree ht = (HoeffdingTree) tree;
+            boolean multiPath = predictor == HoeffdingAdaptiveTree.class;
+            compiled = new CompiledTree(multiPath, false, multiPath ? 0 : -1);
+            if (ht.treeRoot != null) {
+                compiled.root = compiled.addNode(ht, ht.treeRoot);
+            }
+        } else if (predictor == EFDT.class) {
+            EFDT efdt = (EFDT) tree;
+            compiled = new CompiledTree(false, false, -1);
+            if (efdt.treeRoot != null) {
+                compiled.root = compiled.addNode(efdt, efdt.treeRoot);
+            }
+        } else if (predictor == FIMTDD.class) {
+            FIMTDD fimtdd = (FIMTDD) tree;
+            compiled = new CompiledTree(false, true, 1);
+            if (fimtdd.treeRoot != null) {
+                if (fimtdd.buildingModelTree()) {
+                    compiled.setNormalization(fimtdd);
+                }
+                compiled.root = compiled.addNode(fimtdd, fimtdd.treeRoot);
+            }
+        } else if (predictor == ARFFIMTDD.class) {
+            ARFFIMTDD arffimtdd = (ARFFIMTDD) tree;
+            compiled = new CompiledTree(false, true, 1);
+            if (arffimtdd.treeRoot != null) {
+                compiled.root = compiled.addNode(arffimtdd.treeRoot);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot compile " + tree.getClass().getName());
+        }
+        compiled.trim();
+        return compiled;
+    }
+
+    public int getNumNodes() {
+        return this.numNodes;
+    }
+
+    /**
+     * Gets the votes of the tree for an instance, as getVotesForInstance of
+     * the compiled tree.
+     */
+    public double[] getVotesForInstance(Instance inst) {
+        if (this.root < 0) {
+            return new double[this.emptyVotesLength < 0 ? inst.dataset().numClasses() : this.emptyVotesLength];
+        }
+        if (this.multiPath) {
+            DoubleVector result = new DoubleVector();
+            addVotes(this.root, false, inst, result);
+            return result.getArrayRef();
+        }
+        int node = this.root;
+        while (this.nodeTest[node] != LEAF) {
+            int child = child(node, branchForInstance(node, inst));
+            if (child < 0) {
+                if (this.regression) {
+                    throw new IllegalArgumentException("No branch of node " + node + " for the instance");
+                }
+                // the split node predicts, as the parent of a missing child
+                break;
+            }
+            node = child;
+        }
+        return getModelVotes(this.nodeModel[node], inst);
+    }
+
+    /**
+     * Gets the votes of the tree for a batch of instances.
+     */
+    public double[][] getVotesForInstances(Instance[] instances) {
+        double[][] votes = new double[instances.length][];
+        for (int i = 0; i < instances.length; i++) {
+            votes[i] = getVotesForInstance(instances[i]);
+        }
+        return votes;
+    }
+
+    /**
+     * Adds the votes of the leaves reached from a node in the order of
+     * HoeffdingAdaptiveTree.filterInstanceToLeaves. A leaf that is itself an
+     * alternate tree does not vote.
+     */
+    protected void addVotes(int node, boolean alternate, Instance inst, DoubleVector result) {
+        if (this.nodeTest[node] == LEAF) {
+            if (!alternate) {
+                result.addValues(getModelVotes(this.nodeModel[node], inst));
+            }
+            return;
+        }
+        int branch = branchForInstance(node, inst);
+        if (branch >= 0) {
+            int child = child(node, branch);
+            if (child >= 0) {
+                addVotes(child, false, inst, result);
+            } else {
+                result.addValues(getModelVotes(this.nodeModel[node], inst));
+            }
+        }
+        if (this.nodeAlternate[node] >= 0) {
+            addVotes(this.nodeAlternate[node], true, inst, result);
+        }
+    }
+
+    private int child(int node, int branch) {
+        return branch >= 0 && branch < this.nodeNumChildren[node]
+                ? this.children[this.nodeFirstChild[node] + branch] : -1;
+    }
+
+    /**
+     * Gets the branch of a split node for an instance, making the calls of
+     * the branchForInstance method of the split test.
+     */
+    protected int branchForInstance(int node, Instance inst) {
+        int attIndex = this.nodeAttribute[node];
+        switch (this.nodeTest[node]) {
+            case NOMINAL_BINARY:
+                int instAttIndex = attIndex < inst.classIndex() ? attIndex : attIndex + 1;
+                return inst.isMissing(instAttIndex) ? -1
+                        : ((int) inst.value(instAttIndex) == (int) this.nodeValue[node] ? 0 : 1);
+            case NOMINAL_MULTIWAY:
+                return inst.isMissing(attIndex) ? -1 : (int) inst.value(attIndex);
+            default:
+                if (inst.isMissing(attIndex)) {
+                    return -1;
+                }
+                double v = inst.valueInputAttribute(attIndex);
+                if (v == this.nodeValue[node]) {
+                    return this.nodeTest[node] == NUMERIC_EQUAL_FIRST ? 0 : 1;
+                }
+                return v < this.nodeValue[node] ? 0 : 1;
+        }
+    }
+
+    protected double[] getModelVotes(int model, Instance inst) {
+        int offset = this.modelOffset[model];
+        double[] votes;
+        switch (this.modelKind[model]) {
+            case MAJORITY_CLASS:
+                votes = Arrays.copyOfRange(this.modelValues, offset, offset + this.modelLength[model]);
+                break;
+            case NAIVE_BAYES:
+                votes = naiveBayesVotes(model, inst);
+                break;
+            case TARGET_MEAN:
+                return new double[]{this.modelValues[offset]};
+            default:
+                return new double[]{perceptronPrediction(model, inst)};
+        }
+        double errorEstimation = this.modelErrorEstimation[model];
+        if (!Double.isNaN(errorEstimation)) {
+            double distSum = Utils.sum(votes);
+            if (distSum * errorEstimation * errorEstimation > 0.0) {
+                Utils.normalize(votes, distSum * errorEstimation * errorEstimation);
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Computes the votes of NaiveBayes.doNaiveBayesPrediction. Every vote is
+     * multiplied by the probabilities of the attributes in the same order,
+     * so the votes are the same.
+     */
+    protected double[] naiveBayesVotes(int model, Instance inst) {
+        int numClasses = this.modelLength[model];
+        double[] votes = Arrays.copyOfRange(this.modelValues, this.modelOffset[model],
+                this.modelOffset[model] + numClasses);
+        int numInputAttributes = inst.numAttributes() - 1;
+        int end = this.modelFirstObserver[model] + this.modelNumObservers[model];
+        for (int o = this.modelFirstObserver[model]; o < end; o++) {
+            int attIndex = this.observerAttribute[o];
+            if (attIndex >= numInputAttributes) {
+                break;
+            }
+            int instAttIndex = inst.classIndex() > attIndex ? attIndex : attIndex + 1;
+            if (inst.isMissing(instAttIndex)) {
+                continue;
+            }
+            double value = inst.value(instAttIndex);
+            int offset = this.observerOffset[o];
+            if (this.observerKind[o] == NOMINAL_OBSERVER) {
+                int width = this.observerWidth[o];
+                int v = (int) value;
+                int column = v >= 0 && v < width ? v + 1 : 0;
+                for (int c = 0; c < numClasses; c++) {
+                    votes[c] *= this.observerValues[offset + c * (width + 1) + column];
+                }
+            } else if (this.observerKind[o] == GAUSSIAN_OBSERVER) {
+                for (int c = 0; c < numClasses; c++) {
+                    int p = offset + c * GAUSSIAN_WIDTH;
+                    double mean = this.observerValues[p + 1];
+                    double density;
+                    if (this.observerValues[p] == NORMAL_DENSITY) {
+                        double diff = value - mean;
+                        density = this.observerValues[p + 2]
+                                * Math.exp(-(diff * diff / this.observerValues[p + 3]));
+                    } else if (this.observerValues[p] == POINT_DENSITY) {
+                        density = value == mean ? 1.0 : 0.0;
+                    } else {
+                        density = 0.0;
+                    }
+                    votes[c] *= density;
+                }
+            } else {
+                for (int c = 0; c < numClasses; c++) {
+                    votes[c] *= 0.0;
+                }
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Computes the prediction of a FIMTDD perceptron: the scalar product of
+     * the weights with the normalized instance, denormalized with the target
+     * statistics of the tree.
+     */
+    protected double perceptronPrediction(int model, Instance inst) {
+        int offset = this.modelOffset[model];
+        int numWeights = this.modelLength[model];
+        int numAttributes = inst.numAttributes();
+        int length = Math.max(numWeights, numAttributes);
+        double prediction = 0.0;
+        for (int i = 0; i < length; i++) {
+            double x;
+            if (i < numAttributes - 1) {
+                x = 0.0;
+                int instAttIndex = inst.classIndex() > i ? i : i + 1;
+                if (i < this.attributeScale.length && this.attributeScale[i] != 0.0
+                        && inst.attribute(instAttIndex).isNumeric()) {
+                    x = (inst.value(instAttIndex) - this.attributeMean[i]) / this.attributeScale[i];
+                }
+            } else {
+                x = i == numAttributes - 1 ? this.bias : 0.0;
+            }
+            prediction += (i < numWeights ? this.modelValues[offset + i] : 0.0) * x;
+        }
+        return this.denormalize ? prediction * this.targetDeviation * 3 + this.targetMean : 0.0;
+    }
+
+    protected void setNormalization(FIMTDD tree) {
+        int numAttributes = tree.sumOfAttrValues.numValues();
+        this.attributeMean = new double[numAttributes];
+        this.attributeScale = new double[numAttributes];
+        for (int j = 0; j < numAttributes; j++) {
+            double sd = tree.computeSD(tree.sumOfAttrSquares.getValue(j), tree.sumOfAttrValues.getValue(j), tree.examplesSeen);
+            if (tree.examplesSeen > 1 && sd > 0) {
+                this.attributeMean[j] = tree.sumOfAttrValues.getValue(j) / tree.examplesSeen;
+                this.attributeScale[j] = 3 * sd;
+            }
+        }
+        this.bias = tree.examplesSeen > 1 ? 1.0 : 0.0;
+        this.denormalize = tree.examplesSeen > 1;
+        this.targetMean = tree.sumOfValues / tree.examplesSeen;
+        this.targetDeviation = tree.computeSD(tree.sumOfSquares, tree.sumOfValues, tree.examplesSeen);
+    }
+
+    protected int addNode(HoeffdingTree ht, HoeffdingTree.Node node) {
+        if (node.getClass() == HoeffdingTree.SplitNode.class
+                || node.getClass() == HoeffdingAdaptiveTree.AdaSplitNode.class) {
+            HoeffdingTree.SplitNode split = (HoeffdingTree.SplitNode) node;
+            int index = addSplitNode(split.splitTest, split.children.size(),
+                    addMajorityClass(split.observedClassDistribution));
+            for (int i = 0; i < split.children.size(); i++) {
+                HoeffdingTree.Node child = split.children.get(i);
+                // the arrays may grow while the child is added
+                int childIndex = child != null ? addNode(ht, child) : -1;
+                this.children[this.nodeFirstChild[index] + i] = childIndex;
+            }
+            if (this.multiPath && node.getClass() == HoeffdingAdaptiveTree.AdaSplitNode.class) {
+                HoeffdingTree.Node alternate = ((HoeffdingAdaptiveTree.AdaSplitNode) node).alternateTree;
+                int alternateIndex = alternate != null ? addNode(ht, alternate) : -1;
+                this.nodeAlternate[index] = alternateIndex;
+            }
+            return index;
+        }
+        return addLeaf(addModel(ht, node));
+    }
+
+    protected int addModel(HoeffdingTree ht, HoeffdingTree.Node node) {
+        Class<?> type = node.getClass();
+        if (type == HoeffdingTree.ActiveLearningNode.class
+                || type == HoeffdingTree.InactiveLearningNode.class
+                || type == ARFHoeffdingTree.RandomLearningNode.class) {
+            return addMajorityClass(node.observedClassDistribution);
+        }
+        if (type == HoeffdingTree.LearningNodeNB.class || type == ARFHoeffdingTree.LearningNodeNB.class) {
+            HoeffdingTree.ActiveLearningNode leaf = (HoeffdingTree.ActiveLearningNode) node;
+            return leaf.getWeightSeen() >= ht.nbThresholdOption.getValue()
+                    ? addNaiveBayes(leaf.observedClassDistribution, leaf.attributeObservers)
+                    : addMajorityClass(leaf.observedClassDistribution);
+        }
+        if (type == HoeffdingTree.LearningNodeNBAdaptive.class) {
+            HoeffdingTree.LearningNodeNBAdaptive leaf = (HoeffdingTree.LearningNodeNBAdaptive) node;
+            return addAdaptive(leaf.mcCorrectWeight > leaf.nbCorrectWeight, leaf);
+        }
+        if (type == ARFHoeffdingTree.LearningNodeNBAdaptive.class) {
+            ARFHoeffdingTree.LearningNodeNBAdaptive leaf = (ARFHoeffdingTree.LearningNodeNBAdaptive) node;
+            return addAdaptive(leaf.mcCorrectWeight > leaf.nbCorrectWeight, leaf);
+        }
+        if (type == HoeffdingAdaptiveTree.AdaLearningNode.class && this.multiPath) {
+            HoeffdingAdaptiveTree.AdaLearningNode leaf = (HoeffdingAdaptiveTree.AdaLearningNode) node;
+            int predictionOption = ht.leafpredictionOption.getChosenIndex();
+            int model;
+            if (predictionOption == 0) {
+                model = addMajorityClass(leaf.observedClassDistribution);
+            } else if (predictionOption == 1) {
+                model = addNaiveBayes(leaf.observedClassDistribution, leaf.attributeObservers);
+            } else {
+                model = addAdaptive(leaf.mcCorrectWeight > leaf.nbCorrectWeight, leaf);
+            }
+            this.modelErrorEstimation[model] = leaf.getErrorEstimation();
+            return model;
+        }
+        throw new IllegalArgumentException("Cannot compile nodes of type " + type.getName());
+    }
+
+    private int addAdaptive(boolean majorityClass, HoeffdingTree.ActiveLearningNode leaf) {
+        return majorityClass ? addMajorityClass(leaf.observedClassDistribution)
+                : addNaiveBayes(leaf.observedClassDistribution, leaf.attributeObservers);
+    }
+
+    protected int addNode(EFDT efdt, EFDT.Node node) {
+        if (node.getClass() == EFDT.SplitNode.class || node.getClass() == EFDT.EFDTSplitNode.class) {
+            EFDT.SplitNode split = (EFDT.SplitNode) node;
+            int index = addSplitNode(split.splitTest, split.children.size(),
+                    addMajorityClass(split.observedClassDistribution));
+            for (int i = 0; i < split.children.size(); i++) {
+                EFDT.Node child = split.children.get(i);
+                int childIndex = child != null ? addNode(efdt, child) : -1;
+                this.children[this.nodeFirstChild[index] + i] = childIndex;
+            }
+            return index;
+        }
+        return addLeaf(addModel(efdt, node));
+    }
+
+    protected int addModel(EFDT efdt, EFDT.Node node) {
+        Class<?> type = node.getClass();
+        if (type == EFDT.ActiveLearningNode.class || type == EFDT.InactiveLearningNode.class) {
+            return addMajorityClass(node.observedClassDistribution);
+        }
+        if (type == EFDT.LearningNodeNB.class) {
+            EFDT.LearningNodeNB leaf = (EFDT.LearningNodeNB) node;
+            return leaf.getWeightSeen() >= efdt.nbThresholdOption.getValue()
+                    ? addNaiveBayes(leaf.observedClassDistribution, leaf.attributeObservers)
+                    : addMajorityClass(leaf.observedClassDistribution);
+        }
+        if (type == EFDT.LearningNodeNBAdaptive.class || type == EFDT.EFDTLearningNode.class) {
+            EFDT.LearningNodeNBAdaptive leaf = (EFDT.LearningNodeNBAdaptive) node;
+            String predictionType = type == EFDT.EFDTLearningNode.class
+                    ? ((EFDT.EFDTLearningNode) leaf).getPredictionType() : "NBAdaptive";
+            boolean majorityClass = predictionType.equals("MC")
+                    || (!predictionType.equals("NB") && leaf.mcCorrectWeight > leaf.nbCorrectWeight);
+            return majorityClass ? addMajorityClass(leaf.observedClassDistribution)
+                    : addNaiveBayes(leaf.observedClassDistribution, leaf.attributeObservers);
+        }
+        throw new IllegalArgumentException("Cannot compile nodes of type " + type.getName());
+    }
+
+    protected int addNode(FIMTDD fimtdd, FIMTDD.Node node) {
+        if (node.getClass() == FIMTDD.SplitNode.class) {
+            FIMTDD.SplitNode split = (FIMTDD.SplitNode) node;
+            int index = addSplitNode(split.splitTest, split.children.size(), -1);
+            for (int i = 0; i < split.children.size(); i++) {
+                FIMTDD.Node child = split.children.get(i);
+                int childIndex = child != null ? addNode(fimtdd, child) : -1;
+                this.children[this.nodeFirstChild[index] + i] = childIndex;
+            }
+            return index;
+        }
+        if (node.getClass() != FIMTDD.LeafNode.class) {
+            throw new IllegalArgumentException("Cannot compile nodes of type " + node.getClass().getName());
+        }
+        FIMTDD.LeafNode leaf = (FIMTDD.LeafNode) node;
+        if (!fimtdd.buildingModelTree()) {
+            return addLeaf(addTargetMean(leaf.examplesSeen > 0.0 ? leaf.sumOfValues / leaf.examplesSeen : 0.0));
+        }
+        if (leaf.learningModel == null || leaf.learningModel.tree != fimtdd) {
+            throw new IllegalArgumentException("Cannot compile a leaf without a perceptron of the tree");
+        }
+        double[] weights = leaf.learningModel.weightAttribute.getArrayRef();
+        int model = newModel(PERCEPTRON, weights.length);
+        System.arraycopy(weights, 0, this.modelValues, this.modelOffset[model], weights.length);
+        return addLeaf(model);
+    }
+
+    protected int addNode(ARFFIMTDD.Node node) {
+        if (node.getClass() == ARFFIMTDD.SplitNode.class) {
+            ARFFIMTDD.SplitNode split = (ARFFIMTDD.SplitNode) node;
+            int index = addSplitNode(split.splitTest, split.children.size(), -1);
+            for (int i = 0; i < split.children.size(); i++) {
+                ARFFIMTDD.Node child = split.children.get(i);
+                int childIndex = child != null ? addNode(child) : -1;
+                this.children[this.nodeFirstChild[index] + i] = childIndex;
+            }
+            return index;
+        }
+        if (node.getClass() != ARFFIMTDD.LeafNode.class) {
+            throw new IllegalArgumentException("Cannot compile nodes of type " + node.getClass().getName());
+        }
+        return addLeaf(addTargetMean(node.examplesSeen > 0.0 ? node.sumOfValues / node.examplesSeen : 0.0));
+    }
+
+    protected int addLeaf(int model) {
+        int index = newNode();
+        this.nodeTest[index] = LEAF;
+        this.nodeModel[index] = model;
+        return index;
+    }
+
+    /**
+     * Adds a split node, leaving room for its children.
+     */
+    protected int addSplitNode(InstanceConditionalTest test, int numChildren, int model) {
+        int index = newNode();
+        Class<?> type = test.getClass();
+        if (type == NumericAttributeBinaryTest.class) {
+            NumericAttributeBinaryTest numericTest = (NumericAttributeBinaryTest) test;
+            this.nodeTest[index] = numericTest.isEqualsPassesTest() ? NUMERIC_EQUAL_FIRST : NUMERIC_EQUAL_SECOND;
+            this.nodeValue[index] = numericTest.getValue();
+        } else if (type == NominalAttributeBinaryTest.class) {
+            this.nodeTest[index] = NOMINAL_BINARY;
+            this.nodeValue[index] = ((NominalAttributeBinaryTest) test).getValue();
+        } else if (type == NominalAttributeMultiwayTest.class) {
+            this.nodeTest[index] = NOMINAL_MULTIWAY;
+        } else {
+            throw new IllegalArgumentException("Cannot compile split tests of type " + type.getName());
+        }
+        this.nodeAttribute[index] = test.getAttsTestDependsOn()[0];
+        this.nodeModel[index] = model;
+        if (this.numChildren + numChildren > this.children.length) {
+            this.children = Arrays.copyOf(this.children, Math.max(2 * this.children.length, this.numChildren + numChildren));
+        }
+        this.nodeFirstChild[index] = this.numChildren;
+        this.nodeNumChildren[index] = numChildren;
+        this.numChildren += numChildren;
+        return index;
+    }
+
+    private int newNode() {
+        if (this.numNodes == this.nodeTest.length) {
+            int length = 2 * this.numNodes;
+            this.nodeTest = Arrays.copyOf(this.nodeTest, length);
+            this.nodeAttribute = Arrays.copyOf(this.nodeAttribute, length);
+            this.nodeValue = Arrays.copyOf(this.nodeValue, length);
+            this.nodeFirstChild = Arrays.copyOf(this.nodeFirstChild, length);
+            this.nodeNumChildren = Arrays.copyOf(this.nodeNumChildren, length);
+            this.nodeModel = Arrays.copyOf(this.nodeModel, length);
+            this.nodeAlternate = Arrays.copyOf(this.nodeAlternate, length);
+        }
+        this.nodeAlternate[this.numNodes] = -1;
+        return this.numNodes++;
+    }
+
+    protected int addMajorityClass(DoubleVector classDistribution) {
+        double[] distribution = classDistribution.getArrayRef();
+        int model = newModel(MAJORITY_CLASS, distribution.length);
+        System.arraycopy(distribution, 0, this.modelValues, this.modelOffset[model], distribution.length);
+        return model;
+    }
+
+    protected int addTargetMean(double mean) {
+        int model = newModel(TARGET_MEAN, 1);
+        this.modelValues[this.modelOffset[model]] = mean;
+        return model;
+    }
+
+    /**
+     * Adds a naive Bayes model, keeping the class priors and the attribute
+     * observers ordered by attribute.
+     */
+    protected int addNaiveBayes(DoubleVector classDistribution,
+            AutoExpandVector<AttributeClassObserver> attributeObservers) {
+        int numClasses = classDistribution.numValues();
+        int model = newModel(NAIVE_BAYES, numClasses);
+        double observedClassSum = classDistribution.sumOfValues();
+        for (int c = 0; c < numClasses; c++) {
+            this.modelValues[this.modelOffset[model] + c] = classDistribution.getValue(c) / observedClassSum;
+        }
+        this.modelFirstObserver[model] = this.numObservers;
+        for (int attIndex = 0; attIndex < attributeObservers.size(); attIndex++) {
+            AttributeClassObserver obs = attributeObservers.get(attIndex);
+            if (obs != null) {
+                addObserver(attIndex, obs, numClasses);
+            }
+        }
+        this.modelNumObservers[model] = this.numObservers - this.modelFirstObserver[model];
+        return model;
+    }
+
+    protected void addObserver(int attIndex, AttributeClassObserver obs, int numClasses) {
+        if (this.numObservers == this.observerKind.length) {
+            int length = 2 * this.numObservers;
+            this.observerAttribute = Arrays.copyOf(this.observerAttribute, length);
+            this.observerKind = Arrays.copyOf(this.observerKind, length);
+            this.observerOffset = Arrays.copyOf(this.observerOffset, length);
+            this.observerWidth = Arrays.copyOf(this.observerWidth, length);
+        }
+        int o = this.numObservers++;
+        this.observerAttribute[o] = attIndex;
+        this.observerOffset[o] = this.numObserverValues;
+        Class<?> type = obs.getClass();
+        if (type == NominalAttributeClassObserver.class) {
+            // the probabilities of the values observed with some class, after
+            // the probability of a value never observed
+            NominalAttributeClassObserver nominal = (NominalAttributeClassObserver) obs;
+            int width = 0;
+            for (int c = 0; c < numClasses; c++) {
+                DoubleVector counts = nominal.attValDistPerClass.get(c);
+                width = Math.max(width, counts != null ? counts.numValues() : 0);
+            }
+            this.observerKind[o] = NOMINAL_OBSERVER;
+            this.observerWidth[o] = width;
+            int offset = newObserverValues(numClasses * (width + 1));
+            for (int c = 0; c < numClasses; c++) {
+                for (int v = -1; v < width; v++) {
+                    this.observerValues[offset++] = nominal.probabilityOfAttributeValueGivenClass(v, c);
+                }
+            }
+        } else if (type == GaussianNumericAttributeClassObserver.class) {
+            GaussianNumericAttributeClassObserver gaussian = (GaussianNumericAttributeClassObserver) obs;
+            this.observerKind[o] = GAUSSIAN_OBSERVER;
+            int offset = newObserverValues(numClasses * GAUSSIAN_WIDTH);
+            for (int c = 0; c < numClasses; c++, offset += GAUSSIAN_WIDTH) {
+                GaussianEstimator estimator = gaussian.getEstimator(c);
+                if (estimator == null || !(estimator.getTotalWeightObserved() > 0.0)) {
+                    this.observerValues[offset] = NO_DENSITY;
+                    continue;
+                }
+                double stdDev = estimator.getStdDev();
+                this.observerValues[offset + 1] = estimator.getMean();
+                if (stdDev > 0.0) {
+                    this.observerValues[offset] = NORMAL_DENSITY;
+                    this.observerValues[offset + 2] = 1.0 / (GaussianEstimator.NORMAL_CONSTANT * stdDev);
+                    this.observerValues[offset + 3] = 2.0 * stdDev * stdDev;
+                } else {
+                    this.observerValues[offset] = POINT_DENSITY;
+                }
+            }
+        } else if (type == NullAttributeClassObserver.class
+                || type == VFMLNumericAttributeClassObserver.class
+                || type == GreenwaldKhannaNumericAttributeClassObserver.class
+                || type == BinaryTreeNumericAttributeClassObserver.class
+                || type == BinaryTreeNumericAttributeClassObserverRegression.class
+                || type == ArrayBinaryTreeNumericAttributeClassObserver.class
+                || type == FIMTDDNumericAttributeClassObserver.class) {
+            // these observers give a probability of 0 to any value
+            this.observerKind[o] = ZERO_OBSERVER;
+        } else {
+            throw new IllegalArgumentException("Cannot compile attribute observers of type " + type.getName());
+        }
+    }
+
+    private int newModel(int kind, int length) {
+        if (this.numModels == this.modelKind.length) {
+            int capacity = 2 * this.numModels;
+            this.modelKind = Arrays.copyOf(this.modelKind, capacity);
+            this.modelOffset = Arrays.copyOf(this.modelOffset, capacity);
+            this.modelLength = Arrays.copyOf(this.modelLength, capacity);
+            this.modelFirstObserver = Arrays.copyOf(this.modelFirstObserver, capacity);
+            this.modelNumObservers = Arrays.copyOf(this.modelNumObservers, capacity);
+            this.modelErrorEstimation = Arrays.copyOf(this.modelErrorEstimation, capacity);
+        }
+        if (this.numModelValues + length > this.modelValues.length) {
+            this.modelValues = Arrays.copyOf(this.modelValues, Math.max(2 * this.modelValues.length, this.numModelValues + length));
+        }
+        int model = this.numModels++;
+        this.modelKind[model] = kind;
+        this.modelOffset[model] = this.numModelValues;
+        this.modelLength[model] = length;
+        this.modelErrorEstimation[model] = Double.NaN;
+        this.numModelValues += length;
+        return model;
+    }
+
+    private int newObserverValues(int length) {
+        if (this.numObserverValues + length > this.observerValues.length) {
+            this.observerValues = Arrays.copyOf(this.observerValues, Math.max(2 * this.observerValues.length, this.numObserverValues + length));
+        }
+        int offset = this.numObserverValues;
+        this.numObserverValues += length;
+        return offset;
+    }
+
+    /**
+     * Drops the room left for further nodes once the tree is compiled.
+     */
+    protected void trim() {
+        this.nodeTest = Arrays.copyOf(this.nodeTest, this.numNodes);
+        this.nodeAttribute = Arrays.copyOf(this.nodeAttribute, this.numNodes);
+        this.nodeValue = Arrays.copyOf(this.nodeValue, this.numNodes);
+        this.nodeFirstChild = Arrays.copyOf(this.nodeFirstChild, this.numNodes);
+        this.nodeNumChildren = Arrays.copyOf(this.nodeNumChildren, this.numNodes);
+        this.nodeModel = Arrays.copyOf(this.nodeModel, this.numNodes);
+        this.nodeAlternate = Arrays.copyOf(this.nodeAlternate, this.numNodes);
+        this.children = Arrays.copyOf(this.children, this.numChildren);
+        this.modelKind = Arrays.copyOf(this.modelKind, this.numModels);
+        this.modelOffset = Arrays.copyOf(this.modelOffset, this.numModels);
+        this.modelLength = Arrays.copyOf(this.modelLength, this.numModels);
+        this.modelFirstObserver = Arrays.copyOf(this.modelFirstObserver, this.numModels);
+        this.modelNumObservers = Arrays.copyOf(this.modelNumObservers, this.numModels);
+        this.modelErrorEstimation = Arrays.copyOf(this.modelErrorEstimation, this.numModels);
+        this.modelValues = Arrays.copyOf(this.modelValues, this.numModelValues);
+        this.observerAttribute = Arrays.copyOf(this.observerAttribute, this.numObservers);
+        this.observerKind = Arrays.copyOf(this.observerKind, this.numObservers);
+        this.observerOffset = Arrays.copyOf(this.observerOffset, this.numObservers);
+        this.observerWidth = Arrays.copyOf(this.observerWidth, this.numObservers);
+        this.observerValues = Arrays.copyOf(this.observerValues, this.numObserverValues);
+    }
+}
@@ -68,6 +68,7 @@ import moa.classifiers.core.conditionaltests.NominalAttributeBinaryTest;
 import moa.classifiers.core.conditionaltests.NominalAttributeMultiwayTest;
 import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
@@ -147,6 +148,9 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to evaluate the attributes when attempting or re-evaluating a split (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     public MultiChoiceOption leafpredictionOption = new MultiChoiceOption(
             "leafprediction", 'l', "Leaf prediction to use.", new String[]{
             "MC", "NB", "NBAdaptive"}, new String[]{
@@ -284,6 +288,10 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
         return (AttributeClassObserver) numericClassObserver.copy();
     }
 
+    protected EnsembleExecutor getSplitExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     public void enforceTrackerLimit() {
         if ((this.inactiveLeafNodeCount > 0)
                 || ((this.activeLeafNodeCount * this.activeLeafByteSizeEstimate + this.inactiveLeafNodeCount
@@ -921,16 +929,9 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
                         new double[0][], criterion.getMeritOfSplit(
                         preSplitDist, new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                AttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-                            preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            AttributeSplitEvaluator.addBestEvaluatedSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, preSplitDist,
+                    ht.binarySplitsOption.isSet(), ht.getSplitExecutor());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
@@ -1201,6 +1202,10 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
             return this.parent;
         }
 
+        public String getPredictionType() {
+            return this.predictionType;
+        }
+
         @Override
         public double[] getClassVotes(Instance inst, EFDT ht) {
             if (this.predictionType.equals("MC"))
@@ -1297,16 +1302,9 @@ public class EFDT extends AbstractClassifier implements MultiClassClassifier {
                         new double[0][], criterion.getMeritOfSplit(
                         preSplitDist, new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                AttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-                            preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            AttributeSplitEvaluator.addBestEvaluatedSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, preSplitDist,
+                    ht.binarySplitsOption.isSet(), ht.getSplitExecutor());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
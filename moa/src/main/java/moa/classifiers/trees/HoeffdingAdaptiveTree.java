@@ -30,6 +30,7 @@ import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.core.DoubleVector;
 import moa.core.MiscUtils;
+import moa.core.SizeOf;
 import moa.core.Utils;
 import com.yahoo.labs.samoa.instances.Instance;
 
@@ -122,6 +123,16 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             }
             return byteSize;
         }
+
+        @Override
+        public long estimateByteSizeIncludingSubtree() {
+            long byteSize = super.estimateByteSizeIncludingSubtree()
+                    + SizeOf.estimate(estimationErrorWeight);
+            if (alternateTree != null) {
+                byteSize += alternateTree.estimateByteSizeIncludingSubtree();
+            }
+            return byteSize;
+        }
         
         public AdaSplitNode(InstanceConditionalTest splitTest,
                 double[] classObservations, int size) {
@@ -322,6 +333,11 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             return byteSize;
         }
 
+        @Override
+        public long estimateByteSize() {
+            return super.estimateByteSize() + SizeOf.estimate(estimationErrorWeight);
+        }
+
         public AdaLearningNode(double[] initialClassObservations) {
             super(initialClassObservations);
             this.classifierRandom = new Random(this.randomSeed);
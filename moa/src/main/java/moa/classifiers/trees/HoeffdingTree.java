@@ -43,6 +43,7 @@ import moa.classifiers.core.attributeclassobservers.NullAttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserver;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.core.AutoExpandVector;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
@@ -167,6 +168,9 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
     public FlagOption noPrePruneOption = new FlagOption("noPrePrune", 'p',
             "Disable pre-pruning.");
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to evaluate the attributes when attempting a split (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
     public static class FoundNode {
 
         public Node node;
@@ -200,6 +204,16 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             return calcByteSize();
         }
 
+        @Override
+        public long estimateByteSize() {
+            return SizeOf.estimateObject(1, 0)
+                    + this.observedClassDistribution.estimateByteSize();
+        }
+
+        public long estimateByteSizeIncludingSubtree() {
+            return estimateByteSize();
+        }
+
         public boolean isLeaf() {
             return true;
         }
@@ -278,6 +292,24 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             return byteSize;
         }
 
+        @Override
+        public long estimateByteSize() {
+            return super.estimateByteSize() + SizeOf.estimateObject(2, 0)
+                    + SizeOf.estimateArray(this.children.size(), SizeOf.REFERENCE)
+                    + SizeOf.estimate(this.splitTest);
+        }
+
+        @Override
+        public long estimateByteSizeIncludingSubtree() {
+            long byteSize = estimateByteSize();
+            for (Node child : this.children) {
+                if (child != null) {
+                    byteSize += child.estimateByteSizeIncludingSubtree();
+                }
+            }
+            return byteSize;
+        }
+
         @Override
         public double[] getObservedClassDistributionAtLeavesReachableThroughThisNode() {
             // Start a new DoubleVector with 0 in all positions.
@@ -434,6 +466,12 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
                     + SizeOf.fullSizeOf(this.attributeObservers);
         }
 
+        @Override
+        public long estimateByteSize() {
+            return super.estimateByteSize()
+                    + this.attributeObservers.estimateByteSize();
+        }
+
         @Override
         public void learnFromInstance(Instance inst, HoeffdingTree ht) {
             if (this.isInitialized == false) {
@@ -476,16 +514,9 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
                         preSplitDist,
                         new double[][]{preSplitDist})));
             }
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                AttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-                    AttributeSplitSuggestion bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion,
-                            preSplitDist, i, ht.binarySplitsOption.isSet());
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            AttributeSplitEvaluator.addBestEvaluatedSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, preSplitDist,
+                    ht.binarySplitsOption.isSet(), ht.getSplitExecutor());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
@@ -519,6 +550,19 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         return size;
     }
 
+    /**
+     * Estimates the size of the tree without the agent, see
+     * {@link Node#estimateByteSizeIncludingSubtree()}.
+     */
+    @Override
+    public long estimateByteSize() {
+        long size = SizeOf.estimateObject(20, 5 * 8);
+        if (this.treeRoot != null) {
+            size += this.treeRoot.estimateByteSizeIncludingSubtree();
+        }
+        return size;
+    }
+
     public int getNodeCount() {
         return this.decisionNodeCount + this.activeLeafNodeCount + this.inactiveLeafNodeCount;
     }
@@ -660,6 +704,10 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         return (AttributeClassObserver) numericClassObserver.copy();
     }
 
+    protected EnsembleExecutor getSplitExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     protected void attemptToSplit(ActiveLearningNode node, SplitNode parent,
             int parentIndex) {
         if (!node.observedClassDistributionIsPure()) {
@@ -11,6 +11,7 @@ import moa.classifiers.core.AttributeSplitSuggestion;
 import moa.classifiers.core.attributeclassobservers.FIMTDDNumericAttributeClassObserver;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.core.*;
 import moa.options.ClassOption;
 
@@ -102,6 +103,10 @@ public class SelfOptimisingBaseTree extends AbstractClassifier implements Regres
     public FlagOption learningRatioConstOption = new FlagOption(
             "learningRatioConst", 'p', "Keep learning rate constant instead of decaying.");
 
+    public IntOption numberOfJobsOption = new IntOption(
+            "numberOfJobs", 'j', "Total number of concurrent jobs used to evaluate the attributes when attempting a split (-1 = as much as possible, 0 = do not use multithreading).",
+            1, -1, Integer.MAX_VALUE);
+
 
     //endregion ================ OPTIONS ================
 
@@ -343,21 +348,9 @@ public class SelfOptimisingBaseTree extends AbstractClassifier implements Regres
             // Set the nodeStatistics up as the preSplitDistribution, rather than the observedClassDistribution
             double[] nodeSplitDist = new double[] {examplesSeen, sumOfValues, sumOfSquares};
 
-            for (int i = 0; i < this.attributeObservers.size(); i++) {
-                FIMTDDNumericAttributeClassObserver obs = this.attributeObservers.get(i);
-                if (obs != null) {
-
-                    // AT THIS STAGE NON-NUMERIC ATTRIBUTES ARE IGNORED
-                    AttributeSplitSuggestion bestSuggestion = null;
-                    if (obs instanceof FIMTDDNumericAttributeClassObserver) {
-                        bestSuggestion = obs.getBestEvaluatedSplitSuggestion(criterion, nodeSplitDist, i, true);
-                    }
-
-                    if (bestSuggestion != null) {
-                        bestSuggestions.add(bestSuggestion);
-                    }
-                }
-            }
+            // AT THIS STAGE NON-NUMERIC ATTRIBUTES ARE IGNORED, they have no observer
+            AttributeSplitEvaluator.addBestEvaluatedSplitSuggestions(bestSuggestions,
+                    this.attributeObservers, criterion, nodeSplitDist, true, tree.getSplitExecutor());
             return bestSuggestions.toArray(new AttributeSplitSuggestion[bestSuggestions.size()]);
         }
 
@@ -855,6 +848,10 @@ public class SelfOptimisingBaseTree extends AbstractClassifier implements Regres
         return new FIMTDDNumericAttributeClassObserver();
     }
 
+    protected EnsembleExecutor getSplitExecutor() {
+        return EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+    }
+
     protected SplitNode newSplitNode(InstanceConditionalTest splitTest) {
         maxID++;
         return new SplitNode(splitTest, this);
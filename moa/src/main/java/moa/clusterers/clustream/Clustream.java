@@ -27,6 +27,7 @@ import java.util.Random;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.cluster.SphereCluster;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.clusterers.AbstractClusterer;
 import moa.core.Measurement;
 import com.github.javacliparser.IntOption;
@@ -51,9 +52,13 @@ public class Clustream extends AbstractClusterer{
 			"kernelRadiFactor", 't',
 			"Multiplier for the kernel radius", 2);
 
+	public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+			"Total number of concurrent jobs used to search the kernels (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
 	private int timeWindow;
 	private long timestamp = -1;
 	private ClustreamKernel[] kernels;
+	private KernelCenters kernelCenters;
 	private boolean initialized;
 	private List<ClustreamKernel> buffer; // Buffer for initialization with kNN
 	private int bufferSize;
@@ -67,6 +72,7 @@ public class Clustream extends AbstractClusterer{
 	@Override
 	public void resetLearningImpl() {
 		this.kernels = new ClustreamKernel[maxNumKernelsOption.getValue()];
+		this.kernelCenters = null;
 		this.timeWindow = timeWindowOption.getValue();
 		this.initialized = false;
 		this.buffer = new LinkedList<ClustreamKernel>();
@@ -104,37 +110,23 @@ public class Clustream extends AbstractClusterer{
 			}
 
 			buffer.clear();
+			initKernelCenters(dim);
 			initialized = true;
 		}
 
 
 		// 1. Determine closest kernel
-		ClustreamKernel closestKernel = null;
-		double minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			//System.out.println(i+" "+kernels[i].getWeight()+" "+kernels[i].getDeviation());
-			double distance = distanceIgnoreNaN(instance.toDoubleArray(), kernels[i].getCenter() );
-			if ( distance < minDistance ) {
-				closestKernel = kernels[i];
-				minDistance = distance;
-			}
-		}
+		double[] point = instance.toDoubleArray();
+		int closest = kernelCenters.nearest(point, true);
+		ClustreamKernel closestKernel = kernels[closest];
+		double minDistance = kernelCenters.getNearestDistance();
 
 		// 2. Check whether instance fits into closestKernel
 		double radius = 0.0;
 		if ( closestKernel.getWeight() == 1 ) {
 			// Special case: estimate radius by determining the distance to the
 			// next closest cluster
-			radius = Double.MAX_VALUE;
-			double[] center = closestKernel.getCenter();
-			for ( int i = 0; i < kernels.length; i++ ) {
-				if ( kernels[i] == closestKernel ) {
-					continue;
-				}
-
-				double distance = distance(kernels[i].getCenter(), center );
-				radius = Math.min( distance, radius );
-			}
+			radius = kernelCenters.distanceToOtherRows(closest);
 		} else {
 			radius = closestKernel.getRadius();
 		}
@@ -142,6 +134,7 @@ public class Clustream extends AbstractClusterer{
 		if ( minDistance < radius ) {
 			// Date fits, put into kernel and be happy
 			closestKernel.insert( instance, timestamp );
+			kernelCenters.setCenter(closest, closestKernel.LS, closestKernel.getWeight());
 			return;
 		}
 
@@ -152,30 +145,33 @@ public class Clustream extends AbstractClusterer{
 		// 3.1 Try to forget old kernels
 		for ( int i = 0; i < kernels.length; i++ ) {
 			if ( kernels[i].getRelevanceStamp() < threshold ) {
-				kernels[i] = new ClustreamKernel( instance, dim, timestamp, t, m );
+				setKernel(i, new ClustreamKernel( instance, dim, timestamp, t, m ));
 				return;
 			}
 		}
 
 		// 3.2 Merge closest two kernels
-		int closestA = 0;
-		int closestB = 0;
-		minDistance = Double.MAX_VALUE;
-		for ( int i = 0; i < kernels.length; i++ ) {
-			double[] centerA = kernels[i].getCenter();
-			for ( int j = i + 1; j < kernels.length; j++ ) {
-				double dist = distance( centerA, kernels[j].getCenter() );
-				if ( dist < minDistance ) {
-					minDistance = dist;
-					closestA = i;
-					closestB = j;
-				}
-			}
-		}
+		int[] closestPair = kernelCenters.closestPair();
+		int closestA = closestPair[0];
+		int closestB = closestPair[1];
 		assert (closestA != closestB);
 
 		kernels[closestA].add( kernels[closestB] );
-		kernels[closestB] = new ClustreamKernel( instance, dim, timestamp, t,  m );
+		setKernel(closestA, kernels[closestA]);
+		setKernel(closestB, new ClustreamKernel( instance, dim, timestamp, t,  m ));
+	}
+
+	private void initKernelCenters(int dim) {
+		kernelCenters = new KernelCenters(kernels.length, dim);
+		kernelCenters.setExecutor(EnsembleExecutor.forJobs(numberOfJobsOption.getValue()));
+		for ( int i = 0; i < kernels.length; i++ ) {
+			kernelCenters.setCenter(i, kernels[i].LS, kernels[i].getWeight());
+		}
+	}
+
+	private void setKernel(int i, ClustreamKernel kernel) {
+		kernels[i] = kernel;
+		kernelCenters.setCenter(i, kernel.LS, kernel.getWeight());
 	}
 
 	@Override
@@ -274,11 +270,16 @@ public class Clustream extends AbstractClusterer{
 		int repetitions = 100;
 		while ( repetitions-- >= 0 ) {
 			// Assign points to clusters
+			double[][] centerValues = new double[k][];
+			for ( int i = 0; i < k; i++ ) {
+				centerValues[i] = centers[i].getCenter();
+			}
 			for ( Cluster point : data ) {
-				double minDistance = distance( point.getCenter(), centers[0].getCenter() );
+				double[] pointCenter = point.getCenter();
+				double minDistance = distance( pointCenter, centerValues[0] );
 				int closestCluster = 0;
 				for ( int i = 1; i < k; i++ ) {
-					double distance = distance( point.getCenter(), centers[i].getCenter() );
+					double distance = distance( pointCenter, centerValues[i] );
 					if ( distance < minDistance ) {
 						closestCluster = i;
 						minDistance = distance;
@@ -0,0 +1,307 @@
+/*
+ *    KernelCenters.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers.clustream;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import moa.classifiers.meta.EnsembleExecutor;
+
+/**
+ * Centers of a fixed number of kernels, stored row after row in a single
+ * array so that distance loops run over contiguous memory.
+ *
+ * The table also keeps, for every row i, the first row j &gt; i at the
+ * smallest distance, so the closest pair of kernels is found in linear time.
+ * Rows whose center changed are only marked; the pairs are brought up to
+ * date the next time the closest pair is needed, which costs time linear in
+ * the number of rows for every changed row instead of the quadratic pairwise
+ * search. Searches give exactly the results (including ties) of scanning the
+ * kernels in order.
+ */
+public class KernelCenters implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The number of distance terms below which a search is not split over threads. */
+    protected static final int MIN_PARALLEL_WORK = 1 << 16;
+
+    protected final int numRows;
+
+    protected final int dimensions;
+
+    protected final double[] centers;
+
+    protected final int[] pairRow;
+
+    protected final double[] pairDistance;
+
+    protected final boolean[] changed;
+
+    protected final int[] changedRows;
+
+    protected int numChanged;
+
+    protected boolean pairsValid;
+
+    protected transient EnsembleExecutor executor;
+
+    protected int[] shardRow;
+
+    protected double[] shardDistance;
+
+    protected double nearestDistance;
+
+    public KernelCenters(int numRows, int dimensions) {
+        this.numRows = numRows;
+        this.dimensions = dimensions;
+        this.centers = new double[numRows * dimensions];
+        this.pairRow = new int[numRows];
+        this.pairDistance = new double[numRows];
+        this.changed = new boolean[numRows];
+        this.changedRows = new int[numRows];
+    }
+
+    /**
+     * Sets the executor used to split large searches, null for sequential
+     * searches.
+     */
+    public void setExecutor(EnsembleExecutor executor) {
+        this.executor = executor;
+    }
+
+    public int numRows() {
+        return this.numRows;
+    }
+
+    /**
+     * Sets the center of a row to the linear sum of its points divided by
+     * their number, as CFCluster.getCenter does.
+     */
+    public void setCenter(int row, double[] linearSum, double n) {
+        int offset = row * this.dimensions;
+        for (int i = 0; i < this.dimensions; i++) {
+            this.centers[offset + i] = linearSum[i] / n;
+        }
+        if (!this.changed[row]) {
+            this.changed[row] = true;
+            this.changedRows[this.numChanged++] = row;
+        }
+    }
+
+    /**
+     * Euclidean distance between a point and the center of a row.
+     *
+     * @param ignoreNaN whether dimensions where either value is missing are
+     * left out, as in Clustream.distanceIgnoreNaN
+     */
+    public double distance(double[] point, int row, boolean ignoreNaN) {
+        int offset = row * this.dimensions;
+        double distance = 0.0;
+        if (ignoreNaN) {
+            for (int i = 0; i < this.dimensions; i++) {
+                double c = this.centers[offset + i];
+                if (!(Double.isNaN(point[i]) || Double.isNaN(c))) {
+                    double d = point[i] - c;
+                    distance += d * d;
+                }
+            }
+        } else {
+            for (int i = 0; i < this.dimensions; i++) {
+                double d = point[i] - this.centers[offset + i];
+                distance += d * d;
+            }
+        }
+        return Math.sqrt(distance);
+    }
+
+    /**
+     * Euclidean distance between the centers of two rows.
+     */
+    public double distance(int rowA, int rowB) {
+        int offsetA = rowA * this.dimensions;
+        int offsetB = rowB * this.dimensions;
+        double distance = 0.0;
+        for (int i = 0; i < this.dimensions; i++) {
+            double d = this.centers[offsetA + i] - this.centers[offsetB + i];
+            distance += d * d;
+        }
+        return Math.sqrt(distance);
+    }
+
+    /**
+     * Finds the first row with the smallest distance to a point.
+     *
+     * @return the row, or -1 if no distance is smaller than Double.MAX_VALUE
+     */
+    public int nearest(final double[] point, final boolean ignoreNaN) {
+        int shards = isParallel((long) this.numRows * this.dimensions) ? this.executor.getNumberOfJobs() : 1;
+        if (this.shardRow == null || this.shardRow.length != shards) {
+            this.shardRow = new int[shards];
+            this.shardDistance = new double[shards];
+        }
+        final int shardSize = (this.numRows + shards - 1) / shards;
+        if (shards == 1) {
+            nearest(point, ignoreNaN, 0, shardSize);
+        } else {
+            this.executor.forEachMember(shards, s -> nearest(point, ignoreNaN, s, shardSize));
+        }
+        // combine the shards in order, so ties go to the first row as in a sequential scan
+        int best = -1;
+        double minDistance = Double.MAX_VALUE;
+        for (int s = 0; s < shards; s++) {
+            if (this.shardRow[s] != -1 && this.shardDistance[s] < minDistance) {
+                best = this.shardRow[s];
+                minDistance = this.shardDistance[s];
+            }
+        }
+        this.nearestDistance = minDistance;
+        return best;
+    }
+
+    private void nearest(double[] point, boolean ignoreNaN, int shard, int shardSize) {
+        int best = -1;
+        double minDistance = Double.MAX_VALUE;
+        int to = Math.min(this.numRows, (shard + 1) * shardSize);
+        for (int row = shard * shardSize; row < to; row++) {
+            double distance = distance(point, row, ignoreNaN);
+            if (distance < minDistance) {
+                best = row;
+                minDistance = distance;
+            }
+        }
+        this.shardRow[shard] = best;
+        this.shardDistance[shard] = minDistance;
+    }
+
+    /**
+     * Gets the distance of the row found by the last call to nearest.
+     */
+    public double getNearestDistance() {
+        return this.nearestDistance;
+    }
+
+    /**
+     * Gets the smallest distance between the center of a row and the centers
+     * of the other rows.
+     */
+    public double distanceToOtherRows(int row) {
+        double radius = Double.MAX_VALUE;
+        for (int i = 0; i < this.numRows; i++) {
+            if (i != row) {
+                radius = Math.min(distance(i, row), radius);
+            }
+        }
+        return radius;
+    }
+
+    /**
+     * Finds the closest pair of rows: the first pair (i, j), i &lt; j, in
+     * lexicographic order with the smallest distance.
+     *
+     * @return the two rows, or {0, 0} if no distance is smaller than
+     * Double.MAX_VALUE
+     */
+    public int[] closestPair() {
+        if (!this.pairsValid || 4 * this.numChanged > this.numRows) {
+            forEachRow(this::scanPairs, (long) this.numRows * this.numRows / 2 * this.dimensions);
+            this.pairsValid = true;
+        } else if (this.numChanged > 0) {
+            forEachRow(this::updatePairs, (long) this.numRows * this.numChanged * this.dimensions);
+        }
+        for (int i = 0; i < this.numChanged; i++) {
+            this.changed[this.changedRows[i]] = false;
+        }
+        this.numChanged = 0;
+
+        int closestA = 0;
+        int closestB = 0;
+        double minDistance = Double.MAX_VALUE;
+        for (int i = 0; i < this.numRows; i++) {
+            if (this.pairRow[i] != -1 && this.pairDistance[i] < minDistance) {
+                minDistance = this.pairDistance[i];
+                closestA = i;
+                closestB = this.pairRow[i];
+            }
+        }
+        return new int[]{closestA, closestB};
+    }
+
+    private boolean isParallel(long work) {
+        return this.executor != null && this.executor.isParallel() && work >= MIN_PARALLEL_WORK;
+    }
+
+    private void forEachRow(IntConsumer task, long work) {
+        if (isParallel(work)) {
+            this.executor.forEachMember(this.numRows, task);
+        } else {
+            for (int i = 0; i < this.numRows; i++) {
+                task.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Finds the first row after row i with the smallest distance to it.
+     */
+    private void scanPairs(int i) {
+        int best = -1;
+        double minDistance = Double.MAX_VALUE;
+        for (int j = i + 1; j < this.numRows; j++) {
+            double distance = distance(i, j);
+            if (distance < minDistance) {
+                best = j;
+                minDistance = distance;
+            }
+        }
+        this.pairRow[i] = best;
+        this.pairDistance[i] = minDistance;
+    }
+
+    /**
+     * Brings the pair of row i up to date with the changed rows. The
+     * distances to unchanged rows did not change, so unless row i or its
+     * pair changed only the changed rows after it need to be checked.
+     */
+    private void updatePairs(int i) {
+        if (this.changed[i] || (this.pairRow[i] != -1 && this.changed[this.pairRow[i]])) {
+            scanPairs(i);
+            return;
+        }
+        for (int c = 0; c < this.numChanged; c++) {
+            int j = this.changedRows[c];
+            if (j > i) {
+                double distance = distance(i, j);
+                if (distance < this.pairDistance[i]
+                        || (distance == this.pairDistance[i] && j < this.pairRow[i])) {
+                    this.pairRow[i] = j;
+                    this.pairDistance[i] = distance;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the center of a row.
+     */
+    public double[] getCenter(int row) {
+        return Arrays.copyOfRange(this.centers, row * this.dimensions, (row + 1) * this.dimensions);
+    }
+}
@@ -21,7 +21,9 @@
 package moa.clusterers.clustree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import moa.clusterers.clustree.util.*;
 import moa.cluster.Clustering;
@@ -49,6 +51,10 @@ public class ClusTree extends AbstractClusterer{
 	public FlagOption breadthFirstStrategyOption = new FlagOption(
 			"breadthFirstStrategy", 'B',
 			"Use breadth first strategy");
+
+	public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+			"Number of points grouped by descent path and inserted together (1 = insert every point on arrival).",
+			1, 1, Integer.MAX_VALUE);
     
     protected int getDefaultHeight() {
     	return 8;
@@ -101,9 +107,21 @@ public class ClusTree extends AbstractClusterer{
     
     //TODO: cleanup
     private Entry alsoUpdate;
+
+    /**
+     * Budget handed to the insertions. Insertion only asks whether there is
+     * time left and never charges it, so one instance serves all points.
+     */
+    private Budget budget;
+    /**
+     * Points received but not inserted yet, when inserting in batches.
+     */
+    private ClusKernel[] pending;
+    private long[] pendingTimestamps;
+    private int numPending;
     
     @Override
-    public void resetLearningImpl() {
+    public synchronized void resetLearningImpl() {
         breadthFirstStrat = breadthFirstStrategyOption.isSet();
         negLambda = (1.0 / (double) horizonOption.getValue())
                 * (Math.log(weightThreshold) / Math.log(2));
@@ -114,6 +132,10 @@ public class ClusTree extends AbstractClusterer{
         height = 0;
         numRootSplits = 0;
         numberInsertions = 0;
+        budget = new SimpleBudget(1000);
+        pending = null;
+        pendingTimestamps = null;
+        numPending = 0;
     }
 
 
@@ -142,7 +164,7 @@ public class ClusTree extends AbstractClusterer{
 
 
     @Override
-    public void trainOnInstanceImpl(Instance instance) {
+    public synchronized void trainOnInstanceImpl(Instance instance) {
         timestamp++;
         
         //TODO check if instance contains label
@@ -156,7 +178,111 @@ public class ClusTree extends AbstractClusterer{
         }
 
         ClusKernel newPointAsKernel = new ClusKernel(instance.toDoubleArray(), numberDimensions);
-        insert(newPointAsKernel, new SimpleBudget(1000),timestamp);
+        int batchSize = batchSizeOption.getValue();
+        if (batchSize <= 1 && numPending == 0) {
+            insert(newPointAsKernel, budget, timestamp);
+            return;
+        }
+        if (pending == null) {
+            pending = new ClusKernel[Math.max(batchSize, 1)];
+            pendingTimestamps = new long[pending.length];
+        }
+        pending[numPending] = newPointAsKernel;
+        pendingTimestamps[numPending] = timestamp;
+        numPending++;
+        if (numPending >= Math.min(batchSize, pending.length)) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Inserts the points waiting for a full batch.
+     */
+    private void flushPending() {
+        if (numPending > 0) {
+            insertBatch(pending, pendingTimestamps, numPending);
+            Arrays.fill(pending, 0, numPending, null);
+            numPending = 0;
+        }
+        if (pending != null && pending.length != batchSizeOption.getValue()) {
+            // the batch size was adjusted, allocate the buffer again on demand
+            pending = null;
+            pendingTimestamps = null;
+        }
+    }
+
+    /**
+     * Insert a batch of points in the <code>Tree</code>. Points that descend
+     * the tree along the same path, ending at the same leaf entry, are
+     * aggregated into one kernel and inserted with a single descent. The
+     * points of a group are weighted by their age at the last timestamp of
+     * the batch. The paths are computed against the tree as it was before
+     * the batch, so the groups approximate the paths that inserting the
+     * points one by one would take.
+     * @param points The points to be inserted, as clusters with a single
+     * data point. They are not modified.
+     * @param timestamps The moment at which each point arrived, in
+     * non-decreasing order.
+     * @param numPoints The number of points to take from the arrays.
+     * @see #insert(ClusKernel, Budget, long)
+     */
+    public synchronized void insertBatch(ClusKernel[] points, long[] timestamps, int numPoints) {
+        if (numPoints == 0) {
+            return;
+        }
+        IdentityHashMap<Entry, Integer> groupOfEntry = new IdentityHashMap<Entry, Integer>();
+        ArrayList<ClusKernel> groups = new ArrayList<ClusKernel>();
+        int[] groupSizes = new int[numPoints];
+        long[] groupTimestamps = new long[numPoints];
+        for (int i = 0; i < numPoints; i++) {
+            Entry leafEntry = descentEntry(points[i]);
+            Integer group = groupOfEntry.get(leafEntry);
+            if (group == null) {
+                groupOfEntry.put(leafEntry, groups.size());
+                groupSizes[groups.size()] = 1;
+                groupTimestamps[groups.size()] = timestamps[i];
+                groups.add(points[i]);
+            } else {
+                ClusKernel kernel = groups.get(group);
+                if (groupSizes[group] == 1) {
+                    // do not aggregate into the point given by the caller
+                    kernel = new ClusKernel(kernel);
+                    groups.set(group, kernel);
+                }
+                kernel.aggregate(points[i], timestamps[i] - groupTimestamps[group],
+                        this.negLambda);
+                groupSizes[group]++;
+                groupTimestamps[group] = timestamps[i];
+            }
+        }
+        long batchTimestamp = timestamps[numPoints - 1];
+        for (int g = 0; g < groups.size(); g++) {
+            ClusKernel kernel = groups.get(g);
+            if (groupTimestamps[g] != batchTimestamp) {
+                if (groupSizes[g] == 1) {
+                    kernel = new ClusKernel(kernel);
+                }
+                kernel.makeOlder(batchTimestamp - groupTimestamps[g], this.negLambda);
+            }
+            insert(kernel, budget, batchTimestamp);
+        }
+    }
+
+    /**
+     * Finds the leaf entry at the end of the path that the insertion of the
+     * given point would follow, without changing the tree.
+     */
+    private Entry descentEntry(ClusKernel point) {
+        if (breadthFirstStrat) {
+            return findBestLeafNode(point).nearestEntry(point);
+        }
+        Node node = root;
+        Entry entry = node.nearestEntry(point);
+        while (!node.isLeaf() && entry.getChild() != null) {
+            node = entry.getChild();
+            entry = node.nearestEntry(point);
+        }
+        return entry;
     }
 
 
@@ -172,7 +298,7 @@ public class ClusTree extends AbstractClusterer{
      * @see ClusKernel
      * @see Budget
      */
-    public void insert(ClusKernel newPoint, Budget budget, long timestamp) {
+    public synchronized void insert(ClusKernel newPoint, Budget budget, long timestamp) {
         if (breadthFirstStrat){
           	insertBreadthFirst(newPoint, budget, timestamp);
        }
@@ -744,11 +870,16 @@ public class ClusTree extends AbstractClusterer{
     }
 
     /**
+     * Returns a snapshot of the kernels at the leaf level. The tree is not
+     * changed: points waiting for a full batch stay buffered and are not part
+     * of the snapshot, so how often it is taken does not change the model.
+     * The kernels are copies, so the result can be macro-clustered or
+     * evaluated on another thread while insertion continues.
      * @return The kernels at the leaf level as a clustering
      */
     //TODO: Microcluster unter dem Threshhold nich zur�ckgeben (WIe bei outdated entries)
     @Override
-    public Clustering getMicroClusteringResult() {
+    public synchronized Clustering getMicroClusteringResult() {
         return getClustering(timestamp, -1);
     }
 
@@ -760,9 +891,9 @@ public class ClusTree extends AbstractClusterer{
 
     /**
      * @param currentTime The current time
-     * @return The kernels at the given level as a clustering.
+     * @return A snapshot of the kernels at the given level as a clustering.
      */
-    public Clustering getClustering(long currentTime, int targetLevel) {
+    public synchronized Clustering getClustering(long currentTime, int targetLevel) {
         if (root == null) {
             return null;
         }
@@ -789,17 +920,14 @@ public class ClusTree extends AbstractClusterer{
                     if (entry == null || entry.isEmpty()) {
                         continue;
                     }
-                    // XXX
-                    entry.makeOlder(currentTime, this.negLambda);
-                    if (entry.isIrrelevant(this.weightThreshold))
-                    	continue;
-
+                    // age the copy only, the entry is aged when it is next updated
                     ClusKernel gaussKernel = new ClusKernel(entry.getData());
-
-//                  long diff = currentTime - entry.getTimestamp();
-//                    if (diff > 0) {
-//                        gaussKernel.makeOlder(diff, negLambda);
-//                    }
+                    long diff = currentTime - entry.getTimestamp();
+                    if (diff > 0) {
+                        gaussKernel.makeOlder(diff, negLambda);
+                    }
+                    if (gaussKernel.getWeight() < this.weightThreshold)
+                    	continue;
 
                     clusters.add(gaussKernel);
                 }
@@ -92,10 +92,22 @@ public class WithDBSCAN extends AbstractClusterer {
 		
 		protected boolean covered;
 
+		protected double[] values;
+
 		public DenPoint(Instance nextInstance, Long timestamp) {
 			super(nextInstance);
 			this.setDataset(nextInstance.dataset());
 		}
+
+		/**
+		 * Gets the attribute values, copied from the instance only once.
+		 */
+		protected double[] getValues() {
+			if (values == null) {
+				values = toDoubleArray();
+			}
+			return values;
+		}
 	}
 
 	@Override
@@ -169,19 +181,14 @@ public class WithDBSCAN extends AbstractClusterer {
 			boolean merged = false;
 			if (p_micro_cluster.getClustering().size() != 0) {
 				MicroCluster x = nearestCluster(point, p_micro_cluster);
-				MicroCluster xCopy = x.copy();
-				xCopy.insert(point, timestamp);
-				if (xCopy.getRadius(timestamp) <= epsilon) {
+				if (x.getRadiusWithPoint(point.getValues()) <= epsilon) {
 					x.insert(point, timestamp);
 					merged = true;
 				}
 			}
 			if (!merged && (o_micro_cluster.getClustering().size() != 0)) {
 				MicroCluster x = nearestCluster(point, o_micro_cluster);
-				MicroCluster xCopy = x.copy();
-				xCopy.insert(point, timestamp);
-
-				if (xCopy.getRadius(timestamp) <= epsilon) {
+				if (x.getRadiusWithPoint(point.getValues()) <= epsilon) {
 					x.insert(point, timestamp);
 					merged = true;
 					if (x.getWeight() > beta * mu) {
@@ -248,11 +255,11 @@ public class WithDBSCAN extends AbstractClusterer {
 	private ArrayList<Integer> getNeighbourhoodIDs(DenPoint point,
 			ArrayList<DenPoint> points, double eps) {
 		ArrayList<Integer> neighbourIDs = new ArrayList<Integer>();
+		double[] values = point.getValues();
 		for (int p = 0; p < points.size(); p++) {
 			DenPoint npoint = points.get(p);
 			if (!npoint.covered) {
-				double dist = distance(point.toDoubleArray(), points.get(p)
-						.toDoubleArray());
+				double dist = distance(values, npoint.getValues());
 				if (dist < eps) {
 					neighbourIDs.add(p);
 				}
@@ -264,13 +271,13 @@ public class WithDBSCAN extends AbstractClusterer {
 	private MicroCluster nearestCluster(DenPoint p, Clustering cl) {
 		MicroCluster min = null;
 		double minDist = 0;
+		double[] values = p.getValues();
 		for (int c = 0; c < cl.size(); c++) {
 			MicroCluster x = (MicroCluster) cl.get(c);
 			if (min == null) {
 				min = x;
 			}
-			double dist = distance(p.toDoubleArray(), x.getCenter());
-			dist -= x.getRadius(timestamp);
+			double dist = x.getDistanceMinusRadius(values, timestamp);
 			if (dist < minDist) {
 				minDist = dist;
 				min = x;
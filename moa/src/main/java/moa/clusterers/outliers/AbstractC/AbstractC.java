@@ -68,6 +68,7 @@ public class AbstractC extends AbstractCBase {
         windowNodes = new Vector<ISBNode>();
         // create ISB
         ISB = new ISBIndex(m_radius, m_Fraction);
+        ISB.SetExecutor(executor);
         
         // init statistics
         m_nBothInlierOutlier = 0;
@@ -122,6 +122,7 @@ public class ApproxSTORM extends STORMBase {
         windowNodes = new Vector<ISBNode>();
         // create ISB
         ISB = new ISBIndex(m_radius, m_k);
+        ISB.SetExecutor(executor);
         // create safe_inliers list
         safe_inliers = new HashSet<ISBNode>();
         
@@ -155,6 +155,7 @@ public class ExactSTORM extends STORMBase {
         windowNodes = new Vector<ISBNode>();
         // create ISB
         ISB = new ISBIndex(m_radius, m_k);
+        ISB.SetExecutor(executor);
         
         // init statistics
         m_nBothInlierOutlier = 0;
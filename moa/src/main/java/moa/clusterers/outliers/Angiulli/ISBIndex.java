@@ -19,12 +19,9 @@
  */
 package moa.clusterers.outliers.Angiulli;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
 import java.util.Vector;
+import moa.classifiers.meta.EnsembleExecutor;
+import moa.clusterers.outliers.utils.RangeIndex;
 import com.yahoo.labs.samoa.instances.Instance;
 
 
@@ -33,6 +30,8 @@ public class ISBIndex {
         public Instance inst;
         public StreamObj obj;
         public Long id;
+        // slot of the node in the range index, -1 while not indexed
+        public int indexSlot = -1;
         
         // statistics
         public int nOutlier;
@@ -49,14 +48,12 @@ public class ISBIndex {
         }
     }
     
-    MyMTree mtree;
-    Map<Integer, Set<ISBNode>> mapNodes;
+    RangeIndex<ISBNode> index;
+    EnsembleExecutor executor;
     double m_radius;
     int m_k; // k nearest neighbors
     
     public ISBIndex(double radius, int k) {
-        mtree = new MyMTree();
-        mapNodes = new HashMap<Integer, Set<ISBNode>>();
         m_radius = radius;
         m_k = k;
     }
@@ -71,96 +68,37 @@ public class ISBIndex {
         }
     }
     
+    public void SetExecutor(EnsembleExecutor executor) {
+        this.executor = executor;
+        if (index != null)
+            index.setExecutor(executor);
+    }
+    
     public Vector<ISBSearchResult> RangeSearch(ISBNode node, double radius) {
         Vector<ISBSearchResult> results = new Vector<ISBSearchResult>();
-        // execute range search at mtree
-        StreamObj obj;
-        double d;
-        MyMTree.Query query = mtree.getNearestByRange(node.obj, radius);
-        for (MyMTree.ResultItem q : query) {
-            // get next obj found within range
-            obj = q.data;
-            // get distance of obj from query
-            d = q.distance;
-            // get all nodes referencing obj
-            Vector<ISBNode> nodes = MapGetNodes(obj);
-            for (int i = 0; i < nodes.size(); i++)
-                results.add(new ISBSearchResult(nodes.get(i), d));
-        }        
+        if (index == null)
+            return results;
+        // results are sorted ascending by distance
+        int n = index.search(node.obj, radius);
+        for (int i = 0; i < n; i++)
+            results.add(new ISBSearchResult(index.getResult(i), index.getResultDistance(i)));
         return results;
     }
     
     public void Insert(ISBNode node) {
-        // insert object of node at mtree
-        mtree.add(node.obj);
-        // insert node at map
-        MapInsert(node);    
-    }
-    
-    public void Remove(ISBNode node) {
-        // remove from map
-        MapDelete(node);
-        // check if stream object at mtree is still being referenced
-        if (MapCountObjRefs(node.obj) <= 0) {
-            // delete stream object from mtree
-            mtree.remove(node.obj);
-        }
-    }
-    
-    Vector<ISBNode> MapGetNodes(StreamObj obj) {
-        int h = obj.hashCode();
-        Vector<ISBNode> v = new Vector<ISBNode>();
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            ISBNode node;
-            Iterator<ISBNode> i = s.iterator();
-            while (i.hasNext()) {
-                node = i.next();
-                if (node.obj.equals(obj))
-                    v.add(node);
-            }
+        if (index == null) {
+            // the dimensionality is known with the first node
+            index = new RangeIndex<ISBNode>(node.obj.dimensions(), m_radius);
+            index.setExecutor(executor);
         }
-        return v;
+        if (node.indexSlot == -1)
+            node.indexSlot = index.add(node, node.obj);
     }
     
-    int MapCountObjRefs(StreamObj obj) {
-        int h = obj.hashCode();
-        int iCount = 0;
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            ISBNode n;
-            Iterator<ISBNode> i = s.iterator();
-            while (i.hasNext()) {
-                n = i.next();
-                if (n.obj.equals(obj))
-                    iCount++;
-            }
-        }
-        return iCount;
-    }
-    
-    void MapInsert(ISBNode node) {
-        int h = node.obj.hashCode();
-        Set<ISBNode> s;
-        if (mapNodes.containsKey(h)) {
-            s = mapNodes.get(h);
-            s.add(node);
-        }
-        else {
-            s = new HashSet<ISBNode>();
-            s.add(node);
-            mapNodes.put(h, s);
+    public void Remove(ISBNode node) {
+        if (node.indexSlot != -1) {
+            index.remove(node.indexSlot);
+            node.indexSlot = -1;
         }
     }
-    
-    void MapDelete(ISBNode node) {
-        int h = node.obj.hashCode();
-        if (mapNodes.containsKey(h)) {
-            Set<ISBNode> s = mapNodes.get(h);
-            s.remove(node);
-            if (s.isEmpty()) { // ### added
-                mapNodes.remove(h);
-            }
-        }
-    }    
 }
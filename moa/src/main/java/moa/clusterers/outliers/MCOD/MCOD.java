@@ -67,10 +67,11 @@ public class MCOD extends MCODBase {
         windowNodes = new Vector<ISBNode>();
         // create ISB
         ISB_PD = new ISBIndex(m_radius, m_k);
+        ISB_PD.SetExecutor(executor);
         // create helper sets for micro-cluster management
         setMC = new TreeSet<MicroCluster>();
-        // micro-cluster index
-        mtreeMC = new MTreeMicroClusters();
+        // micro-cluster index, created with the first micro-cluster
+        mcIndex = null;
         // create event queue
         eventQueue = new EventQueue();
         
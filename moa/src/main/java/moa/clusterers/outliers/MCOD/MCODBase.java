@@ -28,6 +28,7 @@ import java.util.Vector;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode;
 import moa.clusterers.outliers.MCOD.ISBIndex.ISBNode.NodeType;
 import moa.clusterers.outliers.MyBaseOutlierDetector;
+import moa.clusterers.outliers.utils.RangeIndex;
 
 public abstract class MCODBase extends MyBaseOutlierDetector {    
     protected static class EventItem implements Comparable<EventItem> {
@@ -91,8 +92,8 @@ public abstract class MCODBase extends MyBaseOutlierDetector {
     // list used to find expired nodes
     protected Vector<ISBNode> windowNodes; 
     protected EventQueue eventQueue;
-    // MTree index of micro-clusters
-    protected MTreeMicroClusters mtreeMC;
+    // index of micro-clusters by center
+    protected RangeIndex<MicroCluster> mcIndex;
     // set of micro-clusters (for trace)
     protected TreeSet<MicroCluster> setMC;
     // nodes treated as new nodes when a mc removed
@@ -262,12 +263,19 @@ public abstract class MCODBase extends MyBaseOutlierDetector {
     }
     
     void AddMicroCluster(MicroCluster mc) {
-        mtreeMC.add(mc);
+        if (mcIndex == null) {
+            // micro-clusters are searched within 3R/2 of new nodes
+            mcIndex = new RangeIndex<MicroCluster>(mc.dimensions(), 1.5 * m_radius);
+        }
+        mc.indexSlot = mcIndex.add(mc, mc);
         setMC.add(mc);
     }
     
     void RemoveMicroCluster(MicroCluster mc) {
-        mtreeMC.remove(mc);
+        if (mc.indexSlot != -1) {
+            mcIndex.remove(mc.indexSlot);
+            mc.indexSlot = -1;
+        }
         setMC.remove(mc);
     }
     
@@ -283,13 +291,13 @@ public abstract class MCODBase extends MyBaseOutlierDetector {
     
     Vector<SearchResultMC> RangeSearchMC(ISBNode nodeNew, double radius) {
         Vector<SearchResultMC> results = new Vector<SearchResultMC>();
-        // create a dummy mc in order to search w.r.t. nodeNew
-        MicroCluster dummy = new MicroCluster(nodeNew);
+        if (mcIndex == null)
+            return results;
         // query results are returned ascenting by distance
-        MTreeMicroClusters.Query query = mtreeMC.getNearestByRange(dummy, radius);
-        for (MTreeMicroClusters.ResultItem q : query) {            
-            results.add(new SearchResultMC(q.data, q.distance));
-        }        
+        int n = mcIndex.search(nodeNew.obj, radius);
+        for (int i = 0; i < n; i++) {
+            results.add(new SearchResultMC(mcIndex.getResult(i), mcIndex.getResultDistance(i)));
+        }
         return results;
     }
     
@@ -27,6 +27,8 @@ import moa.clusterers.outliers.utils.mtree.DistanceFunctions.EuclideanCoordinate
 public class MicroCluster implements EuclideanCoordinate, Comparable<MicroCluster> {
     public ISBNode mcc;
     public ArrayList<ISBNode> nodes;
+    // slot of the micro-cluster in the range index, -1 while not indexed
+    public int indexSlot = -1;
 
     public MicroCluster(ISBNode mcc) {
         this.mcc = mcc;
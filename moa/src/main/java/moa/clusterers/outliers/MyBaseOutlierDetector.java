@@ -30,6 +30,7 @@ import java.util.Vector;
 import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.cluster.SphereCluster;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.clusterers.AbstractClusterer;
 import moa.core.Measurement;
 import com.github.javacliparser.IntOption;
@@ -75,9 +76,14 @@ public abstract class MyBaseOutlierDetector extends AbstractClusterer {
     
     public IntOption windowSizeOption = new IntOption("windowSize", 'w', "Size of the window.", 1000);
     
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for range queries over large windows (-1 = as much as possible, 0 = do not use multithreading)",
+            1, -1, Integer.MAX_VALUE);
+    
     public OutlierNotifier outlierNotifier = null;   
     
     protected Random random;
+    protected EnsembleExecutor executor;
     protected int iMaxMemUsage = 0;
     protected int nRangeQueriesExecuted = 0;
     protected Long nTotalRunTime = 0L;
@@ -132,6 +138,7 @@ public abstract class MyBaseOutlierDetector extends AbstractClusterer {
     protected void Init() {        
         random = new Random(System.currentTimeMillis());
         outliersFound = new TreeSet<Outlier>();
+        executor = EnsembleExecutor.forJobs(numberOfJobsOption.getValue());
         
         m_timePreObjSum = 0L;
         nProcessed = 0;
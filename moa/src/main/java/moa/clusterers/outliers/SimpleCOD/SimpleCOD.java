@@ -63,6 +63,7 @@ public class SimpleCOD extends SimpleCODBase {
         windowNodes = new Vector<ISBNode>();
         // create ISB
         ISB = new ISBIndex(m_radius, m_k);
+        ISB.SetExecutor(executor);
         // create event queue
         eventQueue = new EventQueue();
         
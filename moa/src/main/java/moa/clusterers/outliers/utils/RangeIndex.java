@@ -0,0 +1,579 @@
+/*
+ *    RangeIndex.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers.outliers.utils;
+
+import java.util.Arrays;
+
+import moa.classifiers.meta.EnsembleExecutor;
+import moa.clusterers.outliers.utils.mtree.DistanceFunctions.EuclideanCoordinate;
+
+/**
+ * Range-query index over the objects of a sliding window, shared by the
+ * distance-based outlier detectors.
+ *
+ * Coordinates are stored slot after slot in a single array. For few
+ * dimensions the slots are also bucketed in a uniform grid with cells as
+ * wide as the usual query radius, so a query only visits the cells that
+ * intersect the query ball. In more dimensions, or for radii much larger
+ * than the cells, a query scans the packed coordinates, split over threads
+ * when an executor is set and the window is large.
+ *
+ * An object keeps its slot until it is removed, and removal takes constant
+ * time. Query results are sorted by distance, as the M-tree returned them.
+ *
+ * @param <T> the type of the indexed objects
+ */
+public class RangeIndex<T> {
+
+    /** The highest number of dimensions for which the grid is used. */
+    public static final int MAX_GRID_DIMENSIONS = 4;
+
+    /** The number of distance terms below which a scan is not split over threads. */
+    protected static final int MIN_PARALLEL_WORK = 1 << 16;
+
+    protected final int dimensions;
+
+    protected final double cellWidth;
+
+    protected final boolean useGrid;
+
+    protected double[] coordinates;
+
+    protected Object[] items;
+
+    protected int numSlots;
+
+    protected int[] freeSlots;
+
+    protected int numFreeSlots;
+
+    protected int size;
+
+    // grid cells: the slots in every cell, and where every slot is
+    protected int[] cellOfSlot;
+
+    protected int[] positionInCell;
+
+    protected int[][] cellSlots;
+
+    protected int[] cellSizes;
+
+    protected long[] cellKeys;
+
+    protected int numCells;
+
+    protected int[] freeCells;
+
+    protected int numFreeCells;
+
+    // open addressing table from cell key to cell
+    protected long[] tableKeys;
+
+    protected int[] tableCells;
+
+    protected int tableMask;
+
+    protected int numTableEntries;
+
+    // query state
+    protected final double[] query;
+
+    protected final long[] queryCell;
+
+    protected final long[] cellOffsets;
+
+    protected int[] resultSlots = new int[16];
+
+    protected double[] resultDistances = new double[16];
+
+    protected int numResults;
+
+    protected EnsembleExecutor executor;
+
+    protected int[][] shardSlots;
+
+    protected double[][] shardDistances;
+
+    protected int[] shardSizes;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param dimensions the number of coordinates of the objects
+     * @param cellWidth the width of the grid cells, normally the query radius
+     */
+    public RangeIndex(int dimensions, double cellWidth) {
+        this.dimensions = dimensions;
+        // slightly wider cells, so that rounding in the cell computation
+        // cannot push a point at exactly the radius out of the visited cells
+        this.cellWidth = cellWidth * (1 + 1e-9);
+        this.useGrid = dimensions > 0 && dimensions <= MAX_GRID_DIMENSIONS
+                && cellWidth > 0 && !Double.isInfinite(cellWidth);
+        this.coordinates = new double[16 * Math.max(dimensions, 1)];
+        this.items = new Object[16];
+        this.freeSlots = new int[16];
+        this.query = new double[dimensions];
+        this.queryCell = new long[dimensions];
+        this.cellOffsets = new long[dimensions];
+        if (this.useGrid) {
+            this.cellOfSlot = new int[16];
+            this.positionInCell = new int[16];
+            this.cellSlots = new int[16][];
+            this.cellSizes = new int[16];
+            this.cellKeys = new long[16];
+            this.freeCells = new int[16];
+            this.tableKeys = new long[32];
+            this.tableCells = new int[32];
+            Arrays.fill(this.tableCells, -1);
+            this.tableMask = 31;
+        }
+    }
+
+    public void setExecutor(EnsembleExecutor executor) {
+        this.executor = executor;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of slots in use or free, an upper bound for slots.
+     */
+    public int getNumSlots() {
+        return this.numSlots;
+    }
+
+    /**
+     * Gets the object in a slot, or null if the slot is free.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int slot) {
+        return (T) this.items[slot];
+    }
+
+    /**
+     * Adds an object at the given point.
+     *
+     * @return the slot of the object, needed to remove it
+     */
+    public int add(T item, EuclideanCoordinate point) {
+        int slot;
+        if (this.numFreeSlots > 0) {
+            slot = this.freeSlots[--this.numFreeSlots];
+        } else {
+            slot = this.numSlots++;
+            if (slot == this.items.length) {
+                growSlots();
+            }
+        }
+        int offset = slot * this.dimensions;
+        for (int i = 0; i < this.dimensions; i++) {
+            this.coordinates[offset + i] = point.get(i);
+        }
+        this.items[slot] = item;
+        this.size++;
+        if (this.useGrid) {
+            addToCell(slot, cellKey(this.coordinates, offset));
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the object in a slot. The slot may be reused by later objects.
+     */
+    public void remove(int slot) {
+        if (this.items[slot] == null) {
+            return;
+        }
+        if (this.useGrid) {
+            removeFromCell(slot);
+        }
+        this.items[slot] = null;
+        this.size--;
+        if (this.numFreeSlots == this.freeSlots.length) {
+            this.freeSlots = Arrays.copyOf(this.freeSlots, 2 * this.freeSlots.length);
+        }
+        this.freeSlots[this.numFreeSlots++] = slot;
+    }
+
+    /**
+     * Finds the objects within a distance of a point. The results are read
+     * with getResult and getResultDistance, and are valid until the next
+     * search.
+     *
+     * @return the number of objects found
+     */
+    public int search(EuclideanCoordinate point, double radius) {
+        for (int i = 0; i < this.dimensions; i++) {
+            this.query[i] = point.get(i);
+        }
+        this.numResults = 0;
+        if (this.size == 0) {
+            return 0;
+        }
+        long reach = this.useGrid ? (long) Math.ceil(radius / this.cellWidth) : -1;
+        double cellsToVisit = Math.pow(2 * reach + 1, this.dimensions);
+        if (this.useGrid && reach >= 0 && cellsToVisit <= this.size) {
+            searchGrid(radius, reach);
+        } else {
+            searchSlots(radius);
+        }
+        sortResults(0, this.numResults - 1);
+        return this.numResults;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getResult(int i) {
+        return (T) this.items[this.resultSlots[i]];
+    }
+
+    public double getResultDistance(int i) {
+        return this.resultDistances[i];
+    }
+
+    public int getResultSlot(int i) {
+        return this.resultSlots[i];
+    }
+
+    private double distanceToQuery(int slot) {
+        int offset = slot * this.dimensions;
+        double distance = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            double diff = this.query[i] - this.coordinates[offset + i];
+            distance += diff * diff;
+        }
+        return Math.sqrt(distance);
+    }
+
+    private void addResult(int slot, double distance) {
+        if (this.numResults == this.resultSlots.length) {
+            this.resultSlots = Arrays.copyOf(this.resultSlots, 2 * this.numResults);
+            this.resultDistances = Arrays.copyOf(this.resultDistances, 2 * this.numResults);
+        }
+        this.resultSlots[this.numResults] = slot;
+        this.resultDistances[this.numResults] = distance;
+        this.numResults++;
+    }
+
+    private void searchGrid(double radius, long reach) {
+        for (int i = 0; i < this.dimensions; i++) {
+            this.queryCell[i] = (long) Math.floor(this.query[i] / this.cellWidth);
+            this.cellOffsets[i] = -reach;
+        }
+        while (true) {
+            int cell = findCell(packCell(this.queryCell, this.cellOffsets));
+            if (cell != -1) {
+                int[] slots = this.cellSlots[cell];
+                for (int k = 0, n = this.cellSizes[cell]; k < n; k++) {
+                    int slot = slots[k];
+                    double distance = distanceToQuery(slot);
+                    if (distance <= radius) {
+                        addResult(slot, distance);
+                    }
+                }
+            }
+            // next cell of the box around the query, like an odometer
+            int i = 0;
+            while (i < this.dimensions && this.cellOffsets[i] == reach) {
+                this.cellOffsets[i] = -reach;
+                i++;
+            }
+            if (i == this.dimensions) {
+                return;
+            }
+            this.cellOffsets[i]++;
+        }
+    }
+
+    private void searchSlots(final double radius) {
+        int shards = 1;
+        if (this.executor != null && this.executor.isParallel()
+                && (long) this.numSlots * this.dimensions >= MIN_PARALLEL_WORK) {
+            shards = this.executor.getNumberOfJobs();
+        }
+        if (shards == 1) {
+            for (int slot = 0; slot < this.numSlots; slot++) {
+                if (this.items[slot] != null) {
+                    double distance = distanceToQuery(slot);
+                    if (distance <= radius) {
+                        addResult(slot, distance);
+                    }
+                }
+            }
+            return;
+        }
+        if (this.shardSizes == null || this.shardSizes.length != shards) {
+            this.shardSlots = new int[shards][16];
+            this.shardDistances = new double[shards][16];
+            this.shardSizes = new int[shards];
+        }
+        final int shardLength = (this.numSlots + shards - 1) / shards;
+        this.executor.forEachMember(shards, s -> searchShard(s, shardLength, radius));
+        // shards are appended in order, the sort makes the result independent of the split
+        for (int s = 0; s < shards; s++) {
+            for (int k = 0; k < this.shardSizes[s]; k++) {
+                addResult(this.shardSlots[s][k], this.shardDistances[s][k]);
+            }
+        }
+    }
+
+    private void searchShard(int shard, int shardLength, double radius) {
+        int[] slots = this.shardSlots[shard];
+        double[] distances = this.shardDistances[shard];
+        int found = 0;
+        int to = Math.min(this.numSlots, (shard + 1) * shardLength);
+        for (int slot = shard * shardLength; slot < to; slot++) {
+            if (this.items[slot] != null) {
+                double distance = distanceToQuery(slot);
+                if (distance <= radius) {
+                    if (found == slots.length) {
+                        slots = Arrays.copyOf(slots, 2 * found);
+                        distances = Arrays.copyOf(distances, 2 * found);
+                    }
+                    slots[found] = slot;
+                    distances[found] = distance;
+                    found++;
+                }
+            }
+        }
+        this.shardSlots[shard] = slots;
+        this.shardDistances[shard] = distances;
+        this.shardSizes[shard] = found;
+    }
+
+    /**
+     * Sorts the results by distance, and by slot for equal distances.
+     */
+    private void sortResults(int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            double pivotDistance = this.resultDistances[middle];
+            int pivotSlot = this.resultSlots[middle];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (before(i, pivotDistance, pivotSlot)) {
+                    i++;
+                }
+                while (after(j, pivotDistance, pivotSlot)) {
+                    j--;
+                }
+                if (i <= j) {
+                    swapResults(i++, j--);
+                }
+            }
+            // recurse into the smaller part
+            if (j - from < to - i) {
+                sortResults(from, j);
+                from = i;
+            } else {
+                sortResults(i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            for (int j = i; j > from && before(j, this.resultDistances[j - 1], this.resultSlots[j - 1]); j--) {
+                swapResults(j, j - 1);
+            }
+        }
+    }
+
+    private boolean before(int i, double distance, int slot) {
+        return this.resultDistances[i] < distance
+                || (this.resultDistances[i] == distance && this.resultSlots[i] < slot);
+    }
+
+    private boolean after(int i, double distance, int slot) {
+        return this.resultDistances[i] > distance
+                || (this.resultDistances[i] == distance && this.resultSlots[i] > slot);
+    }
+
+    private void swapResults(int i, int j) {
+        int slot = this.resultSlots[i];
+        this.resultSlots[i] = this.resultSlots[j];
+        this.resultSlots[j] = slot;
+        double distance = this.resultDistances[i];
+        this.resultDistances[i] = this.resultDistances[j];
+        this.resultDistances[j] = distance;
+    }
+
+    private void growSlots() {
+        int capacity = 2 * this.items.length;
+        this.items = Arrays.copyOf(this.items, capacity);
+        this.coordinates = Arrays.copyOf(this.coordinates, capacity * Math.max(this.dimensions, 1));
+        if (this.useGrid) {
+            this.cellOfSlot = Arrays.copyOf(this.cellOfSlot, capacity);
+            this.positionInCell = Arrays.copyOf(this.positionInCell, capacity);
+        }
+    }
+
+    /**
+     * Packs the cell coordinates of a point into a key. Distant cells may
+     * share a key; that only adds candidates, which are checked by distance.
+     */
+    private long cellKey(double[] values, int offset) {
+        int bits = 64 / this.dimensions;
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        long key = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            long cell = (long) Math.floor(values[offset + i] / this.cellWidth);
+            key |= (cell & mask) << (i * bits);
+        }
+        return key;
+    }
+
+    private long packCell(long[] cell, long[] offsets) {
+        int bits = 64 / this.dimensions;
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        long key = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            key |= ((cell[i] + offsets[i]) & mask) << (i * bits);
+        }
+        return key;
+    }
+
+    private int tableIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & this.tableMask;
+    }
+
+    private int findCell(long key) {
+        int i = tableIndex(key);
+        while (this.tableCells[i] != -1) {
+            if (this.tableKeys[i] == key) {
+                return this.tableCells[i];
+            }
+            i = (i + 1) & this.tableMask;
+        }
+        return -1;
+    }
+
+    private void addToCell(int slot, long key) {
+        int cell = findCell(key);
+        if (cell == -1) {
+            cell = newCell(key);
+        }
+        int[] slots = this.cellSlots[cell];
+        int n = this.cellSizes[cell];
+        if (n == slots.length) {
+            slots = Arrays.copyOf(slots, 2 * n);
+            this.cellSlots[cell] = slots;
+        }
+        slots[n] = slot;
+        this.cellSizes[cell] = n + 1;
+        this.cellOfSlot[slot] = cell;
+        this.positionInCell[slot] = n;
+    }
+
+    private void removeFromCell(int slot) {
+        int cell = this.cellOfSlot[slot];
+        int[] slots = this.cellSlots[cell];
+        int last = --this.cellSizes[cell];
+        int position = this.positionInCell[slot];
+        int moved = slots[last];
+        slots[position] = moved;
+        this.positionInCell[moved] = position;
+        if (last == 0) {
+            removeCell(cell);
+        }
+    }
+
+    private int newCell(long key) {
+        int cell;
+        if (this.numFreeCells > 0) {
+            cell = this.freeCells[--this.numFreeCells];
+        } else {
+            cell = this.numCells++;
+            if (cell == this.cellSizes.length) {
+                int capacity = 2 * cell;
+                this.cellSlots = Arrays.copyOf(this.cellSlots, capacity);
+                this.cellSizes = Arrays.copyOf(this.cellSizes, capacity);
+                this.cellKeys = Arrays.copyOf(this.cellKeys, capacity);
+            }
+            this.cellSlots[cell] = new int[4];
+        }
+        this.cellKeys[cell] = key;
+        this.cellSizes[cell] = 0;
+        if (2 * (this.numTableEntries + 1) > this.tableCells.length) {
+            growTable();
+        }
+        int i = tableIndex(key);
+        while (this.tableCells[i] != -1) {
+            i = (i + 1) & this.tableMask;
+        }
+        this.tableKeys[i] = key;
+        this.tableCells[i] = cell;
+        this.numTableEntries++;
+        return cell;
+    }
+
+    /**
+     * Frees an empty cell, so that the table does not fill up with the cells
+     * the stream has moved away from.
+     */
+    private void removeCell(int cell) {
+        long key = this.cellKeys[cell];
+        int i = tableIndex(key);
+        while (this.tableCells[i] != cell) {
+            i = (i + 1) & this.tableMask;
+        }
+        this.tableCells[i] = -1;
+        this.numTableEntries--;
+        // shift back the entries that probed past the freed position
+        int j = i;
+        while (true) {
+            j = (j + 1) & this.tableMask;
+            if (this.tableCells[j] == -1) {
+                break;
+            }
+            int home = tableIndex(this.tableKeys[j]);
+            boolean reachable = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+            if (!reachable) {
+                this.tableKeys[i] = this.tableKeys[j];
+                this.tableCells[i] = this.tableCells[j];
+                this.tableCells[j] = -1;
+                i = j;
+            }
+        }
+        if (this.numFreeCells == this.freeCells.length) {
+            this.freeCells = Arrays.copyOf(this.freeCells, 2 * this.freeCells.length);
+        }
+        this.freeCells[this.numFreeCells++] = cell;
+    }
+
+    private void growTable() {
+        long[] oldKeys = this.tableKeys;
+        int[] oldCells = this.tableCells;
+        this.tableKeys = new long[2 * oldKeys.length];
+        this.tableCells = new int[2 * oldCells.length];
+        Arrays.fill(this.tableCells, -1);
+        this.tableMask = this.tableCells.length - 1;
+        for (int k = 0; k < oldCells.length; k++) {
+            if (oldCells[k] != -1) {
+                int i = tableIndex(oldKeys[k]);
+                while (this.tableCells[i] != -1) {
+                    i = (i + 1) & this.tableMask;
+                }
+                this.tableKeys[i] = oldKeys[k];
+                this.tableCells[i] = oldCells[k];
+            }
+        }
+    }
+}
@@ -25,21 +25,37 @@ import nz.ac.waikato.cms.locator.FixedClassListTraversal;
 import java.io.File;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.net.JarURLConnection;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * Class for discovering classes via reflection in the java class path.
  * <br>
  * If analyzing of classpath fails, it falls back on reading class names
  * from file list {@link #CLASS_LIST} as resource stream.
+ * <br>
+ * Classes of a type are looked up in the class indices {@link #CLASS_INDEX}
+ * generated at build time, so that neither the class path is scanned nor
+ * every class loaded. Class path entries without an index, such as plugins
+ * built without one, are still scanned and their classes added. Types
+ * missing from the indices are found by scanning the whole class path;
+ * setting the system property {@link #SCAN_PROPERTY} to true ignores the
+ * indices altogether.
  *
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  */
@@ -51,6 +67,17 @@ public class AutoClassDiscovery {
 
     public final static String CLASS_LIST = "moa.classes";
 
+    public final static String CLASS_INDEX = "moa.class-index";
+
+    public final static String SCAN_PROPERTY = "moa.classdiscovery.scan";
+
+    protected static Map<String, String[]> m_Index;
+
+    /** The class path entries that contributed an index, as URLs ending in "/" */
+    protected static Set<String> m_IndexedRoots;
+
+    protected static final Map<String, String[]> cachedUnindexedClassNames = new HashMap<String, String[]>();
+
     /**
      * Initializes the class cache
      */
@@ -119,9 +146,81 @@ public class AutoClassDiscovery {
         return cached;
     }
 
+    /**
+     * Returns the public concrete classes with an empty constructor of every
+     * type, as listed by the class indices on the class path. The indices
+     * are read the first time they are needed.
+     *
+     * @return the class names by type name, empty if there are no indices
+     */
+    public static synchronized Map<String, String[]> getClassIndex() {
+        if (m_Index == null) {
+            Map<String, Set<String>> merged = new HashMap<String, Set<String>>();
+            m_IndexedRoots = new HashSet<String>();
+            if (!Boolean.getBoolean(SCAN_PROPERTY)) {
+                try {
+                    // every jar built with an index contributes its classes
+                    Enumeration<URL> indices = AutoClassDiscovery.class.getClassLoader().getResources(CLASS_INDEX);
+                    while (indices.hasMoreElements()) {
+                        URL url = indices.nextElement();
+                        String location = url.toExternalForm();
+                        m_IndexedRoots.add(location.substring(0, location.length() - CLASS_INDEX.length()));
+                        Properties index = new Properties();
+                        try (InputStream inputStream = url.openStream()) {
+                            index.load(inputStream);
+                        }
+                        for (String type : index.stringPropertyNames()) {
+                            Set<String> classNames = merged.get(type);
+                            if (classNames == null) {
+                                classNames = new TreeSet<String>();
+                                merged.put(type, classNames);
+                            }
+                            for (String className : index.getProperty(type).split(",")) {
+                                if (!className.isEmpty())
+                                    classNames.add(className);
+                            }
+                        }
+                    }
+                }
+                catch (Exception e) {
+                    System.err.println("Failed to read class index (" + CLASS_INDEX + ")!");
+                    e.printStackTrace();
+                    merged.clear();
+                    m_IndexedRoots.clear();
+                }
+            }
+            m_Index = new HashMap<String, String[]>();
+            for (Map.Entry<String, Set<String>> entry : merged.entrySet())
+                m_Index.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+        return m_Index;
+    }
+
     public static Class[] findClassesOfType(String packageNameToSearch,
                                             Class<?> typeDesired) {
         ArrayList<Class<?>> classesFound = new ArrayList<>();
+        String[] indexed = getClassIndex().get(typeDesired.getName());
+        if (indexed != null) {
+            // only the listed classes in the package and the classes of
+            // entries without an index need to be loaded
+            Set<String> classNames = new TreeSet<String>();
+            for (String className : indexed) {
+                if (className.startsWith(packageNameToSearch + "."))
+                    classNames.add(className);
+            }
+            for (String className : findUnindexedClassNames(packageNameToSearch)) {
+                if (!classNames.contains(className) && isPublicConcreteClassOfType(className, typeDesired))
+                    classNames.add(className);
+            }
+            for (String className : classNames) {
+                try {
+                    classesFound.add(Class.forName(className));
+                } catch (Exception ignored) {
+                    // ignore classes that we cannot instantiate
+                }
+            }
+            return classesFound.toArray(new Class[classesFound.size()]);
+        }
         String[] classNames = findClassNames(packageNameToSearch);
         for (String className : classNames) {
             if (isPublicConcreteClassOfType(className, typeDesired)) {
@@ -135,6 +234,71 @@ public class AutoClassDiscovery {
         return classesFound.toArray(new Class[classesFound.size()]);
     }
 
+    /**
+     * Returns the classes in a package that come from class path entries
+     * without a class index. Only these entries are listed; nested classes
+     * are left out, as by the class path scan.
+     *
+     * @param packageNameToSearch the package, including its subpackages
+     * @return the class names
+     */
+    public static synchronized String[] findUnindexedClassNames(String packageNameToSearch) {
+        String[] cached = cachedUnindexedClassNames.get(packageNameToSearch);
+        if (cached == null) {
+            getClassIndex();
+            Set<String> classNames = new TreeSet<String>();
+            String path = packageNameToSearch.replace('.', '/');
+            try {
+                Enumeration<URL> roots = AutoClassDiscovery.class.getClassLoader().getResources(path);
+                while (roots.hasMoreElements()) {
+                    URL url = roots.nextElement();
+                    String location = url.toExternalForm();
+                    if (location.endsWith("/"))
+                        location = location.substring(0, location.length() - 1);
+                    if (!location.endsWith(path)
+                        || m_IndexedRoots.contains(location.substring(0, location.length() - path.length())))
+                        continue;
+                    if (url.getProtocol().equals("jar")) {
+                        JarURLConnection connection = (JarURLConnection) url.openConnection();
+                        connection.setUseCaches(false);
+                        try (JarFile jar = connection.getJarFile()) {
+                            Enumeration<JarEntry> entries = jar.entries();
+                            while (entries.hasMoreElements())
+                                addClassName(entries.nextElement().getName(), path, classNames);
+                        }
+                    }
+                    else if (url.getProtocol().equals("file")) {
+                        addClassNames(new File(url.toURI()), path, classNames);
+                    }
+                }
+            }
+            catch (Exception e) {
+                System.err.println("Failed to scan class path entries without class index!");
+                e.printStackTrace();
+            }
+            cached = classNames.toArray(new String[classNames.size()]);
+            cachedUnindexedClassNames.put(packageNameToSearch, cached);
+        }
+        return cached;
+    }
+
+    private static void addClassNames(File dir, String path, Set<String> classNames) {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (file.isDirectory())
+                addClassNames(file, path + "/" + file.getName(), classNames);
+            else
+                addClassName(path + "/" + file.getName(), path, classNames);
+        }
+    }
+
+    private static void addClassName(String entry, String path, Set<String> classNames) {
+        if (entry.startsWith(path + "/") && entry.endsWith(".class") && entry.indexOf('$') == -1)
+            classNames.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'));
+    }
+
     public static boolean isPublicConcreteClassOfType(String className,
                                                       Class<?> typeDesired) {
         Class<?> testClass = null;
@@ -158,11 +322,73 @@ public class AutoClassDiscovery {
         }
     }
 
+    /**
+     * Writes the class index: for every type below "moa", the public
+     * concrete classes with an empty constructor that are of that type, in
+     * the format read by {@link #getClassIndex()}. Classes are inspected
+     * without being initialized.
+     *
+     * @param classNames the classes to index
+     * @param out the stream to write the index to
+     */
+    public static void writeClassIndex(List<String> classNames, PrintStream out) {
+        Map<String, Set<String>> index = new TreeMap<String, Set<String>>();
+        ClassLoader loader = AutoClassDiscovery.class.getClassLoader();
+        for (String className : classNames) {
+            Class<?> cls;
+            try {
+                cls = Class.forName(className, false, loader);
+                int classModifiers = cls.getModifiers();
+                if (!java.lang.reflect.Modifier.isPublic(classModifiers)
+                    || java.lang.reflect.Modifier.isAbstract(classModifiers)
+                    || !hasEmptyConstructor(cls))
+                    continue;
+            } catch (Throwable ignored) {
+                // ignore classes that cannot be loaded
+                continue;
+            }
+            Set<Class<?>> types = new HashSet<Class<?>>();
+            addTypes(cls, types);
+            for (Class<?> type : types) {
+                if (type.getName().startsWith("moa.")) {
+                    Set<String> implementations = index.get(type.getName());
+                    if (implementations == null) {
+                        implementations = new TreeSet<String>();
+                        index.put(type.getName(), implementations);
+                    }
+                    implementations.add(className);
+                }
+            }
+        }
+        out.println("# public concrete classes with an empty constructor, by type");
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            out.print(entry.getKey());
+            out.print('=');
+            boolean first = true;
+            for (String className : entry.getValue()) {
+                if (!first)
+                    out.print(',');
+                out.print(className);
+                first = false;
+            }
+            out.println();
+        }
+    }
+
+    private static void addTypes(Class<?> type, Set<Class<?>> types) {
+        if (type == null || !types.add(type))
+            return;
+        addTypes(type.getSuperclass(), types);
+        for (Class<?> iface : type.getInterfaces())
+            addTypes(iface, types);
+    }
+
     /**
      * Outputs all class names below "moa" either to stdout or to the
-     * file provided as first argument.
+     * file provided as first argument. If a second file is provided, the
+     * class index is written to it.
      *
-     * @param args optional file for storing the classnames
+     * @param args optional files for storing the classnames and the index
      * @throws Exception if writing to file fails
      */
     public static void main(String[] args) throws Exception {
@@ -177,5 +403,10 @@ public class AutoClassDiscovery {
         out.flush();
         if (args.length > 0)
             out.close();
+        if (args.length > 1) {
+            PrintStream indexOut = new PrintStream(new File(args[1]));
+            writeClassIndex(allClassnames, indexOut);
+            indexOut.close();
+        }
     }
 }
@@ -125,6 +125,17 @@ public class AutoExpandVector<T> extends ArrayList<T> implements MOAObject {
         return AbstractMOAObject.measureByteSize(this);
     }
 
+    @Override
+    public long estimateByteSize() {
+        long size = SizeOf.estimateObject(1, 8) + SizeOf.estimateArray(size(), SizeOf.REFERENCE);
+        for (T element : this) {
+            if (element instanceof MOAObject) {
+                size += ((MOAObject) element).estimateByteSize();
+            }
+        }
+        return size;
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
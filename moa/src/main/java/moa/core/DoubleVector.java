@@ -195,6 +195,11 @@ public class DoubleVector extends AbstractMOAObject {
         out.append("}");
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(1, 0) + SizeOf.estimateArray(this.array);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         getSingleLineDescription(sb);
@@ -115,6 +115,11 @@ public class GaussianEstimator extends AbstractMOAObject {
         return new double[]{lessThanWeight, equalToWeight, greaterThanWeight};
     }
 
+    @Override
+    public long estimateByteSize() {
+        return SizeOf.estimateObject(0, 3 * 8);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         // TODO Auto-generated method stub
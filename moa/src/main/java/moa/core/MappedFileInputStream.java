@@ -0,0 +1,152 @@
+/*
+ *    MappedFileInputStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream reading a file through read-only memory-mapped windows. Bytes
+ * are copied in bulk from the mapping, so there is no system call per read
+ * once a window is mapped. Files larger than one window are mapped
+ * sequentially.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /** The default size of a mapped window, 256MB */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    protected RandomAccessFile file;
+
+    protected FileChannel channel;
+
+    protected long fileLength;
+
+    /** The file offset of the current window */
+    protected long windowStart;
+
+    protected int windowSize;
+
+    protected MappedByteBuffer window;
+
+    public MappedFileInputStream(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(File file, int windowSize) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.fileLength = this.channel.size();
+        this.windowSize = windowSize;
+        this.windowStart = 0;
+        mapWindow();
+    }
+
+    protected void mapWindow() throws IOException {
+        long size = Math.min(this.windowSize, this.fileLength - this.windowStart);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, size);
+    }
+
+    /**
+     * Moves to the next window if the current one is exhausted.
+     *
+     * @return false if the end of the file is reached
+     */
+    protected boolean ensureRemaining() throws IOException {
+        if (this.window == null) {
+            throw new IOException("Stream closed");
+        }
+        while (!this.window.hasRemaining()) {
+            long next = this.windowStart + this.window.capacity();
+            if (next >= this.fileLength) {
+                return false;
+            }
+            this.windowStart = next;
+            mapWindow();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return this.window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, this.window.remaining());
+        this.window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long target = Math.min(this.fileLength, getPosition() + Math.max(0, n));
+        long skipped = target - getPosition();
+        if (target < this.windowStart + this.window.capacity()) {
+            this.window.position((int) (target - this.windowStart));
+        } else {
+            this.windowStart = target;
+            mapWindow();
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, this.fileLength - getPosition());
+    }
+
+    /**
+     * Gets the number of bytes consumed so far.
+     *
+     * @return the position in the file
+     */
+    public long getPosition() {
+        return this.windowStart + this.window.position();
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the length in bytes
+     */
+    public long getLength() {
+        return this.fileLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+        this.file.close();
+    }
+}
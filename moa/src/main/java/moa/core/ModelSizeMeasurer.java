@@ -0,0 +1,115 @@
+/*
+ *    ModelSizeMeasurer.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Serializable;
+
+import moa.MOAObject;
+
+/**
+ * Measures the memory size of a model for RAM-Hours and model measurements.
+ * Exact measurement walks the whole object graph with the SizeOf agent, which
+ * for large ensembles can take longer than learning. The estimated mode uses
+ * the cheap {@link MOAObject#estimateByteSize()} instead, and the sampled mode
+ * measures exactly only every few calls and scales the estimates in between
+ * by the ratio observed at the last exact measurement.
+ */
+public class ModelSizeMeasurer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int ESTIMATED = 0;
+
+    public static final int SAMPLED_EXACT = 1;
+
+    public static final int EXACT = 2;
+
+    public static final String[] MODE_NAMES = {"Estimated", "SampledExact", "Exact"};
+
+    public static final String[] MODE_DESCRIPTIONS = {
+        "Cheap running estimates of the model components.",
+        "Exact measurement every few samples, calibrated estimates in between.",
+        "Exact measurement of the whole object graph at every sample."};
+
+    protected int mode;
+
+    protected int exactFrequency;
+
+    protected long numMeasurements;
+
+    protected double calibration = 1.0;
+
+    /**
+     * Creates a new measurer.
+     *
+     * @param mode	one of ESTIMATED, SAMPLED_EXACT or EXACT
+     * @param exactFrequency	in sampled mode, the number of measurements that
+     * share one exact measurement
+     */
+    public ModelSizeMeasurer(int mode, int exactFrequency) {
+        if (mode < ESTIMATED || mode > EXACT) {
+            throw new IllegalArgumentException("Unknown model size measurement mode: " + mode);
+        }
+        this.mode = mode;
+        this.exactFrequency = Math.max(1, exactFrequency);
+    }
+
+    public int getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Creates a measurer with the same settings and fresh calibration, for
+     * measuring another model.
+     *
+     * @return the new measurer
+     */
+    public ModelSizeMeasurer newMeasurer() {
+        return new ModelSizeMeasurer(this.mode, this.exactFrequency);
+    }
+
+    /**
+     * Measures the size of a model according to the mode.
+     *
+     * @param model	the model to measure
+     * @return the size in bytes, or -1 if an exact measurement is requested
+     * and the SizeOf agent is not available
+     */
+    public long measureByteSize(MOAObject model) {
+        switch (this.mode) {
+            case EXACT:
+                return model.measureByteSize();
+            case ESTIMATED:
+                return model.estimateByteSize();
+            default:
+                long estimate = model.estimateByteSize();
+                if (this.numMeasurements++ % this.exactFrequency == 0) {
+                    long exact = model.measureByteSize();
+                    if (exact < 0) {
+                        // no agent, fall back to the plain estimates
+                        this.calibration = 1.0;
+                        return estimate;
+                    }
+                    this.calibration = estimate > 0 ? (double) exact / estimate : 1.0;
+                    return exact;
+                }
+                return (long) (estimate * this.calibration);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *    ReadAheadInputStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads its source on a background thread, so that I/O and
+ * decompression overlap with parsing. A fixed set of buffers is recycled
+ * between the reader thread and the consumer; the reader blocks when all of
+ * them are full.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    /** A buffer travelling between the reader thread and the consumer */
+    protected static class Chunk {
+
+        protected final byte[] data;
+
+        protected int length;
+
+        protected IOException error;
+
+        protected Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    protected final InputStream in;
+
+    protected final BlockingQueue<Chunk> filled;
+
+    protected final BlockingQueue<Chunk> empty;
+
+    protected final Thread readerThread;
+
+    protected Chunk current;
+
+    protected int position;
+
+    protected boolean endOfStream;
+
+    protected volatile boolean closed;
+
+    public ReadAheadInputStream(InputStream in, int chunkSize, int numChunks) {
+        this.in = in;
+        this.filled = new ArrayBlockingQueue<Chunk>(numChunks);
+        this.empty = new ArrayBlockingQueue<Chunk>(numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            this.empty.add(new Chunk(chunkSize));
+        }
+        this.readerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fill();
+            }
+        }, "ReadAheadInputStream");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    /**
+     * Reader loop: fills empty chunks until the source is exhausted. A chunk
+     * with negative length marks the end of the stream.
+     */
+    protected void fill() {
+        try {
+            while (!this.closed) {
+                Chunk chunk = this.empty.take();
+                try {
+                    int n = 0;
+                    while (n < chunk.data.length) {
+                        int read = this.in.read(chunk.data, n, chunk.data.length - n);
+                        if (read < 0) {
+                            break;
+                        }
+                        n += read;
+                    }
+                    chunk.length = (n == 0) ? -1 : n;
+                } catch (IOException e) {
+                    chunk.error = e;
+                    chunk.length = -1;
+                }
+                this.filled.put(chunk);
+                if (chunk.length < 0) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed while waiting for a free chunk
+        }
+    }
+
+    /**
+     * Makes sure there is an unread byte in the current chunk.
+     *
+     * @return false at the end of the stream
+     */
+    protected boolean nextChunk() throws IOException {
+        if (this.current != null && this.position < this.current.length) {
+            return true;
+        }
+        if (this.endOfStream) {
+            return false;
+        }
+        if (this.current != null) {
+            this.empty.add(this.current);
+            this.current = null;
+        }
+        try {
+            this.current = this.filled.take();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while waiting for data", e);
+        }
+        this.position = 0;
+        if (this.current.length < 0) {
+            this.endOfStream = true;
+            if (this.current.error != null) {
+                throw this.current.error;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return this.current.data[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, this.current.length - this.position);
+        System.arraycopy(this.current.data, this.position, b, off, n);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.readerThread.interrupt();
+        this.in.close();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *    SingleProducerRingBuffer.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer
+ * thread. The producer writes elements with {@link #offer(Object)} and makes
+ * them visible in batches with {@link #flush()}, so the cost of publishing is
+ * paid once per batch rather than once per element. Elements come out in the
+ * order they were offered.
+ *
+ * @param <E> the type of the elements
+ */
+public class SingleProducerRingBuffer<E> {
+
+    protected final Object[] slots;
+
+    protected final int mask;
+
+    /** Index of the next element to consume, written by the consumer */
+    protected final AtomicLong head = new AtomicLong();
+
+    /** Index after the last published element, written by the producer */
+    protected final AtomicLong tail = new AtomicLong();
+
+    /** Producer-local index after the last written element */
+    protected long pendingTail;
+
+    /** Producer-local copy of the head, refreshed when the buffer looks full */
+    protected long cachedHead;
+
+    /** Consumer-local copy of the tail, refreshed when the buffer looks empty */
+    protected long cachedTail;
+
+    /**
+     * Creates a ring buffer holding at least the given number of elements.
+     *
+     * @param capacity the minimum capacity, rounded up to a power of two
+     */
+    public SingleProducerRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * Writes an element without publishing it. Producer only.
+     *
+     * @param e the element
+     * @return false if the buffer is full
+     */
+    public boolean offer(E e) {
+        if (this.pendingTail - this.cachedHead >= this.slots.length) {
+            this.cachedHead = this.head.get();
+            if (this.pendingTail - this.cachedHead >= this.slots.length) {
+                return false;
+            }
+        }
+        this.slots[(int) this.pendingTail & this.mask] = e;
+        this.pendingTail++;
+        return true;
+    }
+
+    /**
+     * Makes all written elements visible to the consumer. Producer only.
+     */
+    public void flush() {
+        if (this.tail.get() != this.pendingTail) {
+            this.tail.lazySet(this.pendingTail);
+        }
+    }
+
+    /**
+     * Removes the next published element. Consumer only.
+     *
+     * @return the element, or null if none is published
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = this.head.get();
+        if (h >= this.cachedTail) {
+            this.cachedTail = this.tail.get();
+            if (h >= this.cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) h & this.mask;
+        E e = (E) this.slots[index];
+        this.slots[index] = null;
+        this.head.lazySet(h + 1);
+        return e;
+    }
+
+    /**
+     * Checks if published elements are waiting. Consumer only.
+     *
+     * @return true, if nothing is published
+     */
+    public boolean isEmpty() {
+        long h = this.head.get();
+        if (h < this.cachedTail) {
+            return false;
+        }
+        this.cachedTail = this.tail.get();
+        return h >= this.cachedTail;
+    }
+
+    /**
+     * Gets the number of published elements not yet consumed.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    /**
+     * Backs off while waiting for the other side: spins briefly, then yields,
+     * then parks for short intervals.
+     *
+     * @param attempt the number of consecutive failed attempts
+     */
+    public static void idle(int attempt) {
+        if (attempt < 64) {
+            return;
+        }
+        if (attempt < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50000L);
+        }
+    }
+}
@@ -20,6 +20,9 @@
  */
 package moa.core;
 
+import com.yahoo.labs.samoa.instances.Instances;
+
+import moa.MOAObject;
 import sizeof.agent.SizeOfAgent;
 
 /**
@@ -78,4 +81,95 @@ public class SizeOf {
             return -1;
         }
     }
+
+    /** the estimated size of an object header, assuming compressed oops. */
+    public static final int OBJECT_HEADER = 12;
+
+    /** the estimated size of an array header, assuming compressed oops. */
+    public static final int ARRAY_HEADER = 16;
+
+    /** the estimated size of a reference, assuming compressed oops. */
+    public static final int REFERENCE = 4;
+
+    /**
+     * Rounds a size up to the 8 byte object alignment of the JVM.
+     *
+     * @param size	the unaligned size
+     * @return the aligned size
+     */
+    public static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Estimates the shallow size of an object from the size of its fields,
+     * without the agent.
+     *
+     * @param numReferences	the number of reference fields
+     * @param primitiveBytes	the total size of the primitive fields
+     * @return the estimated size
+     */
+    public static long estimateObject(int numReferences, int primitiveBytes) {
+        return align(OBJECT_HEADER + (long) numReferences * REFERENCE + primitiveBytes);
+    }
+
+    /**
+     * Estimates the size of an array, without the agent.
+     *
+     * @param length	the number of elements
+     * @param elementBytes	the size of one element
+     * @return the estimated size
+     */
+    public static long estimateArray(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    /**
+     * Estimates the size of a double array, without the agent.
+     *
+     * @param array	the array, may be null
+     * @return the estimated size, 0 for null
+     */
+    public static long estimateArray(double[] array) {
+        return array == null ? 0 : estimateArray(array.length, 8);
+    }
+
+    /**
+     * Estimates the size of an int array, without the agent.
+     *
+     * @param array	the array, may be null
+     * @return the estimated size, 0 for null
+     */
+    public static long estimateArray(int[] array) {
+        return array == null ? 0 : estimateArray(array.length, 4);
+    }
+
+    /**
+     * Returns the running size estimate of an object, see
+     * {@link MOAObject#estimateByteSize()}.
+     *
+     * @param o	the object, may be null
+     * @return the estimated size, 0 for null
+     */
+    public static long estimate(MOAObject o) {
+        return o == null ? 0 : o.estimateByteSize();
+    }
+
+    /**
+     * Estimates the size of a dataset holding dense instances, without the
+     * agent. The shared header is not included.
+     *
+     * @param instances	the dataset, may be null
+     * @return the estimated size, 0 for null
+     */
+    public static long estimateDense(Instances instances) {
+        if (instances == null) {
+            return 0;
+        }
+        long instanceSize = estimateObject(2, 8) + estimateObject(1, 0)
+                + estimateArray(instances.numAttributes(), 8);
+        return estimateObject(4, 0) + estimateObject(1, 8)
+                + estimateArray(instances.numInstances(), REFERENCE)
+                + instances.numInstances() * instanceSize;
+    }
 }
@@ -0,0 +1,426 @@
+/*
+ *    StructuralCopier.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Deep copy of serializable object graphs without a serialization round
+ * trip. Objects are allocated the way <code>ObjectInputStream</code> does and
+ * their serializable fields are copied directly: primitive arrays are cloned,
+ * shared and cyclic references are preserved and transient fields are left at
+ * their default values, so the copy is the same as the one made by
+ * {@link SerializeUtils#copyObject}.
+ *
+ * Immutable values (strings, boxed primitives, enums, classes) are shared
+ * with the original instead of being copied. Instance headers are mutable and
+ * are copied like any other object. The common collections of
+ * <code>java.util</code>, including the lists of <code>Arrays.asList</code>,
+ * are rebuilt through their public API.
+ * Whenever the graph contains an object this class cannot copy exactly, e.g.
+ * one with custom serialization methods, the whole copy falls back to
+ * serialization.
+ */
+public class StructuralCopier {
+
+    /**
+     * How the objects of a class are copied.
+     */
+    protected enum Kind {
+        SHARED, PRIMITIVE_ARRAY, OBJECT_ARRAY, FIELDS, COLLECTION, MAP, ARRAY_LIST_VIEW, SERIALIZED, UNSUPPORTED
+    }
+
+    /**
+     * What is needed to copy the objects of one class.
+     */
+    protected static class ClassInfo {
+
+        protected Kind kind;
+
+        /** Creates the empty copy. */
+        protected Constructor<?> constructor;
+
+        /** The fields to copy, all levels of the class hierarchy. */
+        protected Field[] fields;
+
+        /** The primitive type of each field, or 0 for references. */
+        protected char[] fieldTypes;
+
+        protected ClassInfo(Kind kind) {
+            this.kind = kind;
+        }
+    }
+
+    /** Thrown when the graph cannot be copied structurally. */
+    protected static class UnsupportedCopyException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        protected UnsupportedCopyException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /** The collections of java.util whose copy can be rebuilt with add/put. */
+    protected static final Class<?>[] COPYABLE_COLLECTIONS = {ArrayList.class, LinkedList.class,
+        ArrayDeque.class, HashSet.class, LinkedHashSet.class, TreeSet.class, HashMap.class, TreeMap.class};
+
+    /** The fixed-size list returned by Arrays.asList, used e.g. for nominal attribute values. */
+    protected static final Class<?> ARRAY_LIST_VIEW = Arrays.asList().getClass();
+
+    protected static final ClassValue<ClassInfo> CLASS_INFO = new ClassValue<ClassInfo>() {
+        @Override
+        protected ClassInfo computeValue(Class<?> type) {
+            return inspect(type);
+        }
+    };
+
+    protected static Object reflectionFactory;
+
+    protected static Method newConstructorForSerialization;
+
+    static {
+        try {
+            Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+            reflectionFactory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+            newConstructorForSerialization = factoryClass.getMethod("newConstructorForSerialization",
+                    Class.class, Constructor.class);
+        } catch (Throwable t) {
+            // not available on this JVM: every copy falls back to serialization
+            reflectionFactory = null;
+        }
+    }
+
+    /** The copies made so far, by original. */
+    protected IdentityHashMap<Object, Object> copies = new IdentityHashMap<Object, Object>();
+
+    /**
+     * Copies an object graph, structurally if possible and by serialization
+     * otherwise.
+     *
+     * @param obj the object to copy
+     * @return the copy
+     * @throws Exception if the object cannot be serialized
+     */
+    public static Object copyObject(Serializable obj) throws Exception {
+        try {
+            return new StructuralCopier().copy(obj);
+        } catch (UnsupportedCopyException e) {
+            return SerializeUtils.copyObject(obj);
+        }
+    }
+
+    /**
+     * Checks whether an object graph can be copied structurally, e.g. to
+     * find the objects that make {@link #copyObject} fall back to
+     * serialization.
+     *
+     * @param obj the object to check
+     * @return null if it can be copied, the reason otherwise
+     */
+    public static String checkCopyable(Serializable obj) {
+        try {
+            new StructuralCopier().copy(obj);
+            return null;
+        } catch (UnsupportedCopyException e) {
+            return e.getMessage();
+        }
+    }
+
+    protected Object copy(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        Object copy = this.copies.get(obj);
+        if (copy != null) {
+            return copy;
+        }
+        Class<?> type = obj.getClass();
+        ClassInfo info = CLASS_INFO.get(type);
+        try {
+            switch (info.kind) {
+                case SHARED:
+                    return obj;
+                case PRIMITIVE_ARRAY:
+                    copy = cloneArray(obj);
+                    this.copies.put(obj, copy);
+                    return copy;
+                case OBJECT_ARRAY:
+                    Object[] array = (Object[]) obj;
+                    Object[] arrayCopy = (Object[]) Array.newInstance(type.getComponentType(), array.length);
+                    this.copies.put(obj, arrayCopy);
+                    for (int i = 0; i < array.length; i++) {
+                        arrayCopy[i] = copy(array[i]);
+                    }
+                    return arrayCopy;
+                case FIELDS:
+                    copy = info.constructor.newInstance();
+                    this.copies.put(obj, copy);
+                    copyFields(info, obj, copy);
+                    return copy;
+                case COLLECTION:
+                    return copyCollection(info, obj);
+                case MAP:
+                    return copyMap(info, obj);
+                case ARRAY_LIST_VIEW:
+                    List<?> list = (List<?>) obj;
+                    Object[] elements = new Object[list.size()];
+                    copy = Arrays.asList(elements);
+                    this.copies.put(obj, copy);
+                    for (int i = 0; i < elements.length; i++) {
+                        elements[i] = copy(list.get(i));
+                    }
+                    return copy;
+                case SERIALIZED:
+                    copy = SerializeUtils.copyObject((Serializable) obj);
+                    this.copies.put(obj, copy);
+                    return copy;
+                default:
+                    throw new UnsupportedCopyException("Cannot copy " + type.getName());
+            }
+        } catch (UnsupportedCopyException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UnsupportedCopyException("Failed to copy " + type.getName() + ": " + e);
+        }
+    }
+
+    protected static Object cloneArray(Object array) {
+        if (array instanceof double[]) {
+            return ((double[]) array).clone();
+        } else if (array instanceof int[]) {
+            return ((int[]) array).clone();
+        } else if (array instanceof long[]) {
+            return ((long[]) array).clone();
+        } else if (array instanceof float[]) {
+            return ((float[]) array).clone();
+        } else if (array instanceof boolean[]) {
+            return ((boolean[]) array).clone();
+        } else if (array instanceof byte[]) {
+            return ((byte[]) array).clone();
+        } else if (array instanceof short[]) {
+            return ((short[]) array).clone();
+        }
+        return ((char[]) array).clone();
+    }
+
+    protected void copyFields(ClassInfo info, Object from, Object to) throws IllegalAccessException {
+        Field[] fields = info.fields;
+        char[] types = info.fieldTypes;
+        for (int i = 0; i < fields.length; i++) {
+            Field field = fields[i];
+            switch (types[i]) {
+                case 'D':
+                    field.setDouble(to, field.getDouble(from));
+                    break;
+                case 'I':
+                    field.setInt(to, field.getInt(from));
+                    break;
+                case 'J':
+                    field.setLong(to, field.getLong(from));
+                    break;
+                case 'Z':
+                    field.setBoolean(to, field.getBoolean(from));
+                    break;
+                case 'F':
+                    field.setFloat(to, field.getFloat(from));
+                    break;
+                case 'B':
+                    field.setByte(to, field.getByte(from));
+                    break;
+                case 'S':
+                    field.setShort(to, field.getShort(from));
+                    break;
+                case 'C':
+                    field.setChar(to, field.getChar(from));
+                    break;
+                default:
+                    field.set(to, copy(field.get(from)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Object copyCollection(ClassInfo info, Object obj) throws Exception {
+        if (obj instanceof SortedSet && ((SortedSet<?>) obj).comparator() != null) {
+            throw new UnsupportedCopyException("Cannot copy sorted set with comparator");
+        }
+        Collection<Object> copy = (Collection<Object>) info.constructor.newInstance();
+        this.copies.put(obj, copy);
+        if (copy instanceof ArrayList) {
+            ((ArrayList<Object>) copy).ensureCapacity(((Collection<?>) obj).size());
+        }
+        for (Object element : (Collection<?>) obj) {
+            copy.add(copy(element));
+        }
+        copyFields(info, obj, copy);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Object copyMap(ClassInfo info, Object obj) throws Exception {
+        if (obj instanceof SortedMap && ((SortedMap<?, ?>) obj).comparator() != null) {
+            throw new UnsupportedCopyException("Cannot copy sorted map with comparator");
+        }
+        Map<Object, Object> copy = (Map<Object, Object>) info.constructor.newInstance();
+        this.copies.put(obj, copy);
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+            copy.put(copy(entry.getKey()), copy(entry.getValue()));
+        }
+        copyFields(info, obj, copy);
+        return copy;
+    }
+
+    /**
+     * Decides how the objects of a class are copied.
+     */
+    protected static ClassInfo inspect(Class<?> type) {
+        if (type.isArray()) {
+            return new ClassInfo(type.getComponentType().isPrimitive() ? Kind.PRIMITIVE_ARRAY : Kind.OBJECT_ARRAY);
+        }
+        if (type == String.class || type == Boolean.class || type == Character.class
+                || type == Byte.class || type == Short.class || type == Integer.class
+                || type == Long.class || type == Float.class || type == Double.class
+                || type == BigInteger.class || type == BigDecimal.class || type == Class.class
+                || Enum.class.isAssignableFrom(type)) {
+            return new ClassInfo(Kind.SHARED);
+        }
+        if (type == ARRAY_LIST_VIEW) {
+            return new ClassInfo(Kind.ARRAY_LIST_VIEW);
+        }
+        if (type == Random.class) {
+            // holds no references, so its own round trip cannot break sharing
+            return new ClassInfo(Kind.SERIALIZED);
+        }
+        if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+                || reflectionFactory == null) {
+            return new ClassInfo(Kind.UNSUPPORTED);
+        }
+        // the fields of java.* classes cannot be accessed, only known collections are rebuilt
+        Class<?> library = type;
+        while (library != null && !library.getName().startsWith("java.")) {
+            library = library.getSuperclass();
+        }
+        Kind kind = Kind.FIELDS;
+        if (library != Object.class) {
+            kind = Kind.UNSUPPORTED;
+            for (Class<?> collection : COPYABLE_COLLECTIONS) {
+                if (library == collection) {
+                    kind = Map.class.isAssignableFrom(collection) ? Kind.MAP : Kind.COLLECTION;
+                }
+            }
+            if (kind == Kind.UNSUPPORTED) {
+                return new ClassInfo(kind);
+            }
+        }
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> level = type; level != library; level = level.getSuperclass()) {
+            if (!Serializable.class.isAssignableFrom(level)) {
+                break;
+            }
+            if (hasSerializationMethods(level)) {
+                return new ClassInfo(Kind.UNSUPPORTED);
+            }
+            for (Field field : level.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        ClassInfo info = new ClassInfo(kind);
+        info.fields = fields.toArray(new Field[fields.size()]);
+        info.fieldTypes = new char[info.fields.length];
+        for (int i = 0; i < info.fields.length; i++) {
+            Class<?> fieldType = info.fields[i].getType();
+            info.fieldTypes[i] = fieldType == double.class ? 'D' : fieldType == int.class ? 'I'
+                    : fieldType == long.class ? 'J' : fieldType == boolean.class ? 'Z'
+                    : fieldType == float.class ? 'F' : fieldType == byte.class ? 'B'
+                    : fieldType == short.class ? 'S' : fieldType == char.class ? 'C' : 0;
+        }
+        try {
+            if (kind == Kind.FIELDS) {
+                // like ObjectInputStream, run the constructor of the first non-serializable superclass
+                Class<?> base = type;
+                while (Serializable.class.isAssignableFrom(base)) {
+                    base = base.getSuperclass();
+                }
+                Constructor<?> baseConstructor = base.getDeclaredConstructor();
+                info.constructor = (Constructor<?>) newConstructorForSerialization.invoke(
+                        reflectionFactory, type, baseConstructor);
+            } else {
+                info.constructor = type.getDeclaredConstructor();
+            }
+            info.constructor.setAccessible(true);
+        } catch (Exception e) {
+            return new ClassInfo(Kind.UNSUPPORTED);
+        }
+        return info;
+    }
+
+    /**
+     * Whether a class changes how it is serialized.
+     */
+    protected static boolean hasSerializationMethods(Class<?> level) {
+        for (Method method : level.getDeclaredMethods()) {
+            Class<?>[] parameters = method.getParameterTypes();
+            String name = method.getName();
+            if ((name.equals("writeObject") && parameters.length == 1 && parameters[0] == ObjectOutputStream.class)
+                    || (name.equals("readObject") && parameters.length == 1 && parameters[0] == ObjectInputStream.class)
+                    || ((name.equals("readObjectNoData") || name.equals("writeReplace")
+                    || name.equals("readResolve")) && parameters.length == 0)) {
+                return true;
+            }
+        }
+        try {
+            level.getDeclaredField("serialPersistentFields");
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+}
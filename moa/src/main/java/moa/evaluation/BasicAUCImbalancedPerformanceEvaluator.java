@@ -18,8 +18,6 @@
  */
 package moa.evaluation;
 
-import java.util.TreeSet;
-
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
@@ -77,73 +75,7 @@ public class BasicAUCImbalancedPerformanceEvaluator extends AbstractOptionHandle
 
 	public class Estimator {
 
-		public class Score implements Comparable<Score> {
-			/**
-			 * Predicted score of the example
-			 */
-			protected double value;
-
-			/**
-			 * Age of example - position in the stream where the example was
-			 * added
-			 */
-			protected int position;
-
-			/**
-			 * True if example's true label is positive
-			 */
-			protected boolean isPositive;
-
-			/**
-			 * Constructor.
-			 * 
-			 * @param value
-			 *            score value
-			 * 
-			 * @param isPositive
-			 *            true if the example's true label is positive
-			 */
-			public Score(double value, int position, boolean isPositive) {
-				this.value = value;
-				this.isPositive = isPositive;
-				this.position = position;
-			}
-
-			/**
-			 * Sort descending based on score value.
-			 */
-			@Override
-			public int compareTo(Score o) {
-				if (o.value < this.value) {
-					return -1;
-				} else if (o.value > this.value) {
-					return 1;
-				} else {
-					if (!o.isPositive && this.isPositive) {
-						return -1;
-					} else if (o.isPositive && !this.isPositive) {
-						return 1;
-					} else {
-						if (o.position > this.position) {
-							return -1;
-						} else if (o.position < this.position) {
-							return 1;
-						} else {
-							return 0;
-						}
-					}
-				}
-			}
-
-			@Override
-			public boolean equals(Object o) {
-				return (o instanceof Score) && ((Score) o).position == this.position;
-			}
-		}
-
-		protected TreeSet<Score> sortedScores;
-
-		protected int position;
+		protected SortedScores sortedScores;
 
 		protected double numPos;
 
@@ -161,7 +93,7 @@ public class BasicAUCImbalancedPerformanceEvaluator extends AbstractOptionHandle
 
 		public Estimator(boolean calculateAuc) {
 			this.calculateAuc = calculateAuc;
-			this.sortedScores = new TreeSet<Score>();
+			this.sortedScores = new SortedScores();
 
 			this.rowKappa = new double[numClasses];
 			this.columnKappa = new double[numClasses];
@@ -170,7 +102,6 @@ public class BasicAUCImbalancedPerformanceEvaluator extends AbstractOptionHandle
 				this.columnKappa[i] = 0.0;
 			}
 
-			this.position = 0;
 			this.numPos = 0;
 			this.numNeg = 0;
 			this.correctPredictions = 0;
@@ -179,9 +110,8 @@ public class BasicAUCImbalancedPerformanceEvaluator extends AbstractOptionHandle
 
 		public void add(double score, boolean isPositive, boolean correctPrediction) {
 			// // add new example
-			Score newScore = new Score(score, position, isPositive);
 			if (this.calculateAuc) {
-				sortedScores.add(newScore);
+				sortedScores.add(score, isPositive);
 			}
 			correctPredictions += correctPrediction ? 1 : 0;
 			correctPositivePredictions += correctPrediction && isPositive ? 1 : 0;
@@ -191,106 +121,27 @@ public class BasicAUCImbalancedPerformanceEvaluator extends AbstractOptionHandle
 			this.rowKappa[predictedClass] += 1;
 			this.columnKappa[trueClass] += 1;
 
-			if (newScore.isPositive) {
+			if (isPositive) {
 				numPos++;
 			} else {
 				numNeg++;
 			}
-
-			//// position needs to be always incremented to differentiate
-			//// between examples in the red-black tree
-			position++;
 		}
 
 		public double getAUC() {
-			double AUC = 0;
-			double c = 0;
-			double prevc = 0;
-			double lastPosScore = Double.MAX_VALUE;
-
 			if (!this.calculateAuc) {
 				return -1;
 			}
 
-			if (numPos == 0 || numNeg == 0) {
-				return 1;
-			}
-
-			for (Score s : sortedScores) {
-				if (s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-
-					c += 1;
-				} else {
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double) (c + prevc)) / 2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-
-			return AUC / (numPos * numNeg);
+			return sortedScores.getAUC();
 		}
 
 		public double getScoredAUC() {
-			double AOC = 0;
-			double AUC = 0;
-			double r = 0;
-			double prevr = 0;
-			double c = 0;
-			double prevc = 0;
-			double R_plus, R_minus;
-			double lastPosScore = Double.MAX_VALUE;
-			double lastNegScore = Double.MAX_VALUE;
-
 			if (!this.calculateAuc) {
 				return -1;
 			}
 
-			if (numPos == 0 || numNeg == 0) {
-				return 1;
-			}
-
-			for (Score s : sortedScores) {
-				if (s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-
-					c += s.value;
-
-					if (s.value == lastNegScore) {
-						// tie
-						AOC += ((double) (r + prevr)) / 2.0;
-					} else {
-						AOC += r;
-					}
-				} else {
-					if (s.value != lastNegScore) {
-						prevr = r;
-						lastNegScore = s.value;
-					}
-
-					r += s.value;
-
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double) (c + prevc)) / 2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-
-			R_minus = (numPos * r - AOC) / (numPos * numNeg);
-			R_plus = (AUC) / (numPos * numNeg);
-			return R_plus - R_minus;
+			return sortedScores.getScoredAUC();
 		}
 
 		public double getRatio() {
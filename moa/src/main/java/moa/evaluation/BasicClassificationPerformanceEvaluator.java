@@ -26,6 +26,7 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
+import moa.core.SizeOf;
 import moa.core.Utils;
 
 import com.yahoo.labs.samoa.instances.Instance;
@@ -65,6 +66,24 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
 
     protected int numClasses;
 
+    /**
+     * The per-class estimators, in the flat arrays of the estimation method
+     * of the evaluator or in the Estimator arrays above.
+     */
+    protected ClassEstimators classEstimators;
+
+    /** The measurements since the last result, null when out of date. */
+    protected Measurement[] measurements;
+
+    /** The output flags the measurements were built with. */
+    protected int measurementsOutputFlags;
+
+    private String[] f1Names;
+
+    private String[] precisionNames;
+
+    private String[] recallNames;
+
     private Estimator weightCorrectNoChangeClassifier;
 
     private Estimator weightMajorityClassifier;
@@ -95,16 +114,8 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
 
     public void reset(int numClasses) {
         this.numClasses = numClasses;
-        this.rowKappa = new Estimator[numClasses];
-        this.columnKappa = new Estimator[numClasses];
-        this.precision = new Estimator[numClasses];
-        this.recall = new Estimator[numClasses];
-        for (int i = 0; i < this.numClasses; i++) {
-            this.rowKappa[i] = newEstimator();
-            this.columnKappa[i] = newEstimator();
-            this.precision[i] = newEstimator();
-            this.recall[i] = newEstimator();
-        }
+        this.classEstimators = newClassEstimators(numClasses);
+        this.measurements = null;
         this.weightCorrect = newEstimator();
         this.weightCorrectNoChangeClassifier = newEstimator();
         this.weightMajorityClassifier = newEstimator();
@@ -125,22 +136,12 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
                 }
                 this.totalWeightObserved += weight;
                 this.weightCorrect.add(predictedClass == trueClass ? weight : 0);
-                for (int i = 0; i < this.numClasses; i++) {
-                    this.rowKappa[i].add(predictedClass == i ? weight : 0);
-                    this.columnKappa[i].add(trueClass == i ? weight : 0);
-                    // for both precision and recall, NaN values are used to 'balance' the number
-                    // of instances seen across classes
-                    if (predictedClass == i) {
-                        precision[i].add(predictedClass == trueClass ? weight : 0.0);
-                    } else precision[i].add(Double.NaN);
-                    if (trueClass == i) {
-                        recall[i].add(predictedClass == trueClass ? weight : 0.0);
-                    } else recall[i].add(Double.NaN);
-                }
+                this.classEstimators.add(trueClass, predictedClass, weight);
             }
             this.weightCorrectNoChangeClassifier.add(this.lastSeenClass == trueClass ? weight : 0);
             this.weightMajorityClassifier.add(getMajorityClass() == trueClass ? weight : 0);
             this.lastSeenClass = trueClass;
+            this.measurements = null;
         }
     }
 
@@ -148,16 +149,38 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
         int majorityClass = 0;
         double maxProbClass = 0.0;
         for (int i = 0; i < this.numClasses; i++) {
-            if (this.columnKappa[i].estimation() > maxProbClass) {
+            double probClass = this.classEstimators.columnKappa(i);
+            if (probClass > maxProbClass) {
                 majorityClass = i;
-                maxProbClass = this.columnKappa[i].estimation();
+                maxProbClass = probClass;
             }
         }
         return majorityClass;
     }
 
+    /**
+     * Gets the measurements, which are only computed again after new results
+     * were added. The returned array must not be modified.
+     */
     @Override
     public Measurement[] getPerformanceMeasurements() {
+        int outputFlags = (this.precisionRecallOutputOption.isSet() ? 1 : 0)
+                | (this.precisionPerClassOption.isSet() ? 2 : 0)
+                | (this.recallPerClassOption.isSet() ? 4 : 0)
+                | (this.f1PerClassOption.isSet() ? 8 : 0);
+        if (this.measurements == null || this.measurementsOutputFlags != outputFlags) {
+            this.measurements = computePerformanceMeasurements();
+            this.measurementsOutputFlags = outputFlags;
+        }
+        return this.measurements;
+    }
+
+    protected Measurement[] computePerformanceMeasurements() {
+        if (this.f1Names == null || this.f1Names.length != this.numClasses) {
+            this.f1Names = classMeasurementNames("F1 Score");
+            this.precisionNames = classMeasurementNames("Precision");
+            this.recallNames = classMeasurementNames("Recall");
+        }
         ArrayList<Measurement> measurements = new ArrayList<Measurement>();
         measurements.add(new Measurement("classified instances", this.getTotalWeightObserved()));
         measurements.add(new Measurement("classifications correct (percent)", this.getFractionCorrectlyClassified() * 100.0));
@@ -169,8 +192,7 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
                     this.getF1Statistic() * 100.0));
         if (f1PerClassOption.isSet()) {
             for (int i = 0; i < this.numClasses; i++) {
-                measurements.add(new Measurement("F1 Score for class " + i + 
-                        " (percent)", 100.0 * this.getF1Statistic(i)));
+                measurements.add(new Measurement(this.f1Names[i], 100.0 * this.getF1Statistic(i)));
             }
         }
         if (precisionRecallOutputOption.isSet())
@@ -178,8 +200,7 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
                 this.getPrecisionStatistic() * 100.0));               
         if (precisionPerClassOption.isSet()) {
             for (int i = 0; i < this.numClasses; i++) {
-                measurements.add(new Measurement("Precision for class " + i + 
-                        " (percent)", 100.0 * this.getPrecisionStatistic(i)));
+                measurements.add(new Measurement(this.precisionNames[i], 100.0 * this.getPrecisionStatistic(i)));
             }
         }
         if (precisionRecallOutputOption.isSet())
@@ -187,8 +208,7 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
                 this.getRecallStatistic() * 100.0));
         if (recallPerClassOption.isSet()) {
             for (int i = 0; i < this.numClasses; i++) {
-                measurements.add(new Measurement("Recall for class " + i + 
-                        " (percent)", 100.0 * this.getRecallStatistic(i)));
+                measurements.add(new Measurement(this.recallNames[i], 100.0 * this.getRecallStatistic(i)));
             }
         }
 
@@ -198,6 +218,14 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
 
     }
 
+    private String[] classMeasurementNames(String measure) {
+        String[] names = new String[this.numClasses];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = measure + " for class " + i + " (percent)";
+        }
+        return names;
+    }
+
     public double getTotalWeightObserved() {
         return this.totalWeightObserved;
     }
@@ -215,8 +243,8 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
             double p0 = getFractionCorrectlyClassified();
             double pc = 0.0;
             for (int i = 0; i < this.numClasses; i++) {
-                pc += this.rowKappa[i].estimation()
-                        * this.columnKappa[i].estimation();
+                pc += this.classEstimators.rowKappa(i)
+                        * this.classEstimators.columnKappa(i);
             }
             return (p0 - pc) / (1.0 - pc);
         } else {
@@ -248,26 +276,26 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
 
     public double getPrecisionStatistic() {
         double total = 0;
-        for (Estimator ck : this.precision) {
-            total += ck.estimation();
+        for (int i = 0; i < this.numClasses; i++) {
+            total += this.classEstimators.precision(i);
         }
-        return total / this.precision.length;
+        return total / this.numClasses;
     }
 
     public double getPrecisionStatistic(int numClass) {
-        return this.precision[numClass].estimation();
+        return this.classEstimators.precision(numClass);
     }
 
     public double getRecallStatistic() {
         double total = 0;
-        for (Estimator ck : this.recall) {
-            total += ck.estimation();
+        for (int i = 0; i < this.numClasses; i++) {
+            total += this.classEstimators.recall(i);
         }
-        return total / this.recall.length;
+        return total / this.numClasses;
     }
 
     public double getRecallStatistic(int numClass) {
-        return this.recall[numClass].estimation();
+        return this.classEstimators.recall(numClass);
     }
 
     public double getF1Statistic() {
@@ -280,6 +308,20 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
                 / (this.getPrecisionStatistic(numClass) + this.getRecallStatistic(numClass)));
     }
 
+    /**
+     * Estimates the size from the number of classes. Subclasses keep windows
+     * or detectors in their estimators and are measured exactly.
+     */
+    @Override
+    public long estimateByteSize() {
+        if (this.getClass() != BasicClassificationPerformanceEvaluator.class) {
+            return measureByteSize();
+        }
+        return SizeOf.estimateObject(20, 3 * 4 + 8)
+                + SizeOf.estimateObject(6, 8) + 5 * SizeOf.estimateArray(this.numClasses, 8)
+                + 3 * SizeOf.estimateObject(1, 2 * 8);
+    }
+
     @Override
     public void getDescription(StringBuilder sb, int indent) {
         Measurement.getMeasurementsDescription(getPerformanceMeasurements(),
@@ -329,6 +371,165 @@ public class BasicClassificationPerformanceEvaluator extends AbstractOptionHandl
         return new BasicEstimator();
     }
 
+    /**
+     * Creates the per-class estimators. Evaluators that only change
+     * newEstimator get Estimator arrays; the evaluators of this package keep
+     * the same estimations in flat arrays, updated without allocation.
+     */
+    protected ClassEstimators newClassEstimators(int numClasses) {
+        if (this.getClass() == BasicClassificationPerformanceEvaluator.class) {
+            return new BasicClassEstimators(numClasses);
+        }
+        return new EstimatorArrays(numClasses);
+    }
+
+    /**
+     * The estimators of the fraction of the weight predicted as (row kappa)
+     * and labelled as (column kappa) each class, and of the precision and
+     * recall of each class.
+     */
+    public abstract static class ClassEstimators implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Adds the result of an instance with a positive weight.
+         */
+        public abstract void add(int trueClass, int predictedClass, double weight);
+
+        public abstract double rowKappa(int classIndex);
+
+        public abstract double columnKappa(int classIndex);
+
+        public abstract double precision(int classIndex);
+
+        public abstract double recall(int classIndex);
+    }
+
+    /**
+     * The per-class estimators as Estimator objects from newEstimator.
+     */
+    public class EstimatorArrays extends ClassEstimators {
+
+        private static final long serialVersionUID = 1L;
+
+        public EstimatorArrays(int numClasses) {
+            rowKappa = new Estimator[numClasses];
+            columnKappa = new Estimator[numClasses];
+            precision = new Estimator[numClasses];
+            recall = new Estimator[numClasses];
+            for (int i = 0; i < numClasses; i++) {
+                rowKappa[i] = newEstimator();
+                columnKappa[i] = newEstimator();
+                precision[i] = newEstimator();
+                recall[i] = newEstimator();
+            }
+        }
+
+        @Override
+        public void add(int trueClass, int predictedClass, double weight) {
+            for (int i = 0; i < numClasses; i++) {
+                rowKappa[i].add(predictedClass == i ? weight : 0);
+                columnKappa[i].add(trueClass == i ? weight : 0);
+                // for both precision and recall, NaN values are used to 'balance' the number
+                // of instances seen across classes
+                if (predictedClass == i) {
+                    precision[i].add(predictedClass == trueClass ? weight : 0.0);
+                } else precision[i].add(Double.NaN);
+                if (trueClass == i) {
+                    recall[i].add(predictedClass == trueClass ? weight : 0.0);
+                } else recall[i].add(Double.NaN);
+            }
+        }
+
+        @Override
+        public double rowKappa(int classIndex) {
+            return rowKappa[classIndex].estimation();
+        }
+
+        @Override
+        public double columnKappa(int classIndex) {
+            return columnKappa[classIndex].estimation();
+        }
+
+        @Override
+        public double precision(int classIndex) {
+            return precision[classIndex].estimation();
+        }
+
+        @Override
+        public double recall(int classIndex) {
+            return recall[classIndex].estimation();
+        }
+    }
+
+    /**
+     * The estimations of BasicEstimator objects for every class. An instance
+     * adds zero to the kappa sums of every class but two, and NaN, which is
+     * skipped, to the precision and recall of every class but two, so only
+     * those are updated. The precision and recall sums of a class both only
+     * grow with the correctly classified weight of the class. A vote for an
+     * index beyond the classes counts as a wrong prediction of no class.
+     */
+    public static class BasicClassEstimators extends ClassEstimators {
+
+        private static final long serialVersionUID = 1L;
+
+        protected double count;
+
+        protected double[] predictedWeight;
+
+        protected double[] trueWeight;
+
+        protected double[] correctWeight;
+
+        protected double[] predictedCount;
+
+        protected double[] trueCount;
+
+        public BasicClassEstimators(int numClasses) {
+            this.predictedWeight = new double[numClasses];
+            this.trueWeight = new double[numClasses];
+            this.correctWeight = new double[numClasses];
+            this.predictedCount = new double[numClasses];
+            this.trueCount = new double[numClasses];
+        }
+
+        @Override
+        public void add(int trueClass, int predictedClass, double weight) {
+            this.count++;
+            if (predictedClass < this.predictedWeight.length) {
+                this.predictedWeight[predictedClass] += weight;
+                this.predictedCount[predictedClass]++;
+            }
+            this.trueWeight[trueClass] += weight;
+            this.trueCount[trueClass]++;
+            if (predictedClass == trueClass) {
+                this.correctWeight[trueClass] += weight;
+            }
+        }
+
+        @Override
+        public double rowKappa(int classIndex) {
+            return this.predictedWeight[classIndex] / this.count;
+        }
+
+        @Override
+        public double columnKappa(int classIndex) {
+            return this.trueWeight[classIndex] / this.count;
+        }
+
+        @Override
+        public double precision(int classIndex) {
+            return this.correctWeight[classIndex] / this.predictedCount[classIndex];
+        }
+
+        @Override
+        public double recall(int classIndex) {
+            return this.correctWeight[classIndex] / this.trueCount[classIndex];
+        }
+    }
+
 
     @Override
     public ImmutableCapabilities defineImmutableCapabilities() {
@@ -42,6 +42,14 @@ public class FadingFactorClassificationPerformanceEvaluator extends BasicClassif
         return new FadingFactorEstimator(this.alphaOption.getValue());
     }
 
+    @Override
+    protected ClassEstimators newClassEstimators(int numClasses) {
+        if (this.getClass() == FadingFactorClassificationPerformanceEvaluator.class) {
+            return new FadingFactorClassEstimators(numClasses, this.alphaOption.getValue());
+        }
+        return super.newClassEstimators(numClasses);
+    }
+
     @Override
     public ImmutableCapabilities defineImmutableCapabilities() {
         if (this.getClass() == FadingFactorClassificationPerformanceEvaluator.class)
@@ -79,4 +87,82 @@ public class FadingFactorClassificationPerformanceEvaluator extends BasicClassif
 
     }
 
+    /**
+     * The estimations of FadingFactorEstimator objects for every class. The
+     * kappa estimators of all classes see a value for every instance and
+     * share their b; the precision and recall estimators only fade for the
+     * instances predicted as and labelled as their class.
+     */
+    public static class FadingFactorClassEstimators extends ClassEstimators {
+
+        private static final long serialVersionUID = 1L;
+
+        protected double alpha;
+
+        protected double kappaB;
+
+        protected double[] predictedWeight;
+
+        protected double[] trueWeight;
+
+        protected double[] precisionEstimation;
+
+        protected double[] precisionB;
+
+        protected double[] recallEstimation;
+
+        protected double[] recallB;
+
+        public FadingFactorClassEstimators(int numClasses, double alpha) {
+            this.alpha = alpha;
+            this.predictedWeight = new double[numClasses];
+            this.trueWeight = new double[numClasses];
+            this.precisionEstimation = new double[numClasses];
+            this.precisionB = new double[numClasses];
+            this.recallEstimation = new double[numClasses];
+            this.recallB = new double[numClasses];
+        }
+
+        @Override
+        public void add(int trueClass, int predictedClass, double weight) {
+            double[] predictedWeight = this.predictedWeight;
+            double[] trueWeight = this.trueWeight;
+            for (int i = 0; i < predictedWeight.length; i++) {
+                predictedWeight[i] = this.alpha * predictedWeight[i];
+                trueWeight[i] = this.alpha * trueWeight[i];
+            }
+            trueWeight[trueClass] += weight;
+            this.kappaB = this.alpha * this.kappaB + 1.0;
+            double correctWeight = predictedClass == trueClass ? weight : 0.0;
+            // a vote beyond the classes is a wrong prediction of no class
+            if (predictedClass < predictedWeight.length) {
+                predictedWeight[predictedClass] += weight;
+                this.precisionEstimation[predictedClass] = this.alpha * this.precisionEstimation[predictedClass] + correctWeight;
+                this.precisionB[predictedClass] = this.alpha * this.precisionB[predictedClass] + 1.0;
+            }
+            this.recallEstimation[trueClass] = this.alpha * this.recallEstimation[trueClass] + correctWeight;
+            this.recallB[trueClass] = this.alpha * this.recallB[trueClass] + 1.0;
+        }
+
+        @Override
+        public double rowKappa(int classIndex) {
+            return this.kappaB > 0.0 ? this.predictedWeight[classIndex] / this.kappaB : 0;
+        }
+
+        @Override
+        public double columnKappa(int classIndex) {
+            return this.kappaB > 0.0 ? this.trueWeight[classIndex] / this.kappaB : 0;
+        }
+
+        @Override
+        public double precision(int classIndex) {
+            return this.precisionB[classIndex] > 0.0 ? this.precisionEstimation[classIndex] / this.precisionB[classIndex] : 0;
+        }
+
+        @Override
+        public double recall(int classIndex) {
+            return this.recallB[classIndex] > 0.0 ? this.recallEstimation[classIndex] / this.recallB[classIndex] : 0;
+        }
+    }
+
 }
@@ -0,0 +1,339 @@
+/*
+ *    SortedScores.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Scores of positive and negative examples kept in a balanced search tree
+ * (a treap) keyed by score. Every subtree knows how many positive and
+ * negative scores it holds and their sums, so adding or removing a score
+ * updates the AUC and scored AUC in logarithmic time instead of walking all
+ * scores each time a measure is requested.
+ *
+ * Pairs are ranked as in the imbalanced performance evaluators: a positive
+ * and a negative with the same score count as half a correctly ordered pair.
+ */
+public class SortedScores implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected static class Node implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		protected final double value;
+
+		protected final int priority;
+
+		protected Node left;
+
+		protected Node right;
+
+		/** Number of positive and negative scores equal to value */
+		protected int numPos;
+
+		protected int numNeg;
+
+		/** Number of positive and negative scores in the subtree */
+		protected long subtreePos;
+
+		protected long subtreeNeg;
+
+		/** Sum of the positive and negative scores in the subtree */
+		protected double subtreePosSum;
+
+		protected double subtreeNegSum;
+
+		protected Node(double value, int priority) {
+			this.value = value;
+			this.priority = priority;
+		}
+
+		protected void update() {
+			this.subtreePos = this.numPos;
+			this.subtreeNeg = this.numNeg;
+			this.subtreePosSum = this.numPos * this.value;
+			this.subtreeNegSum = this.numNeg * this.value;
+			if (this.left != null) {
+				this.subtreePos += this.left.subtreePos;
+				this.subtreeNeg += this.left.subtreeNeg;
+				this.subtreePosSum += this.left.subtreePosSum;
+				this.subtreeNegSum += this.left.subtreeNegSum;
+			}
+			if (this.right != null) {
+				this.subtreePos += this.right.subtreePos;
+				this.subtreeNeg += this.right.subtreeNeg;
+				this.subtreePosSum += this.right.subtreePosSum;
+				this.subtreeNegSum += this.right.subtreeNegSum;
+			}
+		}
+	}
+
+	protected Node root;
+
+	protected final Random random = new Random(1);
+
+	protected long numPos;
+
+	protected long numNeg;
+
+	/** Twice the number of correctly ordered pairs, so that ties stay integers */
+	protected long twiceOrderedPairs;
+
+	/** Sum over negatives of the scores of the positives ranked above them */
+	protected double positiveScoresAbove;
+
+	/** Sum over positives of the scores of the negatives ranked above them */
+	protected double negativeScoresAbove;
+
+	// scores greater than and equal to the value of the last call to locate
+	private long greaterPos;
+
+	private long greaterNeg;
+
+	private double greaterPosSum;
+
+	private double greaterNegSum;
+
+	private int equalPos;
+
+	private int equalNeg;
+
+	public void add(double score, boolean isPositive) {
+		locate(score);
+		if (isPositive) {
+			this.numPos++;
+		} else {
+			this.numNeg++;
+		}
+		addPairs(score, isPositive, 1);
+		this.root = insert(this.root, score, isPositive);
+	}
+
+	/**
+	 * Removes a score that was added before.
+	 */
+	public void remove(double score, boolean isPositive) {
+		this.root = remove(this.root, score, isPositive);
+		if (isPositive) {
+			this.numPos--;
+		} else {
+			this.numNeg--;
+		}
+		locate(score);
+		addPairs(score, isPositive, -1);
+	}
+
+	/**
+	 * Adds (sign 1) or removes (sign -1) the pairs formed by a score and the
+	 * scores found by the last call to locate.
+	 */
+	private void addPairs(double score, boolean isPositive, int sign) {
+		if (isPositive) {
+			long lowerNeg = this.numNeg - this.greaterNeg - this.equalNeg;
+			this.twiceOrderedPairs += sign * (2 * lowerNeg + this.equalNeg);
+			this.positiveScoresAbove += sign * score * (lowerNeg + this.equalNeg / 2.0);
+			this.negativeScoresAbove += sign * this.greaterNegSum;
+		} else {
+			long lowerPos = this.numPos - this.greaterPos - this.equalPos;
+			this.twiceOrderedPairs += sign * (2 * this.greaterPos + this.equalPos);
+			this.positiveScoresAbove += sign * (this.greaterPosSum + this.equalPos * score / 2.0);
+			this.negativeScoresAbove += sign * score * lowerPos;
+		}
+	}
+
+	/**
+	 * Counts and sums the scores greater than and equal to a value.
+	 */
+	private void locate(double value) {
+		this.greaterPos = 0;
+		this.greaterNeg = 0;
+		this.greaterPosSum = 0;
+		this.greaterNegSum = 0;
+		this.equalPos = 0;
+		this.equalNeg = 0;
+		Node node = this.root;
+		while (node != null) {
+			if (value > node.value) {
+				node = node.right;
+				continue;
+			}
+			if (node.right != null) {
+				this.greaterPos += node.right.subtreePos;
+				this.greaterNeg += node.right.subtreeNeg;
+				this.greaterPosSum += node.right.subtreePosSum;
+				this.greaterNegSum += node.right.subtreeNegSum;
+			}
+			if (value < node.value) {
+				this.greaterPos += node.numPos;
+				this.greaterNeg += node.numNeg;
+				this.greaterPosSum += node.numPos * node.value;
+				this.greaterNegSum += node.numNeg * node.value;
+				node = node.left;
+			} else {
+				this.equalPos = node.numPos;
+				this.equalNeg = node.numNeg;
+				return;
+			}
+		}
+	}
+
+	private Node insert(Node node, double value, boolean isPositive) {
+		if (node == null) {
+			node = new Node(value, this.random.nextInt());
+		}
+		if (value < node.value) {
+			node.left = insert(node.left, value, isPositive);
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else if (value > node.value) {
+			node.right = insert(node.right, value, isPositive);
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		} else if (isPositive) {
+			node.numPos++;
+		} else {
+			node.numNeg++;
+		}
+		node.update();
+		return node;
+	}
+
+	private Node remove(Node node, double value, boolean isPositive) {
+		if (node == null) {
+			throw new IllegalArgumentException("Score " + value + " was not added");
+		}
+		if (value < node.value) {
+			node.left = remove(node.left, value, isPositive);
+		} else if (value > node.value) {
+			node.right = remove(node.right, value, isPositive);
+		} else {
+			if (isPositive) {
+				node.numPos--;
+			} else {
+				node.numNeg--;
+			}
+			if (node.numPos + node.numNeg == 0) {
+				return merge(node.left, node.right);
+			}
+		}
+		node.update();
+		return node;
+	}
+
+	private static Node merge(Node lower, Node upper) {
+		if (lower == null) {
+			return upper;
+		}
+		if (upper == null) {
+			return lower;
+		}
+		if (lower.priority > upper.priority) {
+			lower.right = merge(lower.right, upper);
+			lower.update();
+			return lower;
+		}
+		upper.left = merge(lower, upper.left);
+		upper.update();
+		return upper;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node left = node.left;
+		node.left = left.right;
+		node.update();
+		left.right = node;
+		return left;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node right = node.right;
+		node.right = right.left;
+		node.update();
+		right.left = node;
+		return right;
+	}
+
+	/**
+	 * Recomputes the scored AUC sums from the tree, discarding the rounding
+	 * errors accumulated by adding and removing scores. Takes time linear in
+	 * the number of distinct scores.
+	 */
+	public void recompute() {
+		this.positiveScoresAbove = 0;
+		this.negativeScoresAbove = 0;
+		this.greaterPosSum = 0;
+		this.greaterNegSum = 0;
+		recompute(this.root);
+	}
+
+	private void recompute(Node node) {
+		if (node == null) {
+			return;
+		}
+		// visit scores in descending order
+		recompute(node.right);
+		this.positiveScoresAbove += node.numNeg * (this.greaterPosSum + node.numPos * node.value / 2.0);
+		this.negativeScoresAbove += node.numPos * this.greaterNegSum;
+		this.greaterPosSum += node.numPos * node.value;
+		this.greaterNegSum += node.numNeg * node.value;
+		recompute(node.left);
+	}
+
+	public long getNumPositives() {
+		return this.numPos;
+	}
+
+	public long getNumNegatives() {
+		return this.numNeg;
+	}
+
+	public boolean isEmpty() {
+		return this.numPos + this.numNeg == 0;
+	}
+
+	/**
+	 * Gets the area under the ROC curve, 1 if there are no positive or no
+	 * negative scores.
+	 */
+	public double getAUC() {
+		if (this.numPos == 0 || this.numNeg == 0) {
+			return 1;
+		}
+		return (this.twiceOrderedPairs / 2.0) / ((double) this.numPos * (double) this.numNeg);
+	}
+
+	/**
+	 * Gets the scored AUC, 1 if there are no positive or no negative scores.
+	 */
+	public double getScoredAUC() {
+		if (this.numPos == 0 || this.numNeg == 0) {
+			return 1;
+		}
+		double pairs = (double) this.numPos * (double) this.numNeg;
+		double negativeSum = this.root.subtreeNegSum;
+		double rMinus = (this.numPos * negativeSum - this.negativeScoresAbove) / pairs;
+		double rPlus = this.positiveScoresAbove / pairs;
+		return rPlus - rMinus;
+	}
+}
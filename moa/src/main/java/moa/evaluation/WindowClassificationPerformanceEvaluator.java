@@ -46,6 +46,14 @@ public class WindowClassificationPerformanceEvaluator extends BasicClassificatio
         return new WindowEstimator(this.widthOption.getValue());
     }
 
+    @Override
+    protected ClassEstimators newClassEstimators(int numClasses) {
+        if (this.getClass() == WindowClassificationPerformanceEvaluator.class) {
+            return new WindowClassEstimators(numClasses, this.widthOption.getValue());
+        }
+        return super.newClassEstimators(numClasses);
+    }
+
     @Override
     public ImmutableCapabilities defineImmutableCapabilities() {
         if (this.getClass() == WindowClassificationPerformanceEvaluator.class)
@@ -99,4 +107,102 @@ public class WindowClassificationPerformanceEvaluator extends BasicClassificatio
 
     }
 
+    /**
+     * The estimations of WindowEstimator objects for every class, kept from a
+     * single window of the classes and weights of the last instances. Only
+     * the sums of the classes of the instance entering the window and of the
+     * one leaving it change, in the same order as in WindowEstimator.
+     */
+    public static class WindowClassEstimators extends ClassEstimators {
+
+        private static final long serialVersionUID = 1L;
+
+        protected int[] trueClassWindow;
+
+        protected int[] predictedClassWindow;
+
+        protected double[] weightWindow;
+
+        protected int posWindow;
+
+        protected int lenWindow;
+
+        protected double[] predictedWeight;
+
+        protected double[] trueWeight;
+
+        protected double[] correctWeight;
+
+        protected int[] predictedCount;
+
+        protected int[] trueCount;
+
+        public WindowClassEstimators(int numClasses, int sizeWindow) {
+            this.trueClassWindow = new int[sizeWindow];
+            this.predictedClassWindow = new int[sizeWindow];
+            this.weightWindow = new double[sizeWindow];
+            this.predictedWeight = new double[numClasses];
+            this.trueWeight = new double[numClasses];
+            this.correctWeight = new double[numClasses];
+            this.predictedCount = new int[numClasses];
+            this.trueCount = new int[numClasses];
+        }
+
+        @Override
+        public void add(int trueClass, int predictedClass, double weight) {
+            if (this.lenWindow == this.weightWindow.length) {
+                int forgetTrue = this.trueClassWindow[this.posWindow];
+                int forgetPredicted = this.predictedClassWindow[this.posWindow];
+                double forgetWeight = this.weightWindow[this.posWindow];
+                if (forgetPredicted < this.predictedWeight.length) {
+                    this.predictedWeight[forgetPredicted] -= forgetWeight;
+                    this.predictedCount[forgetPredicted]--;
+                }
+                this.trueWeight[forgetTrue] -= forgetWeight;
+                this.trueCount[forgetTrue]--;
+                if (forgetPredicted == forgetTrue) {
+                    this.correctWeight[forgetTrue] -= forgetWeight;
+                }
+            } else {
+                this.lenWindow++;
+            }
+            if (predictedClass < this.predictedWeight.length) {
+                this.predictedWeight[predictedClass] += weight;
+                this.predictedCount[predictedClass]++;
+            }
+            this.trueWeight[trueClass] += weight;
+            this.trueCount[trueClass]++;
+            if (predictedClass == trueClass) {
+                this.correctWeight[trueClass] += weight;
+            }
+            this.trueClassWindow[this.posWindow] = trueClass;
+            this.predictedClassWindow[this.posWindow] = predictedClass;
+            this.weightWindow[this.posWindow] = weight;
+            this.posWindow++;
+            if (this.posWindow == this.weightWindow.length) {
+                this.posWindow = 0;
+            }
+        }
+
+        @Override
+        public double rowKappa(int classIndex) {
+            return this.predictedWeight[classIndex] / this.lenWindow;
+        }
+
+        @Override
+        public double columnKappa(int classIndex) {
+            return this.trueWeight[classIndex] / this.lenWindow;
+        }
+
+        @Override
+        public double precision(int classIndex) {
+            return this.correctWeight[classIndex] / this.predictedCount[classIndex];
+        }
+
+        @Override
+        public double recall(int classIndex) {
+            return this.correctWeight[classIndex] / this.trueCount[classIndex];
+        }
+    }
+
 }
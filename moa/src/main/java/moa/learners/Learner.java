@@ -24,6 +24,7 @@ import moa.MOAObject;
 import moa.core.Example;
 
 import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.gui.AWTRenderable;
 import moa.options.OptionHandler;
 
@@ -106,6 +107,15 @@ public interface Learner<E extends Example> extends MOAObject, OptionHandler, AW
      */
     public Measurement[] getModelMeasurements();
 
+    /**
+     * Sets how the model size reported in the model measurements is
+     * measured. Learners that only support exact measurement ignore it.
+     *
+     * @param modelSizeMeasurer the measurer, or null to measure exactly
+     */
+    public default void setModelSizeMeasurer(ModelSizeMeasurer modelSizeMeasurer) {
+    }
+
     /**
      * Gets the learners of this ensemble.
      * Returns null if this learner is a single learner.
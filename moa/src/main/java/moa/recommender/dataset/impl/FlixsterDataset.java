@@ -37,6 +37,11 @@ import moa.tasks.TaskMonitor;
 
 public class FlixsterDataset extends AbstractOptionHandler implements Dataset  {
     private String strLine;
+
+    private boolean parsed;
+    private int userID;
+    private int itemID;
+    private double rating;
     private BufferedReader br;
         public FileOption fileOption = new FileOption("file", 'f',
             "File to load.", "/home/alex/datasets/ratings.txt", "txt", false);
@@ -68,6 +73,7 @@ public class FlixsterDataset extends AbstractOptionHandler implements Dataset  {
     @Override
     public boolean next() {
         try {
+            parsed = false;
             return (strLine = br.readLine()) != null;
         } catch (IOException e) {
             e.printStackTrace();
@@ -75,22 +81,35 @@ public class FlixsterDataset extends AbstractOptionHandler implements Dataset  {
         return false;
     }
 
+    /**
+     * Splits the current line once, however many of its fields are read.
+     */
+    private void parse() {
+        if (!parsed) {
+            String[] split = strLine.split("\\s+");
+            userID = Integer.parseInt(split[0]);
+            itemID = Integer.parseInt(split[1]);
+            rating = Double.parseDouble(split[2]);
+            parsed = true;
+        }
+    }
+
     @Override
     public int curUserID() {
-        String[] split = strLine.split("\\s+");
-        return Integer.valueOf(split[0]);
+        parse();
+        return userID;
     }
 
     @Override
     public int curItemID() {
-        String[] split = strLine.split("\\s+");
-        return Integer.valueOf(split[1]);
+        parse();
+        return itemID;
     }
 
     @Override
     public double curRating() {
-        String[] split = strLine.split("\\s+");
-        return Double.valueOf(split[2]);
+        parse();
+        return rating;
     }
 
     public String toString() {
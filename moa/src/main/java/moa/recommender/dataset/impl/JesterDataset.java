@@ -38,6 +38,11 @@ import moa.tasks.TaskMonitor;
 public class JesterDataset extends AbstractOptionHandler implements Dataset {
 
     private String strLine;
+
+    private boolean parsed;
+    private int userID;
+    private int itemID;
+    private double rating;
     private BufferedReader br;
     public FileOption fileOption = new FileOption("file", 'f',
             "File to load.", "/home/alicia/datasets/jester/jester_ratings.dat", "dat", false);
@@ -67,6 +72,7 @@ public class JesterDataset extends AbstractOptionHandler implements Dataset {
     @Override
     public boolean next() {
         try {
+            parsed = false;
             return (strLine = br.readLine()) != null;
         } catch (IOException e) {
             e.printStackTrace();
@@ -78,23 +84,35 @@ public class JesterDataset extends AbstractOptionHandler implements Dataset {
         return "Jester";
     }
 
+    /**
+     * Splits the current line once, however many of its fields are read.
+     */
+    private void parse() {
+        if (!parsed) {
+            String[] split = strLine.split("\\s+");
+            userID = Integer.parseInt(split[0]);
+            itemID = Integer.parseInt(split[1]);
+            rating = (Double.parseDouble(split[2]) / 10) * 2 + 3;
+            parsed = true;
+        }
+    }
+
     @Override
     public int curUserID() {
-        String[] split = strLine.split("\\s+");
-        return Integer.valueOf(split[0]);
+        parse();
+        return userID;
     }
 
     @Override
     public int curItemID() {
-        String[] split = strLine.split("\\s+");
-        return Integer.valueOf(split[1]);
+        parse();
+        return itemID;
     }
 
     @Override
     public double curRating() {
-        String[] split = strLine.split("\\s+");
-        double rating = Double.valueOf(split[2]);
-        return (rating / 10) * 2 + 3;
+        parse();
+        return rating;
     }
 
     @Override
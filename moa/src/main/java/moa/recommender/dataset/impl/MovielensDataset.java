@@ -37,6 +37,11 @@ import moa.tasks.TaskMonitor;
 public class MovielensDataset extends AbstractOptionHandler implements Dataset {
 
     private String strLine;
+
+    private boolean parsed;
+    private int userID;
+    private int itemID;
+    private double rating;
     
     private BufferedReader br;
     
@@ -64,7 +69,14 @@ public class MovielensDataset extends AbstractOptionHandler implements Dataset {
     @Override
     public boolean next() {
         try {
-            return (strLine = ((BufferedReader) br).readLine()) != null;
+            while ((strLine = br.readLine()) != null) {
+                // skips the header line of the csv files of the newer releases
+                if (!strLine.isEmpty() && Character.isDigit(strLine.charAt(0))) {
+                    parsed = false;
+                    return true;
+                }
+            }
+            return false;
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -75,22 +87,35 @@ public class MovielensDataset extends AbstractOptionHandler implements Dataset {
         return "Movielens";
     }
 
+    /**
+     * Splits the current line once, however many of its fields are read.
+     */
+    private void parse() {
+        if (!parsed) {
+            String[] split = strLine.split(strLine.contains("::") ? "::" : ",");
+            userID = Integer.parseInt(split[0]);
+            itemID = Integer.parseInt(split[1]);
+            rating = Double.parseDouble(split[2]);
+            parsed = true;
+        }
+    }
+
     @Override
     public int curUserID() {
-        String[] split = strLine.split("::");
-        return Integer.valueOf(split[0]);
+        parse();
+        return userID;
     }
 
     @Override
     public int curItemID() {
-        String[] split = strLine.split("::");
-        return Integer.valueOf(split[1]);
+        parse();
+        return itemID;
     }
 
     @Override
     public double curRating() {
-        String[] split = strLine.split("::");
-        return Double.valueOf(split[2]);
+        parse();
+        return rating;
     }
 
     @Override
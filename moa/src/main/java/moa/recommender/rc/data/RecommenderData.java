@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import moa.recommender.rc.utils.Rating;
+import moa.recommender.rc.utils.RatingBlock;
 import moa.recommender.rc.utils.SparseVector;
 import moa.recommender.rc.utils.Updatable;
 
@@ -40,6 +41,23 @@ public interface RecommenderData extends Serializable {
     public SparseVector getRatingsUser(int userID); //TODO:Iterator version for this?
     public SparseVector getRatingsItem(int itemID); //TODO:Iterator version for this?
     public double getRating(int userID, int itemID);
+
+    /**
+     * Copies the ratings of a user, as (item ID, rating) pairs, into a
+     * reusable block.
+     */
+    public default void getRatingsUser(int userID, RatingBlock ratings) {
+        ratings.set(getRatingsUser(userID));
+    }
+
+    /**
+     * Copies the ratings of an item, as (user ID, rating) pairs, into a
+     * reusable block.
+     */
+    public default void getRatingsItem(int itemID, RatingBlock ratings) {
+        ratings.set(getRatingsItem(itemID));
+    }
+
     public int getNumItems();
     public int getNumUsers();
     public int getNumRatings();
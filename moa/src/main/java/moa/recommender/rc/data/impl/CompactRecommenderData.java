@@ -0,0 +1,510 @@
+/*
+ *    CompactRecommenderData.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *    
+ *    
+ */
+
+package moa.recommender.rc.data.impl;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import moa.recommender.rc.data.AbstractRecommenderData;
+import moa.recommender.rc.utils.IntIndexMap;
+import moa.recommender.rc.utils.Rating;
+import moa.recommender.rc.utils.RatingBlock;
+import moa.recommender.rc.utils.SparseVector;
+
+/**
+ * In-memory rating store with primitive storage. Users and items are mapped
+ * to dense rows by open addressing maps, and the ratings of every row are
+ * kept in a block of parallel arrays. Each rating is stored once, in the
+ * block of its user, together with its position in the block of its item;
+ * the item block points back to it. A rating is looked up by scanning the
+ * smaller of the two blocks, and removed in constant time by moving the
+ * last entry of each block into its place.
+ */
+public class CompactRecommenderData extends AbstractRecommenderData {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_ROWS = 16;
+    private static final int INITIAL_BLOCK = 4;
+
+    protected IntIndexMap userRows = new IntIndexMap();
+    protected IntIndexMap itemRows = new IntIndexMap();
+    protected int nUsers = 0;
+    protected int nItems = 0;
+    protected int[] userIDs = new int[INITIAL_ROWS];
+    protected int[] itemIDs = new int[INITIAL_ROWS];
+
+    // ratings of every user: item row, position in the item block and rating
+    protected int[][] userItems = new int[INITIAL_ROWS][];
+    protected int[][] userItemPositions = new int[INITIAL_ROWS][];
+    protected double[][] userRatings = new double[INITIAL_ROWS][];
+    protected int[] userCounts = new int[INITIAL_ROWS];
+    protected double[] userSums = new double[INITIAL_ROWS];
+
+    // ratings of every item: user row and position in the user block
+    protected int[][] itemUsers = new int[INITIAL_ROWS][];
+    protected int[][] itemUserPositions = new int[INITIAL_ROWS][];
+    protected int[] itemCounts = new int[INITIAL_ROWS];
+    protected double[] itemSums = new double[INITIAL_ROWS];
+
+    protected double sumRatings = 0;
+    protected int nRatings = 0;
+    protected double minRating = 0;
+    protected double maxRating = 0;
+
+    protected class IDSet extends AbstractSet<Integer> {
+        private final boolean users;
+
+        IDSet(boolean users) {
+            this.users = users;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                private int row = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return row < size();
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return (users ? userIDs : itemIDs)[row++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return users ? nUsers : nItems;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) return false;
+            return users ? userExists((Integer) o) : itemExists((Integer) o);
+        }
+    }
+
+    protected class RatingIterator implements Iterator<Rating> {
+        private int row = 0;
+        private int position = 0;
+
+        @Override
+        public boolean hasNext() {
+            while (row < nUsers && position >= userCounts[row]) {
+                ++row;
+                position = 0;
+            }
+            return row < nUsers;
+        }
+
+        @Override
+        public Rating next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Rating rating = new Rating(userIDs[row], itemIDs[userItems[row][position]],
+                    userRatings[row][position]);
+            ++position;
+            return rating;
+        }
+    }
+
+    protected int addUserRow(int userID) {
+        int row = userRows.get(userID);
+        if (row != -1) return row;
+        if (nUsers == userIDs.length) {
+            int n = 2 * nUsers;
+            userIDs = Arrays.copyOf(userIDs, n);
+            userItems = Arrays.copyOf(userItems, n);
+            userItemPositions = Arrays.copyOf(userItemPositions, n);
+            userRatings = Arrays.copyOf(userRatings, n);
+            userCounts = Arrays.copyOf(userCounts, n);
+            userSums = Arrays.copyOf(userSums, n);
+        }
+        row = nUsers++;
+        userIDs[row] = userID;
+        userItems[row] = new int[INITIAL_BLOCK];
+        userItemPositions[row] = new int[INITIAL_BLOCK];
+        userRatings[row] = new double[INITIAL_BLOCK];
+        userCounts[row] = 0;
+        userSums[row] = 0;
+        userRows.put(userID, row);
+        return row;
+    }
+
+    protected int addItemRow(int itemID) {
+        int row = itemRows.get(itemID);
+        if (row != -1) return row;
+        if (nItems == itemIDs.length) {
+            int n = 2 * nItems;
+            itemIDs = Arrays.copyOf(itemIDs, n);
+            itemUsers = Arrays.copyOf(itemUsers, n);
+            itemUserPositions = Arrays.copyOf(itemUserPositions, n);
+            itemCounts = Arrays.copyOf(itemCounts, n);
+            itemSums = Arrays.copyOf(itemSums, n);
+        }
+        row = nItems++;
+        itemIDs[row] = itemID;
+        itemUsers[row] = new int[INITIAL_BLOCK];
+        itemUserPositions[row] = new int[INITIAL_BLOCK];
+        itemCounts[row] = 0;
+        itemSums[row] = 0;
+        itemRows.put(itemID, row);
+        return row;
+    }
+
+    /**
+     * Returns the position of the rating in the block of the user, or -1 if
+     * the user has not rated the item.
+     */
+    protected int findRating(int user, int item) {
+        if (userCounts[user] <= itemCounts[item]) {
+            int[] items = userItems[user];
+            for (int p = 0; p < userCounts[user]; ++p)
+                if (items[p] == item) return p;
+        }
+        else {
+            int[] users = itemUsers[item];
+            for (int q = 0; q < itemCounts[item]; ++q)
+                if (users[q] == user) return itemUserPositions[item][q];
+        }
+        return -1;
+    }
+
+    protected void appendRating(int user, int item, double rating) {
+        int p = userCounts[user]++;
+        int q = itemCounts[item]++;
+        if (p == userItems[user].length) {
+            userItems[user] = Arrays.copyOf(userItems[user], 2 * p);
+            userItemPositions[user] = Arrays.copyOf(userItemPositions[user], 2 * p);
+            userRatings[user] = Arrays.copyOf(userRatings[user], 2 * p);
+        }
+        if (q == itemUsers[item].length) {
+            itemUsers[item] = Arrays.copyOf(itemUsers[item], 2 * q);
+            itemUserPositions[item] = Arrays.copyOf(itemUserPositions[item], 2 * q);
+        }
+        userItems[user][p] = item;
+        userItemPositions[user][p] = q;
+        userRatings[user][p] = rating;
+        itemUsers[item][q] = user;
+        itemUserPositions[item][q] = p;
+    }
+
+    /**
+     * Removes the rating at position p of the block of the user.
+     */
+    protected void removeRatingAt(int user, int p) {
+        int item = userItems[user][p];
+        int q = userItemPositions[user][p];
+        double rating = userRatings[user][p];
+
+        int last = --userCounts[user];
+        if (p != last) {
+            int movedItem = userItems[user][last];
+            int movedQ = userItemPositions[user][last];
+            userItems[user][p] = movedItem;
+            userItemPositions[user][p] = movedQ;
+            userRatings[user][p] = userRatings[user][last];
+            itemUserPositions[movedItem][movedQ] = p;
+        }
+        last = --itemCounts[item];
+        if (q != last) {
+            int movedUser = itemUsers[item][last];
+            int movedP = itemUserPositions[item][last];
+            itemUsers[item][q] = movedUser;
+            itemUserPositions[item][q] = movedP;
+            userItemPositions[movedUser][movedP] = q;
+        }
+
+        sumRatings -= rating;
+        --nRatings;
+        userSums[user] -= rating;
+        itemSums[item] -= rating;
+    }
+
+    @Override
+    public void addUser(int userID, List<Integer> ratedItems, List<Double> ratings) {
+        super.addUser(userID, ratedItems, ratings);
+        addUserRow(userID);
+        int n = ratedItems.size();
+        for (int i = 0; i < n; ++i)
+            auxSetRating(userID, ratedItems.get(i), ratings.get(i));
+    }
+
+    @Override
+    public void removeUser(int userID) {
+        super.removeUser(userID);
+        int user = userRows.remove(userID);
+        if (user == -1) return;
+        while (userCounts[user] > 0)
+            removeRatingAt(user, userCounts[user] - 1);
+        int last = --nUsers;
+        if (user != last) {
+            userIDs[user] = userIDs[last];
+            userItems[user] = userItems[last];
+            userItemPositions[user] = userItemPositions[last];
+            userRatings[user] = userRatings[last];
+            userCounts[user] = userCounts[last];
+            userSums[user] = userSums[last];
+            userRows.put(userIDs[user], user);
+            for (int p = 0; p < userCounts[user]; ++p)
+                itemUsers[userItems[user][p]][userItemPositions[user][p]] = user;
+        }
+        userItems[last] = null;
+        userItemPositions[last] = null;
+        userRatings[last] = null;
+    }
+
+    @Override
+    public void addItem(int itemID, List<Integer> ratingUsers, List<Double> ratings) {
+        super.addItem(itemID, ratingUsers, ratings);
+        addItemRow(itemID);
+        int n = ratingUsers.size();
+        for (int i = 0; i < n; ++i)
+            auxSetRating(ratingUsers.get(i), itemID, ratings.get(i));
+    }
+
+    @Override
+    public void removeItem(int itemID) {
+        super.removeItem(itemID);
+        int item = itemRows.remove(itemID);
+        if (item == -1) return;
+        while (itemCounts[item] > 0) {
+            int q = itemCounts[item] - 1;
+            removeRatingAt(itemUsers[item][q], itemUserPositions[item][q]);
+        }
+        int last = --nItems;
+        if (item != last) {
+            itemIDs[item] = itemIDs[last];
+            itemUsers[item] = itemUsers[last];
+            itemUserPositions[item] = itemUserPositions[last];
+            itemCounts[item] = itemCounts[last];
+            itemSums[item] = itemSums[last];
+            itemRows.put(itemIDs[item], item);
+            for (int q = 0; q < itemCounts[item]; ++q)
+                userItems[itemUsers[item][q]][itemUserPositions[item][q]] = item;
+        }
+        itemUsers[last] = null;
+        itemUserPositions[last] = null;
+    }
+
+    private void auxSetRating(int userID, int itemID, double rating) {
+        if (nRatings == 0) {
+            minRating = rating;
+            maxRating = rating;
+        }
+        else {
+            minRating = Math.min(minRating, rating);
+            maxRating = Math.max(maxRating, rating);
+        }
+
+        int user = addUserRow(userID);
+        int item = addItemRow(itemID);
+        int p = findRating(user, item);
+        if (p != -1) {
+            double rat = userRatings[user][p];
+            sumRatings -= rat;
+            userSums[user] -= rat;
+            itemSums[item] -= rat;
+            userRatings[user][p] = rating;
+        }
+        else {
+            appendRating(user, item, rating);
+            ++nRatings;
+        }
+        userSums[user] += rating;
+        itemSums[item] += rating;
+        sumRatings += rating;
+    }
+
+    @Override
+    public void setRating(int userID, int itemID, double rating) {
+        super.setRating(userID, itemID, rating);
+        auxSetRating(userID, itemID, rating);
+    }
+
+    @Override
+    public void removeRating(int userID, int itemID) {
+        super.removeRating(userID, itemID);
+        int user = userRows.get(userID);
+        int item = itemRows.get(itemID);
+        if (user == -1 || item == -1) return;
+        int p = findRating(user, item);
+        if (p != -1)
+            removeRatingAt(user, p);
+    }
+
+    @Override
+    public SparseVector getRatingsUser(int userID) {
+        Map<Integer, Double> ratUser = new HashMap<Integer, Double>();
+        int user = userRows.get(userID);
+        if (user != -1)
+            for (int p = 0; p < userCounts[user]; ++p)
+                ratUser.put(itemIDs[userItems[user][p]], userRatings[user][p]);
+        return new SparseVector(ratUser);
+    }
+
+    @Override
+    public SparseVector getRatingsItem(int itemID) {
+        Map<Integer, Double> ratItem = new HashMap<Integer, Double>();
+        int item = itemRows.get(itemID);
+        if (item != -1)
+            for (int q = 0; q < itemCounts[item]; ++q) {
+                int user = itemUsers[item][q];
+                ratItem.put(userIDs[user], userRatings[user][itemUserPositions[item][q]]);
+            }
+        return new SparseVector(ratItem);
+    }
+
+    @Override
+    public void getRatingsUser(int userID, RatingBlock ratings) {
+        ratings.clear();
+        int user = userRows.get(userID);
+        if (user != -1)
+            for (int p = 0; p < userCounts[user]; ++p)
+                ratings.add(itemIDs[userItems[user][p]], userRatings[user][p]);
+    }
+
+    @Override
+    public void getRatingsItem(int itemID, RatingBlock ratings) {
+        ratings.clear();
+        int item = itemRows.get(itemID);
+        if (item != -1)
+            for (int q = 0; q < itemCounts[item]; ++q) {
+                int user = itemUsers[item][q];
+                ratings.add(userIDs[user], userRatings[user][itemUserPositions[item][q]]);
+            }
+    }
+
+    @Override
+    public double getRating(int userID, int itemID) {
+        int user = userRows.get(userID);
+        int item = itemRows.get(itemID);
+        if (user == -1 || item == -1) return 0;
+        int p = findRating(user, item);
+        return (p != -1 ? userRatings[user][p] : 0);
+    }
+
+    @Override
+    public int getNumItems() {
+        return nItems;
+    }
+
+    @Override
+    public int getNumUsers() {
+        return nUsers;
+    }
+
+    @Override
+    public int getNumRatings() {
+        return nRatings;
+    }
+
+    @Override
+    public double getAvgRatingUser(int userID) {
+        int user = userRows.get(userID);
+        double sum = (user != -1 ? userSums[user] : 0);
+        double num = (user != -1 ? userCounts[user] : 0);
+        return (getGlobalMean()*25 + sum)/(25 + num);
+    }
+
+    @Override
+    public double getAvgRatingItem(int itemID) {
+        int item = itemRows.get(itemID);
+        double sum = (item != -1 ? itemSums[item] : 0);
+        double num = (item != -1 ? itemCounts[item] : 0);
+        return (getGlobalMean()*25 + sum)/(25 + num);
+    }
+
+    @Override
+    public double getMinRating() {
+        return minRating;
+    }
+
+    @Override
+    public double getMaxRating() {
+        return maxRating;
+    }
+
+    @Override
+    public Set<Integer> getUsers() {
+        return new IDSet(true);
+    }
+
+    @Override
+    public Set<Integer> getItems() {
+        return new IDSet(false);
+    }
+
+    @Override
+    public double getGlobalMean() {
+        return (nRatings > 0 ? sumRatings/(double)nRatings : (minRating + maxRating)/2.0);
+    }
+
+    @Override
+    public int countRatingsUser(int userID) {
+        int user = userRows.get(userID);
+        return (user != -1 ? userCounts[user] : 0);
+    }
+
+    @Override
+    public int countRatingsItem(int itemID) {
+        int item = itemRows.get(itemID);
+        return (item != -1 ? itemCounts[item] : 0);
+    }
+
+    @Override
+    public Iterator<Rating> ratingIterator() {
+        return new RatingIterator();
+    }
+
+    @Override
+    public boolean userExists(int userID) {
+        return userRows.containsKey(userID);
+    }
+
+    @Override
+    public boolean itemExists(int itemID) {
+        return itemRows.containsKey(itemID);
+    }
+
+    @Override
+    public void clear() {
+        userRows.clear();
+        itemRows.clear();
+        Arrays.fill(userItems, 0, nUsers, null);
+        Arrays.fill(userItemPositions, 0, nUsers, null);
+        Arrays.fill(userRatings, 0, nUsers, null);
+        Arrays.fill(itemUsers, 0, nItems, null);
+        Arrays.fill(itemUserPositions, 0, nItems, null);
+        nUsers = nItems = 0;
+        minRating = maxRating = 0;
+        sumRatings = nRatings = 0;
+    }
+}
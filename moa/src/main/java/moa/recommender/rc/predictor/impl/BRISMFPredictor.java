@@ -17,18 +17,16 @@
  *    
  *    
  */
-
 package moa.recommender.rc.predictor.impl;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import moa.recommender.rc.data.RecommenderData;
-import moa.recommender.rc.utils.Pair;
+import moa.recommender.rc.utils.FeatureMatrix;
 import moa.recommender.rc.utils.Rating;
-import moa.recommender.rc.utils.SparseVector;
+import moa.recommender.rc.utils.RatingBlock;
 import moa.recommender.rc.utils.Updatable;
 
 /**
@@ -63,12 +61,16 @@ public class BRISMFPredictor implements Updatable {
     
     protected RecommenderData data;
     protected int nFeatures;
-    protected HashMap<Integer, float[]> userFeature;
-    protected HashMap<Integer, float[]> itemFeature;
+    protected FeatureMatrix userFeature;
+    protected FeatureMatrix itemFeature;
     protected Random rnd;
     protected double lRate = 0.01;
     protected double rFactor = 0.02;
     protected int nIterations = 30;
+
+    // buffers reused by the online training
+    protected RatingBlock ratings = new RatingBlock();
+    protected int[] offsets = new int[16];
     
     public void setLRate(double lRate) {
         this.lRate = lRate;
@@ -89,8 +91,8 @@ public class BRISMFPredictor implements Updatable {
     public BRISMFPredictor(int nFeatures, RecommenderData data, boolean train) {
         this.data = data;
         this.nFeatures = nFeatures;
-        this.userFeature = new HashMap<Integer, float[]>();
-        this.itemFeature = new HashMap<Integer, float[]>();
+        this.userFeature = new FeatureMatrix(nFeatures);
+        this.itemFeature = new FeatureMatrix(nFeatures);
         this.rnd = new Random(12345);
         data.attachUpdatable(this);
         if (train) train();
@@ -99,8 +101,8 @@ public class BRISMFPredictor implements Updatable {
     public BRISMFPredictor(int nFeatures, RecommenderData data, double lRate, double rFactor, boolean train) {
         this.data = data;
         this.nFeatures = nFeatures;
-        this.userFeature = new HashMap<Integer, float[]>();
-        this.itemFeature = new HashMap<Integer, float[]>();
+        this.userFeature = new FeatureMatrix(nFeatures);
+        this.itemFeature = new FeatureMatrix(nFeatures);
         this.rnd = new Random(12345);
         this.lRate = lRate;
         this.rFactor = rFactor;
@@ -108,25 +110,37 @@ public class BRISMFPredictor implements Updatable {
         if (train) train();
     }
     
-    private void resetFeatures(float[] feats, boolean userFeats) {
-        int n = feats.length;
-        for (int i = 0; i < n; ++i)
-            feats[i] = (float)0.01*(rnd.nextFloat()*2 - 1);
-        if (userFeats) feats[0] = 1;
-        else feats[1] = 1;
+    private void resetFeatures(float[] feats, int offset, boolean userFeats) {
+        for (int i = 0; i < nFeatures; ++i)
+            feats[offset + i] = (float)0.01*(rnd.nextFloat()*2 - 1);
+        if (userFeats) feats[offset] = 1;
+        else feats[offset + 1] = 1;
+    }
+    
+    private static int getOffset(FeatureMatrix features, int id) {
+        int row = features.getRow(id);
+        return (row != -1 ? features.getOffset(row) : -1);
     }
     
     public double predictRating(int userID, int itemID) {
-        float[] userFeats = userFeature.get(userID);
-        float[] itemFeats = itemFeature.get(itemID);
-        return predictRating(userFeats, itemFeats);
+        return predictRating(userFeature.getValues(), getOffset(userFeature, userID),
+                itemFeature.getValues(), getOffset(itemFeature, itemID));
     }
     
     public double predictRating(float userFeats[], float itemFeats[]) {
+        return predictRating(userFeats, userFeats != null ? 0 : -1,
+                itemFeats, itemFeats != null ? 0 : -1);
+    }
+    
+    /**
+     * Predicts a rating from the features stored at the given offsets, where
+     * an offset of -1 stands for missing features.
+     */
+    protected double predictRating(float userFeats[], int userOffset, float itemFeats[], int itemOffset) {
         double ret = data.getGlobalMean();
-        if (userFeats != null && itemFeats != null)
+        if (userOffset != -1 && itemOffset != -1)
             for (int i = 0; i < nFeatures; ++i)
-                ret += userFeats[i]*itemFeats[i];
+                ret += userFeats[userOffset + i]*itemFeats[itemOffset + i];
 
         if (ret < data.getMinRating()) ret = data.getMinRating();
         else if (ret > data.getMaxRating()) ret = data.getMaxRating();
@@ -134,122 +148,131 @@ public class BRISMFPredictor implements Updatable {
         return ret;
     }
     
-    public float[] trainUserFeats(List<Integer> itm, List<Double> rat, int nIts) {
-        float[] userFeats = new float[nFeatures];
-        resetFeatures(userFeats, true);
+    /**
+     * Looks up the offsets of the features of the IDs of a block once, so
+     * that the training iterations do not repeat the lookups.
+     */
+    private int[] getOffsets(FeatureMatrix features, RatingBlock rat) {
+        int n = rat.size();
+        if (offsets.length < n)
+            offsets = new int[Math.max(n, 2 * offsets.length)];
+        for (int i = 0; i < n; ++i)
+            offsets[i] = getOffset(features, rat.getID(i));
+        return offsets;
+    }
+    
+    /**
+     * Trains the features of a user, stored at the given offset, from its
+     * ratings.
+     */
+    protected void trainUserFeats(RatingBlock rat, int nIts, float[] userFeats, int offset) {
+        resetFeatures(userFeats, offset, true);
         
-        int n = itm.size();
+        float[] itemFeats = itemFeature.getValues();
+        int[] itemOffsets = getOffsets(itemFeature, rat);
+        int n = rat.size();
         for (int k = 0; k < nIts; ++k) {
             for (int i = 0; i < n; ++i) {
-                int itemID = itm.get(i);
-                float[] itemFeats = itemFeature.get(itemID);
-                double rating = rat.get(i);
-                double pred = predictRating(userFeats, itemFeats);
+                int itemOffset = itemOffsets[i];
+                double rating = rat.getRating(i);
+                double pred = predictRating(userFeats, offset, itemFeats, itemOffset);
                 double err = rating - pred;
                 
-                if (itemFeats != null)
+                if (itemOffset != -1)
                     for (int j = 1; j < nFeatures; ++j) 
-                        userFeats[j] += lRate*(err*itemFeats[j] - rFactor*userFeats[j]);
+                        userFeats[offset + j] += lRate*(err*itemFeats[itemOffset + j] - rFactor*userFeats[offset + j]);
             }
         }
-        
-        return userFeats;
     }
     
-    public float[] trainItemFeats(int itemID, List<Integer> usr, List<Double> rat, int nIts) {
-        float[] itemFeats = new float[nFeatures];
-        resetFeatures(itemFeats, false);
+    /**
+     * Trains the features of an item, stored at the given offset, from its
+     * ratings.
+     */
+    protected void trainItemFeats(RatingBlock rat, int nIts, float[] itemFeats, int offset) {
+        resetFeatures(itemFeats, offset, false);
         
-        int n = usr.size();
+        float[] userFeats = userFeature.getValues();
+        int[] userOffsets = getOffsets(userFeature, rat);
+        int n = rat.size();
         for (int k = 0; k < nIts; ++k) {
             for (int i = 0; i < n; ++i) {
-                int userID = usr.get(i);
-                float[] userFeats = userFeature.get(userID);
-                double rating = rat.get(i);
-                double pred = predictRating(userFeats, itemFeats);
+                int userOffset = userOffsets[i];
+                double rating = rat.getRating(i);
+                double pred = predictRating(userFeats, userOffset, itemFeats, offset);
                 double err = rating - pred;
                 
-                if (userFeats != null) {
-                    itemFeats[0] += lRate*(err*userFeats[0] - rFactor*itemFeats[0]);
+                if (userOffset != -1) {
+                    itemFeats[offset] += lRate*(err*userFeats[userOffset] - rFactor*itemFeats[offset]);
                     for (int j = 2; j < nFeatures; ++j)
-                        itemFeats[j] += lRate*(err*userFeats[j] - rFactor*itemFeats[j]);
+                        itemFeats[offset + j] += lRate*(err*userFeats[userOffset + j] - rFactor*itemFeats[offset + j]);
                 }
             }
         }
-        
+    }
+    
+    private RatingBlock toRatingBlock(List<Integer> ids, List<Double> rat) {
+        ratings.clear();
+        int n = ids.size();
+        for (int i = 0; i < n; ++i)
+            ratings.add(ids.get(i), rat.get(i));
+        return ratings;
+    }
+    
+    public float[] trainUserFeats(List<Integer> itm, List<Double> rat, int nIts) {
+        float[] userFeats = new float[nFeatures];
+        trainUserFeats(toRatingBlock(itm, rat), nIts, userFeats, 0);
+        return userFeats;
+    }
+    
+    public float[] trainItemFeats(int itemID, List<Integer> usr, List<Double> rat, int nIts) {
+        float[] itemFeats = new float[nFeatures];
+        trainItemFeats(toRatingBlock(usr, rat), nIts, itemFeats, 0);
         return itemFeats;
     }
     
+    public void trainUser(int userID, RatingBlock rat, int nIts) {
+        int row = userFeature.addRow(userID);
+        trainUserFeats(rat, nIts, userFeature.getValues(), userFeature.getOffset(row));
+    }
+    
+    public void trainItem(int itemID, RatingBlock rat, int nIts) {
+        int row = itemFeature.addRow(itemID);
+        trainItemFeats(rat, nIts, itemFeature.getValues(), itemFeature.getOffset(row));
+    }
+    
     public void trainUser(int userID, List<Integer> itm, List<Double> rat, int nIts) {
-        userFeature.put(userID, trainUserFeats(itm, rat, nIts));
+        trainUser(userID, toRatingBlock(itm, rat), nIts);
     }
     
     public void trainUser(int userID, int nIts) {
-        SparseVector usrRats = data.getRatingsUser(userID);
-        ArrayList<Integer> itm = new ArrayList<Integer>();
-        ArrayList<Double> rat = new ArrayList<Double>();
-        Iterator<Pair<Integer, Double>> it = usrRats.iterator();
-        
-        while (it.hasNext()) {
-            Pair<Integer, Double> p = it.next();
-            itm.add(p.getFirst());
-            rat.add(p.getSecond());
-        }
-        trainUser(userID, itm, rat, nIts);
+        data.getRatingsUser(userID, ratings);
+        trainUser(userID, ratings, nIts);
     }
     
     public void trainUser(int userID, List<Integer> itm, List<Double> rat) {
-        userFeature.put(userID, trainUserFeats(itm, rat, nIterations));
+        trainUser(userID, itm, rat, nIterations);
     }
     
     public void trainItem(int itemID) {
-        SparseVector itmRats = data.getRatingsItem(itemID);
-        ArrayList<Integer> usr = new ArrayList<Integer>();
-        ArrayList<Double> rat = new ArrayList<Double>();
-        Iterator<Pair<Integer, Double>> it = itmRats.iterator();
-        
-        while (it.hasNext()) {
-            Pair<Integer, Double> p = it.next();
-            usr.add(p.getFirst());
-            rat.add(p.getSecond());
-        }
-        trainItem(itemID, usr, rat);
+        trainItem(itemID, nIterations);
     }
     
     public void trainItem(int itemID, int nIts) {
-        SparseVector itmRats = data.getRatingsItem(itemID);
-        ArrayList<Integer> usr = new ArrayList<Integer>();
-        ArrayList<Double> rat = new ArrayList<Double>();
-        Iterator<Pair<Integer, Double>> it = itmRats.iterator();
-        
-        while (it.hasNext()) {
-            Pair<Integer, Double> p = it.next();
-            usr.add(p.getFirst());
-            rat.add(p.getSecond());
-        }
-        trainItem(itemID, usr, rat, nIts);
+        data.getRatingsItem(itemID, ratings);
+        trainItem(itemID, ratings, nIts);
     }
     
     public void trainUser(int userID) {
-        SparseVector usrRats = data.getRatingsUser(userID);
-        ArrayList<Integer> itm = new ArrayList<Integer>();
-        ArrayList<Double> rat = new ArrayList<Double>();
-        Iterator<Pair<Integer, Double>> it = usrRats.iterator();
-        
-        while (it.hasNext()) {
-            Pair<Integer, Double> p = it.next();
-            itm.add(p.getFirst());
-            rat.add(p.getSecond());
-        }
-        trainUser(userID, itm, rat);
+        trainUser(userID, nIterations);
     }
     
     public void trainItem(int itemID, List<Integer> usr, List<Double> rat) {
-        itemFeature.put(itemID, trainItemFeats(itemID, usr, rat, nIterations));
+        trainItem(itemID, usr, rat, nIterations);
     }
     
     public void trainItem(int itemID, List<Integer> usr, List<Double> rat, int nIts) {
-        itemFeature.put(itemID, trainItemFeats(itemID, usr, rat, nIts));
+        trainItem(itemID, toRatingBlock(usr, rat), nIts);
     }
     
     public void train() {
@@ -260,18 +283,18 @@ public class BRISMFPredictor implements Updatable {
         
         Iterator<Integer> it = data.getUsers().iterator();
         while (it.hasNext()) {
-            float[] feats = new float[nFeatures];
-            resetFeatures(feats, true);
-            userFeature.put(it.next(), feats);
+            int row = userFeature.addRow(it.next());
+            resetFeatures(userFeature.getValues(), userFeature.getOffset(row), true);
         }
         
         it = data.getItems().iterator();
         while (it.hasNext()) {
-            float[] feats = new float[nFeatures];
-            resetFeatures(feats, false);
-            itemFeature.put(it.next(), feats);
+            int row = itemFeature.addRow(it.next());
+            resetFeatures(itemFeature.getValues(), itemFeature.getOffset(row), false);
         }
 
+        float[] userFeats = userFeature.getValues();
+        float[] itemFeats = itemFeature.getValues();
         int exit = 0;
         double lastRMSE = 1e20;
         
@@ -289,21 +312,19 @@ public class BRISMFPredictor implements Updatable {
                     if (count == 0) ratTest.add(rat);
                 }
                 else {
-                    int userID = rat.userID;
-                    int itemID = rat.itemID;
                     double rating = rat.rating;
-                    float[] userFeats = userFeature.get(userID);
-                    float[] itemFeats = itemFeature.get(itemID);
+                    int u = getOffset(userFeature, rat.userID);
+                    int v = getOffset(itemFeature, rat.itemID);
                     
-                    double pred = predictRating(userFeats, itemFeats);
+                    double pred = predictRating(userFeats, u, itemFeats, v);
                     double err = rating - pred;
                     
-                    itemFeats[0] += lRate*(err*userFeats[0] - rFactor*itemFeats[0]);
-                    userFeats[1] += lRate*(err*itemFeats[1] - rFactor*userFeats[1]);
+                    itemFeats[v] += lRate*(err*userFeats[u] - rFactor*itemFeats[v]);
+                    userFeats[u + 1] += lRate*(err*itemFeats[v + 1] - rFactor*userFeats[u + 1]);
                     for (int j = 2; j < nFeatures; ++j) {
-                        double uv = userFeats[j];
-                        userFeats[j] += lRate*(err*itemFeats[j] - rFactor*userFeats[j]);
-                        itemFeats[j] += lRate*(err*uv - rFactor*itemFeats[j]);
+                        double uv = userFeats[u + j];
+                        userFeats[u + j] += lRate*(err*itemFeats[v + j] - rFactor*userFeats[u + j]);
+                        itemFeats[v + j] += lRate*(err*uv - rFactor*itemFeats[v + j]);
                     }
                 }
                 ++idx;
@@ -330,12 +351,30 @@ public class BRISMFPredictor implements Updatable {
         while (exit < 1);
     }
     
-    public float[] getUserFeatures(int userID) {
-        return userFeature.get(userID);
+    /**
+     * Returns a copy of the features of a user, or null if the user has
+     * not been trained. The features are stored in one array for all users,
+     * so changing the copy does not change the model; use setUserFeatures.
+     */
+    public float[] copyUserFeatures(int userID) {
+        return userFeature.copyFeatures(userID);
+    }
+
+    /**
+     * Returns a copy of the features of an item, or null if the item has
+     * not been trained. Changing the copy does not change the model; use
+     * setItemFeatures.
+     */
+    public float[] copyItemFeatures(int itemID) {
+        return itemFeature.copyFeatures(itemID);
+    }
+
+    public void setUserFeatures(int userID, float[] feats) {
+        userFeature.setFeatures(userID, feats);
     }
 
-    public float[] getItemFeatures(int itemID) {
-        return itemFeature.get(itemID);
+    public void setItemFeatures(int itemID, float[] feats) {
+        itemFeature.setFeatures(itemID, feats);
     }
 
     public int getNumFeatures() {
@@ -360,12 +399,12 @@ public class BRISMFPredictor implements Updatable {
 
     @Override
     public void updateRemoveUser(int userID) {
-        userFeature.remove(userID);
+        userFeature.removeRow(userID);
     }
 
     @Override
     public void updateRemoveItem(int itemID) {
-        itemFeature.remove(itemID);
+        itemFeature.removeRow(itemID);
     }
     
     //We retrain the user/item separately, depending on a probability
@@ -379,50 +418,21 @@ public class BRISMFPredictor implements Updatable {
         double prob2 = Math.pow(0.99, nItm);
 
         if (nUsr < 5 || rnd.nextDouble() < prob1) {
-            SparseVector usrRats = data.getRatingsUser(userID);
-            ArrayList<Integer> itm = new ArrayList<Integer>();
-            ArrayList<Double> rat = new ArrayList<Double>();
-            
             //Train user
-            boolean found = false;
-            Iterator<Pair<Integer, Double>> it = usrRats.iterator();
-            while (it.hasNext()) {
-                Pair<Integer, Double> p = it.next();
-                itm.add(p.getFirst());
-                if (p.getFirst() == itemID) {
-                    found = true;
-                    rat.add(rating);
-                }
-                else rat.add(p.getSecond());
-            }
-            if (!found) {
-                itm.add(itemID);
-                rat.add(rating);
-            }
-            trainUser(userID, itm, rat);
+            data.getRatingsUser(userID, ratings);
+            int found = ratings.indexOf(itemID);
+            if (found != -1) ratings.setRating(found, rating);
+            else ratings.add(itemID, rating);
+            trainUser(userID, ratings, nIterations);
         }
         
         if (nItm < 5 || rnd.nextDouble() < prob2) {
-            SparseVector itmRats = data.getRatingsItem(itemID);
             //Train item
-            Iterator<Pair<Integer, Double>> it = itmRats.iterator();
-            boolean found = false;
-            ArrayList<Integer> usr = new ArrayList<Integer>();
-            ArrayList<Double> rat = new ArrayList<Double>();
-            while (it.hasNext()) {
-                Pair<Integer, Double> p = it.next();
-                usr.add(p.getFirst());
-                if (p.getFirst() == userID) {
-                    found = true;
-                    rat.add(rating);
-                }
-                else rat.add(p.getSecond());
-            }
-            if (!found) {
-                usr.add(itemID);
-                rat.add(rating);
-            }
-            trainItem(itemID, usr, rat);
+            data.getRatingsItem(itemID, ratings);
+            int found = ratings.indexOf(userID);
+            if (found != -1) ratings.setRating(found, rating);
+            else ratings.add(itemID, rating);
+            trainItem(itemID, ratings, nIterations);
         }
     }
 
@@ -0,0 +1,113 @@
+/*
+ *    FeatureMatrix.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *    
+ *    
+ */
+
+package moa.recommender.rc.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Feature vectors of users or items stored row after row in a single float
+ * array. Rows are kept dense: removing a row moves the last one into its
+ * place.
+ */
+public class FeatureMatrix implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int nFeatures;
+    protected IntIndexMap rows = new IntIndexMap();
+    protected int[] ids = new int[16];
+    protected float[] values;
+    protected int nRows = 0;
+
+    public FeatureMatrix(int nFeatures) {
+        this.nFeatures = nFeatures;
+        this.values = new float[16 * nFeatures];
+    }
+
+    /**
+     * Returns the row of the ID, or -1 if it has no features.
+     */
+    public int getRow(int id) {
+        return rows.get(id);
+    }
+
+    /**
+     * Returns the row of the ID, adding a row of zeros if it has none. The
+     * array returned by getValues may change when a row is added.
+     */
+    public int addRow(int id) {
+        int row = rows.get(id);
+        if (row != -1) return row;
+        if (nRows == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * nRows);
+            values = Arrays.copyOf(values, 2 * nRows * nFeatures);
+        }
+        row = nRows++;
+        ids[row] = id;
+        Arrays.fill(values, row * nFeatures, (row + 1) * nFeatures, 0);
+        rows.put(id, row);
+        return row;
+    }
+
+    public void removeRow(int id) {
+        int row = rows.remove(id);
+        if (row == -1) return;
+        int last = --nRows;
+        if (row != last) {
+            System.arraycopy(values, last * nFeatures, values, row * nFeatures, nFeatures);
+            ids[row] = ids[last];
+            rows.put(ids[row], row);
+        }
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    public int getOffset(int row) {
+        return row * nFeatures;
+    }
+
+    /**
+     * Returns a copy of the features of the ID, or null if it has none.
+     */
+    public float[] copyFeatures(int id) {
+        int row = rows.get(id);
+        if (row == -1) return null;
+        return Arrays.copyOfRange(values, row * nFeatures, (row + 1) * nFeatures);
+    }
+
+    /**
+     * Stores the features of the ID, adding a row if it has none.
+     */
+    public void setFeatures(int id, float[] features) {
+        int row = addRow(id);
+        System.arraycopy(features, 0, values, row * nFeatures, nFeatures);
+    }
+
+    public int getNumRows() {
+        return nRows;
+    }
+
+    public void clear() {
+        rows.clear();
+        nRows = 0;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *    IntIndexMap.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *    
+ *    
+ */
+
+package moa.recommender.rc.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int keys to non-negative int values, used to
+ * map user and item IDs to dense row indices without boxing.
+ */
+public class IntIndexMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int EMPTY = -1;
+
+    protected int[] keys;
+    protected int[] values;
+    protected int size;
+    protected int mask;
+
+    public IntIndexMap() {
+        allocate(16);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the value of the key, or -1 if the key is not in the map.
+     */
+    public int get(int key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (values[i] == EMPTY) return EMPTY;
+            if (keys[i] == key) return values[i];
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != EMPTY;
+    }
+
+    public void put(int key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value: " + value);
+        int i = slot(key);
+        while (values[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3)
+            rehash(2 * keys.length);
+    }
+
+    /**
+     * Removes the key and returns its value, or -1 if the key was not in the map.
+     */
+    public int remove(int key) {
+        int i = slot(key);
+        while (values[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+        int old = values[i];
+        if (old == EMPTY) return EMPTY;
+        // shift back the following entries of the probe sequence
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean between = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!between) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = EMPTY;
+        --size;
+        return old;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != EMPTY)
+                    j = (j + 1) & mask;
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, EMPTY);
+        size = 0;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *    RatingBlock.java
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *    
+ *    
+ */
+
+package moa.recommender.rc.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reusable list of (ID, rating) pairs, used to pass the ratings of a user or
+ * an item around without boxing.
+ */
+public class RatingBlock implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected int[] ids = new int[16];
+    protected double[] ratings = new double[16];
+    protected int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int id, double rating) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * size);
+            ratings = Arrays.copyOf(ratings, 2 * size);
+        }
+        ids[size] = id;
+        ratings[size] = rating;
+        ++size;
+    }
+
+    /**
+     * Replaces the contents of the block with the entries of a vector.
+     */
+    public void set(SparseVector vector) {
+        clear();
+        Iterator<Pair<Integer, Double>> it = vector.iterator();
+        while (it.hasNext()) {
+            Pair<Integer, Double> p = it.next();
+            add(p.getFirst(), p.getSecond());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getID(int index) {
+        return ids[index];
+    }
+
+    public double getRating(int index) {
+        return ratings[index];
+    }
+
+    public void setRating(int index, double rating) {
+        ratings[index] = rating;
+    }
+
+    /**
+     * Returns the position of the ID in the block, or -1 if it is not there.
+     */
+    public int indexOf(int id) {
+        for (int i = 0; i < size; ++i)
+            if (ids[i] == id) return i;
+        return -1;
+    }
+}
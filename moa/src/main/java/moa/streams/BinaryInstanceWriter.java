@@ -0,0 +1,336 @@
+/*
+ *    BinaryInstanceWriter.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Writes instances to the binary stream cache format replayed by
+ * {@link MappedBinaryFileStream}. All numbers are little-endian.
+ *
+ * <pre>
+ * file   := magic(8) version(int) numInstances(long) numAttributes(int)
+ *           blockSize(int) headerLength(int) header block*
+ * header := the Java-serialized InstancesHeader
+ * block  := kind(byte) numRows(int) bodyLength(int) body
+ * dense  := weightMode(byte) [weight(double) * numRows] column * numAttributes
+ * column := type(byte) data, where type is
+ *           DOUBLE (numRows doubles), BYTE (numRows unsigned bytes, 0xFF
+ *           missing), SHORT (numRows unsigned shorts, 0xFFFF missing) or
+ *           CONSTANT (one double for all rows)
+ * sparse := (weight(double) nnz(int) index(int) * nnz value(double) * nnz) * numRows
+ * </pre>
+ *
+ * Nominal columns are stored as bytes or shorts when all their values fit.
+ * Rows are buffered into blocks of at most <code>blockSize</code> rows; a
+ * block is dense or sparse depending on its rows, and a new block is started
+ * whenever the kind changes.
+ */
+public class BinaryInstanceWriter implements Closeable {
+
+    public static final byte[] MAGIC = {'M', 'O', 'A', 'B', 'I', 'N', 0, 1};
+
+    public static final int VERSION = 1;
+
+    public static final byte DENSE_BLOCK = 0;
+
+    public static final byte SPARSE_BLOCK = 1;
+
+    public static final byte WEIGHTS_ONE = 0;
+
+    public static final byte WEIGHTS_STORED = 1;
+
+    public static final byte COLUMN_DOUBLE = 0;
+
+    public static final byte COLUMN_BYTE = 1;
+
+    public static final byte COLUMN_SHORT = 2;
+
+    public static final byte COLUMN_CONSTANT = 3;
+
+    /** Offset of the instance count in the file, patched on close */
+    protected static final int NUM_INSTANCES_OFFSET = 12;
+
+    protected RandomAccessFile file;
+
+    protected FileChannel channel;
+
+    protected InstancesHeader header;
+
+    protected int numAttributes;
+
+    protected InstanceBatch denseRows;
+
+    /** Buffered sparse rows: weights, row starts and the flattened entries */
+    protected double[] sparseWeights;
+
+    protected int[] sparseRowStarts;
+
+    protected int numSparseRows;
+
+    protected int[] sparseIndices = new int[1024];
+
+    protected double[] sparseValues = new double[1024];
+
+    protected int numSparseEntries;
+
+    protected long numInstances;
+
+    protected ByteBuffer blockBuffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    public BinaryInstanceWriter(File destFile, InstancesHeader header, int blockSize) throws IOException {
+        this.header = header;
+        this.numAttributes = header.numAttributes();
+        this.denseRows = new InstanceBatch(header, blockSize);
+        this.sparseWeights = new double[blockSize];
+        this.sparseRowStarts = new int[blockSize + 1];
+        this.file = new RandomAccessFile(destFile, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(headerBytes);
+        out.writeObject(header);
+        out.close();
+        ByteBuffer start = ByteBuffer.allocate(MAGIC.length + 24 + headerBytes.size()).order(ByteOrder.LITTLE_ENDIAN);
+        start.put(MAGIC);
+        start.putInt(VERSION);
+        start.putLong(0);
+        start.putInt(this.numAttributes);
+        start.putInt(blockSize);
+        start.putInt(headerBytes.size());
+        start.put(headerBytes.toByteArray());
+        start.flip();
+        writeFully(start);
+    }
+
+    /**
+     * Appends an instance.
+     *
+     * @param inst the instance to write
+     */
+    public void write(Instance inst) throws IOException {
+        boolean sparse = inst.numValues() != this.numAttributes;
+        if (sparse) {
+            if (!this.denseRows.isEmpty()) {
+                flushDense();
+            }
+            addSparse(inst);
+            if (this.numSparseRows == this.sparseWeights.length) {
+                flushSparse();
+            }
+        } else {
+            if (this.numSparseRows > 0) {
+                flushSparse();
+            }
+            this.denseRows.add(inst);
+            if (this.denseRows.isFull()) {
+                flushDense();
+            }
+        }
+        this.numInstances++;
+    }
+
+    /**
+     * Gets the number of instances written so far.
+     *
+     * @return the number of instances
+     */
+    public long getNumInstances() {
+        return this.numInstances;
+    }
+
+    /**
+     * Writes the pending rows and the instance count, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        flushDense();
+        flushSparse();
+        ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        count.putLong(this.numInstances).flip();
+        this.channel.write(count, NUM_INSTANCES_OFFSET);
+        this.file.close();
+    }
+
+    protected void addSparse(Instance inst) {
+        int nnz = inst.numValues();
+        if (this.numSparseEntries + nnz > this.sparseIndices.length) {
+            int capacity = Math.max(this.sparseIndices.length * 2, this.numSparseEntries + nnz);
+            this.sparseIndices = Arrays.copyOf(this.sparseIndices, capacity);
+            this.sparseValues = Arrays.copyOf(this.sparseValues, capacity);
+        }
+        for (int i = 0; i < nnz; i++) {
+            this.sparseIndices[this.numSparseEntries + i] = inst.index(i);
+            this.sparseValues[this.numSparseEntries + i] = inst.valueSparse(i);
+        }
+        this.sparseWeights[this.numSparseRows] = inst.weight();
+        this.sparseRowStarts[this.numSparseRows] = this.numSparseEntries;
+        this.numSparseEntries += nnz;
+        this.numSparseRows++;
+        this.sparseRowStarts[this.numSparseRows] = this.numSparseEntries;
+    }
+
+    protected void flushDense() throws IOException {
+        int rows = this.denseRows.size();
+        if (rows == 0) {
+            return;
+        }
+        double[] weights = this.denseRows.getWeights();
+        boolean allOne = true;
+        for (int r = 0; r < rows && allOne; r++) {
+            allOne = weights[r] == 1.0;
+        }
+        byte[] types = new byte[this.numAttributes];
+        int bodyLength = 1 + (allOne ? 0 : 8 * rows);
+        for (int a = 0; a < this.numAttributes; a++) {
+            types[a] = columnType(a);
+            bodyLength += 1 + columnLength(types[a], rows);
+        }
+        ByteBuffer buffer = blockBuffer(9 + bodyLength);
+        buffer.put(DENSE_BLOCK).putInt(rows).putInt(bodyLength);
+        buffer.put(allOne ? WEIGHTS_ONE : WEIGHTS_STORED);
+        if (!allOne) {
+            for (int r = 0; r < rows; r++) {
+                buffer.putDouble(weights[r]);
+            }
+        }
+        for (int a = 0; a < this.numAttributes; a++) {
+            buffer.put(types[a]);
+            switch (types[a]) {
+                case COLUMN_CONSTANT:
+                    buffer.putDouble(this.denseRows.value(0, a));
+                    break;
+                case COLUMN_BYTE:
+                    for (int r = 0; r < rows; r++) {
+                        double v = this.denseRows.value(r, a);
+                        buffer.put(Double.isNaN(v) ? (byte) 0xFF : (byte) v);
+                    }
+                    break;
+                case COLUMN_SHORT:
+                    for (int r = 0; r < rows; r++) {
+                        double v = this.denseRows.value(r, a);
+                        buffer.putShort(Double.isNaN(v) ? (short) 0xFFFF : (short) v);
+                    }
+                    break;
+                default:
+                    for (int r = 0; r < rows; r++) {
+                        buffer.putDouble(this.denseRows.value(r, a));
+                    }
+            }
+        }
+        buffer.flip();
+        writeFully(buffer);
+        this.denseRows.clear();
+    }
+
+    protected void flushSparse() throws IOException {
+        int rows = this.numSparseRows;
+        if (rows == 0) {
+            return;
+        }
+        int bodyLength = rows * 12 + this.numSparseEntries * 12;
+        ByteBuffer buffer = blockBuffer(9 + bodyLength);
+        buffer.put(SPARSE_BLOCK).putInt(rows).putInt(bodyLength);
+        for (int r = 0; r < rows; r++) {
+            int start = this.sparseRowStarts[r];
+            int end = this.sparseRowStarts[r + 1];
+            buffer.putDouble(this.sparseWeights[r]);
+            buffer.putInt(end - start);
+            for (int i = start; i < end; i++) {
+                buffer.putInt(this.sparseIndices[i]);
+            }
+            for (int i = start; i < end; i++) {
+                buffer.putDouble(this.sparseValues[i]);
+            }
+        }
+        buffer.flip();
+        writeFully(buffer);
+        this.numSparseRows = 0;
+        this.numSparseEntries = 0;
+    }
+
+    /**
+     * Picks the most compact encoding that stores the column exactly.
+     */
+    protected byte columnType(int att) {
+        int rows = this.denseRows.size();
+        long first = Double.doubleToRawLongBits(this.denseRows.value(0, att));
+        boolean constant = true;
+        for (int r = 1; r < rows && constant; r++) {
+            constant = Double.doubleToRawLongBits(this.denseRows.value(r, att)) == first;
+        }
+        if (constant) {
+            return COLUMN_CONSTANT;
+        }
+        Attribute attribute = this.header.attribute(att);
+        if (attribute.isNominal()) {
+            int limit = attribute.numValues() < 0xFF ? 0xFF : 0xFFFF;
+            boolean fits = true;
+            for (int r = 0; r < rows && fits; r++) {
+                double v = this.denseRows.value(r, att);
+                fits = Double.isNaN(v) || (v >= 0 && v < limit && v == Math.rint(v));
+            }
+            if (fits) {
+                return limit == 0xFF ? COLUMN_BYTE : COLUMN_SHORT;
+            }
+        }
+        return COLUMN_DOUBLE;
+    }
+
+    protected static int columnLength(byte type, int rows) {
+        switch (type) {
+            case COLUMN_CONSTANT:
+                return 8;
+            case COLUMN_BYTE:
+                return rows;
+            case COLUMN_SHORT:
+                return 2 * rows;
+            default:
+                return 8 * rows;
+        }
+    }
+
+    protected ByteBuffer blockBuffer(int size) {
+        if (this.blockBuffer.capacity() < size) {
+            this.blockBuffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.blockBuffer.clear();
+        return this.blockBuffer;
+    }
+
+    protected void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
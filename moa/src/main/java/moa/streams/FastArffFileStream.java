@@ -0,0 +1,171 @@
+/*
+ *    FastArffFileStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.FastArffLoader;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import java.io.File;
+import java.io.IOException;
+
+import moa.capabilities.CapabilitiesHandler;
+import moa.capabilities.Capability;
+import moa.capabilities.ImmutableCapabilities;
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream reader of ARFF files that parses the data section directly from
+ * bytes with {@link FastArffLoader}. Produces the same instances as
+ * {@link ArffFileStream}, optionally reading through memory-mapped windows
+ * and on a read-ahead thread. Gzip-compressed files are read transparently.
+ */
+public class FastArffFileStream extends AbstractOptionHandler implements
+        InstanceStream, CapabilitiesHandler {
+
+    @Override
+    public String getPurposeString() {
+        return "A stream read from an ARFF file (optionally gzipped) with a byte-level parser.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public FileOption arffFileOption = new FileOption("arffFile", 'f',
+            "ARFF file to load.", null, "arff", false);
+
+    public IntOption classIndexOption = new IntOption(
+            "classIndex",
+            'c',
+            "Class index of data. 0 for none or -1 for last attribute in file.",
+            -1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Size of the read buffers in kilobytes.", 1024, 4, Integer.MAX_VALUE / 1024);
+
+    public FlagOption memoryMapOption = new FlagOption("memoryMap", 'm',
+            "Read the file through memory-mapped windows.");
+
+    public FlagOption readAheadOption = new FlagOption("readAhead", 'a',
+            "Read and decompress the file on a background thread.");
+
+    protected transient FastArffLoader loader;
+
+    protected InstancesHeader header;
+
+    protected long fileLength;
+
+    protected boolean compressed;
+
+    protected int numInstancesRead;
+
+    public FastArffFileStream() {
+    }
+
+    public FastArffFileStream(String arffFileName, int classIndex) {
+        this.arffFileOption.setValue(arffFileName);
+        this.classIndexOption.setValue(classIndex);
+        restart();
+    }
+
+    @Override
+    public void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        long consumed = this.loader.getBytesConsumed();
+        if (this.compressed || consumed == 0 || this.numInstancesRead == 0) {
+            return -1;
+        }
+        double progressFraction = (double) consumed / (double) this.fileLength;
+        return (long) ((this.numInstancesRead / progressFraction) - this.numInstancesRead);
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return this.loader.hasMoreInstances();
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        Instance inst = this.loader.readInstance();
+        if (inst == null) {
+            return null;
+        }
+        this.numInstancesRead++;
+        return new InstanceExample(inst);
+    }
+
+    @Override
+    public int nextInstances(InstanceBatch batch) {
+        int read = this.loader.readInstances(batch);
+        this.numInstancesRead += read;
+        return read;
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        try {
+            if (this.loader != null) {
+                this.loader.close();
+            }
+            File file = this.arffFileOption.getFile();
+            int bufferSize = this.bufferSizeOption.getValue() * 1024;
+            this.fileLength = file.length();
+            this.compressed = FastArffLoader.isGzipped(file);
+            this.loader = new FastArffLoader(FastArffLoader.openFile(file, bufferSize,
+                    this.memoryMapOption.isSet(), this.readAheadOption.isSet()),
+                    this.classIndexOption.getValue(), bufferSize);
+            this.header = this.loader.getHeader();
+            this.numInstancesRead = 0;
+        } catch (IOException ioe) {
+            throw new RuntimeException("FastArffFileStream restart failed.", ioe);
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    public ImmutableCapabilities defineImmutableCapabilities() {
+        if (this.getClass() == FastArffFileStream.class)
+            return new ImmutableCapabilities(Capability.VIEW_STANDARD, Capability.VIEW_LITE);
+        else
+            return new ImmutableCapabilities(Capability.VIEW_STANDARD);
+    }
+}
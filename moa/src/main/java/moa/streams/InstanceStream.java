@@ -24,6 +24,7 @@ import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.core.Example;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
 
 /**
  * Interface representing a data stream of instances. 
@@ -33,4 +34,20 @@ import com.yahoo.labs.samoa.instances.Instance;
  */
 public interface InstanceStream extends ExampleStream<Example<Instance>> {
 
+    /**
+     * Appends instances to the given batch until it is full or the stream
+     * has no more instances. Streams that can decode straight into the batch
+     * arrays should override this.
+     *
+     * @param batch the batch to fill
+     * @return the number of instances appended
+     */
+    default int nextInstances(InstanceBatch batch) {
+        int added = 0;
+        while (!batch.isFull() && hasMoreInstances()) {
+            batch.add(nextInstance().getData());
+            added++;
+        }
+        return added;
+    }
 }
@@ -0,0 +1,383 @@
+/*
+ *    MappedBinaryFileStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import com.github.javacliparser.FileOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import moa.capabilities.CapabilitiesHandler;
+import moa.capabilities.Capability;
+import moa.capabilities.ImmutableCapabilities;
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream replaying a binary stream cache written by
+ * {@link BinaryInstanceWriter} (see moa.tasks.WriteStreamToBinaryFile). The
+ * file is memory-mapped in windows and blocks are decoded column by column
+ * without any text parsing. Restarting only rewinds to the first block, so
+ * repeated runs over the same data start immediately.
+ *
+ * The file is only open while a window is mapped, since a mapping stays
+ * valid after its channel is closed. Copies of the stream therefore hold no
+ * file descriptor and map their own window when they are first read.
+ */
+public class MappedBinaryFileStream extends AbstractOptionHandler implements
+        InstanceStream, CapabilitiesHandler, Closeable {
+
+    @Override
+    public String getPurposeString() {
+        return "A stream replayed from a memory-mapped binary stream cache.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    /** The size of a mapped window, blocks never straddle windows */
+    protected static final long WINDOW_SIZE = 1L << 30;
+
+    public FileOption binaryFileOption = new FileOption("binaryFile", 'f',
+            "Binary stream cache file to load.", null, "moab", false);
+
+    protected InstancesHeader header;
+
+    protected long numInstances;
+
+    protected int numAttributes;
+
+    protected int blockSize;
+
+    /** The file the header was read from */
+    protected File openedFile;
+
+    protected long fileLength;
+
+    /** File offset of the first block */
+    protected long dataStart;
+
+    protected transient MappedByteBuffer window;
+
+    protected long windowStart;
+
+    /** File offset of the next block to load */
+    protected long nextBlock;
+
+    /** Dense rows of the current block */
+    protected InstanceBatch denseRows;
+
+    protected int denseRow;
+
+    /** Remaining rows of the current sparse block, read from the window */
+    protected int sparseRowsLeft;
+
+    /** File offset of the next sparse row */
+    protected long sparseRow;
+
+    protected long numInstancesRead;
+
+    public MappedBinaryFileStream() {
+    }
+
+    public MappedBinaryFileStream(String fileName) {
+        this.binaryFileOption.setValue(fileName);
+        restart();
+    }
+
+    @Override
+    public void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        return this.numInstances - this.numInstancesRead;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return this.numInstancesRead < this.numInstances;
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        if (!ensureRows()) {
+            return null;
+        }
+        Instance inst;
+        if (this.sparseRowsLeft > 0) {
+            inst = readSparseRow();
+        } else {
+            inst = this.denseRows.materialize(this.denseRow++);
+        }
+        inst.setDataset(this.header);
+        this.numInstancesRead++;
+        return new InstanceExample(inst);
+    }
+
+    @Override
+    public int nextInstances(InstanceBatch batch) {
+        int added = 0;
+        while (!batch.isFull() && ensureRows()) {
+            if (this.sparseRowsLeft > 0) {
+                batch.add(readSparseRow());
+                added++;
+                this.numInstancesRead++;
+                continue;
+            }
+            int n = Math.min(batch.capacity() - batch.size(), this.denseRows.size() - this.denseRow);
+            double[] src = this.denseRows.getValues();
+            double[] weights = this.denseRows.getWeights();
+            for (int i = 0; i < n; i++, this.denseRow++) {
+                batch.add(weights[this.denseRow], src, this.denseRow * this.numAttributes);
+            }
+            added += n;
+            this.numInstancesRead += n;
+        }
+        return added;
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        try {
+            File f = this.binaryFileOption.getFile();
+            if (this.header == null || !f.equals(this.openedFile)) {
+                open(f);
+            }
+            this.nextBlock = this.dataStart;
+            this.denseRows.clear();
+            this.denseRow = 0;
+            this.sparseRowsLeft = 0;
+            this.numInstancesRead = 0;
+        } catch (IOException ioe) {
+            throw new RuntimeException("MappedBinaryFileStream restart failed.", ioe);
+        }
+    }
+
+    /**
+     * Drops the mapped window. Reading afterwards maps it again.
+     */
+    @Override
+    public void close() {
+        this.window = null;
+    }
+
+    protected void open(File f) throws IOException {
+        this.header = null;
+        this.openedFile = f;
+        this.window = null;
+        try {
+            readHeader(f);
+        } catch (IOException | RuntimeException e) {
+            this.header = null;
+            this.openedFile = null;
+            this.window = null;
+            throw e;
+        }
+    }
+
+    protected void readHeader(File f) throws IOException {
+        mapWindow(0);
+        byte[] magic = new byte[BinaryInstanceWriter.MAGIC.length];
+        this.window.get(magic);
+        if (!Arrays.equals(magic, BinaryInstanceWriter.MAGIC)) {
+            throw new IOException("Not a binary stream cache: " + f);
+        }
+        int version = this.window.getInt();
+        if (version != BinaryInstanceWriter.VERSION) {
+            throw new IOException("Unsupported binary stream cache version " + version + ": " + f);
+        }
+        this.numInstances = this.window.getLong();
+        this.numAttributes = this.window.getInt();
+        this.blockSize = this.window.getInt();
+        byte[] headerBytes = new byte[this.window.getInt()];
+        this.window.get(headerBytes);
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(headerBytes));
+            this.header = (InstancesHeader) in.readObject();
+            in.close();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to read header: " + f, e);
+        }
+        this.dataStart = this.window.position();
+        this.denseRows = new InstanceBatch(this.header, this.blockSize);
+    }
+
+    /**
+     * Maps the window starting at the given file offset.
+     */
+    protected void mapWindow(long start) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(this.openedFile, "r")) {
+            FileChannel channel = file.getChannel();
+            this.fileLength = channel.size();
+            this.windowStart = start;
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(WINDOW_SIZE, this.fileLength - start));
+            this.window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Makes sure a decoded row is available, loading the next block if
+     * needed.
+     *
+     * @return false at the end of the data
+     */
+    protected boolean ensureRows() {
+        if (this.denseRow < this.denseRows.size()) {
+            return true;
+        }
+        if (this.nextBlock >= this.fileLength && this.sparseRowsLeft == 0) {
+            return false;
+        }
+        try {
+            if (this.sparseRowsLeft > 0) {
+                if (this.window == null) {
+                    // copied or closed in the middle of a sparse block
+                    mapWindow(this.sparseRow);
+                }
+            } else {
+                loadBlock();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(
+                    "MappedBinaryFileStream failed to read block.", ioe);
+        }
+        return true;
+    }
+
+    protected void loadBlock() throws IOException {
+        if (this.window == null || this.nextBlock + 9 > this.windowStart + this.window.capacity()) {
+            mapWindow(this.nextBlock);
+        }
+        this.window.position((int) (this.nextBlock - this.windowStart));
+        byte kind = this.window.get();
+        int rows = this.window.getInt();
+        int bodyLength = this.window.getInt();
+        long bodyStart = this.nextBlock + 9;
+        if (bodyStart + bodyLength > this.windowStart + this.window.capacity()) {
+            mapWindow(bodyStart);
+        }
+        this.window.position((int) (bodyStart - this.windowStart));
+        this.nextBlock = bodyStart + bodyLength;
+        this.denseRows.clear();
+        this.denseRow = 0;
+        if (kind == BinaryInstanceWriter.SPARSE_BLOCK) {
+            this.sparseRowsLeft = rows;
+            this.sparseRow = bodyStart;
+        } else {
+            decodeDense(rows);
+        }
+    }
+
+    protected void decodeDense(int rows) {
+        MappedByteBuffer w = this.window;
+        int n = this.numAttributes;
+        double[] values = this.denseRows.getValues();
+        double[] weights = this.denseRows.getWeights();
+        if (w.get() == BinaryInstanceWriter.WEIGHTS_STORED) {
+            w.asDoubleBuffer().get(weights, 0, rows);
+            w.position(w.position() + 8 * rows);
+        } else {
+            Arrays.fill(weights, 0, rows, 1.0);
+        }
+        for (int a = 0; a < n; a++) {
+            byte type = w.get();
+            switch (type) {
+                case BinaryInstanceWriter.COLUMN_CONSTANT: {
+                    double v = w.getDouble();
+                    for (int r = 0, i = a; r < rows; r++, i += n) {
+                        values[i] = v;
+                    }
+                    break;
+                }
+                case BinaryInstanceWriter.COLUMN_BYTE:
+                    for (int r = 0, i = a; r < rows; r++, i += n) {
+                        int v = w.get() & 0xFF;
+                        values[i] = (v == 0xFF) ? Double.NaN : v;
+                    }
+                    break;
+                case BinaryInstanceWriter.COLUMN_SHORT:
+                    for (int r = 0, i = a; r < rows; r++, i += n) {
+                        int v = w.getShort() & 0xFFFF;
+                        values[i] = (v == 0xFFFF) ? Double.NaN : v;
+                    }
+                    break;
+                default:
+                    for (int r = 0, i = a; r < rows; r++, i += n) {
+                        values[i] = w.getDouble();
+                    }
+            }
+        }
+        this.denseRows.setSize(rows);
+    }
+
+    protected Instance readSparseRow() {
+        MappedByteBuffer w = this.window;
+        double weight = w.getDouble();
+        int nnz = w.getInt();
+        int[] indices = new int[nnz];
+        double[] values = new double[nnz];
+        w.asIntBuffer().get(indices);
+        w.position(w.position() + 4 * nnz);
+        w.asDoubleBuffer().get(values);
+        w.position(w.position() + 8 * nnz);
+        this.sparseRowsLeft--;
+        this.sparseRow = this.windowStart + w.position();
+        Instance inst = new SparseInstance(weight, values, indices, this.numAttributes);
+        inst.setDataset(this.header);
+        return inst;
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+
+    @Override
+    public ImmutableCapabilities defineImmutableCapabilities() {
+        if (this.getClass() == MappedBinaryFileStream.class)
+            return new ImmutableCapabilities(Capability.VIEW_STANDARD, Capability.VIEW_LITE);
+        else
+            return new ImmutableCapabilities(Capability.VIEW_STANDARD);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ *    PrefetchingStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.core.Example;
+import moa.core.ObjectRepository;
+import moa.core.SingleProducerRingBuffer;
+import moa.options.AbstractOptionHandler;
+import moa.options.ClassOption;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream decorator that reads the wrapped stream on a background thread.
+ * Instances are handed over through a bounded lock-free ring buffer, so
+ * generation or parsing overlaps with whatever consumes the stream. The
+ * producer publishes instances in batches and stops when the buffer is full.
+ * The order of the instances is exactly the order of the wrapped stream, and
+ * restarting restarts the wrapped stream.
+ *
+ * The wrapped stream is only accessed by the background thread once it runs,
+ * so it must not be used directly while this stream is in use. Up to
+ * bufferSize examples are held at once, so the wrapped stream must return a
+ * new Example on every call to nextInstance() rather than reuse one.
+ *
+ * The background thread runs until the wrapped stream ends, so a consumer that
+ * stops reading early must call {@link #close()}. A copied or deserialized
+ * stream has no background thread; it restarts the wrapped stream and starts a
+ * new thread when it is first read.
+ */
+public class PrefetchingStream extends AbstractOptionHandler implements
+        InstanceStream, Closeable {
+
+    @Override
+    public String getPurposeString() {
+        return "Reads a stream ahead on a background thread.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to read ahead.", ExampleStream.class,
+            "generators.RandomTreeGenerator");
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "Maximum number of instances read ahead.", 4096, 1,
+            Integer.MAX_VALUE);
+
+    public IntOption batchSizeOption = new IntOption("batchSize", 'n',
+            "Number of instances read before they are published to the consumer.",
+            64, 1, Integer.MAX_VALUE);
+
+    protected ExampleStream<Example<Instance>> stream;
+
+    protected InstancesHeader header;
+
+    protected transient SingleProducerRingBuffer<Example<Instance>> buffer;
+
+    protected transient Thread producer;
+
+    protected transient volatile boolean stopped;
+
+    protected transient volatile boolean finished;
+
+    protected transient volatile Throwable error;
+
+    /** Estimate of the instances left in the wrapped stream, set by the producer */
+    protected transient volatile long remainingEstimate;
+
+    public PrefetchingStream() {
+    }
+
+    public PrefetchingStream(ExampleStream<Example<Instance>> stream) {
+        this.streamOption.setCurrentObject(stream);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        this.stream = (ExampleStream<Example<Instance>>) getPreparedClassOption(this.streamOption);
+        this.header = this.stream.getHeader();
+        startProducer();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return this.header;
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        ensureProducer();
+        long remaining = this.remainingEstimate;
+        if (remaining < 0) {
+            return -1;
+        }
+        return remaining + this.buffer.size();
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        ensureProducer();
+        int attempt = 0;
+        while (this.buffer.isEmpty()) {
+            if (this.finished) {
+                if (this.error != null) {
+                    throw new RuntimeException("PrefetchingStream failed to read from stream.", this.error);
+                }
+                return !this.buffer.isEmpty();
+            }
+            SingleProducerRingBuffer.idle(attempt++);
+        }
+        return true;
+    }
+
+    @Override
+    public Example<Instance> nextInstance() {
+        if (!hasMoreInstances()) {
+            return null;
+        }
+        return this.buffer.poll();
+    }
+
+    @Override
+    public int nextInstances(InstanceBatch batch) {
+        int added = 0;
+        while (!batch.isFull() && hasMoreInstances()) {
+            Example<Instance> example;
+            while (!batch.isFull() && (example = this.buffer.poll()) != null) {
+                batch.add(example.getData());
+                added++;
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return this.stream == null || this.stream.isRestartable();
+    }
+
+    @Override
+    public void restart() {
+        stopProducer();
+        this.stream.restart();
+        startProducer();
+    }
+
+    /**
+     * Stops the background thread. Reading afterwards restarts the stream.
+     */
+    @Override
+    public void close() {
+        stopProducer();
+        this.buffer = null;
+        if (this.stream instanceof Closeable) {
+            try {
+                ((Closeable) this.stream).close();
+            } catch (IOException e) {
+                // nothing left to read from it
+            }
+        }
+    }
+
+    /**
+     * Starts the background thread of a stream that was copied, deserialized
+     * or closed. The examples read ahead by the original thread are lost, so
+     * the wrapped stream is restarted first.
+     */
+    protected void ensureProducer() {
+        if (this.buffer != null) {
+            return;
+        }
+        if (this.stream.isRestartable()) {
+            this.stream.restart();
+        }
+        startProducer();
+    }
+
+    protected void startProducer() {
+        this.buffer = new SingleProducerRingBuffer<Example<Instance>>(this.bufferSizeOption.getValue());
+        this.stopped = false;
+        this.finished = false;
+        this.error = null;
+        this.remainingEstimate = this.stream.estimatedRemainingInstances();
+        this.producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "PrefetchingStream");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    protected void stopProducer() {
+        if (this.producer == null) {
+            return;
+        }
+        this.stopped = true;
+        try {
+            this.producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.producer = null;
+    }
+
+    /**
+     * Producer loop: reads batches from the wrapped stream, waiting while the
+     * buffer is full.
+     */
+    protected void produce() {
+        SingleProducerRingBuffer<Example<Instance>> ring = this.buffer;
+        int batchSize = this.batchSizeOption.getValue();
+        try {
+            while (!this.stopped && this.stream.hasMoreInstances()) {
+                for (int i = 0; i < batchSize && !this.stopped && this.stream.hasMoreInstances(); i++) {
+                    Example<Instance> example = this.stream.nextInstance();
+                    int attempt = 0;
+                    while (!ring.offer(example)) {
+                        ring.flush();
+                        if (this.stopped) {
+                            return;
+                        }
+                        SingleProducerRingBuffer.idle(attempt++);
+                    }
+                }
+                ring.flush();
+                this.remainingEstimate = this.stream.estimatedRemainingInstances();
+            }
+        } catch (Throwable t) {
+            this.error = t;
+        } finally {
+            ring.flush();
+            this.finished = true;
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+    }
+}
@@ -26,6 +26,7 @@ import moa.classifiers.Classifier;
 import moa.core.Example;
 import moa.core.InstanceExample;
 import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.core.ObjectRepository;
 import moa.core.TimingUtils;
 import moa.evaluation.LearningEvaluation;
@@ -35,6 +36,7 @@ import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.streams.ExampleStream;
 import moa.streams.InstanceStream;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -120,6 +122,14 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 	public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
 			"File to append intermediate csv reslts to.", null, "csv", true);
 
+	public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+			"modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+			ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+	public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+			"How many model size measurements share one exact measurement when sampling.",
+			10, 1, Integer.MAX_VALUE);
+
 	/**
 	 * Defines the task's result type.
 	 */
@@ -130,7 +140,12 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 	@Override
 	protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
 		Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
-		ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+		ModelSizeMeasurer sizeMeasurer = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+				this.exactSizeFrequencyOption.getValue());
+		if (sizeMeasurer.getMode() != ModelSizeMeasurer.EXACT) {
+			learner.setModelSizeMeasurer(sizeMeasurer.newMeasurer());
+		}
+		ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
 		LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
 		learner.setModelContext(stream.getHeader());
 		int maxInstances = this.instanceLimitOption.getValue();
@@ -223,7 +238,7 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 			////Result output
 			if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0) {
 				
-				double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+				double RAMHoursIncrement = sizeMeasurer.measureByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (TimingUtils.nanoTimeToSeconds(sampleTrainTime + sampleTestTime) / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
 				
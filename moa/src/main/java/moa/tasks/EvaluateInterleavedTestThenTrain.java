@@ -28,17 +28,15 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifierMiniBatch;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
-import moa.core.Example;
-import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.core.ObjectRepository;
-import moa.core.TimingUtils;
-import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
 import moa.learners.Learner;
 import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.streams.ExampleStream;
 import moa.streams.InstanceStream;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -95,6 +93,18 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv reslts to.", null, "csv", true);
 
+    public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+            "modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+            ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+    public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+            "How many model size measurements share one exact measurement when sampling.",
+            10, 1, Integer.MAX_VALUE);
+
+    public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+            "Number of instances tested and then trained on together (1 = test then train each instance).",
+            1, 1, Integer.MAX_VALUE);
+
     @Override
     public Class<?> getTaskResultType() {
         return LearningCurve.class;
@@ -109,21 +119,20 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
        // this.streamOption.setValueViaCLIString(streamString + " -i " + this.randomSeedOption.getValueAsCLIString());
         
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
+        ModelSizeMeasurer sizeMeasurer = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+                this.exactSizeFrequencyOption.getValue());
+        if (sizeMeasurer.getMode() != ModelSizeMeasurer.EXACT) {
+            learner.setModelSizeMeasurer(sizeMeasurer.newMeasurer());
+        }
         if (learner.isRandomizable()) {
             learner.setRandomSeed(this.randomSeedOption.getValue());
             learner.resetLearning();
         }
-        ExampleStream stream = (InstanceStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((InstanceStream) getPreparedClassOption(this.streamOption));
         
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         learner.setModelContext(stream.getHeader());
-        int maxInstances = this.instanceLimitOption.getValue();
-        long instancesProcessed = 0;
-        int maxSeconds = this.timeLimitOption.getValue();
-        int secondsElapsed = 0;
         monitor.setCurrentActivity("Evaluating learner...", -1.0);
-        LearningCurve learningCurve = new LearningCurve(
-                "learning evaluation instances");
         File dumpFile = this.dumpFileOption.getFile();
         PrintStream immediateResultStream = null;
         if (dumpFile != null) {
@@ -140,81 +149,17 @@ public class EvaluateInterleavedTestThenTrain extends ClassificationMainTask {
                         "Unable to open immediate result file: " + dumpFile, ex);
             }
         }
-        boolean firstDump = true;
-        boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-        long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
-        while (stream.hasMoreInstances()
-                && ((maxInstances < 0) || (instancesProcessed < maxInstances))
-                && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = trainInst; //.copy();
-            //int trueClass = (int) trainInst.classValue();
-            //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
-            //evaluator.addClassificationAttempt(trueClass, prediction, testInst
-            //		.weight());
-            evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
-            instancesProcessed++;
-            if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
-                  ||  stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
-                double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
-                RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
-                RAMHours += RAMHoursIncrement;
-                lastEvaluateStartTime = evaluateTime;
-                learningCurve.insertEntry(new LearningEvaluation(
-                        new Measurement[]{
-                            new Measurement(
-                            "learning evaluation instances",
-                            instancesProcessed),
-                            new Measurement(
-                            "evaluation time ("
-                            + (preciseCPUTiming ? "cpu "
-                            : "") + "seconds)",
-                            time),
-                            new Measurement(
-                            "model cost (RAM-Hours)",
-                            RAMHours)
-                        },
-                        evaluator, learner));
-                if (immediateResultStream != null) {
-                    if (firstDump) {
-                        immediateResultStream.print("Learner,stream,randomSeed,");
-                        immediateResultStream.println(learningCurve.headerToString());
-                        firstDump = false;
-                    }
-                    immediateResultStream.print(learnerString + "," + streamString + "," + this.randomSeedOption.getValueAsCLIString() + ",");
-                    immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
-                    immediateResultStream.flush();
-                }
-            }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                if (monitor.taskShouldAbort()) {
-                    return null;
-                }
-                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
-                if (maxInstances > 0) {
-                    long maxRemaining = maxInstances - instancesProcessed;
-                    if ((estimatedRemainingInstances < 0)
-                            || (maxRemaining < estimatedRemainingInstances)) {
-                        estimatedRemainingInstances = maxRemaining;
-                    }
-                }
-                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
-                        : (double) instancesProcessed
-                        / (double) (instancesProcessed + estimatedRemainingInstances));
-                if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
-                }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
-            }
-        }
+        PrequentialEvaluationEngine engine = new PrequentialEvaluationEngine(learner, stream, evaluator, sizeMeasurer);
+        engine.setBatchSize(this.batchSizeOption.getValue());
+        engine.setInstanceLimit(this.instanceLimitOption.getValue());
+        engine.setTimeLimit(this.timeLimitOption.getValue());
+        engine.setSampleFrequency(this.sampleFrequencyOption.getValue());
+        engine.setImmediateResultStream(immediateResultStream, "Learner,stream,randomSeed,",
+                learnerString + "," + streamString + "," + this.randomSeedOption.getValueAsCLIString() + ",");
+        engine.addStage(engine.predictVotes());
+        engine.addStage(engine.evaluate());
+        engine.addStage(engine.train());
+        LearningCurve learningCurve = engine.run(monitor);
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
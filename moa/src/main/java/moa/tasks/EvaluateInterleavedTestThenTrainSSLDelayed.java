@@ -157,7 +157,7 @@ public class EvaluateInterleavedTestThenTrainSSLDelayed extends SemiSupervisedMa
         double labelProbability = this.labelProbabilityOption.getValue();
         String streamString = this.streamOption.getValueAsCLIString();
         RandomGenerator taskRandom = new MersenneTwister(this.randomSeedOption.getValue());
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         Learner learner = getLearner(stream);
         String learnerString = getLearnerString();
 
@@ -100,7 +100,7 @@ public class EvaluateModel extends ClassificationMainTask implements Capabilitie
     @Override
     public Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner model = (Learner) getPreparedClassOption(this.modelOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve("learning evaluation instances");
         int maxInstances = this.maxInstancesOption.getValue();
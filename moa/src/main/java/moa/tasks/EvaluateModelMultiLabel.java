@@ -96,7 +96,7 @@ public class EvaluateModelMultiLabel extends MultiLabelMainTask {
     @Override
     public Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner model = (Learner) getPreparedClassOption(this.modelOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         int maxInstances = this.maxInstancesOption.getValue();
         long instancesProcessed = 0;
@@ -28,15 +28,12 @@ import moa.capabilities.CapabilitiesHandler;
 import moa.capabilities.Capability;
 import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.MultiClassClassifier;
-import moa.core.Example;
-import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.core.ObjectRepository;
-import moa.core.TimingUtils;
 import moa.evaluation.WindowClassificationPerformanceEvaluator;
 import moa.evaluation.preview.LearningCurve;
 import moa.evaluation.EWMAClassificationPerformanceEvaluator;
 import moa.evaluation.FadingFactorClassificationPerformanceEvaluator;
-import moa.evaluation.LearningEvaluation;
 import moa.evaluation.LearningPerformanceEvaluator;
 import moa.learners.Learner;
 import moa.options.ClassOption;
@@ -44,6 +41,7 @@ import moa.options.ClassOption;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.streams.ExampleStream;
 import com.yahoo.labs.samoa.instances.Instance;
 import moa.core.Utils;
@@ -97,9 +95,21 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv results to.", null, "csv", true);
 
+    public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+            "modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+            ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+    public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+            "How many model size measurements share one exact measurement when sampling.",
+            10, 1, Integer.MAX_VALUE);
+
     public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
             "File to append output predictions to.", null, "pred", true);
 
+    public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+            "Number of instances predicted, evaluated and then trained on together (1 = test then train each instance).",
+            1, 1, Integer.MAX_VALUE);
+
     //New for prequential method DEPRECATED
     public IntOption widthOption = new IntOption("width",
             'w', "Size of Window", 1000);
@@ -116,7 +126,12 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ModelSizeMeasurer sizeMeasurer = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+                this.exactSizeFrequencyOption.getValue());
+        if (sizeMeasurer.getMode() != ModelSizeMeasurer.EXACT) {
+            learner.setModelSizeMeasurer(sizeMeasurer.newMeasurer());
+        }
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
@@ -146,10 +161,6 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
         //End New for prequential methods
 
         learner.setModelContext(stream.getHeader());
-        int maxInstances = this.instanceLimitOption.getValue();
-        long instancesProcessed = 0;
-        int maxSeconds = this.timeLimitOption.getValue();
-        int secondsElapsed = 0;
         monitor.setCurrentActivity("Evaluating learner...", -1.0);
 
         File dumpFile = this.dumpFileOption.getFile();
@@ -185,85 +196,27 @@ public class EvaluatePrequential extends ClassificationMainTask implements Capab
                         "Unable to open prediction result file: " + outputPredictionFile, ex);
             }
         }
-        boolean firstDump = true;
-        boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
-        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-        long lastEvaluateStartTime = evaluateStartTime;
-        double RAMHours = 0.0;
-        while (stream.hasMoreInstances()
-                && ((maxInstances < 0) || (instancesProcessed < maxInstances))
-                && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst; //.copy();
-            //testInst.setClassMissing();
-            double[] prediction = learner.getVotesForInstance(testInst);
-            // Output prediction
-            if (outputPredictionFile != null) {
-                int trueClass = (int) ((Instance) trainInst.getData()).classValue();
-                outputPredictionResultStream.println(Utils.maxIndex(prediction) + "," + (
-                 ((Instance) testInst.getData()).classIsMissing() == true ? " ? " : trueClass));
-            }
-
-            //evaluator.addClassificationAttempt(trueClass, prediction, testInst.weight());
-            evaluator.addResult(testInst, prediction);
-            learner.trainOnInstance(trainInst);
-            instancesProcessed++;
-            if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
-                    || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
-                double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
-                RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
-                RAMHours += RAMHoursIncrement;
-                lastEvaluateStartTime = evaluateTime;
-                learningCurve.insertEntry(new LearningEvaluation(
-                        new Measurement[]{
-                            new Measurement(
-                            "learning evaluation instances",
-                            instancesProcessed),
-                            new Measurement(
-                            "evaluation time ("
-                            + (preciseCPUTiming ? "cpu "
-                            : "") + "seconds)",
-                            time),
-                            new Measurement(
-                            "model cost (RAM-Hours)",
-                            RAMHours)
-                        },
-                        evaluator, learner));
-
-                if (immediateResultStream != null) {
-                    if (firstDump) {
-                        immediateResultStream.println(learningCurve.headerToString());
-                        firstDump = false;
-                    }
-                    immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
-                    immediateResultStream.flush();
-                }
-            }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                if (monitor.taskShouldAbort()) {
-                    return null;
-                }
-                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
-                if (maxInstances > 0) {
-                    long maxRemaining = maxInstances - instancesProcessed;
-                    if ((estimatedRemainingInstances < 0)
-                            || (maxRemaining < estimatedRemainingInstances)) {
-                        estimatedRemainingInstances = maxRemaining;
-                    }
-                }
-                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
-                        : (double) instancesProcessed
-                        / (double) (instancesProcessed + estimatedRemainingInstances));
-                if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
+        PrequentialEvaluationEngine engine = new PrequentialEvaluationEngine(learner, stream, evaluator, sizeMeasurer);
+        engine.setBatchSize(this.batchSizeOption.getValue());
+        engine.setInstanceLimit(this.instanceLimitOption.getValue());
+        engine.setTimeLimit(this.timeLimitOption.getValue());
+        engine.setSampleFrequency(this.sampleFrequencyOption.getValue());
+        engine.setImmediateResultStream(immediateResultStream, "", "");
+        engine.addStage(engine.predictVotes());
+        if (outputPredictionResultStream != null) {
+            final PrintStream predictionStream = outputPredictionResultStream;
+            engine.addStage(batch -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    Instance inst = (Instance) batch.example(i).getData();
+                    int trueClass = (int) inst.classValue();
+                    predictionStream.println(Utils.maxIndex(batch.votes(i)) + "," + (
+                     inst.classIsMissing() == true ? " ? " : trueClass));
                 }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
-            }
+            });
         }
+        engine.addStage(engine.evaluate());
+        engine.addStage(engine.train());
+        learningCurve = engine.run(monitor);
         if (immediateResultStream != null) {
             immediateResultStream.close();
         }
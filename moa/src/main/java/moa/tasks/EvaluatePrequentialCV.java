@@ -25,6 +25,7 @@ import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.core.*;
 import moa.evaluation.*;
 import moa.evaluation.preview.LearningCurve;
@@ -94,6 +95,14 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv results to.", null, "csv", true);
 
+    public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+            "modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+            ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+    public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+            "How many model size measurements share one exact measurement when sampling.",
+            10, 1, Integer.MAX_VALUE);
+
     public IntOption numFoldsOption = new IntOption("numFolds", 'w',
             "The number of folds (e.g. distributed models) to be used.", 10, 1, Integer.MAX_VALUE);
 
@@ -108,6 +117,12 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
     public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
             "Seed for random behaviour of the task.", 1);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to update the folds (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
+    /** The maximum number of instances the folds are updated with between two synchronizations, when updated concurrently. */
+    protected static final int INSTANCES_PER_PARALLEL_UPDATE = 100;
+
 
     @Override
     public Class<?> getTaskResultType() {
@@ -118,10 +133,11 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
 
         Random random = new Random(this.randomSeedOption.getValue());
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
 
         Learner[] learners = new Learner[this.numFoldsOption.getValue()];
         Learner baseLearner = (Learner) getPreparedClassOption(this.learnerOption);
+        ModelSizeMeasurer[] sizeMeasurers = new ModelSizeMeasurer[learners.length];
         baseLearner.resetLearning();
 
         LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
@@ -129,6 +145,11 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
         for (int i = 0; i < learners.length; i++) {
             learners[i] = (Learner) baseLearner.copy();
             learners[i].setModelContext(stream.getHeader());
+            sizeMeasurers[i] = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+                    this.exactSizeFrequencyOption.getValue());
+            if (sizeMeasurers[i].getMode() != ModelSizeMeasurer.EXACT) {
+                learners[i].setModelSizeMeasurer(sizeMeasurers[i].newMeasurer());
+            }
             evaluators[i] = (LearningPerformanceEvaluator) baseEvaluator.copy();
         }
 
@@ -162,46 +183,71 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
         long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
+        EnsembleExecutor executor = EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+        final Example[] block = new Example[executor.isParallel() ? INSTANCES_PER_PARALLEL_UPDATE : 1];
+        final int[][] trainWeights = new int[block.length][learners.length];
+        final long[] foldCPUTimes = new long[learners.length];
+        final boolean measureFoldTimes = executor.isParallel();
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst; //.copy();
-            //testInst.setClassMissing();
-
-            for (int i = 0; i < learners.length; i++) {
-                evaluators[i].addResult(testInst, learners[i].getVotesForInstance(testInst));
-            }
-
-            for (int i = 0; i < learners.length; i++) {
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
+            // the folds are updated with blocks of instances that end at the
+            // next sample, and their train weights are drawn in the order of
+            // a sequential run, so that the folds can be updated concurrently
+            long previousInstancesProcessed = instancesProcessed;
+            int numInstances = 0;
+            do {
+                Example trainInst = stream.nextInstance();
+                block[numInstances] = trainInst;
+                for (int i = 0; i < learners.length; i++) {
+                    int k = 1;
+                    switch (this.validationMethodologyOption.getChosenIndex()) {
+                        case 0: //Cross-Validation;
+                            k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
+                            break;
+                        case 1: //Bootstrap;
+                            k = MiscUtils.poisson(1, random);
+                            break;
+                        case 2: //Split-Validation;
+                            k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
+                            break;
+                    }
+                    trainWeights[numInstances][i] = k;
                 }
-                if (k > 0) {
-                    Example weightedInst = (Example) trainInst.copy();
-                    weightedInst.setWeight(trainInst.weight() * k);
-                    learners[i].trainOnInstance(weightedInst);
+                numInstances++;
+                instancesProcessed++;
+            } while (numInstances < block.length
+                    && stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                    && instancesProcessed % this.sampleFrequencyOption.getValue() != 0);
+
+            final int blockLength = numInstances;
+            executor.forEachMember(learners.length, i -> {
+                long foldStartTime = measureFoldTimes ? TimingUtils.getNanoCPUTimeOfCurrentThread() : 0;
+                for (int j = 0; j < blockLength; j++) {
+                    Example testInst = block[j];
+                    evaluators[i].addResult(testInst, learners[i].getVotesForInstance(testInst));
+                    int k = trainWeights[j][i];
+                    if (k > 0) {
+                        Example weightedInst = (Example) block[j].copy();
+                        weightedInst.setWeight(block[j].weight() * k);
+                        learners[i].trainOnInstance(weightedInst);
+                    }
                 }
-            }
+                if (measureFoldTimes) {
+                    foldCPUTimes[i] += TimingUtils.getNanoCPUTimeOfCurrentThread() - foldStartTime;
+                }
+            });
+            Arrays.fill(block, null);
 
-            instancesProcessed++;
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread() + sum(foldCPUTimes);
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
                 for (int i = 0; i < learners.length; i++) {
-                    double RAMHoursIncrement = learners[i].measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                    double RAMHoursIncrement = sizeMeasurers[i].measureByteSize(learners[i]) / (1024.0 * 1024.0 * 1024.0); //GBs
                     RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                     RAMHours += RAMHoursIncrement;
                 }
@@ -232,7 +278,8 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
                     immediateResultStream.flush();
                 }
             }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+            if (instancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES
+                    != previousInstancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES) {
                 if (monitor.taskShouldAbort()) {
                     return null;
                 }
@@ -251,7 +298,7 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
                     monitor.setLatestResultPreview(learningCurve.copy());
                 }
                 secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
+                        + sum(foldCPUTimes) - evaluateStartTime);
             }
         }
         if (immediateResultStream != null) {
@@ -261,6 +308,17 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
     }
 
 
+    /**
+     * Sums the CPU times spent updating the folds on other threads.
+     */
+    protected static long sum(long[] foldCPUTimes) {
+        long sum = 0;
+        for (long foldCPUTime : foldCPUTimes) {
+            sum += foldCPUTime;
+        }
+        return sum;
+    }
+
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
         List<Measurement> measurementList = new LinkedList<Measurement>();
         if (modelMeasurements != null) {
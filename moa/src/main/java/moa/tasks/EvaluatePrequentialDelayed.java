@@ -29,6 +29,7 @@ import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.Example;
 import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
 import moa.core.ObjectRepository;
 import moa.core.TimingUtils;
 import moa.evaluation.WindowClassificationPerformanceEvaluator;
@@ -44,6 +45,7 @@ import com.github.javacliparser.FileOption;
 import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
 import moa.streams.ExampleStream;
 import com.yahoo.labs.samoa.instances.Instance;
 import java.util.LinkedList;
@@ -120,6 +122,14 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv results to.", null, "csv", true);
 
+    public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+            "modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+            ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+    public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+            "How many model size measurements share one exact measurement when sampling.",
+            10, 1, Integer.MAX_VALUE);
+
     public FileOption outputPredictionFileOption = new FileOption("outputPredictionFile", 'o',
             "File to append output predictions to.", null, "pred", true);
 
@@ -141,7 +151,12 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
     @Override
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ModelSizeMeasurer sizeMeasurer = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+                this.exactSizeFrequencyOption.getValue());
+        if (sizeMeasurer.getMode() != ModelSizeMeasurer.EXACT) {
+            learner.setModelSizeMeasurer(sizeMeasurer.newMeasurer());
+        }
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
@@ -274,7 +289,7 @@ public class EvaluatePrequentialDelayed extends ClassificationMainTask {
                     long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
                     double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                     double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                    double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                    double RAMHoursIncrement = sizeMeasurer.measureByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
                     RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                     RAMHours += RAMHoursIncrement;
                     lastEvaluateStartTime = evaluateTime;
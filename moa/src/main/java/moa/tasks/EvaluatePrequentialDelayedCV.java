@@ -26,6 +26,7 @@ import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.meta.EnsembleExecutor;
 import moa.core.*;
 import moa.evaluation.*;
 import moa.evaluation.preview.LearningCurve;
@@ -106,6 +107,14 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
             "File to append intermediate csv results to.", null, "csv", true);
 
+    public MultiChoiceOption modelSizeMeasurementOption = new MultiChoiceOption(
+            "modelSizeMeasurement", 'z', "How the model size for RAM-Hours and model measurements is measured.",
+            ModelSizeMeasurer.MODE_NAMES, ModelSizeMeasurer.MODE_DESCRIPTIONS, ModelSizeMeasurer.EXACT);
+
+    public IntOption exactSizeFrequencyOption = new IntOption("exactSizeFrequency", 'y',
+            "How many model size measurements share one exact measurement when sampling.",
+            10, 1, Integer.MAX_VALUE);
+
     public IntOption numFoldsOption = new IntOption("numFolds", 'w',
             "The number of folds (e.g. distributed models) to be used.", 10, 1, Integer.MAX_VALUE);
 
@@ -120,6 +129,12 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
             "Seed for random behaviour of the task.", 1);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to update the folds (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
+    /** The maximum number of instances the folds are updated with between two synchronizations, when updated concurrently. */
+    protected static final int INSTANCES_PER_PARALLEL_UPDATE = 100;
+
     // Buffer of instances to use for training. 
     // Note: It is a list of lists because it stores instances per learner, e.g.
     // CV of 10, would be 10 lists of buffered instances for delayed training. 
@@ -134,10 +149,11 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
 
         Random random = new Random(this.randomSeedOption.getValue());
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
 
         Learner[] learners = new Learner[this.numFoldsOption.getValue()];
         Learner baseLearner = (Learner) getPreparedClassOption(this.learnerOption);
+        ModelSizeMeasurer[] sizeMeasurers = new ModelSizeMeasurer[learners.length];
         baseLearner.resetLearning();
 
         LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[this.numFoldsOption.getValue()];
@@ -145,6 +161,11 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
         for (int i = 0; i < learners.length; i++) {
             learners[i] = (Learner) baseLearner.copy();
             learners[i].setModelContext(stream.getHeader());
+            sizeMeasurers[i] = new ModelSizeMeasurer(this.modelSizeMeasurementOption.getChosenIndex(),
+                    this.exactSizeFrequencyOption.getValue());
+            if (sizeMeasurers[i].getMode() != ModelSizeMeasurer.EXACT) {
+                learners[i].setModelSizeMeasurer(sizeMeasurers[i].newMeasurer());
+            }
             evaluators[i] = (LearningPerformanceEvaluator) baseEvaluator.copy();
         }
 
@@ -184,49 +205,75 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
         
+        EnsembleExecutor executor = EnsembleExecutor.forJobs(this.numberOfJobsOption.getValue());
+        final Example[] block = new Example[executor.isParallel() ? INSTANCES_PER_PARALLEL_UPDATE : 1];
+        final int[][] trainWeights = new int[block.length][learners.length];
+        final long[] foldCPUTimes = new long[learners.length];
+        final boolean measureFoldTimes = executor.isParallel();
         while (stream.hasMoreInstances()
                 && ((maxInstances < 0) || (instancesProcessed < maxInstances))
                 && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            
-            
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst;
-            
-            instancesProcessed++;
-            for (int i = 0; i < learners.length; i++) {
-                
-                double[] prediction = learners[i].getVotesForInstance(testInst);
-                evaluators[i].addResult(testInst, prediction);
-                
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
+            // the folds are updated with blocks of instances that end at the
+            // next sample, and their train weights are drawn in the order of
+            // a sequential run, so that the folds can be updated concurrently
+            long previousInstancesProcessed = instancesProcessed;
+            int numInstances = 0;
+            do {
+                Example trainInst = stream.nextInstance();
+                block[numInstances] = trainInst;
+                instancesProcessed++;
+                for (int i = 0; i < learners.length; i++) {
+                    int k = 1;
+                    switch (this.validationMethodologyOption.getChosenIndex()) {
+                        case 0: //Cross-Validation;
+                            k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
+                            break;
+                        case 1: //Bootstrap;
+                            k = MiscUtils.poisson(1, random);
+                            break;
+                        case 2: //Split-Validation;
+                            k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
+                            break;
+                    }
+                    trainWeights[numInstances][i] = k;
                 }
-                if (k > 0) {
-                    this.trainInstances.get(i).addLast(trainInst);
+                numInstances++;
+            } while (numInstances < block.length
+                    && stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                    && instancesProcessed % this.sampleFrequencyOption.getValue() != 0);
+
+            final int blockLength = numInstances;
+            executor.forEachMember(learners.length, i -> {
+                long foldStartTime = measureFoldTimes ? TimingUtils.getNanoCPUTimeOfCurrentThread() : 0;
+                LinkedList<Example> foldTrainInstances = this.trainInstances.get(i);
+                for (int j = 0; j < blockLength; j++) {
+                    Example testInst = block[j];
+                    double[] prediction = learners[i].getVotesForInstance(testInst);
+                    evaluators[i].addResult(testInst, prediction);
+
+                    if (trainWeights[j][i] > 0) {
+                        foldTrainInstances.addLast(block[j]);
+                    }
+                    if (this.delayLengthOption.getValue() < foldTrainInstances.size()) {
+                        Example trainInstI = foldTrainInstances.removeFirst();
+                        learners[i].trainOnInstance(trainInstI);
+                    }
                 }
-                if(this.delayLengthOption.getValue() < this.trainInstances.get(i).size()) {
-                    Example trainInstI = this.trainInstances.get(i).removeFirst();
-                    learners[i].trainOnInstance(trainInstI);
+                if (measureFoldTimes) {
+                    foldCPUTimes[i] += TimingUtils.getNanoCPUTimeOfCurrentThread() - foldStartTime;
                 }
-            }
-            
+            });
+            Arrays.fill(block, null);
+
             if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
                     || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread() + sum(foldCPUTimes);
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
 
                 for (int i = 0; i < learners.length; i++) {
-                    double RAMHoursIncrement = learners[i].measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                    double RAMHoursIncrement = sizeMeasurers[i].measureByteSize(learners[i]) / (1024.0 * 1024.0 * 1024.0); //GBs
                     RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                     RAMHours += RAMHoursIncrement;
                 }
@@ -257,7 +304,8 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
                     immediateResultStream.flush();
                 }
             }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+            if (instancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES
+                    != previousInstancesProcessed / INSTANCES_BETWEEN_MONITOR_UPDATES) {
                 if (monitor.taskShouldAbort()) {
                     return null;
                 }
@@ -276,7 +324,7 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
                     monitor.setLatestResultPreview(learningCurve.copy());
                 }
                 secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
+                        + sum(foldCPUTimes) - evaluateStartTime);
             }
         }
         if (immediateResultStream != null) {
@@ -286,6 +334,17 @@ public class EvaluatePrequentialDelayedCV extends ClassificationMainTask {
     }
 
 
+    /**
+     * Sums the CPU times spent updating the folds on other threads.
+     */
+    protected static long sum(long[] foldCPUTimes) {
+        long sum = 0;
+        for (long foldCPUTime : foldCPUTimes) {
+            sum += foldCPUTime;
+        }
+        return sum;
+    }
+
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
         List<Measurement> measurementList = new LinkedList<>();
         if (modelMeasurements != null) {
@@ -112,7 +112,7 @@ public class EvaluatePrequentialPredictionIntervals extends RegressionMainTask {
     protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
         PredictionIntervalLearner intervalLearner = (PredictionIntervalLearner)getPreparedClassOption(this.learnerOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         PredictionIntervalPerformanceEvaluator evaluator = (PredictionIntervalPerformanceEvaluator) getPreparedClassOption(this.evaluatorOption);
         LearningCurve learningCurve = new LearningCurve(
                 "learning evaluation instances");
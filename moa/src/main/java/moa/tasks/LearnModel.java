@@ -85,7 +85,7 @@ public class LearnModel extends ClassificationMainTask implements CapabilitiesHa
     @Override
     public Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
         Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
-        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        ExampleStream stream = closeOnFinish((ExampleStream) getPreparedClassOption(this.streamOption));
         learner.setModelContext(stream.getHeader());
         int numPasses = this.numPassesOption.getValue();
         int maxInstances = this.maxInstancesOption.getValue();
@@ -19,9 +19,12 @@
  */
 package moa.tasks;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import moa.core.ObjectRepository;
 import moa.core.SerializeUtils;
@@ -45,9 +48,17 @@ public abstract class MainTask extends AbstractTask {
     public FileOption outputFileOption = new FileOption("taskResultFile", 'O',
             "File to save the final result of the task to.", null, "moa", true);
 
+    /** Resources closed when the task finishes. */
+    protected transient List<Closeable> resourcesToClose;
+
     @Override
     protected Object doTaskImpl(TaskMonitor monitor, ObjectRepository repository) {
-        Object result = doMainTask(monitor, repository);
+        Object result;
+        try {
+            result = doMainTask(monitor, repository);
+        } finally {
+            closeResources();
+        }
         if (monitor.taskShouldAbort()) {
             return null;
         }
@@ -73,6 +84,38 @@ public abstract class MainTask extends AbstractTask {
         return result;
     }
 
+    /**
+     * Registers an object to be closed when the task finishes, however it
+     * finishes. Objects that are not <code>Closeable</code> are ignored, so
+     * any prepared stream can be passed.
+     *
+     * @param resource the object to close
+     * @return the object
+     */
+    protected <T> T closeOnFinish(T resource) {
+        if (resource instanceof Closeable) {
+            if (this.resourcesToClose == null) {
+                this.resourcesToClose = new ArrayList<Closeable>();
+            }
+            this.resourcesToClose.add((Closeable) resource);
+        }
+        return resource;
+    }
+
+    protected void closeResources() {
+        if (this.resourcesToClose == null) {
+            return;
+        }
+        for (Closeable resource : this.resourcesToClose) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                // nothing left to read from it
+            }
+        }
+        this.resourcesToClose = null;
+    }
+
     /**
      * This method performs this task.
      * <code>AbstractTask</code> implements <code>doTask</code>,
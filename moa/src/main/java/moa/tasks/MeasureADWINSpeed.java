@@ -0,0 +1,150 @@
+/*
+ *    MeasureADWINSpeed.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.util.Random;
+
+import com.github.javacliparser.FloatOption;
+import com.github.javacliparser.IntOption;
+import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.core.driftdetection.ArrayADWIN;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+
+/**
+ * Task for comparing {@link ADWIN} and {@link ArrayADWIN}. A number of
+ * detectors of each kind is fed the same 0/1 error stream, whose error rate
+ * changes abruptly at a fixed period, as when ADWIN is embedded in every node
+ * of a tree or every member of an ensemble. Reports the inputs per second,
+ * the estimated memory of all detectors and the number of inputs on which the
+ * two implementations disagree.
+ */
+public class MeasureADWINSpeed extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compares the speed and memory of the list-based and the array-based ADWIN.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption numInputsOption = new IntOption("numInputs", 'n',
+            "Number of inputs per detector.", 1000000, 1, Integer.MAX_VALUE);
+
+    public IntOption numDetectorsOption = new IntOption("numDetectors", 'd',
+            "Number of detectors of each kind.", 100, 1, Integer.MAX_VALUE);
+
+    public IntOption changePeriodOption = new IntOption("changePeriod", 'p',
+            "Number of inputs between changes of the error rate.", 10000, 1, Integer.MAX_VALUE);
+
+    public FloatOption deltaOption = new FloatOption("delta", 'a',
+            "Delta of ADWIN.", ADWIN.DELTA, 0.0, 1.0);
+
+    public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
+            "Seed for the error stream.", 1);
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        int numInputs = this.numInputsOption.getValue();
+        int numDetectors = this.numDetectorsOption.getValue();
+        double delta = this.deltaOption.getValue();
+        ADWIN[] lists = new ADWIN[numDetectors];
+        ArrayADWIN[] arrays = new ArrayADWIN[numDetectors];
+        for (int i = 0; i < numDetectors; i++) {
+            lists[i] = new ADWIN(delta);
+            arrays[i] = new ArrayADWIN(delta);
+        }
+        // one input per detector and step, precomputed so that both runs see the same data
+        Random random = new Random(this.randomSeedOption.getValue());
+        double[] errors = new double[numInputs];
+        double errorRate = 0.2;
+        for (int t = 0; t < numInputs; t++) {
+            if (t > 0 && t % this.changePeriodOption.getValue() == 0) {
+                errorRate = errorRate < 0.5 ? 0.8 : 0.2;
+            }
+            errors[t] = random.nextDouble() < errorRate ? 1.0 : 0.0;
+        }
+
+        long listTime = 0;
+        long arrayTime = 0;
+        long listDetections = 0;
+        long arrayDetections = 0;
+        long mismatches = 0;
+        boolean[] changes = new boolean[numDetectors];
+        int step = Math.max(1, numInputs / 100);
+        for (int from = 0; from < numInputs; from += step) {
+            if (monitor.taskShouldAbort()) {
+                return null;
+            }
+            monitor.setCurrentActivity("Feeding detectors...", (double) from / numInputs);
+            int to = Math.min(numInputs, from + step);
+            long start = System.nanoTime();
+            for (int i = 0; i < numDetectors; i++) {
+                for (int t = from; t < to; t++) {
+                    if (lists[i].setInput(errors[t])) {
+                        listDetections++;
+                    }
+                }
+                changes[i] = lists[i].getChange();
+            }
+            listTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < numDetectors; i++) {
+                for (int t = from; t < to; t++) {
+                    if (arrays[i].setInput(errors[t])) {
+                        arrayDetections++;
+                    }
+                }
+            }
+            arrayTime += System.nanoTime() - start;
+            for (int i = 0; i < numDetectors; i++) {
+                if (changes[i] != arrays[i].getChange()
+                        || lists[i].getWidth() != arrays[i].getWidth()
+                        || Double.compare(lists[i].getEstimation(), arrays[i].getEstimation()) != 0) {
+                    mismatches++;
+                }
+            }
+        }
+
+        long listBytes = 0;
+        long arrayBytes = 0;
+        for (int i = 0; i < numDetectors; i++) {
+            listBytes += lists[i].estimateByteSize();
+            arrayBytes += arrays[i].estimateByteSize();
+        }
+        double totalInputs = (double) numInputs * numDetectors;
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Inputs per detector", numInputs),
+                    new Measurement("ADWIN inputs per second", totalInputs / (listTime / 1e9)),
+                    new Measurement("ArrayADWIN inputs per second", totalInputs / (arrayTime / 1e9)),
+                    new Measurement("Speedup", (double) listTime / arrayTime),
+                    new Measurement("ADWIN detections", listDetections),
+                    new Measurement("ArrayADWIN detections", arrayDetections),
+                    new Measurement("ADWIN bytes per detector", (double) listBytes / numDetectors),
+                    new Measurement("ArrayADWIN bytes per detector", (double) arrayBytes / numDetectors),
+                    new Measurement("Mismatching checkpoints", mismatches)});
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *    MeasureArffLoaderSpeed.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.streams.ArffFileStream;
+import moa.streams.FastArffFileStream;
+import moa.streams.InstanceStream;
+
+/**
+ * Task for comparing the rows per second of {@link ArffFileStream} and
+ * {@link FastArffFileStream} on the same file. Each reader is run a number of
+ * times over the file and the best wall-clock run is reported, since the fast
+ * reader may parse on more than one thread. Optionally checks that both
+ * readers produce identical values.
+ */
+public class MeasureArffLoaderSpeed extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compares the speed of the StreamTokenizer and the byte-level ARFF readers.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public FileOption arffFileOption = new FileOption("arffFile", 'f',
+            "ARFF file to load.", null, "arff", false);
+
+    public IntOption classIndexOption = new IntOption("classIndex", 'c',
+            "Class index of data. 0 for none or -1 for last attribute in file.",
+            -1, -1, Integer.MAX_VALUE);
+
+    public IntOption maxInstancesOption = new IntOption("maxInstances", 'i',
+            "Maximum number of instances to read per run, -1 for the whole file.",
+            -1, -1, Integer.MAX_VALUE);
+
+    public IntOption repetitionsOption = new IntOption("repetitions", 'r',
+            "Number of runs per reader.", 3, 1, Integer.MAX_VALUE);
+
+    public IntOption batchSizeOption = new IntOption("batchSize", 'b',
+            "Read the fast stream in batches of this size, 0 to read instance by instance.",
+            0, 0, Integer.MAX_VALUE);
+
+    public FlagOption memoryMapOption = new FlagOption("memoryMap", 'm',
+            "Let the fast reader use memory-mapped windows.");
+
+    public FlagOption readAheadOption = new FlagOption("readAhead", 'a',
+            "Let the fast reader use a read-ahead thread.");
+
+    public FlagOption verifyOption = new FlagOption("verify", 'v',
+            "Check that both readers produce the same values.");
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        String file = this.arffFileOption.getFile().getAbsolutePath();
+        int classIndex = this.classIndexOption.getValue();
+        ArffFileStream baseline = new ArffFileStream(file, classIndex);
+        FastArffFileStream fast = new FastArffFileStream();
+        fast.arffFileOption.setValue(file);
+        fast.classIndexOption.setValue(classIndex);
+        fast.memoryMapOption.setValue(this.memoryMapOption.isSet());
+        fast.readAheadOption.setValue(this.readAheadOption.isSet());
+        fast.prepareForUse();
+
+        long mismatches = 0;
+        if (this.verifyOption.isSet()) {
+            monitor.setCurrentActivityDescription("Verifying...");
+            mismatches = countMismatches(baseline, fast);
+        }
+        double baselineTime = Double.MAX_VALUE;
+        double fastTime = Double.MAX_VALUE;
+        long numInstances = 0;
+        for (int run = 0; run < this.repetitionsOption.getValue(); run++) {
+            if (monitor.taskShouldAbort()) {
+                return null;
+            }
+            monitor.setCurrentActivity("Run " + (run + 1) + " of ArffFileStream...", -1.0);
+            baseline.restart();
+            long start = System.nanoTime();
+            numInstances = readAll(baseline, 0);
+            baselineTime = Math.min(baselineTime, (System.nanoTime() - start) / 1e9);
+
+            monitor.setCurrentActivity("Run " + (run + 1) + " of FastArffFileStream...", -1.0);
+            fast.restart();
+            start = System.nanoTime();
+            readAll(fast, this.batchSizeOption.getValue());
+            fastTime = Math.min(fastTime, (System.nanoTime() - start) / 1e9);
+        }
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Number of instances read", numInstances),
+                    new Measurement("ArffFileStream instances per second", numInstances / baselineTime),
+                    new Measurement("FastArffFileStream instances per second", numInstances / fastTime),
+                    new Measurement("Speedup", baselineTime / fastTime),
+                    new Measurement("Mismatching instances", mismatches)});
+    }
+
+    protected long readAll(InstanceStream stream, int batchSize) {
+        long max = this.maxInstancesOption.getValue() < 0 ? Long.MAX_VALUE : this.maxInstancesOption.getValue();
+        long count = 0;
+        if (batchSize > 0) {
+            InstanceBatch batch = new InstanceBatch(stream.getHeader(), batchSize);
+            while (count < max && stream.hasMoreInstances()) {
+                batch.clear();
+                count += stream.nextInstances(batch);
+            }
+            return Math.min(count, max);
+        }
+        while (count < max && stream.hasMoreInstances()) {
+            stream.nextInstance();
+            count++;
+        }
+        return count;
+    }
+
+    protected long countMismatches(InstanceStream baseline, InstanceStream fast) {
+        long max = this.maxInstancesOption.getValue() < 0 ? Long.MAX_VALUE : this.maxInstancesOption.getValue();
+        long mismatches = 0;
+        long count = 0;
+        while (count < max && baseline.hasMoreInstances() && fast.hasMoreInstances()) {
+            Example<Instance> a = baseline.nextInstance();
+            Example<Instance> b = fast.nextInstance();
+            if (!sameValues(a.getData(), b.getData())) {
+                mismatches++;
+            }
+            count++;
+        }
+        if (baseline.hasMoreInstances() != fast.hasMoreInstances()) {
+            mismatches++;
+        }
+        return mismatches;
+    }
+
+    protected static boolean sameValues(Instance a, Instance b) {
+        if (a.numAttributes() != b.numAttributes() || a.weight() != b.weight()) {
+            return false;
+        }
+        for (int i = 0; i < a.numAttributes(); i++) {
+            if (Double.compare(a.value(i), b.value(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *    MeasureClustererSpeed.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import moa.cluster.Clustering;
+import moa.clusterers.Clusterer;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.options.ClassOption;
+import moa.streams.clustering.ClusteringStream;
+
+/**
+ * Task for measuring how fast a clusterer maintains its micro-clusters.
+ * Wall clock time is reported so that clusterers using several threads are
+ * measured fairly.
+ */
+public class MeasureClustererSpeed extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Measures the time a clusterer takes to process a clustering stream.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption clustererOption = new ClassOption("clusterer", 'l',
+            "Clusterer to measure.", Clusterer.class, "clustream.Clustream");
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to cluster.", ClusteringStream.class, "RandomRBFGeneratorEvents");
+
+    public IntOption numInstancesOption = new IntOption("numInstances", 'n',
+            "Number of instances to process.", 100000, 0, Integer.MAX_VALUE);
+
+    public IntOption warmupInstancesOption = new IntOption("warmupInstances", 'w',
+            "Number of instances processed before timing starts.", 10000, 0, Integer.MAX_VALUE);
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        Clusterer clusterer = (Clusterer) getPreparedClassOption(this.clustererOption);
+        ClusteringStream stream = (ClusteringStream) getPreparedClassOption(this.streamOption);
+        clusterer.resetLearning();
+        int warmup = this.warmupInstancesOption.getValue();
+        int numInstances = this.numInstancesOption.getValue();
+        monitor.setCurrentActivity("Warming up...", -1.0);
+        for (int i = 0; i < warmup && stream.hasMoreInstances(); i++) {
+            clusterer.trainOnInstance(stream.nextInstance().getData());
+        }
+        monitor.setCurrentActivity("Clustering...", -1.0);
+        int processed = 0;
+        long start = System.nanoTime();
+        while (processed < numInstances && stream.hasMoreInstances()) {
+            Instance inst = stream.nextInstance().getData();
+            clusterer.trainOnInstance(inst);
+            processed++;
+            if (processed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                monitor.setCurrentActivityFractionComplete((double) processed / numInstances);
+            }
+        }
+        long time = System.nanoTime() - start;
+        Clustering micro = clusterer.getMicroClusteringResult();
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Instances processed", processed),
+                    new Measurement("Time elapsed (ms)", time / 1e6),
+                    new Measurement("Microseconds per instance", processed > 0 ? time / 1e3 / processed : 0),
+                    new Measurement("Micro-clusters", micro == null ? 0 : micro.size())});
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
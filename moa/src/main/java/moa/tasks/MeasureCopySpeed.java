@@ -0,0 +1,107 @@
+/*
+ *    MeasureCopySpeed.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import com.github.javacliparser.IntOption;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.core.SerializeUtils;
+import moa.core.StructuralCopier;
+import moa.evaluation.LearningEvaluation;
+import moa.learners.Learner;
+import moa.options.ClassOption;
+import moa.streams.ExampleStream;
+
+/**
+ * Task for comparing the latency of copying a trained learner by
+ * serialization and by {@link StructuralCopier}, as done when ensembles
+ * create members or background learners.
+ */
+public class MeasureCopySpeed extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compares the latency of serialization and structural copies of a trained learner.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption learnerOption = new ClassOption("learner", 'l',
+            "Learner to copy.", Learner.class, "moa.classifiers.trees.HoeffdingTree");
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to train on.", ExampleStream.class, "generators.RandomRBFGenerator");
+
+    public IntOption numInstancesOption = new IntOption("numInstances", 'n',
+            "Number of instances to train on before copying.", 100000, 0, Integer.MAX_VALUE);
+
+    public IntOption numCopiesOption = new IntOption("numCopies", 'c',
+            "Number of copies made with each method.", 20, 1, Integer.MAX_VALUE);
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        Learner learner = (Learner) getPreparedClassOption(this.learnerOption);
+        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        learner.setModelContext(stream.getHeader());
+        int numInstances = this.numInstancesOption.getValue();
+        monitor.setCurrentActivity("Training learner...", -1.0);
+        for (int i = 0; i < numInstances && stream.hasMoreInstances(); i++) {
+            learner.trainOnInstance(stream.nextInstance());
+            if (i % INSTANCES_BETWEEN_MONITOR_UPDATES == 0 && monitor.taskShouldAbort()) {
+                return null;
+            }
+        }
+        int numCopies = this.numCopiesOption.getValue();
+        long serializedBytes;
+        long serializationTime = 0;
+        long structuralTime = 0;
+        try {
+            serializedBytes = SerializeUtils.measureObjectByteSize(learner);
+            monitor.setCurrentActivity("Copying learner...", -1.0);
+            // alternate the methods so that both see the same JIT and GC state
+            for (int i = 0; i < numCopies; i++) {
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                long start = System.nanoTime();
+                SerializeUtils.copyObject(learner);
+                serializationTime += System.nanoTime() - start;
+                start = System.nanoTime();
+                StructuralCopier.copyObject(learner);
+                structuralTime += System.nanoTime() - start;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Copy failed", e);
+        }
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Training instances", numInstances),
+                    new Measurement("Serialized size (bytes)", serializedBytes),
+                    new Measurement("Copied structurally", StructuralCopier.checkCopyable(learner) == null ? 1 : 0),
+                    new Measurement("Serialization copy (ms)", serializationTime / 1e6 / numCopies),
+                    new Measurement("Structural copy (ms)", structuralTime / 1e6 / numCopies),
+                    new Measurement("Speedup", (double) serializationTime / structuralTime)});
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
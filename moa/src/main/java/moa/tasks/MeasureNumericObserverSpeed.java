@@ -0,0 +1,162 @@
+/*
+ *    MeasureNumericObserverSpeed.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.util.Random;
+
+import com.github.javacliparser.IntOption;
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.attributeclassobservers.ArrayBinaryTreeNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.BinaryTreeNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserver;
+import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserver;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+
+/**
+ * Task for comparing {@link BinaryTreeNumericAttributeClassObserver},
+ * {@link ArrayBinaryTreeNumericAttributeClassObserver} and
+ * {@link GaussianNumericAttributeClassObserver}. A number of observers of
+ * each kind, as in the leaves of a tree, is fed the same numeric values with
+ * a given number of distinct values, and asked for their best split at a
+ * fixed period. Reports the values per second, the split searches per
+ * second, the estimated memory of all observers and the number of split
+ * searches on which the two binary tree observers disagree.
+ */
+public class MeasureNumericObserverSpeed extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compares the speed and memory of the numeric attribute class observers.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption numValuesOption = new IntOption("numValues", 'n',
+            "Number of values per observer.", 100000, 1, Integer.MAX_VALUE);
+
+    public IntOption numObserversOption = new IntOption("numObservers", 'o',
+            "Number of observers of each kind.", 20, 1, Integer.MAX_VALUE);
+
+    public IntOption numClassesOption = new IntOption("numClasses", 'c',
+            "Number of classes.", 2, 2, Integer.MAX_VALUE);
+
+    public IntOption numDistinctValuesOption = new IntOption("numDistinctValues", 'v',
+            "Number of distinct values of the attribute, 0 for continuous values.", 0, 0, Integer.MAX_VALUE);
+
+    public IntOption splitPeriodOption = new IntOption("splitPeriod", 'g',
+            "Number of values between split searches.", 10000, 1, Integer.MAX_VALUE);
+
+    public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
+            "Seed for the values.", 1);
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        int numValues = this.numValuesOption.getValue();
+        int numObservers = this.numObserversOption.getValue();
+        int numClasses = this.numClassesOption.getValue();
+        int numDistinct = this.numDistinctValuesOption.getValue();
+        int splitPeriod = this.splitPeriodOption.getValue();
+        NumericAttributeClassObserver[][] observers = new NumericAttributeClassObserver[3][numObservers];
+        for (int i = 0; i < numObservers; i++) {
+            observers[0][i] = new BinaryTreeNumericAttributeClassObserver();
+            observers[1][i] = new ArrayBinaryTreeNumericAttributeClassObserver();
+            observers[2][i] = new GaussianNumericAttributeClassObserver();
+        }
+        // the values are precomputed so that all observers see the same data
+        Random random = new Random(this.randomSeedOption.getValue());
+        double[] values = new double[numValues];
+        int[] classes = new int[numValues];
+        double[] classDist = new double[numClasses];
+        for (int t = 0; t < numValues; t++) {
+            classes[t] = random.nextInt(numClasses);
+            values[t] = random.nextGaussian() + classes[t];
+            if (numDistinct > 0) {
+                values[t] = Math.floor((values[t] + 4.0) / (numClasses + 8.0) * numDistinct);
+            }
+        }
+
+        SplitCriterion criterion = new InfoGainSplitCriterion();
+        long[] observeTime = new long[3];
+        long[] splitTime = new long[3];
+        long numSplits = 0;
+        long mismatches = 0;
+        AttributeSplitSuggestion[] suggestions = new AttributeSplitSuggestion[numObservers];
+        for (int from = 0; from < numValues; from += splitPeriod) {
+            if (monitor.taskShouldAbort()) {
+                return null;
+            }
+            monitor.setCurrentActivity("Feeding observers...", (double) from / numValues);
+            int to = Math.min(numValues, from + splitPeriod);
+            for (int t = from; t < to; t++) {
+                classDist[classes[t]]++;
+            }
+            for (int kind = 0; kind < 3; kind++) {
+                long start = System.nanoTime();
+                for (NumericAttributeClassObserver observer : observers[kind]) {
+                    for (int t = from; t < to; t++) {
+                        observer.observeAttributeClass(values[t], classes[t], 1.0);
+                    }
+                }
+                observeTime[kind] += System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < numObservers; i++) {
+                    AttributeSplitSuggestion suggestion = observers[kind][i].getBestEvaluatedSplitSuggestion(
+                            criterion, classDist, 0, true);
+                    if (kind == 0) {
+                        suggestions[i] = suggestion;
+                    } else if (kind == 1 && Double.compare(suggestions[i].merit, suggestion.merit) != 0) {
+                        mismatches++;
+                    }
+                }
+                splitTime[kind] += System.nanoTime() - start;
+            }
+            numSplits += numObservers;
+        }
+
+        long[] bytes = new long[3];
+        for (int kind = 0; kind < 3; kind++) {
+            for (NumericAttributeClassObserver observer : observers[kind]) {
+                bytes[kind] += observer.estimateByteSize();
+            }
+        }
+        double totalValues = (double) numValues * numObservers;
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Values per observer", numValues),
+                    new Measurement("BinaryTree values per second", totalValues / (observeTime[0] / 1e9)),
+                    new Measurement("ArrayBinaryTree values per second", totalValues / (observeTime[1] / 1e9)),
+                    new Measurement("Gaussian values per second", totalValues / (observeTime[2] / 1e9)),
+                    new Measurement("BinaryTree split searches per second", numSplits / (splitTime[0] / 1e9)),
+                    new Measurement("ArrayBinaryTree split searches per second", numSplits / (splitTime[1] / 1e9)),
+                    new Measurement("Gaussian split searches per second", numSplits / (splitTime[2] / 1e9)),
+                    new Measurement("BinaryTree bytes per observer", (double) bytes[0] / numObservers),
+                    new Measurement("ArrayBinaryTree bytes per observer", (double) bytes[1] / numObservers),
+                    new Measurement("Gaussian bytes per observer", (double) bytes[2] / numObservers),
+                    new Measurement("Mismatching split searches", mismatches)});
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
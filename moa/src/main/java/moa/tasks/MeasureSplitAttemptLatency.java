@@ -0,0 +1,133 @@
+/*
+ *    MeasureSplitAttemptLatency.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.util.Arrays;
+
+import com.github.javacliparser.IntOption;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.evaluation.LearningEvaluation;
+import moa.streams.generators.RandomTreeGenerator;
+
+/**
+ * Task for measuring the latency of the split attempts of a Hoeffding tree
+ * for a given number of split evaluation jobs, on RandomTreeGenerator data
+ * with many numeric attributes.
+ */
+public class MeasureSplitAttemptLatency extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Measures the latency percentiles of Hoeffding tree split attempts.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used to evaluate the attributes when attempting a split (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
+    public IntOption numNumericsOption = new IntOption("numNumerics", 'u',
+            "Number of numeric attributes of the generated stream.", 1000, 0, Integer.MAX_VALUE);
+
+    public IntOption gracePeriodOption = new IntOption("gracePeriod", 'g',
+            "The number of instances a leaf should observe between split attempts.", 200, 0, Integer.MAX_VALUE);
+
+    public IntOption numInstancesOption = new IntOption("numInstances", 'i',
+            "Number of instances to train on.", 40000, 0, Integer.MAX_VALUE);
+
+    /**
+     * Hoeffding tree that records the wall clock time of every split attempt,
+     * which includes the time spent in the split evaluation jobs.
+     */
+    protected static class TimedHoeffdingTree extends HoeffdingTree {
+
+        private static final long serialVersionUID = 1L;
+
+        protected long[] latencies = new long[64];
+
+        protected int numAttempts;
+
+        @Override
+        protected void attemptToSplit(ActiveLearningNode node, SplitNode parent,
+                int parentIndex) {
+            long start = System.nanoTime();
+            super.attemptToSplit(node, parent, parentIndex);
+            long latency = System.nanoTime() - start;
+            if (this.numAttempts == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, 2 * this.numAttempts);
+            }
+            this.latencies[this.numAttempts++] = latency;
+        }
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        RandomTreeGenerator stream = new RandomTreeGenerator();
+        stream.numNominalsOption.setValue(0);
+        stream.numNumericsOption.setValue(this.numNumericsOption.getValue());
+        stream.prepareForUse();
+        TimedHoeffdingTree tree = new TimedHoeffdingTree();
+        tree.numberOfJobsOption.setValue(this.numberOfJobsOption.getValue());
+        tree.gracePeriodOption.setValue(this.gracePeriodOption.getValue());
+        tree.prepareForUse();
+        tree.setModelContext(stream.getHeader());
+        int numInstances = this.numInstancesOption.getValue();
+        monitor.setCurrentActivity("Training tree...", -1.0);
+        long trainStartTime = System.nanoTime();
+        for (int i = 0; i < numInstances && stream.hasMoreInstances(); i++) {
+            tree.trainOnInstance(stream.nextInstance());
+            if (i % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                monitor.setCurrentActivityFractionComplete((double) i / numInstances);
+            }
+        }
+        double trainTime = (System.nanoTime() - trainStartTime) / 1e9;
+        long[] latencies = Arrays.copyOf(tree.latencies, tree.numAttempts);
+        Arrays.sort(latencies);
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("Training instances", numInstances),
+                    new Measurement("Training time (seconds)", trainTime),
+                    new Measurement("Split attempts", latencies.length),
+                    new Measurement("Split attempt p50 (us)", percentile(latencies, 0.5) / 1e3),
+                    new Measurement("Split attempt p99 (us)", percentile(latencies, 0.99) / 1e3),
+                    new Measurement("Split attempt max (us)", percentile(latencies, 1.0) / 1e3)});
+    }
+
+    /**
+     * Gets the nearest-rank percentile of sorted values, or 0 if there are
+     * none.
+     */
+    protected static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+}
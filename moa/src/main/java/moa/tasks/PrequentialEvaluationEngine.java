@@ -0,0 +1,403 @@
+/*
+ *    PrequentialEvaluationEngine.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.classifiers.Classifier;
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.ModelSizeMeasurer;
+import moa.core.TimingUtils;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.streams.ExampleStream;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.Prediction;
+
+/**
+ * Reusable test-then-train loop of the prequential evaluation tasks.
+ *
+ * The stream is consumed in micro-batches that are passed through a pipeline
+ * of stages, by default: predict the batch, evaluate the batch, train on the
+ * batch. Batches never cross a sampling point or a monitor update, so the
+ * learning curve is sampled at the same instance counts as with a
+ * per-instance loop, while the limit, sampling and timing checks only run
+ * once per batch. With a batch size of 1 the results are exactly those of
+ * testing and then training on each example in sequence; larger batches test
+ * every example of a batch before training on any of them. Classifiers that
+ * override the batch methods of {@link Classifier} receive whole batches.
+ *
+ * Larger batches keep several examples alive at once, so they need a stream
+ * that returns a fresh example on every call.
+ */
+public class PrequentialEvaluationEngine implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * A micro-batch of examples and the results of the stages run so far.
+     */
+    public static class Batch implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected Example[] examples;
+
+        protected double[][] votes;
+
+        protected Prediction[] predictions;
+
+        protected InstancesHeader header;
+
+        protected InstanceBatch instances;
+
+        protected boolean hasPredictions;
+
+        protected int size;
+
+        public Batch(InstancesHeader header, int capacity) {
+            this.header = header;
+            this.examples = new Example[capacity];
+            this.votes = new double[capacity][];
+            this.predictions = new Prediction[capacity];
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public Example example(int i) {
+            return this.examples[i];
+        }
+
+        public double[] votes(int i) {
+            return this.votes[i];
+        }
+
+        public Prediction prediction(int i) {
+            return this.predictions[i];
+        }
+
+        /**
+         * Gets the examples as an instance batch, filled on first use.
+         *
+         * @return the instance batch
+         */
+        public InstanceBatch instances() {
+            if (this.instances == null) {
+                this.instances = new InstanceBatch(this.header, this.examples.length);
+            }
+            if (this.instances.size() != this.size) {
+                this.instances.clear();
+                for (int i = 0; i < this.size; i++) {
+                    this.instances.add((Instance) this.examples[i].getData());
+                }
+            }
+            return this.instances;
+        }
+
+        protected void clear() {
+            for (int i = 0; i < this.size; i++) {
+                this.examples[i] = null;
+                this.votes[i] = null;
+                this.predictions[i] = null;
+            }
+            if (this.instances != null) {
+                this.instances.clear();
+            }
+            this.hasPredictions = false;
+            this.size = 0;
+        }
+    }
+
+    /**
+     * A step applied to every micro-batch, in pipeline order.
+     */
+    public interface Stage extends Serializable {
+
+        void process(Batch batch);
+    }
+
+    protected Learner learner;
+
+    protected ExampleStream stream;
+
+    protected LearningPerformanceEvaluator evaluator;
+
+    protected ModelSizeMeasurer sizeMeasurer;
+
+    protected List<Stage> stages = new ArrayList<Stage>();
+
+    protected int batchSize = 1;
+
+    protected int maxInstances = -1;
+
+    protected int maxSeconds = -1;
+
+    protected int sampleFrequency = 100000;
+
+    protected PrintStream immediateResultStream;
+
+    protected String dumpHeaderPrefix = "";
+
+    protected String dumpEntryPrefix = "";
+
+    public PrequentialEvaluationEngine(Learner learner, ExampleStream stream,
+            LearningPerformanceEvaluator evaluator, ModelSizeMeasurer sizeMeasurer) {
+        this.learner = learner;
+        this.stream = stream;
+        this.evaluator = evaluator;
+        this.sizeMeasurer = sizeMeasurer;
+    }
+
+    /**
+     * Adds a stage at the end of the pipeline.
+     *
+     * @param stage the stage
+     * @return this engine
+     */
+    public PrequentialEvaluationEngine addStage(Stage stage) {
+        this.stages.add(stage);
+        return this;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void setInstanceLimit(int maxInstances) {
+        this.maxInstances = maxInstances;
+    }
+
+    public void setTimeLimit(int maxSeconds) {
+        this.maxSeconds = maxSeconds;
+    }
+
+    public void setSampleFrequency(int sampleFrequency) {
+        this.sampleFrequency = sampleFrequency;
+    }
+
+    /**
+     * Sets the stream the sampled results are appended to as csv, with
+     * optional prefixes for the header and the entry lines.
+     */
+    public void setImmediateResultStream(PrintStream immediateResultStream,
+            String dumpHeaderPrefix, String dumpEntryPrefix) {
+        this.immediateResultStream = immediateResultStream;
+        this.dumpHeaderPrefix = dumpHeaderPrefix;
+        this.dumpEntryPrefix = dumpEntryPrefix;
+    }
+
+    /**
+     * Stage that stores the votes of the learner for every example.
+     */
+    public Stage predictVotes() {
+        final boolean batched = overridesBatchMethod("getVotesForInstances");
+        return batch -> {
+            if (batched && batch.size > 1) {
+                double[][] votes = ((Classifier) this.learner).getVotesForInstances(batch.instances());
+                System.arraycopy(votes, 0, batch.votes, 0, batch.size);
+            } else {
+                for (int i = 0; i < batch.size; i++) {
+                    batch.votes[i] = this.learner.getVotesForInstance(batch.examples[i]);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stage that stores the prediction of the learner for every example.
+     */
+    public Stage predictPredictions() {
+        return batch -> {
+            for (int i = 0; i < batch.size; i++) {
+                batch.predictions[i] = this.learner.getPredictionForInstance(batch.examples[i]);
+            }
+            batch.hasPredictions = true;
+        };
+    }
+
+    /**
+     * Stage that adds the predictions to the evaluator if a
+     * {@link #predictPredictions()} stage ran on the batch, and the votes
+     * otherwise.
+     */
+    public Stage evaluate() {
+        return batch -> {
+            for (int i = 0; i < batch.size; i++) {
+                if (batch.hasPredictions) {
+                    this.evaluator.addResult(batch.examples[i], batch.predictions[i]);
+                } else {
+                    this.evaluator.addResult(batch.examples[i], batch.votes[i]);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stage that trains the learner on every example.
+     */
+    public Stage train() {
+        final boolean batched = overridesBatchMethod("trainOnInstances");
+        return batch -> {
+            if (batched && batch.size > 1) {
+                ((Classifier) this.learner).trainOnInstances(batch.instances());
+            } else {
+                for (int i = 0; i < batch.size; i++) {
+                    this.learner.trainOnInstance(batch.examples[i]);
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks whether the learner implements a batch method of
+     * {@link Classifier} itself rather than inheriting the per-instance
+     * default.
+     */
+    protected boolean overridesBatchMethod(String name) {
+        if (!(this.learner instanceof Classifier)) {
+            return false;
+        }
+        try {
+            return this.learner.getClass().getMethod(name, InstanceBatch.class)
+                    .getDeclaringClass() != Classifier.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs the loop until the stream ends or a limit is reached.
+     *
+     * @param monitor the monitor of the task
+     * @return the learning curve, or null if the task was aborted
+     */
+    public LearningCurve run(TaskMonitor monitor) {
+        LearningCurve learningCurve = new LearningCurve(
+                "learning evaluation instances");
+        Batch batch = new Batch(this.stream.getHeader(), this.batchSize);
+        long instancesProcessed = 0;
+        int secondsElapsed = 0;
+        boolean firstDump = true;
+        boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
+        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        long lastEvaluateStartTime = evaluateStartTime;
+        double RAMHours = 0.0;
+        while (this.stream.hasMoreInstances()
+                && ((this.maxInstances < 0) || (instancesProcessed < this.maxInstances))
+                && ((this.maxSeconds < 0) || (secondsElapsed < this.maxSeconds))) {
+            // cut the batch at the next sample, monitor update or limit
+            long batchEnd = instancesProcessed + this.batchSize;
+            batchEnd = Math.min(batchEnd, nextMultiple(instancesProcessed, this.sampleFrequency));
+            batchEnd = Math.min(batchEnd, nextMultiple(instancesProcessed, MainTask.INSTANCES_BETWEEN_MONITOR_UPDATES));
+            if (this.maxInstances >= 0) {
+                batchEnd = Math.min(batchEnd, this.maxInstances);
+            }
+            batch.clear();
+            do {
+                batch.examples[batch.size++] = this.stream.nextInstance();
+            } while (instancesProcessed + batch.size < batchEnd && this.stream.hasMoreInstances());
+
+            for (Stage stage : this.stages) {
+                stage.process(batch);
+            }
+            instancesProcessed += batch.size;
+
+            if ((this.sampleFrequency > 0 && instancesProcessed % this.sampleFrequency == 0)
+                    || this.stream.hasMoreInstances() == false) {
+                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
+                double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
+                double RAMHoursIncrement = this.sizeMeasurer.measureByteSize(this.learner) / (1024.0 * 1024.0 * 1024.0); //GBs
+                RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
+                RAMHours += RAMHoursIncrement;
+                lastEvaluateStartTime = evaluateTime;
+                learningCurve.insertEntry(new LearningEvaluation(
+                        new Measurement[]{
+                            new Measurement(
+                            "learning evaluation instances",
+                            instancesProcessed),
+                            new Measurement(
+                            "evaluation time ("
+                            + (preciseCPUTiming ? "cpu "
+                            : "") + "seconds)",
+                            time),
+                            new Measurement(
+                            "model cost (RAM-Hours)",
+                            RAMHours)
+                        },
+                        this.evaluator, this.learner));
+
+                if (this.immediateResultStream != null) {
+                    if (firstDump) {
+                        this.immediateResultStream.print(this.dumpHeaderPrefix);
+                        this.immediateResultStream.println(learningCurve.headerToString());
+                        firstDump = false;
+                    }
+                    this.immediateResultStream.print(this.dumpEntryPrefix);
+                    this.immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+                    this.immediateResultStream.flush();
+                }
+            }
+            if (instancesProcessed % MainTask.INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                long estimatedRemainingInstances = this.stream.estimatedRemainingInstances();
+                if (this.maxInstances > 0) {
+                    long maxRemaining = this.maxInstances - instancesProcessed;
+                    if ((estimatedRemainingInstances < 0)
+                            || (maxRemaining < estimatedRemainingInstances)) {
+                        estimatedRemainingInstances = maxRemaining;
+                    }
+                }
+                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                        : (double) instancesProcessed
+                        / (double) (instancesProcessed + estimatedRemainingInstances));
+                if (monitor.resultPreviewRequested()) {
+                    monitor.setLatestResultPreview(learningCurve.copy());
+                }
+                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                        - evaluateStartTime);
+            }
+        }
+        batch.clear();
+        return learningCurve;
+    }
+
+    /**
+     * Gets the smallest multiple of a frequency above a count.
+     */
+    protected static long nextMultiple(long count, long frequency) {
+        if (frequency <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (count / frequency + 1) * frequency;
+    }
+}
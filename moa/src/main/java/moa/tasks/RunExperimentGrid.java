@@ -0,0 +1,443 @@
+/*
+ *    RunExperimentGrid.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.ListOption;
+import com.github.javacliparser.Option;
+import com.github.javacliparser.Options;
+import com.github.javacliparser.StringOption;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.core.TimingUtils;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.ExampleStream;
+
+/**
+ * Task for running a grid of learner, stream, evaluator and seed
+ * configurations of an evaluation task on a bounded pool of worker threads in
+ * one JVM.
+ *
+ * Each configuration is the template task with its learner, stream and
+ * evaluator options set to one learner, stream and evaluator. Randomizable
+ * learners are seeded with the seed of the configuration; streams get it
+ * through the option given by <code>-k</code>. The result of every
+ * configuration is written to its own csv file in the result directory as
+ * soon as it finishes, named after a hash of its command line, and a line
+ * with its status and CPU time is appended to <code>summary.csv</code>.
+ * Configurations whose result file already exists are skipped, so running
+ * the same grid again resumes it after a crash or extends it with new
+ * configurations.
+ */
+public class RunExperimentGrid extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Runs a grid of learner, stream, evaluator and seed configurations in parallel.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    /** The name of the file with one line per finished configuration. */
+    public static final String SUMMARY_FILE = "summary.csv";
+
+    public ClassOption taskOption = new ClassOption("task", 't',
+            "Evaluation task to run for every configuration.", MainTask.class,
+            "EvaluatePrequential -i 100000 -f 10000");
+
+    public ListOption learnerListOption = new ListOption("learners", 'l',
+            "The learners to evaluate.",
+            new ClassOption("learner", ' ', "", Learner.class, "moa.classifiers.trees.HoeffdingTree"),
+            new Option[]{
+                new ClassOption("", ' ', "", Learner.class, "moa.classifiers.trees.HoeffdingTree"),
+                new ClassOption("", ' ', "", Learner.class, "moa.classifiers.bayes.NaiveBayes")},
+            ',');
+
+    public ListOption streamListOption = new ListOption("streams", 's',
+            "The streams to evaluate on.",
+            new ClassOption("stream", ' ', "", ExampleStream.class, "generators.RandomTreeGenerator"),
+            new Option[]{
+                new ClassOption("", ' ', "", ExampleStream.class, "generators.RandomTreeGenerator")},
+            ',');
+
+    public ListOption evaluatorListOption = new ListOption("evaluators", 'e',
+            "The evaluators to use, none to keep the default of the task.",
+            new ClassOption("evaluator", ' ', "", LearningPerformanceEvaluator.class,
+            "BasicClassificationPerformanceEvaluator"),
+            new Option[0], ',');
+
+    public IntOption firstSeedOption = new IntOption("firstSeed", 'r',
+            "The first random seed.", 1);
+
+    public IntOption numSeedsOption = new IntOption("numSeeds", 'n',
+            "The number of consecutive seeds to run every configuration with.", 1, 1, Integer.MAX_VALUE);
+
+    public StringOption streamSeedOption = new StringOption("streamSeedOption", 'k',
+            "Option letter of the random seed of the streams (e.g. i for generators), empty to only seed the learners.", "");
+
+    public IntOption numThreadsOption = new IntOption("numThreads", 'w',
+            "Number of configurations run at the same time (-1 = one per processor).",
+            -1, -1, Integer.MAX_VALUE);
+
+    public StringOption resultDirectoryOption = new StringOption("resultDirectory", 'o',
+            "Directory the result files are written to.", "grid-results");
+
+    public FlagOption rerunOption = new FlagOption("rerun", 'a',
+            "Run all configurations again, even those that already have a result file.");
+
+    /**
+     * One cell of the grid.
+     */
+    protected static class Configuration {
+
+        protected String learner;
+
+        protected String stream;
+
+        protected String evaluator;
+
+        protected int seed;
+
+        protected String taskCLI;
+
+        protected String id;
+    }
+
+    /**
+     * The outcome of running one configuration.
+     */
+    protected static class Outcome {
+
+        protected Configuration configuration;
+
+        protected String status;
+
+        protected double cpuSeconds;
+
+        protected double wallSeconds;
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningEvaluation.class;
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        File directory = new File(this.resultDirectoryOption.getValue());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new RuntimeException("Unable to create result directory: " + directory);
+        }
+        List<Configuration> grid = createGrid();
+        List<Configuration> pending = new ArrayList<Configuration>();
+        for (Configuration configuration : grid) {
+            if (this.rerunOption.isSet() || !resultFile(directory, configuration).exists()) {
+                pending.add(configuration);
+            }
+        }
+        int numThreads = this.numThreadsOption.getValue();
+        if (numThreads < 1) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+        monitor.setCurrentActivity("Running " + pending.size() + " of " + grid.size()
+                + " configurations on " + numThreads + " threads...", 0.0);
+
+        PrintStream summary = openSummary(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CompletionService<Outcome> completion = new ExecutorCompletionService<Outcome>(executor);
+        List<StandardTaskMonitor> taskMonitors = new ArrayList<StandardTaskMonitor>();
+        for (final Configuration configuration : pending) {
+            final StandardTaskMonitor taskMonitor = new StandardTaskMonitor();
+            taskMonitors.add(taskMonitor);
+            completion.submit(() -> runConfiguration(configuration, directory, taskMonitor));
+        }
+        int completed = 0;
+        int failed = 0;
+        double cpuSeconds = 0.0;
+        long startTime = System.nanoTime();
+        try {
+            for (int finished = 0; finished < pending.size(); ) {
+                if (monitor.taskShouldAbort()) {
+                    for (StandardTaskMonitor taskMonitor : taskMonitors) {
+                        taskMonitor.requestCancel();
+                    }
+                    return null;
+                }
+                Future<Outcome> future = completion.poll(1, TimeUnit.SECONDS);
+                if (future == null) {
+                    continue;
+                }
+                Outcome outcome = future.get();
+                finished++;
+                if (outcome.status.equals("completed")) {
+                    completed++;
+                } else {
+                    failed++;
+                }
+                cpuSeconds += outcome.cpuSeconds;
+                writeSummaryLine(summary, outcome);
+                monitor.setCurrentActivity("Finished " + finished + " of " + pending.size()
+                        + " configurations...", (double) finished / pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Configuration failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            summary.close();
+        }
+        return new LearningEvaluation(
+                new Measurement[]{
+                    new Measurement("configurations", grid.size()),
+                    new Measurement("skipped configurations", grid.size() - pending.size()),
+                    new Measurement("completed configurations", completed),
+                    new Measurement("failed configurations", failed),
+                    new Measurement("total task cpu seconds", cpuSeconds),
+                    new Measurement("wall-clock seconds", (System.nanoTime() - startTime) / 1e9)});
+    }
+
+    /**
+     * Builds the configurations of the grid, in learner, stream, evaluator
+     * and seed order.
+     */
+    protected List<Configuration> createGrid() {
+        String taskCLI = this.taskOption.getValueAsCLIString();
+        String[] evaluators = cliStrings(this.evaluatorListOption);
+        if (evaluators.length == 0) {
+            evaluators = new String[]{null};
+        }
+        String streamSeed = this.streamSeedOption.getValue().trim();
+        List<Configuration> grid = new ArrayList<Configuration>();
+        for (String learner : cliStrings(this.learnerListOption)) {
+            for (String stream : cliStrings(this.streamListOption)) {
+                for (String evaluator : evaluators) {
+                    for (int s = 0; s < this.numSeedsOption.getValue(); s++) {
+                        Configuration configuration = new Configuration();
+                        configuration.learner = learner;
+                        configuration.stream = stream;
+                        configuration.evaluator = evaluator;
+                        configuration.seed = this.firstSeedOption.getValue() + s;
+                        configuration.taskCLI = taskCLI;
+                        if (streamSeed.length() > 0) {
+                            configuration.stream += " -" + streamSeed + " " + configuration.seed;
+                        }
+                        configuration.id = hash(describe(configuration));
+                        grid.add(configuration);
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Gets the command line of a configuration. The learner seed is set
+     * through <code>Learner.setRandomSeed</code>, so it is appended as a
+     * comment.
+     */
+    protected static String describe(Configuration configuration) {
+        StringBuilder cli = new StringBuilder(configuration.taskCLI);
+        cli.append(" -l (").append(configuration.learner).append(')');
+        cli.append(" -s (").append(configuration.stream).append(')');
+        if (configuration.evaluator != null) {
+            cli.append(" -e (").append(configuration.evaluator).append(')');
+        }
+        cli.append(" # learner seed ").append(configuration.seed);
+        return cli.toString();
+    }
+
+    /**
+     * Creates the task of a configuration from the template, with its
+     * learner, stream and evaluator options replaced.
+     */
+    protected static Task createTask(Configuration configuration) throws Exception {
+        Task task = (Task) instantiate(configuration.taskCLI, Task.class);
+        Options options = ((OptionHandler) task).getOptions();
+        Learner learner = (Learner) instantiate(configuration.learner, Learner.class);
+        if (learner.isRandomizable()) {
+            learner.setRandomSeed(configuration.seed);
+        }
+        requiredOption(options, "learner", configuration).setCurrentObject(learner);
+        requiredOption(options, "stream", configuration).setValueViaCLIString(configuration.stream);
+        if (configuration.evaluator != null) {
+            requiredOption(options, "evaluator", configuration).setValueViaCLIString(configuration.evaluator);
+        }
+        return task;
+    }
+
+    protected static ClassOption requiredOption(Options options, String name, Configuration configuration) {
+        Option option = options.getOption(name);
+        if (!(option instanceof ClassOption)) {
+            throw new IllegalArgumentException("Task has no " + name + " option: " + configuration.taskCLI);
+        }
+        return (ClassOption) option;
+    }
+
+    /**
+     * Runs one configuration on the calling worker thread and writes its
+     * result file. Failures are reported in the outcome, so that the other
+     * configurations keep running and the failed one is retried next time.
+     */
+    protected Outcome runConfiguration(Configuration configuration, File directory, TaskMonitor taskMonitor) {
+        Outcome outcome = new Outcome();
+        outcome.configuration = configuration;
+        TimingUtils.enablePreciseTiming();
+        long cpuStart = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        long wallStart = System.nanoTime();
+        try {
+            Object result = createTask(configuration).doTask(taskMonitor, null);
+            if (result == null) {
+                outcome.status = "aborted";
+            } else {
+                writeResult(directory, configuration, result);
+                outcome.status = "completed";
+            }
+        } catch (Throwable t) {
+            while (t.getCause() != null) {
+                t = t.getCause();
+            }
+            outcome.status = "failed: " + t;
+        }
+        outcome.cpuSeconds = TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread() - cpuStart);
+        outcome.wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+        return outcome;
+    }
+
+    /**
+     * Writes the result to a temporary file first and then renames it, so
+     * that a result file only exists for configurations that finished.
+     */
+    protected void writeResult(File directory, Configuration configuration, Object result) throws IOException {
+        File file = resultFile(directory, configuration);
+        File tmp = new File(directory, file.getName() + ".tmp");
+        PrintStream out = new PrintStream(new FileOutputStream(tmp), false, "UTF-8");
+        try {
+            out.println("# " + describe(configuration));
+            if (result instanceof LearningCurve) {
+                LearningCurve curve = (LearningCurve) result;
+                out.println(curve.headerToString());
+                for (int i = 0; i < curve.numEntries(); i++) {
+                    out.println(curve.entryToString(i));
+                }
+            } else {
+                out.println(result);
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) {
+            throw new IOException("Failed writing result file: " + tmp);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    protected PrintStream openSummary(File directory) {
+        File file = new File(directory, SUMMARY_FILE);
+        boolean exists = file.exists();
+        try {
+            PrintStream summary = new PrintStream(new FileOutputStream(file, true), true, "UTF-8");
+            if (!exists) {
+                summary.println("id,learner,stream,evaluator,seed,status,cpu seconds,wall seconds");
+            }
+            return summary;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open summary file: " + file, e);
+        }
+    }
+
+    protected void writeSummaryLine(PrintStream summary, Outcome outcome) {
+        Configuration configuration = outcome.configuration;
+        summary.println(configuration.id + "," + quote(configuration.learner) + ","
+                + quote(configuration.stream) + ","
+                + quote(configuration.evaluator == null ? "" : configuration.evaluator) + ","
+                + configuration.seed + "," + quote(outcome.status) + ","
+                + outcome.cpuSeconds + "," + outcome.wallSeconds);
+    }
+
+    protected static File resultFile(File directory, Configuration configuration) {
+        return new File(directory, configuration.id + ".csv");
+    }
+
+    protected static String[] cliStrings(ListOption listOption) {
+        Option[] options = listOption.getList();
+        String[] result = new String[options.length];
+        for (int i = 0; i < options.length; i++) {
+            result[i] = options[i].getValueAsCLIString();
+        }
+        return result;
+    }
+
+    protected static Object instantiate(String cliString, Class<?> requiredType) {
+        try {
+            return ClassOption.cliStringToObject(cliString, requiredType, null);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to create " + requiredType.getSimpleName()
+                    + " from: " + cliString, e);
+        }
+    }
+
+    protected static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Gets a stable name for a command line, so that the result file of a
+     * configuration can be found again by a later run.
+     */
+    protected static String hash(String cliString) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(cliString.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(String.format("%02x", bytes[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
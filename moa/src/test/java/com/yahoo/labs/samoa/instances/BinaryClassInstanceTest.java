@@ -0,0 +1,63 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the one-vs-rest views used by StreamingGradientBoostedTrees.
+ */
+public class BinaryClassInstanceTest {
+
+	private static Instances createHeader() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("a"));
+		attributes.add(new Attribute("class", Arrays.asList("x", "y", "z")));
+		attributes.add(new Attribute("b", Arrays.asList("u", "v")));
+		attributes.add(new Attribute("c"));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(1);
+		return new InstancesHeader(header);
+	}
+
+	@Test
+	public void testViewSkipsClassAttribute() {
+		Instances header = createHeader();
+		Instance source = new DenseInstance(2.5, new double[]{1.5, 2, 1, Double.NaN});
+		source.setDataset(header);
+		BinaryClassInstance view = new BinaryClassInstance(BinaryClassInstance.createHeader(header));
+		view.setSource(source, 1.0);
+
+		assertEquals(4, view.numAttributes());
+		assertEquals(3, view.classIndex());
+		assertEquals(2, view.numClasses());
+		assertEquals(2.5, view.weight(), 0.0);
+		assertSame(header.attribute(2), view.attribute(1));
+		assertEquals(1.5, view.value(0), 0.0);
+		assertEquals(1.0, view.value(1), 0.0);
+		assertTrue(view.isMissing(2));
+		assertEquals(1.0, view.classValue(), 0.0);
+		view.setClassValue(0.0);
+		assertEquals(0.0, view.classValue(), 0.0);
+
+		// copies are detached from the source
+		Instance copy = view.copy();
+		source.setValue(0, 7.0);
+		assertEquals(1.5, copy.value(0), 0.0);
+		assertEquals(7.0, view.value(0), 0.0);
+		assertEquals(0.0, copy.classValue(), 0.0);
+		assertSame(view.dataset(), copy.dataset());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFeaturesAreReadOnly() {
+		Instances header = createHeader();
+		Instance source = new DenseInstance(1.0, new double[]{1, 0, 0, 2});
+		source.setDataset(header);
+		new BinaryClassInstance(BinaryClassInstance.createHeader(header)).setSource(source, 0.0).setValue(0, 3.0);
+	}
+}
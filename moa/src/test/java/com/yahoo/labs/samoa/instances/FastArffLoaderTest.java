@@ -0,0 +1,142 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import moa.core.ReadAheadInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests that the byte-level ARFF loader produces the same instances as
+ * ArffLoader.
+ */
+public class FastArffLoaderTest {
+	private static final String ARFF =
+			"% a comment\n"
+			+ "@relation test\n"
+			+ "@attribute N1 numeric\n"
+			+ "@attribute 'C 1' {a, 'b c', \"d\"}\n"
+			+ "@attribute N2 numeric\n"
+			+ "@attribute class {yes, no}\n"
+			+ "\n"
+			+ "@DATA\n"
+			+ "1.5, a, -2, yes\n"
+			+ "\r\n"
+			+ "0.1,'b c',1e-5,no % trailing comment\n"
+			+ "% comment line\n"
+			+ "?, d, 12345678901234567890.5, yes\n"
+			+ "-0, e, 3.14159265358979323846, no\n"
+			+ "{0 2.5, 2 7}\n"
+			+ "1E300,a,+4.,yes";
+
+	private static Instances readWithArffLoader(String arff) {
+		Instances instances = new Instances(new StringReader(arff), 1, -1);
+		while (instances.readInstance(null));
+		return instances;
+	}
+
+	private static void assertSameInstances(Instances expected, FastArffLoader loader) {
+		for (int i = 0; i < expected.numInstances(); i++) {
+			assertTrue(loader.hasMoreInstances());
+			Instance a = expected.instance(i);
+			Instance b = loader.readInstance();
+			assertEquals(a.numAttributes(), b.numAttributes());
+			for (int j = 0; j < a.numAttributes(); j++)
+				assertEquals("instance " + i + ", attribute " + j, Double.doubleToLongBits(a.value(j)), Double.doubleToLongBits(b.value(j)));
+		}
+		assertFalse(loader.hasMoreInstances());
+		assertNull(loader.readInstance());
+	}
+
+	@Test
+	public void testSameAsArffLoader() throws IOException {
+		Instances expected = readWithArffLoader(ARFF);
+		FastArffLoader loader = new FastArffLoader(new ByteArrayInputStream(ARFF.getBytes(StandardCharsets.UTF_8)), -1, 16);
+		assertEquals(3, loader.getHeader().classIndex());
+		assertEquals(4, loader.getHeader().numAttributes());
+		assertEquals(6, expected.numInstances());
+		assertSameInstances(expected, loader);
+		// the unknown nominal value 'e' extends the attribute
+		assertEquals(4, loader.getHeader().attribute(1).numValues());
+	}
+
+	@Test
+	public void testNumberParsing() throws IOException {
+		String[] numbers = {"0", "-0.0", "1", "0.1", "123.456", "9007199254740993", "1e22", "1e23",
+				"2.5E-3", "-7.0e+2", "0.000000000000000000001", "4.9e-324", "1.7976931348623157e308",
+				"123456789012345678", ".5", "5.", "Infinity", "NaN"};
+		StringBuilder arff = new StringBuilder("@relation n\n@attribute x numeric\n@data\n");
+		for (String number : numbers)
+			arff.append(number).append('\n');
+		FastArffLoader loader = new FastArffLoader(new ByteArrayInputStream(arff.toString().getBytes(StandardCharsets.UTF_8)), 0);
+		for (String number : numbers)
+			assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(loader.readInstance().value(0)));
+	}
+
+	@Test
+	public void testBatchReading() throws IOException {
+		Instances expected = readWithArffLoader(ARFF);
+		FastArffLoader loader = new FastArffLoader(new ByteArrayInputStream(ARFF.getBytes(StandardCharsets.UTF_8)), -1);
+		InstanceBatch batch = new InstanceBatch(loader.getHeader(), 4);
+		assertEquals(4, loader.readInstances(batch));
+		assertEquals(1.5, batch.value(0, 0), 0.0);
+		assertEquals(1.0, batch.value(1, 1), 0.0);
+		batch.clear();
+		assertEquals(2, loader.readInstances(batch));
+		assertEquals(2.5, batch.value(0, 0), 0.0);
+		assertEquals(7.0, batch.value(0, 2), 0.0);
+		assertEquals(0.0, batch.value(0, 1), 0.0);
+		assertEquals(expected.instance(5).value(0), batch.value(1, 0), 0.0);
+		assertEquals(0, loader.readInstances(batch));
+	}
+
+	@Test
+	public void testGzipWithReadAhead() throws IOException {
+		Instances expected = new Instances(new InputStreamReader(ClassLoader.getSystemResourceAsStream("moa/classifiers/data/regression.arff")), 1, -1);
+		while (expected.readInstance(null));
+		File gz = File.createTempFile("fastarff", ".arff.gz");
+		gz.deleteOnExit();
+		InputStream in = ClassLoader.getSystemResourceAsStream("moa/classifiers/data/regression.arff");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(gz));
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) > 0)
+			out.write(buffer, 0, read);
+		in.close();
+		out.close();
+		assertTrue(FastArffLoader.isGzipped(gz));
+		for (boolean memoryMap : new boolean[]{false, true}) {
+			FastArffLoader loader = new FastArffLoader(FastArffLoader.openFile(gz, 1024, memoryMap, true), -1, 1024);
+			assertSameInstances(expected, loader);
+			loader.close();
+		}
+	}
+
+	@Test
+	public void testReadAheadCopiesAllBytes() throws IOException {
+		byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) i;
+		InputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 1000, 3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[777];
+		int read;
+		while ((read = in.read(buffer)) > 0)
+			out.write(buffer, 0, read);
+		in.close();
+		assertArrayEquals(data, out.toByteArray());
+	}
+}
@@ -0,0 +1,96 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import moa.classifiers.bayes.NaiveBayes;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the row-major instance batch and its views.
+ */
+public class InstanceBatchTest {
+	private static double EPS=0.00000001;
+	private InstancesHeader header;
+	private InstanceBatch batch;
+
+	@Before
+	public void setUp() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("a1"));
+		attributes.add(new Attribute("a2"));
+		attributes.add(new Attribute("class", Arrays.asList("yes", "no")));
+		header = new InstancesHeader(new Instances("batch", attributes, 0));
+		header.setClassIndex(2);
+		batch = new InstanceBatch(header, 4);
+		batch.add(1.0, new double[]{0.5, 1.5, 0});
+		batch.add(2.0, new double[]{2.5, 3.5, 1});
+		batch.add(1.0, new double[]{4.5, 5.5, 0});
+	}
+
+	@Test
+	public void testPrimitiveAccess() {
+		assertEquals(3, batch.size());
+		assertEquals(4, batch.capacity());
+		assertFalse(batch.isFull());
+		assertEquals(3.5, batch.value(1, 1), EPS);
+		assertEquals(2.0, batch.weight(1), EPS);
+		assertEquals(1.0, batch.classValue(1), EPS);
+		assertArrayEquals(new double[]{0.5, 2.5, 4.5}, batch.column(0, null), EPS);
+	}
+
+	@Test
+	public void testViewIsReused() {
+		BatchInstance view = batch.newView();
+		assertEquals(0.5, view.value(0), EPS);
+		assertSame(view, view.setRow(2));
+		assertEquals(5.5, view.value(1), EPS);
+		assertEquals(0.0, view.classValue(), EPS);
+		assertEquals(2, view.classIndex());
+		view.setRow(1);
+		assertEquals(2.0, view.weight(), EPS);
+		view.setValue(0, 9.0);
+		assertEquals(9.0, batch.value(1, 0), EPS);
+	}
+
+	@Test
+	public void testCopyIsDetached() {
+		Instance copy = batch.instance(0).copy();
+		batch.clear();
+		batch.add(3.0, new double[]{7.0, 8.0, 1});
+		assertEquals(0.5, copy.value(0), EPS);
+		assertEquals(1.0, copy.weight(), EPS);
+		assertEquals(7.0, batch.instance(0).value(0), EPS);
+	}
+
+	@Test
+	public void testAddInstance() {
+		Instance inst = new DenseInstance(0.5, new double[]{6.0, 7.0, 1});
+		inst.setDataset(header);
+		assertEquals(3, batch.add(inst));
+		assertTrue(batch.isFull());
+		assertEquals(7.0, batch.value(3, 1), EPS);
+		assertEquals(0.5, batch.weight(3), EPS);
+		assertEquals(4, batch.toInstances().numInstances());
+	}
+
+	@Test
+	public void testBatchTrainingMatchesSequential() {
+		NaiveBayes sequential = new NaiveBayes();
+		sequential.setModelContext(header);
+		sequential.prepareForUse();
+		NaiveBayes batched = (NaiveBayes) sequential.copy();
+		batched.prepareForUse();
+		for (int i = 0; i < batch.size(); i++)
+			sequential.trainOnInstance(batch.materialize(i));
+		batched.trainOnInstances(batch);
+		double[][] votes = batched.getVotesForInstances(batch);
+		for (int i = 0; i < batch.size(); i++)
+			assertArrayEquals(sequential.getVotesForInstance(batch.materialize(i)), votes[i], EPS);
+	}
+}
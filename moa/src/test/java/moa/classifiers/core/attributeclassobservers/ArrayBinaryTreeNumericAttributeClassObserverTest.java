@@ -0,0 +1,101 @@
+package moa.classifiers.core.attributeclassobservers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import moa.classifiers.core.AttributeSplitSuggestion;
+import moa.classifiers.core.conditionaltests.NumericAttributeBinaryTest;
+import moa.classifiers.core.splitcriteria.GiniSplitCriterion;
+import moa.classifiers.core.splitcriteria.InfoGainSplitCriterion;
+import moa.classifiers.core.splitcriteria.SplitCriterion;
+import moa.core.DoubleVector;
+
+import org.junit.Test;
+
+/**
+ * Tests that the array-based binary tree observer gives the same split
+ * suggestions as BinaryTreeNumericAttributeClassObserver.
+ */
+public class ArrayBinaryTreeNumericAttributeClassObserverTest {
+
+	private static void assertSameSuggestion(AttributeSplitSuggestion expected, AttributeSplitSuggestion actual) {
+		assertEquals(Double.doubleToLongBits(expected.merit), Double.doubleToLongBits(actual.merit));
+		assertEquals(((NumericAttributeBinaryTest) expected.splitTest).getSplitValue(),
+				((NumericAttributeBinaryTest) actual.splitTest).getSplitValue(), 0.0);
+		assertEquals(expected.numSplits(), actual.numSplits());
+		for (int i = 0; i < expected.numSplits(); i++)
+			assertArrayEquals(expected.resultingClassDistributionFromSplit(i), actual.resultingClassDistributionFromSplit(i), 0.0);
+	}
+
+	@Test
+	public void testSameSplitSuggestions() {
+		SplitCriterion[] criteria = {new InfoGainSplitCriterion(), new GiniSplitCriterion()};
+		Random random = new Random(7);
+		BinaryTreeNumericAttributeClassObserver objects = new BinaryTreeNumericAttributeClassObserver();
+		ArrayBinaryTreeNumericAttributeClassObserver arrays = new ArrayBinaryTreeNumericAttributeClassObserver();
+		DoubleVector classDist = new DoubleVector();
+		for (int t = 1; t <= 3000; t++) {
+			// classes above 1 only show up later, values repeat and some are missing
+			int classVal = random.nextInt(t < 1000 ? 2 : 4);
+			double attVal = t % 50 == 0 ? Double.NaN : Math.round(random.nextGaussian() * 20.0 + classVal * 5.0) / 2.0;
+			double weight = 1.0 + random.nextInt(3);
+			objects.observeAttributeClass(attVal, classVal, weight);
+			arrays.observeAttributeClass(attVal, classVal, weight);
+			if (!Double.isNaN(attVal))
+				classDist.addToValue(classVal, weight);
+			if (t % 250 == 0) {
+				for (SplitCriterion criterion : criteria)
+					assertSameSuggestion(
+							objects.getBestEvaluatedSplitSuggestion(criterion, classDist.getArrayCopy(), 3, true),
+							arrays.getBestEvaluatedSplitSuggestion(criterion, classDist.getArrayCopy(), 3, true));
+			}
+		}
+		assertTrue(arrays.estimateByteSize() < objects.estimateByteSize());
+	}
+
+	@Test
+	public void testSameProbabilitiesAsGaussian() {
+		Random random = new Random(3);
+		GaussianNumericAttributeClassObserver gaussian = new GaussianNumericAttributeClassObserver();
+		ArrayBinaryTreeNumericAttributeClassObserver arrays = new ArrayBinaryTreeNumericAttributeClassObserver();
+		assertEquals(0.0, arrays.probabilityOfAttributeValueGivenClass(1.0, 0), 0.0);
+		for (int t = 0; t < 2000; t++) {
+			int classVal = random.nextInt(t < 500 ? 2 : 3);
+			double attVal = t % 40 == 0 ? Double.NaN : random.nextGaussian() * (classVal + 1) + classVal;
+			double weight = 1.0 + random.nextInt(2);
+			gaussian.observeAttributeClass(attVal, classVal, weight);
+			arrays.observeAttributeClass(attVal, classVal, weight);
+		}
+		for (int classVal = 0; classVal < 4; classVal++) {
+			for (double attVal = -5.0; attVal <= 5.0; attVal += 0.25) {
+				assertEquals(Double.doubleToLongBits(gaussian.probabilityOfAttributeValueGivenClass(attVal, classVal)),
+						Double.doubleToLongBits(arrays.probabilityOfAttributeValueGivenClass(attVal, classVal)));
+			}
+		}
+		assertTrue(arrays.probabilityOfAttributeValueGivenClass(0.0, 0) > 0.0);
+	}
+
+	@Test
+	public void testBoundedSize() {
+		ArrayBinaryTreeNumericAttributeClassObserver observer = new ArrayBinaryTreeNumericAttributeClassObserver();
+		observer.maxNodesOption.setValue(100);
+		assertNull(observer.getBestEvaluatedSplitSuggestion(new InfoGainSplitCriterion(), new double[]{0, 0}, 0, true));
+		Random random = new Random(1);
+		double[] classDist = new double[2];
+		for (int t = 0; t < 10000; t++) {
+			double attVal = random.nextDouble();
+			int classVal = attVal < 0.3 ? 0 : 1;
+			observer.observeAttributeClass(attVal, classVal, 1.0);
+			classDist[classVal]++;
+		}
+		assertEquals(100, observer.getNumNodes());
+		AttributeSplitSuggestion suggestion = observer.getBestEvaluatedSplitSuggestion(new InfoGainSplitCriterion(), classDist, 0, true);
+		double total = 0.0;
+		for (int i = 0; i < suggestion.numSplits(); i++)
+			for (double count : suggestion.resultingClassDistributionFromSplit(i))
+				total += count;
+		assertEquals(10000.0, total, 0.0);
+		assertEquals(0.3, ((NumericAttributeBinaryTest) suggestion.splitTest).getSplitValue(), 0.05);
+	}
+}
@@ -0,0 +1,59 @@
+package moa.classifiers.core.driftdetection;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that the array-based ADWIN behaves exactly like ADWIN.
+ */
+public class ArrayADWINTest {
+
+	private static void assertSameBehaviour(ADWIN expected, ArrayADWIN actual, Random random, int numInputs, int changePeriod, boolean binary) {
+		double mean = 0.2;
+		for (int t = 0; t < numInputs; t++) {
+			if (t % changePeriod == 0)
+				mean = random.nextDouble();
+			double input = binary ? (random.nextDouble() < mean ? 1.0 : 0.0) : mean + random.nextGaussian();
+			assertEquals("input " + t, expected.setInput(input), actual.setInput(input));
+			assertEquals(expected.getChange(), actual.getChange());
+			assertEquals(expected.getDetect(), actual.getDetect());
+			assertEquals(expected.getWidth(), actual.getWidth());
+			assertEquals(expected.getBucketsUsed(), actual.getBucketsUsed());
+			assertEquals(Double.doubleToLongBits(expected.getTotal()), Double.doubleToLongBits(actual.getTotal()));
+			assertEquals(Double.doubleToLongBits(expected.getVariance()), Double.doubleToLongBits(actual.getVariance()));
+			assertEquals(Double.doubleToLongBits(expected.getWidthT()), Double.doubleToLongBits(actual.getWidthT()));
+		}
+		assertEquals(expected.getNumberDetections(), actual.getNumberDetections());
+	}
+
+	@Test
+	public void testBinaryInputs() {
+		assertSameBehaviour(new ADWIN(), new ArrayADWIN(), new Random(1), 200000, 5000, true);
+	}
+
+	@Test
+	public void testRealInputsAndClock() {
+		assertSameBehaviour(new ADWIN(0.1), new ArrayADWIN(0.1), new Random(2), 100000, 20000, false);
+		assertSameBehaviour(new ADWIN(1), new ArrayADWIN(1), new Random(3), 20000, 1000, true);
+	}
+
+	@Test
+	public void testDetectsChangeAndUsesLessMemory() {
+		ADWIN adwin = new ADWIN();
+		ArrayADWIN arrayAdwin = new ArrayADWIN();
+		for (int t = 0; t < 10000; t++) {
+			adwin.setInput(t < 5000 ? 0.0 : 1.0);
+			arrayAdwin.setInput(t < 5000 ? 0.0 : 1.0);
+			if (t == 4999)
+				assertTrue(arrayAdwin.estimateByteSize() < adwin.estimateByteSize());
+		}
+		assertTrue(arrayAdwin.getNumberDetections() > 0);
+		assertTrue(arrayAdwin.getWidth() < 10000);
+		ArrayADWIN copy = (ArrayADWIN) arrayAdwin.copy();
+		assertEquals(arrayAdwin.setInput(1.0), copy.setInput(1.0));
+		assertEquals(arrayAdwin.getWidth(), copy.getWidth());
+	}
+}
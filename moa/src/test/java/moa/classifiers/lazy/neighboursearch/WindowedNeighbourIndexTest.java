@@ -0,0 +1,151 @@
+package moa.classifiers.lazy.neighboursearch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Tests that the window index finds the same neighbours as a linear scan
+ * while instances are added and removed.
+ */
+public class WindowedNeighbourIndexTest {
+
+	private static Instances createHeader() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("a"));
+		attributes.add(new Attribute("n", Arrays.asList("x", "y", "z")));
+		attributes.add(new Attribute("b"));
+		attributes.add(new Attribute("class", Arrays.asList("0", "1")));
+		attributes.add(new Attribute("c"));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(3);
+		return new InstancesHeader(header);
+	}
+
+	private static Instance randomInstance(Instances header, Random random) {
+		double[] values = new double[header.numAttributes()];
+		for (int i = 0; i < values.length; i++) {
+			if (header.attribute(i).isNominal()) {
+				values[i] = random.nextInt(header.attribute(i).numValues());
+			} else {
+				// a coarse grid, so that there are ties
+				values[i] = random.nextInt(8) * 0.5 + (i == 4 ? 100 : 0);
+			}
+			if (i != header.classIndex() && random.nextDouble() < 0.03) {
+				values[i] = Double.NaN;
+			}
+		}
+		Instance inst = new DenseInstance(1.0, values);
+		inst.setDataset(header);
+		return inst;
+	}
+
+	@Test
+	public void testSameAsLinearSearch() throws Exception {
+		Random random = new Random(1);
+		Instances header = createHeader();
+		WindowedNeighbourIndex index = new WindowedNeighbourIndex(header, true, 0.0);
+		Instances window = new Instances(header, 0);
+		Map<Instance, Integer> slots = new IdentityHashMap<Instance, Integer>();
+		for (int step = 0; step < 3000; step++) {
+			// Instances.add stores a copy, so index the stored instance
+			window.add(randomInstance(header, random));
+			Instance inst = window.instance(window.numInstances() - 1);
+			slots.put(inst, index.add(inst));
+			if (window.numInstances() > 300) {
+				Instance removed = random.nextBoolean() ? window.instance(0) : window.instance(random.nextInt(window.numInstances()));
+				window.delete(indexOf(window, removed));
+				index.remove(slots.remove(removed));
+			}
+			assertEquals(window.numInstances(), index.size());
+			if (step % 10 == 0) {
+				Instance target = random.nextInt(4) == 0 ? window.instance(random.nextInt(window.numInstances())) : randomInstance(header, random);
+				int k = 1 + random.nextInt(10);
+				LinearNNSearch search = new LinearNNSearch(window);
+				Instances expected = search.kNearestNeighbours(target, Math.min(k, window.numInstances()));
+				double[] expectedDistances = search.getDistances().clone();
+				int num = index.kNearestNeighbours(target, Math.min(k, index.size()), true);
+				assertEquals(expected.numInstances(), num);
+				double[] distances = new double[num];
+				for (int i = 0; i < num; i++) {
+					assertTrue(slots.containsKey(index.instance(index.neighbour(i))));
+					distances[i] = index.neighbourDistance(i);
+				}
+				Arrays.sort(expectedDistances);
+				assertArrayEquals(expectedDistances, distances, 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testExactKOldestFirst() {
+		Random random = new Random(2);
+		Instances header = createHeader();
+		WindowedNeighbourIndex index = new WindowedNeighbourIndex(header, false, 0.0);
+		for (int i = 0; i < 500; i++) {
+			index.add(randomInstance(header, random));
+		}
+		for (int i = 0; i < 200; i++) {
+			index.removeOldest();
+		}
+		for (int t = 0; t < 50; t++) {
+			Instance target = randomInstance(header, random);
+			int num = index.kNearestNeighbours(target, 7, false);
+			assertEquals(7, num);
+			double kth = index.neighbourDistance(6);
+			long lastSequence = index.sequence(index.neighbour(6));
+			// every instance closer than the k-th neighbour is found, and ties are resolved by age
+			int closer = 0;
+			for (int slot = index.first(); slot != -1; slot = index.next(slot)) {
+				double d = rawDistance(target, index.instance(slot));
+				if (d < kth || (d == kth && index.sequence(slot) <= lastSequence)) {
+					closer++;
+				}
+			}
+			assertEquals(7, closer);
+		}
+	}
+
+	private static double rawDistance(Instance a, Instance b) {
+		double sum = 0;
+		for (int i = 0; i < a.numAttributes(); i++) {
+			if (i == a.classIndex()) {
+				continue;
+			}
+			double x = a.value(i), y = b.value(i), diff;
+			if (a.attribute(i).isNominal()) {
+				diff = Double.isNaN(x) || Double.isNaN(y) || (int) x != (int) y ? 1 : 0;
+			} else if (Double.isNaN(x) && Double.isNaN(y)) {
+				diff = 1;
+			} else if (Double.isNaN(x) || Double.isNaN(y)) {
+				diff = Double.isNaN(y) ? x : y;
+			} else {
+				diff = x - y;
+			}
+			sum += diff * diff;
+		}
+		return Math.sqrt(sum);
+	}
+
+	private static int indexOf(Instances instances, Instance inst) {
+		for (int i = 0; i < instances.numInstances(); i++) {
+			if (instances.instance(i) == inst) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
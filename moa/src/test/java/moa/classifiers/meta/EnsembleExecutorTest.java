@@ -0,0 +1,79 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import moa.classifiers.Classifier;
+import moa.options.ClassOption;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+
+/**
+ * Tests that ensembles trained and queried in parallel give the same votes as
+ * sequential ones.
+ */
+public class EnsembleExecutorTest {
+
+	private static void assertSameVotes(String options, boolean batches) throws Exception {
+		Classifier[] learners = new Classifier[2];
+		for (int n = 0; n < learners.length; n++) {
+			learners[n] = (Classifier) ClassOption.cliStringToObject(options + (n == 0 ? " -j 1" : " -j 4"), Classifier.class, null);
+			learners[n].prepareForUse();
+		}
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		for (Classifier learner : learners)
+			learner.setModelContext(generator.getHeader());
+		InstanceBatch batch = new InstanceBatch(generator.getHeader(), 25);
+		for (int i = 0; i < 1000; i++) {
+			Instance inst = generator.nextInstance().getData();
+			if (i % 50 == 0)
+				assertArrayEquals(options, learners[0].getVotesForInstance(inst), learners[1].getVotesForInstance(inst), 0.0);
+			if (batches) {
+				batch.add(inst);
+				if (batch.isFull()) {
+					for (Classifier learner : learners)
+						learner.trainOnInstances(batch);
+					batch.clear();
+				}
+			} else {
+				for (Classifier learner : learners)
+					learner.trainOnInstance(inst);
+			}
+		}
+	}
+
+	@Test
+	public void testForEachMember() {
+		EnsembleExecutor executor = EnsembleExecutor.forJobs(3);
+		assertTrue(executor.isParallel());
+		assertSame(executor, EnsembleExecutor.forJobs(3));
+		assertFalse(EnsembleExecutor.forJobs(0).isParallel());
+		AtomicIntegerArray calls = new AtomicIntegerArray(101);
+		executor.forEachMember(calls.length(), i -> calls.incrementAndGet(i));
+		for (int i = 0; i < calls.length(); i++)
+			assertEquals(1, calls.get(i));
+	}
+
+	@Test
+	public void testParallelMatchesSequential() throws Exception {
+		assertSameVotes("meta.OzaBag -s 8", false);
+		assertSameVotes("meta.OzaBagAdwin -s 8", false);
+		assertSameVotes("meta.LeveragingBag -s 8", false);
+		assertSameVotes("meta.AdaptiveRandomForest -s 8", false);
+		assertSameVotes("meta.StreamingRandomPatches -s 8", false);
+		assertSameVotes("meta.OzaBoost -s 8", false);
+		assertSameVotes("meta.DynamicWeightedMajority", false);
+	}
+
+	@Test
+	public void testParallelBatchesMatchSequential() throws Exception {
+		assertSameVotes("meta.OzaBag -s 8", true);
+		assertSameVotes("meta.AdaptiveRandomForest -s 8", true);
+	}
+}
@@ -0,0 +1,173 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import moa.classifiers.Classifier;
+import moa.core.Measurement;
+import moa.options.ClassOption;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests that the serving wrapper predicts with the model as it was at the
+ * last publication, also while other threads train it.
+ */
+public class SnapshotServingClassifierTest {
+
+	private static Classifier newClassifier(String options) throws Exception {
+		Classifier classifier = (Classifier) ClassOption.cliStringToObject(options, Classifier.class, null);
+		classifier.prepareForUse();
+		return classifier;
+	}
+
+	private static RandomTreeGenerator newStream() {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		return generator;
+	}
+
+	private static double getMeasurement(Classifier classifier, String name) {
+		for (Measurement measurement : classifier.getModelMeasurements()) {
+			if (measurement.getName().equals(name)) {
+				return measurement.getValue();
+			}
+		}
+		throw new AssertionError("no measurement " + name);
+	}
+
+	/**
+	 * Trains the wrapper and the base learner side by side, checking that the
+	 * wrapper predicts as the base learner did at the last publication.
+	 */
+	private static void checkSnapshots(String baseLearner, Class<?> snapshotClass) throws Exception {
+		SnapshotServingClassifier serving = (SnapshotServingClassifier) newClassifier(
+				"meta.SnapshotServingClassifier -p 100 -l (" + baseLearner + ")");
+		Classifier reference = newClassifier(baseLearner);
+		RandomTreeGenerator generator = newStream();
+		serving.setModelContext(generator.getHeader());
+		reference.setModelContext(generator.getHeader());
+		Classifier published = null;
+		for (int i = 0; i < 1000; i++) {
+			Instance inst = generator.nextInstance().getData();
+			if (i % 10 == 0) {
+				double[] expected = published == null ? new double[0] : published.getVotesForInstance(inst);
+				assertArrayEquals(baseLearner + ", instance " + i, expected, serving.getVotesForInstance(inst), 0.0);
+			}
+			serving.trainOnInstance(inst);
+			reference.trainOnInstance(inst);
+			if ((i + 1) % 100 == 0) {
+				published = reference.copy();
+				assertEquals((i + 1) / 100, serving.getSnapshot().getEpoch());
+				assertEquals(i + 1, serving.getSnapshot().getInstancesSeen());
+			}
+		}
+		assertEquals(snapshotClass, serving.getSnapshot().getClass());
+		assertEquals(10.0, getMeasurement(serving, "snapshot epoch"), 0.0);
+		assertEquals(0.0, getMeasurement(serving, "snapshot staleness (instances)"), 0.0);
+		assertEquals(100.0, getMeasurement(serving, "predictions served"), 0.0);
+	}
+
+	@Test
+	public void testCompiledSnapshots() throws Exception {
+		checkSnapshots("trees.HoeffdingTree", SnapshotServingClassifier.CompiledTreeSnapshot.class);
+		checkSnapshots("trees.HoeffdingAdaptiveTree", SnapshotServingClassifier.CompiledTreeSnapshot.class);
+		checkSnapshots("meta.AdaptiveRandomForest -s 5", SnapshotServingClassifier.CompiledForestSnapshot.class);
+	}
+
+	@Test
+	public void testCopiedSnapshots() throws Exception {
+		checkSnapshots("bayes.NaiveBayes", SnapshotServingClassifier.CopySnapshot.class);
+		checkSnapshots("meta.OzaBag -s 5", SnapshotServingClassifier.CopySnapshot.class);
+	}
+
+	@Test
+	public void testReaderCopiesMadeAtPublication() throws Exception {
+		SnapshotServingClassifier serving = (SnapshotServingClassifier) newClassifier(
+				"meta.SnapshotServingClassifier -p 100 -c 3 -l bayes.NaiveBayes");
+		RandomTreeGenerator generator = newStream();
+		serving.setModelContext(generator.getHeader());
+		for (int i = 0; i < 100; i++) {
+			serving.trainOnInstance(generator.nextInstance().getData());
+		}
+		SnapshotServingClassifier.CopySnapshot snapshot = (SnapshotServingClassifier.CopySnapshot) serving.getSnapshot();
+		assertEquals(3, snapshot.models.length);
+		assertNotSame(snapshot.models[0], snapshot.models[1]);
+		assertNotSame(snapshot.models[1], snapshot.models[2]);
+		Instance inst = generator.nextInstance().getData();
+		double[] votes = serving.getVotesForInstance(inst);
+		for (int i = 0; i < snapshot.models.length; i++) {
+			assertFalse(snapshot.locks[i].isLocked());
+			assertArrayEquals(votes, snapshot.models[i].getVotesForInstance(inst), 0.0);
+		}
+	}
+
+	private static void checkConcurrentReaders(String baseLearner, int numInstances) throws Exception {
+		final SnapshotServingClassifier serving = (SnapshotServingClassifier) newClassifier(
+				"meta.SnapshotServingClassifier -p 50 -l (" + baseLearner + ")");
+		RandomTreeGenerator generator = newStream();
+		serving.setModelContext(generator.getHeader());
+		final Instance[] test = new Instance[200];
+		for (int i = 0; i < test.length; i++) {
+			test[i] = generator.nextInstance().getData();
+		}
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final AtomicLong served = new AtomicLong();
+		final boolean[] done = new boolean[1];
+		Thread[] readers = new Thread[4];
+		for (int r = 0; r < readers.length; r++) {
+			readers[r] = new Thread(() -> {
+				try {
+					long lastEpoch = 0;
+					long count = 0;
+					while (!isDone(done)) {
+						for (Instance inst : test) {
+							serving.getVotesForInstance(inst);
+							count++;
+						}
+						SnapshotServingClassifier.Snapshot snapshot = serving.getSnapshot();
+						long epoch = snapshot == null ? 0 : snapshot.getEpoch();
+						assertTrue("epochs go backwards", epoch >= lastEpoch);
+						lastEpoch = epoch;
+					}
+					served.addAndGet(count);
+				} catch (Throwable t) {
+					error.compareAndSet(null, t);
+				}
+			});
+			readers[r].start();
+		}
+		for (int i = 0; i < numInstances; i++) {
+			serving.trainOnInstance(generator.nextInstance().getData());
+		}
+		synchronized (done) {
+			done[0] = true;
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		if (error.get() != null) {
+			throw new AssertionError(baseLearner, error.get());
+		}
+		assertEquals(numInstances / 50, serving.getSnapshot().getEpoch());
+		assertEquals((double) served.get(), getMeasurement(serving, "predictions served"), 0.0);
+		assertTrue(getMeasurement(serving, "mean publish time (ms)") > 0.0);
+	}
+
+	private static boolean isDone(boolean[] done) {
+		synchronized (done) {
+			return done[0];
+		}
+	}
+
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		checkConcurrentReaders("trees.HoeffdingTree", 5000);
+		checkConcurrentReaders("bayes.NaiveBayes", 1000);
+	}
+}
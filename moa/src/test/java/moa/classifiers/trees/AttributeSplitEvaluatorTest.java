@@ -0,0 +1,117 @@
+/*
+ *    AttributeSplitEvaluatorTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import moa.classifiers.AbstractClassifier;
+import moa.streams.InstanceStream;
+import moa.streams.generators.HyperplaneGeneratorForRegression;
+import moa.streams.generators.RandomTreeGenerator;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import org.junit.Test;
+
+/**
+ * Checks that trees evaluating the split suggestions of their attributes
+ * concurrently grow exactly the trees of a sequential evaluation.
+ */
+public class AttributeSplitEvaluatorTest {
+
+	private static final int NUM_TRAIN_INSTANCES = 5000;
+
+	private static final int NUM_TEST_INSTANCES = 200;
+
+	private static InstanceStream randomTree() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numClassesOption.setValue(3);
+		stream.numNominalsOption.setValue(20);
+		stream.numNumericsOption.setValue(100);
+		return stream;
+	}
+
+	private static InstanceStream hyperplane() {
+		HyperplaneGeneratorForRegression stream = new HyperplaneGeneratorForRegression();
+		stream.numAttsOption.setValue(100);
+		return stream;
+	}
+
+	/**
+	 * Trains a learner with the given number of jobs.
+	 *
+	 * @return the model description followed by the votes for the test
+	 * instances
+	 */
+	private static String train(AbstractClassifier learner, String options, int numberOfJobs,
+			InstanceStream stream) {
+		learner.getOptions().setViaCLIString(options + " -j " + numberOfJobs);
+		((moa.options.OptionHandler) stream).prepareForUse();
+		learner.setModelContext(stream.getHeader());
+		learner.prepareForUse();
+		for (int i = 0; i < NUM_TRAIN_INSTANCES; i++) {
+			learner.trainOnInstance(stream.nextInstance().getData());
+		}
+		StringBuilder out = new StringBuilder();
+		learner.getModelDescription(out, 0);
+		for (int i = 0; i < NUM_TEST_INSTANCES; i++) {
+			Instance inst = stream.nextInstance().getData();
+			out.append(Arrays.toString(learner.getVotesForInstance(inst))).append('\n');
+		}
+		return out.toString();
+	}
+
+	private static void checkSameTree(Class<? extends AbstractClassifier> learnerClass, String options,
+			boolean regression) throws Exception {
+		String sequential = train(learnerClass.newInstance(), options, 0,
+				regression ? hyperplane() : randomTree());
+		assertTrue("the tree did not split", sequential.contains("if "));
+		for (int numberOfJobs : new int[]{2, 4}) {
+			String parallel = train(learnerClass.newInstance(), options, numberOfJobs,
+					regression ? hyperplane() : randomTree());
+			assertEquals("numberOfJobs " + numberOfJobs, sequential, parallel);
+		}
+	}
+
+	@Test
+	public void testHoeffdingTree() throws Exception {
+		checkSameTree(HoeffdingTree.class, "-g 100 -c 0.01", false);
+	}
+
+	@Test
+	public void testHoeffdingTreeBinarySplits() throws Exception {
+		checkSameTree(HoeffdingTree.class, "-g 100 -c 0.01 -b", false);
+	}
+
+	@Test
+	public void testHoeffdingAdaptiveTree() throws Exception {
+		checkSameTree(HoeffdingAdaptiveTree.class, "-g 100 -c 0.01", false);
+	}
+
+	@Test
+	public void testEFDT() throws Exception {
+		checkSameTree(EFDT.class, "-g 100 -c 0.01 -R 500", false);
+	}
+
+	@Test
+	public void testSelfOptimisingBaseTree() throws Exception {
+		checkSameTree(SelfOptimisingBaseTree.class, "-g 50 -c 0.01 -k 100", true);
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ *    CompiledTreeTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.meta.AdaptiveRandomForest;
+import moa.streams.InstanceStream;
+import moa.streams.generators.AgrawalGenerator;
+import moa.streams.generators.HyperplaneGeneratorForRegression;
+import moa.streams.generators.RandomTreeGenerator;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import org.junit.Test;
+
+/**
+ * Checks that compiled trees and forests give exactly the votes of the
+ * classifiers they were compiled from, while the classifiers learn a
+ * stream with a concept drift.
+ */
+public class CompiledTreeTest {
+
+	private static final int CHUNK_SIZE = 250;
+
+	private static final int NUM_CHUNKS = 8;
+
+	private static final int NUM_TEST_INSTANCES = 200;
+
+	private static InstanceStream[] agrawal() {
+		AgrawalGenerator before = new AgrawalGenerator();
+		before.functionOption.setValue(1);
+		before.peturbFractionOption.setValue(0.1);
+		AgrawalGenerator after = new AgrawalGenerator();
+		after.functionOption.setValue(5);
+		after.instanceRandomSeedOption.setValue(2);
+		after.peturbFractionOption.setValue(0.1);
+		return new InstanceStream[]{before, after};
+	}
+
+	private static InstanceStream[] randomTree() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numClassesOption.setValue(3);
+		return new InstanceStream[]{stream};
+	}
+
+	private static InstanceStream[] hyperplane() {
+		return new InstanceStream[]{new HyperplaneGeneratorForRegression()};
+	}
+
+	private static Classifier learner(AbstractClassifier learner, String options) {
+		learner.getOptions().setViaCLIString(options);
+		return learner;
+	}
+
+	private static double[][] votes(Classifier classifier, Instance[] instances) {
+		double[][] votes = new double[instances.length][];
+		for (int i = 0; i < instances.length; i++) {
+			votes[i] = classifier.getVotesForInstance(instances[i]);
+		}
+		return votes;
+	}
+
+	private static void assertSameVotes(double[][] expected, double[][] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertTrue("instance " + i + ": " + Arrays.toString(expected[i]) + " != " + Arrays.toString(actual[i]),
+					Arrays.equals(expected[i], actual[i]));
+		}
+	}
+
+	/**
+	 * Trains a classifier on the streams one after the other, comparing its
+	 * votes with the votes of its compiled version after every chunk.
+	 *
+	 * @param missingValues whether test instances with missing values are
+	 * added
+	 * @return the number of compiled trees with alternate trees
+	 */
+	private static int checkCompiled(Classifier classifier, InstanceStream[] streams, boolean missingValues) {
+		for (InstanceStream stream : streams) {
+			((moa.options.OptionHandler) stream).prepareForUse();
+		}
+		classifier.setModelContext(streams[0].getHeader());
+		classifier.prepareForUse();
+		int withAlternates = 0;
+		for (InstanceStream stream : streams) {
+			for (int chunk = 0; chunk < NUM_CHUNKS; chunk++) {
+				Instance[] test = new Instance[missingValues ? 2 * NUM_TEST_INSTANCES : NUM_TEST_INSTANCES];
+				for (int i = 0; i < NUM_TEST_INSTANCES; i++) {
+					test[i] = stream.nextInstance().getData();
+					if (missingValues) {
+						Instance missing = test[i].copy();
+						for (int att = i % 3; att < missing.numAttributes(); att += 2) {
+							if (att != missing.classIndex()) {
+								missing.setMissing(att);
+							}
+						}
+						test[NUM_TEST_INSTANCES + i] = missing;
+					}
+				}
+				if (classifier instanceof AdaptiveRandomForest) {
+					CompiledForest compiled = ((AdaptiveRandomForest) classifier).compileForInference();
+					double[][] expected = votes(classifier, test);
+					for (int i = 0; i < test.length; i++) {
+						assertTrue(Arrays.equals(expected[i], compiled.getVotesForInstance(test[i])));
+					}
+					assertSameVotes(expected, compiled.getVotesForInstances(test));
+				} else {
+					CompiledTree compiled = CompiledTree.compile(classifier);
+					double[][] expected = votes(classifier, test);
+					for (int i = 0; i < test.length; i++) {
+						assertTrue(Arrays.equals(expected[i], compiled.getVotesForInstance(test[i])));
+					}
+					assertSameVotes(expected, compiled.getVotesForInstances(test));
+					for (int node = 0; node < compiled.getNumNodes(); node++) {
+						if (compiled.nodeAlternate[node] >= 0) {
+							withAlternates++;
+							break;
+						}
+					}
+				}
+				for (int i = 0; i < CHUNK_SIZE; i++) {
+					classifier.trainOnInstance(stream.nextInstance().getData());
+				}
+			}
+		}
+		return withAlternates;
+	}
+
+	@Test
+	public void testHoeffdingTree() {
+		checkCompiled(learner(new HoeffdingTree(), "-g 50 -c 0.01 -l MC"), agrawal(), true);
+		checkCompiled(learner(new HoeffdingTree(), "-g 50 -c 0.01 -l NB -q 100"), agrawal(), true);
+		checkCompiled(learner(new HoeffdingTree(), "-g 50 -c 0.01 -l NBAdaptive"), agrawal(), true);
+		checkCompiled(learner(new HoeffdingTree(), "-g 50 -c 0.01 -b"), randomTree(), true);
+		checkCompiled(learner(new HoeffdingTree(), "-g 50 -c 0.01"), randomTree(), true);
+	}
+
+	@Test
+	public void testHoeffdingAdaptiveTree() {
+		checkCompiled(learner(new HoeffdingAdaptiveTree(), "-g 50 -c 0.01 -l MC"), agrawal(), true);
+		checkCompiled(learner(new HoeffdingAdaptiveTree(), "-g 50 -c 0.01 -l NB"), agrawal(), true);
+		int withAlternates = checkCompiled(learner(new HoeffdingAdaptiveTree(), "-g 50 -c 0.01 -l NBAdaptive"), agrawal(), true);
+		assertTrue("no alternate tree was compiled", withAlternates > 0);
+	}
+
+	@Test
+	public void testEFDT() {
+		checkCompiled(learner(new EFDT(), "-g 50 -c 0.01 -l MC"), agrawal(), true);
+		checkCompiled(learner(new EFDT(), "-g 50 -c 0.01 -l NBAdaptive"), randomTree(), true);
+	}
+
+	@Test
+	public void testAdaptiveRandomForest() {
+		AdaptiveRandomForest forest = new AdaptiveRandomForest();
+		forest.getOptions().setViaCLIString("-s 5 -l (ARFHoeffdingTree -g 50 -c 0.01)");
+		checkCompiled(forest, agrawal(), true);
+		AdaptiveRandomForest unweighted = new AdaptiveRandomForest();
+		unweighted.getOptions().setViaCLIString("-s 3 -w -l (ARFHoeffdingTree -g 50 -c 0.01 -l MC)");
+		checkCompiled(unweighted, agrawal(), true);
+	}
+
+	@Test
+	public void testFIMTDD() {
+		checkCompiled(learner(new FIMTDD(), "-g 50"), hyperplane(), false);
+		checkCompiled(learner(new FIMTDD(), "-g 50 -e"), hyperplane(), false);
+		checkCompiled(learner(new ARFFIMTDD(), "-g 50"), hyperplane(), false);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOtherClassifier() {
+		CompiledTree.compile(new NaiveBayes());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOtherTree() {
+		CompiledTree.compile(new HoeffdingOptionTree());
+	}
+}
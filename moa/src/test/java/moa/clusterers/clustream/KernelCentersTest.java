@@ -0,0 +1,105 @@
+/*
+ *    KernelCentersTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers.clustream;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import moa.classifiers.meta.EnsembleExecutor;
+
+import org.junit.Test;
+
+/**
+ * Checks the cached searches of {@link KernelCenters} against brute force.
+ */
+public class KernelCentersTest {
+
+	private static void setRandomCenter(KernelCenters centers, int row, int dimensions, Random random) {
+		double[] linearSum = new double[dimensions];
+		for (int d = 0; d < dimensions; d++) {
+			// few distinct values, so that ties occur
+			linearSum[d] = random.nextInt(8);
+		}
+		centers.setCenter(row, linearSum, 1 + random.nextInt(3));
+	}
+
+	private static int[] bruteForcePair(KernelCenters centers) {
+		int[] pair = {0, 0};
+		double minDistance = Double.MAX_VALUE;
+		for (int i = 0; i < centers.numRows(); i++) {
+			for (int j = i + 1; j < centers.numRows(); j++) {
+				double distance = centers.distance(i, j);
+				if (distance < minDistance) {
+					minDistance = distance;
+					pair[0] = i;
+					pair[1] = j;
+				}
+			}
+		}
+		return pair;
+	}
+
+	private static int bruteForceNearest(KernelCenters centers, double[] point) {
+		int best = -1;
+		double minDistance = Double.MAX_VALUE;
+		for (int row = 0; row < centers.numRows(); row++) {
+			double distance = centers.distance(point, row, false);
+			if (distance < minDistance) {
+				minDistance = distance;
+				best = row;
+			}
+		}
+		return best;
+	}
+
+	private static void check(KernelCenters centers, int dimensions, int steps, Random random) {
+		for (int row = 0; row < centers.numRows(); row++) {
+			setRandomCenter(centers, row, dimensions, random);
+		}
+		for (int step = 0; step < steps; step++) {
+			assertArrayEquals(bruteForcePair(centers), centers.closestPair());
+			double[] point = new double[dimensions];
+			for (int d = 0; d < dimensions; d++) {
+				point[d] = random.nextDouble() * 8;
+			}
+			assertEquals(bruteForceNearest(centers, point), centers.nearest(point, false));
+			// merge-like updates touch a few rows, occasionally many
+			int changes = step % 7 == 0 ? centers.numRows() / 2 : 1 + random.nextInt(3);
+			for (int c = 0; c < changes; c++) {
+				setRandomCenter(centers, random.nextInt(centers.numRows()), dimensions, random);
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random random = new Random(1);
+		check(new KernelCenters(60, 3), 3, 200, random);
+	}
+
+	@Test
+	public void testParallelSameAsBruteForce() {
+		Random random = new Random(2);
+		KernelCenters centers = new KernelCenters(800, 100);
+		EnsembleExecutor executor = EnsembleExecutor.forJobs(3);
+		centers.setExecutor(executor);
+		check(centers, 100, 15, random);
+	}
+}
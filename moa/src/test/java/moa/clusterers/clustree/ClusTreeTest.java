@@ -0,0 +1,130 @@
+/*
+ *    ClusTreeTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers.clustree;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import moa.cluster.Cluster;
+import moa.cluster.Clustering;
+import moa.streams.clustering.RandomRBFGeneratorEvents;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests batch insertion and snapshots of {@link ClusTree}.
+ */
+public class ClusTreeTest {
+
+	private static ClusTree newClusTree(int batchSize) {
+		ClusTree clusTree = new ClusTree();
+		clusTree.batchSizeOption.setValue(batchSize);
+		clusTree.prepareForUse();
+		clusTree.resetLearning();
+		return clusTree;
+	}
+
+	private static RandomRBFGeneratorEvents newStream() {
+		RandomRBFGeneratorEvents stream = new RandomRBFGeneratorEvents();
+		stream.prepareForUse();
+		return stream;
+	}
+
+	@Test
+	public void testBatchInsertion() {
+		ClusTree clusTree = newClusTree(50);
+		RandomRBFGeneratorEvents stream = newStream();
+		for (int i = 0; i < 5025; i++) {
+			clusTree.trainOnInstance(stream.nextInstance().getData());
+		}
+		Clustering clustering = clusTree.getMicroClusteringResult();
+		assertTrue(clustering.size() > 0);
+		for (Cluster cluster : clustering.getClustering()) {
+			assertTrue(cluster.getWeight() > 0);
+		}
+
+		ClusKernel[] points = new ClusKernel[3];
+		long[] timestamps = new long[points.length];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = new ClusKernel(new double[]{0.5, 0.5, 0.0}, 3);
+			timestamps[i] = 5026 + i;
+		}
+		clusTree.insertBatch(points, timestamps, points.length);
+		for (ClusKernel point : points) {
+			assertEquals(1.0, point.getWeight(), 0.0);
+			assertArrayEquals(new double[]{0.5, 0.5, 0.0}, point.getCenter(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSnapshotsDoNotChangeTheModel() {
+		ClusTree read = newClusTree(50);
+		ClusTree unread = newClusTree(50);
+		RandomRBFGeneratorEvents stream = newStream();
+		for (int i = 0; i < 3000; i++) {
+			Instance inst = stream.nextInstance().getData();
+			read.trainOnInstance(inst);
+			unread.trainOnInstance(inst);
+			if (i % 7 == 0 && i > 0) {
+				read.getMicroClusteringResult();
+			}
+		}
+		List<Cluster> expected = unread.getMicroClusteringResult().getClustering();
+		List<Cluster> actual = read.getMicroClusteringResult().getClustering();
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getWeight(), actual.get(i).getWeight(), 0.0);
+			assertArrayEquals(expected.get(i).getCenter(), actual.get(i).getCenter(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSnapshotsWhileTraining() throws InterruptedException {
+		final ClusTree clusTree = newClusTree(1);
+		RandomRBFGeneratorEvents stream = newStream();
+		for (int i = 0; i < 1000; i++) {
+			clusTree.trainOnInstance(stream.nextInstance().getData());
+		}
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final Clustering[] last = new Clustering[1];
+		Thread reader = new Thread(() -> {
+			try {
+				for (int i = 0; i < 200; i++) {
+					last[0] = clusTree.getMicroClusteringResult();
+					for (Cluster cluster : last[0].getClustering()) {
+						assertFalse(Double.isNaN(cluster.getWeight()));
+					}
+				}
+			} catch (Throwable t) {
+				failure.set(t);
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 20000; i++) {
+			clusTree.trainOnInstance(stream.nextInstance().getData());
+		}
+		reader.join();
+		assertNull(failure.get());
+		assertTrue(last[0].size() > 0);
+	}
+}
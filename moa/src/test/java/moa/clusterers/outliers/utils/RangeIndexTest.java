@@ -0,0 +1,119 @@
+/*
+ *    RangeIndexTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers.outliers.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import moa.classifiers.meta.EnsembleExecutor;
+import moa.clusterers.outliers.MCOD.StreamObj;
+
+import org.junit.Test;
+
+/**
+ * Compares the searches of RangeIndex with a scan of all objects, for the
+ * grid and for the linear scan used in more dimensions.
+ */
+public class RangeIndexTest {
+
+	private void checkAgainstScan(int dimensions, int numObjects, int numSteps, EnsembleExecutor executor) {
+		Random random = new Random(dimensions);
+		double radius = 0.1;
+		RangeIndex<StreamObj> index = new RangeIndex<StreamObj>(dimensions, radius);
+		index.setExecutor(executor);
+		List<StreamObj> objects = new ArrayList<StreamObj>();
+		List<Integer> slots = new ArrayList<Integer>();
+		for (int step = 0; step < numSteps; step++) {
+			if (objects.size() >= numObjects || (step > numObjects && !objects.isEmpty() && random.nextInt(4) == 0)) {
+				int i = random.nextInt(objects.size());
+				index.remove(slots.get(i));
+				objects.remove(i);
+				slots.remove(i);
+			} else {
+				double[] values = new double[dimensions];
+				for (int d = 0; d < dimensions; d++) {
+					values[d] = random.nextDouble();
+				}
+				StreamObj obj = new StreamObj(values);
+				objects.add(obj);
+				slots.add(index.add(obj, obj));
+			}
+			assertEquals(objects.size(), index.size());
+
+			StreamObj query = objects.isEmpty() ? new StreamObj(new double[dimensions])
+					: objects.get(random.nextInt(objects.size()));
+			double searchRadius = radius * (0.5 + random.nextDouble() * dimensions);
+			int found = index.search(query, searchRadius);
+			int expected = 0;
+			for (int i = 0; i < objects.size(); i++) {
+				if (distance(query, objects.get(i)) <= searchRadius) {
+					expected++;
+				}
+			}
+			assertEquals(expected, found);
+			for (int i = 0; i < found; i++) {
+				StreamObj result = index.getResult(i);
+				assertSame(result, index.get(index.getResultSlot(i)));
+				assertEquals(distance(query, result), index.getResultDistance(i), 1e-12);
+				if (i > 0) {
+					assertTrue(index.getResultDistance(i - 1) <= index.getResultDistance(i));
+				}
+			}
+		}
+	}
+
+	private static double distance(StreamObj a, StreamObj b) {
+		double sum = 0;
+		for (int d = 0; d < a.dimensions(); d++) {
+			double diff = a.get(d) - b.get(d);
+			sum += diff * diff;
+		}
+		return Math.sqrt(sum);
+	}
+
+	@Test
+	public void testGrid() {
+		checkAgainstScan(2, 500, 2000, null);
+	}
+
+	@Test
+	public void testScan() {
+		checkAgainstScan(RangeIndex.MAX_GRID_DIMENSIONS + 2, 500, 2000, null);
+	}
+
+	@Test
+	public void testParallelScan() {
+		// enough coordinates for the scan to be split over the threads
+		checkAgainstScan(16, 5000, 5500, EnsembleExecutor.forJobs(2));
+	}
+
+	@Test
+	public void testRemoveFreeSlot() {
+		RangeIndex<StreamObj> index = new RangeIndex<StreamObj>(2, 0.1);
+		StreamObj obj = new StreamObj(0.5, 0.5);
+		int slot = index.add(obj, obj);
+		index.remove(slot);
+		index.remove(slot);
+		assertEquals(0, index.size());
+		assertEquals(0, index.search(obj, 1.0));
+	}
+}
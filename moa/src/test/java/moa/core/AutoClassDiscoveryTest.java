@@ -0,0 +1,99 @@
+/*
+ *    AutoClassDiscoveryTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.InstanceStream;
+import moa.tasks.Task;
+
+import org.junit.Test;
+
+/**
+ * Tests that classes found through the class index are the ones found by
+ * scanning the class path.
+ */
+public class AutoClassDiscoveryTest {
+
+	private static List<String> scanClassesOfType(String packageName, Class<?> type) {
+		List<String> found = new ArrayList<String>();
+		for (String className : AutoClassDiscovery.findClassNames(packageName)) {
+			if (AutoClassDiscovery.isPublicConcreteClassOfType(className, type)) {
+				found.add(className);
+			}
+		}
+		return found;
+	}
+
+	private static List<String> names(Class<?>[] classes) {
+		List<String> names = new ArrayList<String>();
+		for (Class<?> cls : classes) {
+			names.add(cls.getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void testSameClassesAsScan() {
+		for (Class<?> type : new Class<?>[] {Classifier.class, Task.class, InstanceStream.class}) {
+			assertEquals(scanClassesOfType("moa", type),
+					names(AutoClassDiscovery.findClassesOfType("moa", type)));
+		}
+		assertEquals(scanClassesOfType("moa.classifiers.trees", Classifier.class),
+				names(AutoClassDiscovery.findClassesOfType("moa.classifiers.trees", Classifier.class)));
+	}
+
+	@Test
+	public void testUnindexedClassOfIndexedType() {
+		String[] indexed = AutoClassDiscovery.getClassIndex().get(InstanceStream.class.getName());
+		if (indexed != null) {
+			assertFalse(Arrays.asList(indexed).contains(UnindexedStream.class.getName()));
+		}
+		assertTrue(names(AutoClassDiscovery.findClassesOfType("moa", InstanceStream.class))
+				.contains(UnindexedStream.class.getName()));
+		assertTrue(names(AutoClassDiscovery.findClassesOfType("moa.core", InstanceStream.class))
+				.contains(UnindexedStream.class.getName()));
+		assertFalse(names(AutoClassDiscovery.findClassesOfType("moa.streams", InstanceStream.class))
+				.contains(UnindexedStream.class.getName()));
+	}
+
+	@Test
+	public void testWriteClassIndex() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes);
+		AutoClassDiscovery.writeClassIndex(Arrays.asList(HoeffdingTree.class.getName(),
+				"moa.classifiers.AbstractClassifier", "moa.NoSuchClass"), out);
+		out.close();
+		Properties index = new Properties();
+		index.load(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals(HoeffdingTree.class.getName(), index.getProperty(Classifier.class.getName()));
+		assertEquals(HoeffdingTree.class.getName(), index.getProperty(HoeffdingTree.class.getName()));
+		assertNull(index.getProperty(Object.class.getName()));
+	}
+}
@@ -0,0 +1,88 @@
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import moa.AbstractMOAObject;
+import moa.classifiers.meta.AdaptiveRandomForest;
+import moa.classifiers.trees.HoeffdingTree;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests the model size measurement modes and the running size estimates.
+ */
+public class ModelSizeMeasurerTest {
+
+	private static class CountingObject extends AbstractMOAObject {
+		int exactCalls;
+
+		long estimate = 100;
+
+		@Override
+		public long measureByteSize() {
+			this.exactCalls++;
+			return 2 * this.estimate;
+		}
+
+		@Override
+		public long estimateByteSize() {
+			return this.estimate;
+		}
+
+		@Override
+		public void getDescription(StringBuilder sb, int indent) {
+		}
+	}
+
+	@Test
+	public void testModes() {
+		CountingObject model = new CountingObject();
+		assertEquals(100, new ModelSizeMeasurer(ModelSizeMeasurer.ESTIMATED, 10).measureByteSize(model));
+		assertEquals(0, model.exactCalls);
+		assertEquals(200, new ModelSizeMeasurer(ModelSizeMeasurer.EXACT, 10).measureByteSize(model));
+		assertEquals(1, model.exactCalls);
+	}
+
+	@Test
+	public void testSampledExactIsCalibrated() {
+		CountingObject model = new CountingObject();
+		ModelSizeMeasurer measurer = new ModelSizeMeasurer(ModelSizeMeasurer.SAMPLED_EXACT, 5);
+		assertEquals(200, measurer.measureByteSize(model));
+		model.estimate = 150;
+		for (int i = 1; i < 5; i++)
+			assertEquals(300, measurer.measureByteSize(model));
+		assertEquals(1, model.exactCalls);
+		measurer.measureByteSize(model);
+		assertEquals(2, model.exactCalls);
+	}
+
+	@Test
+	public void testEstimatesGrowWithModels() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		HoeffdingTree tree = new HoeffdingTree();
+		tree.gracePeriodOption.setValue(50);
+		AdaptiveRandomForest forest = new AdaptiveRandomForest();
+		forest.ensembleSizeOption.setValue(5);
+		tree.setModelContext(stream.getHeader());
+		tree.prepareForUse();
+		forest.setModelContext(stream.getHeader());
+		forest.prepareForUse();
+		for (int i = 0; i < 100; i++) {
+			tree.trainOnInstance(stream.nextInstance());
+			forest.trainOnInstance(stream.nextInstance());
+		}
+		long treeSize = tree.estimateByteSize();
+		long forestSize = forest.estimateByteSize();
+		assertTrue(treeSize > 0);
+		assertTrue(forestSize > 0);
+		for (int i = 0; i < 5000; i++) {
+			tree.trainOnInstance(stream.nextInstance());
+			forest.trainOnInstance(stream.nextInstance());
+		}
+		assertTrue(tree.getNodeCount() > 1);
+		assertTrue(tree.estimateByteSize() > treeSize);
+		assertTrue(forest.estimateByteSize() > forestSize);
+	}
+}
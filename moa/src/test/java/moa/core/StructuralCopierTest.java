@@ -0,0 +1,165 @@
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import moa.classifiers.Classifier;
+import moa.options.ClassOption;
+import moa.streams.generators.RandomRBFGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Tests that structural copies are the same as serialization copies.
+ */
+public class StructuralCopierTest {
+
+	static class Node implements Serializable {
+		private static final long serialVersionUID = 1L;
+		Node next;
+		double[] values = {1.0, 2.0};
+		final String name;
+		transient int cache = 5;
+		List<Object> items = new ArrayList<Object>();
+		Map<String, Object> map = new HashMap<String, Object>();
+		InstancesHeader header;
+
+		Node(String name) {
+			this.name = name;
+		}
+	}
+
+	static class CustomNode extends Node {
+		private static final long serialVersionUID = 1L;
+
+		CustomNode() {
+			super("custom");
+		}
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+			in.defaultReadObject();
+		}
+	}
+
+	@Test
+	public void testGraphStructure() throws Exception {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		Node a = new Node("a");
+		Node b = new Node("b");
+		a.next = b;
+		b.next = a;
+		a.items.add(b.values);
+		a.items.add(b);
+		a.map.put("self", a);
+		a.header = generator.getHeader();
+		assertNull(StructuralCopier.checkCopyable(a));
+
+		Node copy = (Node) StructuralCopier.copyObject(a);
+		assertNotSame(a, copy);
+		assertSame(copy, copy.next.next);
+		assertSame(copy.next.values, copy.items.get(0));
+		assertSame(copy.next, copy.items.get(1));
+		assertSame(copy, copy.map.get("self"));
+		assertNotSame(a.values, copy.values);
+		assertArrayEquals(a.values, copy.values, 0.0);
+		assertEquals("a", copy.name);
+		assertEquals(0, copy.cache);
+		assertNotSame(a.header, copy.header);
+		assertEquals(a.header.numAttributes(), copy.header.numAttributes());
+	}
+
+	@Test
+	public void testHeaderOfCopyIsIndependent() throws Exception {
+		RandomRBFGenerator generator = new RandomRBFGenerator();
+		generator.prepareForUse();
+		Classifier learner = (Classifier) ClassOption.cliStringToObject("trees.HoeffdingTree", Classifier.class, null);
+		learner.setModelContext(generator.getHeader());
+		learner.prepareForUse();
+		for (int i = 0; i < 100; i++)
+			learner.trainOnInstance(generator.nextInstance().getData());
+		assertNull(StructuralCopier.checkCopyable(learner));
+
+		Classifier copy = (Classifier) learner.copy();
+		InstancesHeader original = learner.getModelContext();
+		InstancesHeader copied = copy.getModelContext();
+		assertNotSame(original, copied);
+		int numAttributes = original.numAttributes();
+		int classIndex = original.classIndex();
+		copied.insertAttributeAt(new Attribute("extra", Arrays.asList("x", "y")), 0);
+		copied.setClassIndex(0);
+		assertEquals(numAttributes, original.numAttributes());
+		assertEquals(classIndex, original.classIndex());
+		assertEquals(numAttributes + 1, copied.numAttributes());
+	}
+
+	@Test
+	public void testArrayListView() throws Exception {
+		Node a = new Node("a");
+		a.items = Arrays.asList((Object) "x", a);
+		assertNull(StructuralCopier.checkCopyable(a));
+		Node copy = (Node) StructuralCopier.copyObject(a);
+		assertNotSame(a.items, copy.items);
+		assertEquals(a.items.getClass(), copy.items.getClass());
+		assertEquals("x", copy.items.get(0));
+		assertSame(copy, copy.items.get(1));
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		Node a = new Node("a");
+		a.next = new CustomNode();
+		assertNotNull(StructuralCopier.checkCopyable(a));
+		Node copy = (Node) StructuralCopier.copyObject(a);
+		assertTrue(copy.next instanceof CustomNode);
+		assertNotSame(a.next, copy.next);
+	}
+
+	@Test
+	public void testLearnersMatchSerializationCopies() throws Exception {
+		String[] learners = {"trees.HoeffdingTree", "meta.AdaptiveRandomForest -s 5",
+				"meta.StreamingRandomPatches -s 3", "meta.OzaBag -s 5"};
+		for (String cli : learners) {
+			RandomRBFGenerator generator = new RandomRBFGenerator();
+			generator.prepareForUse();
+			Classifier learner = (Classifier) ClassOption.cliStringToObject(cli, Classifier.class, null);
+			learner.setModelContext(generator.getHeader());
+			learner.prepareForUse();
+			for (int i = 0; i < 2000; i++)
+				learner.trainOnInstance(generator.nextInstance().getData());
+			assertNull(cli, StructuralCopier.checkCopyable(learner));
+
+			Classifier structural = (Classifier) learner.copy();
+			Classifier serialized = (Classifier) SerializeUtils.copyObject(learner);
+			List<Instance> more = new ArrayList<Instance>();
+			for (int i = 0; i < 1000; i++)
+				more.add(generator.nextInstance().getData());
+			// training the copy must not change the original
+			for (Instance inst : more)
+				structural.trainOnInstance(inst);
+			for (Instance inst : more)
+				assertArrayEquals(cli, serialized.getVotesForInstance(inst), learner.getVotesForInstance(inst), 0.0);
+			for (Instance inst : more) {
+				serialized.trainOnInstance(inst);
+				learner.trainOnInstance(inst);
+			}
+			for (int i = 0; i < 200; i++) {
+				Instance inst = generator.nextInstance().getData();
+				assertArrayEquals(cli, serialized.getVotesForInstance(inst), structural.getVotesForInstance(inst), 0.0);
+				assertArrayEquals(cli, serialized.getVotesForInstance(inst), learner.getVotesForInstance(inst), 0.0);
+			}
+		}
+	}
+}
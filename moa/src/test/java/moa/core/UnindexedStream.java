@@ -0,0 +1,30 @@
+/*
+ *    UnindexedStream.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+/**
+ * Stream in the test classes, which are built without a class index, used
+ * to check that class discovery finds classes of entries without an index.
+ */
+public class UnindexedStream extends RandomTreeGenerator {
+
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,152 @@
+/*
+ *    ClassEstimatorsTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import moa.core.InstanceExample;
+import moa.core.Measurement;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Compares the flat per-class estimators of the basic, window and fading
+ * factor evaluators with the Estimator objects they replace.
+ */
+public class ClassEstimatorsTest {
+
+	private static void setOutputFlags(BasicClassificationPerformanceEvaluator evaluator) {
+		evaluator.precisionRecallOutputOption.set();
+		evaluator.precisionPerClassOption.set();
+		evaluator.recallPerClassOption.set();
+		evaluator.f1PerClassOption.set();
+		evaluator.prepareForUse();
+	}
+
+	private static void assertSameResults(BasicClassificationPerformanceEvaluator flat,
+			BasicClassificationPerformanceEvaluator legacy, int numClasses) {
+		assertSameResults(flat, legacy, numClasses, numClasses);
+	}
+
+	private static void assertSameResults(BasicClassificationPerformanceEvaluator flat,
+			BasicClassificationPerformanceEvaluator legacy, int numClasses, int numVotes) {
+		setOutputFlags(flat);
+		setOutputFlags(legacy);
+		assertEquals(legacy.getClass().getSuperclass(), flat.getClass());
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.numClassesOption.setValue(numClasses);
+		stream.prepareForUse();
+		Random random = new Random(1);
+		for (int i = 0; i < 2500; i++) {
+			Instance instance = stream.nextInstance().getData();
+			instance.setWeight(random.nextInt(10) == 0 ? 0.0 : random.nextDouble() * 2);
+			double[] votes = new double[numVotes];
+			// mostly right, so that every class is predicted
+			votes[random.nextInt(3) == 0 ? random.nextInt(numVotes) : (int) instance.classValue()] = 1.0;
+			flat.addResult(new InstanceExample(instance), votes);
+			legacy.addResult(new InstanceExample(instance), votes);
+			if (i % 100 == 0) {
+				Measurement[] expected = legacy.getPerformanceMeasurements();
+				Measurement[] actual = flat.getPerformanceMeasurements();
+				assertEquals(expected.length, actual.length);
+				for (int j = 0; j < expected.length; j++) {
+					assertEquals(expected[j].getName(), actual[j].getName());
+					assertEquals(expected[j].getName(), expected[j].getValue(), actual[j].getValue(), 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBasicMatchesEstimators() {
+		for (int numClasses : new int[] {2, 5}) {
+			assertSameResults(new BasicClassificationPerformanceEvaluator(),
+					new BasicClassificationPerformanceEvaluator() {}, numClasses);
+		}
+	}
+
+	@Test
+	public void testWindowMatchesEstimators() {
+		for (int numClasses : new int[] {2, 5}) {
+			WindowClassificationPerformanceEvaluator flat = new WindowClassificationPerformanceEvaluator();
+			WindowClassificationPerformanceEvaluator legacy = new WindowClassificationPerformanceEvaluator() {};
+			flat.widthOption.setValue(150);
+			legacy.widthOption.setValue(150);
+			assertSameResults(flat, legacy, numClasses);
+		}
+	}
+
+	@Test
+	public void testFadingFactorMatchesEstimators() {
+		for (int numClasses : new int[] {2, 5}) {
+			FadingFactorClassificationPerformanceEvaluator flat = new FadingFactorClassificationPerformanceEvaluator();
+			FadingFactorClassificationPerformanceEvaluator legacy = new FadingFactorClassificationPerformanceEvaluator() {};
+			flat.alphaOption.setValue(0.95);
+			legacy.alphaOption.setValue(0.95);
+			assertSameResults(flat, legacy, numClasses);
+		}
+	}
+
+	@Test
+	public void testVotesBeyondTheClassesCountAsWrong() {
+		assertSameResults(new BasicClassificationPerformanceEvaluator(),
+				new BasicClassificationPerformanceEvaluator() {}, 2, 4);
+		WindowClassificationPerformanceEvaluator window = new WindowClassificationPerformanceEvaluator();
+		WindowClassificationPerformanceEvaluator legacyWindow = new WindowClassificationPerformanceEvaluator() {};
+		window.widthOption.setValue(150);
+		legacyWindow.widthOption.setValue(150);
+		assertSameResults(window, legacyWindow, 2, 4);
+		FadingFactorClassificationPerformanceEvaluator fading = new FadingFactorClassificationPerformanceEvaluator();
+		FadingFactorClassificationPerformanceEvaluator legacyFading = new FadingFactorClassificationPerformanceEvaluator() {};
+		fading.alphaOption.setValue(0.95);
+		legacyFading.alphaOption.setValue(0.95);
+		assertSameResults(fading, legacyFading, 2, 4);
+	}
+
+	@Test
+	public void testMeasurementsFollowResultsAndFlags() {
+		BasicClassificationPerformanceEvaluator evaluator = new BasicClassificationPerformanceEvaluator();
+		evaluator.prepareForUse();
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		Instance instance = stream.nextInstance().getData();
+		evaluator.addResult(new InstanceExample(instance), new double[] {1.0, 0.0});
+		Measurement[] first = evaluator.getPerformanceMeasurements();
+		assertSame(first, evaluator.getPerformanceMeasurements());
+		assertEquals(1.0, first[0].getValue(), 0.0);
+
+		evaluator.addResult(new InstanceExample(instance), new double[] {1.0, 0.0});
+		Measurement[] second = evaluator.getPerformanceMeasurements();
+		assertNotSame(first, second);
+		assertEquals(2.0, second[0].getValue(), 0.0);
+
+		evaluator.precisionPerClassOption.set();
+		Measurement[] perClass = evaluator.getPerformanceMeasurements();
+		assertEquals(second.length + 2, perClass.length);
+		assertEquals("Precision for class 1 (percent)", perClass[perClass.length - 1].getName());
+
+		evaluator.reset();
+		assertEquals(0.0, evaluator.getPerformanceMeasurements()[0].getValue(), 0.0);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ *    SortedScoresTest.java
+ *    Copyright (C) 2026 University of Waikato, Hamilton, New Zealand
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.evaluation;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the incremental AUC of SortedScores with a count over all pairs
+ * while scores, many of them tied, are added and removed.
+ */
+public class SortedScoresTest {
+
+	private static double pairAUC(List<Double> scores, List<Boolean> positives, boolean scored) {
+		double sum = 0;
+		double numPos = 0;
+		double numNeg = 0;
+		for (int i = 0; i < scores.size(); i++) {
+			if (positives.get(i)) {
+				numPos++;
+			} else {
+				numNeg++;
+			}
+		}
+		if (numPos == 0 || numNeg == 0) {
+			return 1;
+		}
+		for (int i = 0; i < scores.size(); i++) {
+			if (!positives.get(i)) {
+				continue;
+			}
+			for (int j = 0; j < scores.size(); j++) {
+				if (positives.get(j)) {
+					continue;
+				}
+				double p = scores.get(i);
+				double n = scores.get(j);
+				if (scored) {
+					// positives ranked above negatives score their value,
+					// negatives ranked above positives lose theirs
+					sum += p > n ? p - n : (p == n ? p / 2.0 - n : 0);
+				} else {
+					sum += p > n ? 1 : (p == n ? 0.5 : 0);
+				}
+			}
+		}
+		return sum / (numPos * numNeg);
+	}
+
+	@Test
+	public void testAddAndRemove() {
+		Random random = new Random(1);
+		SortedScores sortedScores = new SortedScores();
+		List<Double> scores = new ArrayList<Double>();
+		List<Boolean> positives = new ArrayList<Boolean>();
+		for (int step = 0; step < 2000; step++) {
+			if (scores.size() > 200 || (!scores.isEmpty() && random.nextInt(3) == 0)) {
+				int i = random.nextInt(scores.size());
+				sortedScores.remove(scores.remove(i), positives.remove(i));
+			} else {
+				double score = random.nextBoolean() ? random.nextInt(5) / 4.0 : random.nextDouble();
+				boolean isPositive = random.nextInt(4) == 0;
+				sortedScores.add(score, isPositive);
+				scores.add(score);
+				positives.add(isPositive);
+			}
+			if (step % 100 == 0) {
+				sortedScores.recompute();
+			}
+			assertEquals(scores.isEmpty(), sortedScores.isEmpty());
+			assertEquals(pairAUC(scores, positives, false), sortedScores.getAUC(), 1e-12);
+			assertEquals(pairAUC(scores, positives, true), sortedScores.getScoredAUC(), 1e-9);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveMissingScore() {
+		SortedScores sortedScores = new SortedScores();
+		sortedScores.add(0.5, true);
+		sortedScores.remove(0.25, true);
+	}
+}
@@ -0,0 +1,109 @@
+package moa.recommender.rc.data.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import moa.recommender.rc.utils.Pair;
+import moa.recommender.rc.utils.Rating;
+import moa.recommender.rc.utils.RatingBlock;
+import moa.recommender.rc.utils.SparseVector;
+
+/**
+ * Tests that the compact rating store gives the same answers as the map
+ * based one.
+ */
+public class CompactRecommenderDataTest {
+
+	private static Map<Integer, Double> toMap(SparseVector vector) {
+		Map<Integer, Double> map = new HashMap<Integer, Double>();
+		Iterator<Pair<Integer, Double>> it = vector.iterator();
+		while (it.hasNext()) {
+			Pair<Integer, Double> p = it.next();
+			map.put(p.getFirst(), p.getSecond());
+		}
+		return map;
+	}
+
+	private static Map<Integer, Double> toMap(RatingBlock block) {
+		Map<Integer, Double> map = new HashMap<Integer, Double>();
+		for (int i = 0; i < block.size(); i++) {
+			map.put(block.getID(i), block.getRating(i));
+		}
+		return map;
+	}
+
+	@Test
+	public void testSameAsMemRecommenderData() {
+		Random random = new Random(1);
+		MemRecommenderData expected = new MemRecommenderData();
+		CompactRecommenderData data = new CompactRecommenderData();
+		RatingBlock block = new RatingBlock();
+		for (int step = 0; step < 20000; step++) {
+			int user = random.nextInt(100) - 50;
+			int item = random.nextInt(200) * 7;
+			if (random.nextInt(4) == 0 && expected.userExists(user)) {
+				expected.removeRating(user, item);
+				data.removeRating(user, item);
+			} else {
+				double rating = 1 + random.nextInt(9) * 0.5;
+				expected.setRating(user, item, rating);
+				data.setRating(user, item, rating);
+			}
+			assertEquals(expected.getNumRatings(), data.getNumRatings());
+			assertEquals(expected.getGlobalMean(), data.getGlobalMean(), 1e-9);
+			assertEquals(expected.getRating(user, item), data.getRating(user, item), 0.0);
+			assertEquals(expected.countRatingsUser(user), data.countRatingsUser(user));
+			assertEquals(expected.countRatingsItem(item), data.countRatingsItem(item));
+			assertEquals(expected.getAvgRatingUser(user), data.getAvgRatingUser(user), 1e-9);
+			assertEquals(expected.getAvgRatingItem(item), data.getAvgRatingItem(item), 1e-9);
+			if (step % 100 == 0) {
+				assertEquals(expected.getUsers(), data.getUsers());
+				assertEquals(expected.getItems(), data.getItems());
+				assertEquals(toMap(expected.getRatingsUser(user)), toMap(data.getRatingsUser(user)));
+				assertEquals(toMap(expected.getRatingsItem(item)), toMap(data.getRatingsItem(item)));
+				data.getRatingsItem(item, block);
+				assertEquals(toMap(expected.getRatingsItem(item)), toMap(block));
+			}
+		}
+		assertEquals(expected.getMinRating(), data.getMinRating(), 0.0);
+		assertEquals(expected.getMaxRating(), data.getMaxRating(), 0.0);
+	}
+
+	@Test
+	public void testRemoveUserAndItem() {
+		Random random = new Random(2);
+		CompactRecommenderData data = new CompactRecommenderData();
+		for (int i = 0; i < 5000; i++) {
+			data.setRating(random.nextInt(50), random.nextInt(80), random.nextInt(5) + 1);
+		}
+		for (int user = 0; user < 50; user += 3) {
+			data.removeUser(user);
+		}
+		for (int item = 0; item < 80; item += 5) {
+			data.removeItem(item);
+		}
+		int nRatings = 0;
+		HashSet<Integer> users = new HashSet<Integer>();
+		Iterator<Rating> it = data.ratingIterator();
+		while (it.hasNext()) {
+			Rating rating = it.next();
+			assertTrue(rating.userID % 3 != 0);
+			assertTrue(rating.itemID % 5 != 0);
+			assertEquals(rating.rating, data.getRating(rating.userID, rating.itemID), 0.0);
+			assertEquals(rating.rating, toMap(data.getRatingsItem(rating.itemID)).get(rating.userID), 0.0);
+			users.add(rating.userID);
+			nRatings++;
+		}
+		assertEquals(data.getNumRatings(), nRatings);
+		assertEquals(data.getUsers(), users);
+		assertFalse(data.userExists(3));
+		assertFalse(data.itemExists(5));
+	}
+}
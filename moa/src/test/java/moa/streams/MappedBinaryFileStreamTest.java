@@ -0,0 +1,132 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+import com.yahoo.labs.samoa.instances.SparseInstance;
+
+/**
+ * Test the binary stream cache round trip.
+ */
+public class MappedBinaryFileStreamTest {
+
+	private static List<Instance> writeStream(File file, int numInstances, int blockSize, boolean withSparse) throws IOException {
+		RandomTreeGenerator generator = new RandomTreeGenerator();
+		generator.prepareForUse();
+		List<Instance> written = new ArrayList<Instance>();
+		BinaryInstanceWriter writer = new BinaryInstanceWriter(file, generator.getHeader(), blockSize);
+		for (int i = 0; i < numInstances; i++) {
+			Instance inst = generator.nextInstance().getData();
+			if (i % 3 == 0)
+				inst.setWeight(0.5 * i);
+			if (i % 7 == 0)
+				inst.setMissing(0);
+			if (withSparse && i % 5 == 0) {
+				inst = new SparseInstance(inst.weight(), new double[]{inst.value(1), inst.classValue()},
+						new int[]{1, inst.classIndex()}, inst.numAttributes());
+				inst.setDataset(generator.getHeader());
+			}
+			writer.write(inst);
+			written.add(inst);
+		}
+		writer.close();
+		return written;
+	}
+
+	private static void assertSame(Instance expected, Instance actual) {
+		assertEquals(expected.weight(), actual.weight(), 0.0);
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int j = 0; j < expected.numAttributes(); j++)
+			assertEquals(Double.doubleToLongBits(expected.value(j)), Double.doubleToLongBits(actual.value(j)));
+	}
+
+	@Test
+	public void testRoundTripAndRestart() throws IOException {
+		File file = File.createTempFile("stream", ".moab");
+		file.deleteOnExit();
+		List<Instance> written = writeStream(file, 1000, 64, true);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		assertEquals(written.get(0).dataset().numAttributes(), stream.getHeader().numAttributes());
+		assertEquals(written.get(0).dataset().classIndex(), stream.getHeader().classIndex());
+		for (int run = 0; run < 2; run++) {
+			assertEquals(1000, stream.estimatedRemainingInstances());
+			for (Instance expected : written) {
+				assertTrue(stream.hasMoreInstances());
+				assertSame(expected, stream.nextInstance().getData());
+			}
+			assertFalse(stream.hasMoreInstances());
+			stream.restart();
+		}
+	}
+
+	@Test
+	public void testBatchReading() throws IOException {
+		File file = File.createTempFile("stream", ".moab");
+		file.deleteOnExit();
+		List<Instance> written = writeStream(file, 500, 100, false);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(file.getPath());
+		InstanceBatch batch = new InstanceBatch(stream.getHeader(), 33);
+		int seen = 0;
+		while (stream.hasMoreInstances()) {
+			batch.clear();
+			int n = stream.nextInstances(batch);
+			assertEquals(batch.size(), n);
+			for (int i = 0; i < n; i++)
+				assertSame(written.get(seen + i), batch.instance(i));
+			seen += n;
+		}
+		assertEquals(500, seen);
+	}
+
+	@Test
+	public void testReopenAndCopy() throws IOException {
+		File first = File.createTempFile("stream", ".moab");
+		first.deleteOnExit();
+		List<Instance> writtenFirst = writeStream(first, 300, 64, true);
+		File second = File.createTempFile("stream", ".moab");
+		second.deleteOnExit();
+		writeStream(second, 200, 64, false);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream(second.getPath());
+		assertEquals(200, stream.estimatedRemainingInstances());
+		stream.binaryFileOption.setValue(first.getPath());
+		stream.restart();
+		assertEquals(300, stream.estimatedRemainingInstances());
+		for (int i = 0; i < 100; i++)
+			assertSame(writtenFirst.get(i), stream.nextInstance().getData());
+		MappedBinaryFileStream copy = (MappedBinaryFileStream) stream.copy();
+		stream.close();
+		for (int i = 100; i < 300; i++) {
+			assertSame(writtenFirst.get(i), copy.nextInstance().getData());
+			assertSame(writtenFirst.get(i), stream.nextInstance().getData());
+		}
+		assertFalse(copy.hasMoreInstances());
+	}
+
+	@Test
+	public void testNotACache() throws IOException {
+		File file = File.createTempFile("stream", ".moab");
+		file.deleteOnExit();
+		Files.write(file.toPath(), new byte[64]);
+		MappedBinaryFileStream stream = new MappedBinaryFileStream();
+		stream.binaryFileOption.setValue(file.getPath());
+		try {
+			stream.restart();
+			fail("not a binary stream cache");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		assertNull(stream.getHeader());
+		assertNull(stream.openedFile);
+	}
+}
@@ -0,0 +1,86 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceBatch;
+
+/**
+ * Test that prefetching keeps the order and the restart semantics of the
+ * wrapped stream.
+ */
+public class PrefetchingStreamTest {
+
+	private static void assertSame(Instance expected, Instance actual) {
+		assertEquals(expected.numAttributes(), actual.numAttributes());
+		for (int j = 0; j < expected.numAttributes(); j++)
+			assertEquals(expected.value(j), actual.value(j), 0.0);
+	}
+
+	@Test
+	public void testSameOrderAfterRestart() {
+		RandomTreeGenerator direct = new RandomTreeGenerator();
+		direct.prepareForUse();
+		PrefetchingStream prefetching = new PrefetchingStream(new RandomTreeGenerator());
+		prefetching.bufferSizeOption.setValue(8);
+		prefetching.batchSizeOption.setValue(3);
+		prefetching.prepareForUse();
+		assertEquals(direct.getHeader().numAttributes(), prefetching.getHeader().numAttributes());
+		for (int run = 0; run < 2; run++) {
+			for (int i = 0; i < 2000; i++) {
+				assertTrue(prefetching.hasMoreInstances());
+				assertSame(direct.nextInstance().getData(), prefetching.nextInstance().getData());
+			}
+			direct.restart();
+			prefetching.restart();
+		}
+	}
+
+	@Test
+	public void testFiniteStream() {
+		String file = ClassLoader.getSystemResource("moa/classifiers/data/regression.arff").getPath();
+		ArffFileStream direct = new ArffFileStream(file, -1);
+		PrefetchingStream prefetching = new PrefetchingStream(new ArffFileStream(file, -1));
+		prefetching.bufferSizeOption.setValue(16);
+		prefetching.prepareForUse();
+		InstanceBatch batch = new InstanceBatch(prefetching.getHeader(), 10);
+		int count = 0;
+		while (prefetching.hasMoreInstances()) {
+			batch.clear();
+			int n = prefetching.nextInstances(batch);
+			for (int i = 0; i < n; i++)
+				assertSame(direct.nextInstance().getData(), batch.instance(i));
+			count += n;
+		}
+		assertFalse(direct.hasMoreInstances());
+		assertTrue(count > 0);
+		assertNull(prefetching.nextInstance());
+	}
+
+	@Test
+	public void testCloseStopsProducerAndCopyRestarts() {
+		RandomTreeGenerator direct = new RandomTreeGenerator();
+		direct.prepareForUse();
+		PrefetchingStream prefetching = new PrefetchingStream(new RandomTreeGenerator());
+		prefetching.bufferSizeOption.setValue(8);
+		prefetching.prepareForUse();
+		for (int i = 0; i < 100; i++)
+			prefetching.nextInstance();
+		Thread producer = prefetching.producer;
+		prefetching.close();
+		assertFalse(producer.isAlive());
+		assertNull(prefetching.producer);
+		PrefetchingStream copy = (PrefetchingStream) prefetching.copy();
+		for (int i = 0; i < 100; i++)
+			assertSame(direct.nextInstance().getData(), copy.nextInstance().getData());
+		copy.close();
+		direct.restart();
+		for (int i = 0; i < 100; i++)
+			assertSame(direct.nextInstance().getData(), prefetching.nextInstance().getData());
+		prefetching.close();
+	}
+}
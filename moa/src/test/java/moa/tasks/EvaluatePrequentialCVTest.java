@@ -0,0 +1,67 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import moa.evaluation.preview.LearningCurve;
+
+import org.junit.Test;
+
+/**
+ * Checks that the folds of the prequential cross-validation tasks give the
+ * same learning curves when they are updated concurrently.
+ */
+public class EvaluatePrequentialCVTest {
+
+	private static final String[] METHODOLOGIES = {
+			"Cross-Validation", "Bootstrap-Validation", "Split-Validation"};
+
+	/** The columns of the learning curve that depend on the timing. */
+	private static final int TIME_COLUMN = 1;
+
+	private static final int RAM_HOURS_COLUMN = 2;
+
+	private static LearningCurve run(MainTask task, String options, int numberOfJobs) {
+		task.getOptions().setViaCLIString(options + " -j " + numberOfJobs);
+		task.prepareForUse();
+		return (LearningCurve) task.doTask();
+	}
+
+	private static void assertSameCurves(LearningCurve expected, LearningCurve actual) {
+		assertEquals(expected.numEntries(), actual.numEntries());
+		assertEquals(expected.headerToString(), actual.headerToString());
+		int numMeasurements = expected.headerToString().split(",").length;
+		for (int entry = 0; entry < expected.numEntries(); entry++) {
+			for (int m = 0; m < numMeasurements; m++) {
+				if (m != TIME_COLUMN && m != RAM_HOURS_COLUMN) {
+					assertEquals("entry " + entry + ", measurement " + m,
+							expected.getMeasurement(entry, m), actual.getMeasurement(entry, m), 0.0);
+				}
+			}
+		}
+	}
+
+	private static void checkParallelFolds(Class<? extends MainTask> taskClass, String options) throws Exception {
+		for (String methodology : METHODOLOGIES) {
+			String methodologyOptions = options + " -a " + methodology;
+			LearningCurve sequential = run(taskClass.newInstance(), methodologyOptions, 0);
+			// no entry is sampled when the instance limit is reached
+			assertEquals(methodology, 5, sequential.numEntries());
+			assertEquals(2500.0, sequential.getMeasurement(4, 0), 0.0);
+			for (int numberOfJobs : new int[]{3, -1}) {
+				assertSameCurves(sequential, run(taskClass.newInstance(), methodologyOptions, numberOfJobs));
+			}
+		}
+	}
+
+	@Test
+	public void testEvaluatePrequentialCV() throws Exception {
+		checkParallelFolds(EvaluatePrequentialCV.class,
+				"-l trees.HoeffdingTree -i 2750 -f 500 -w 5 -e BasicClassificationPerformanceEvaluator");
+	}
+
+	@Test
+	public void testEvaluatePrequentialDelayedCV() throws Exception {
+		checkParallelFolds(EvaluatePrequentialDelayedCV.class,
+				"-l trees.HoeffdingTree -i 2750 -f 500 -w 5 -k 100 -e BasicClassificationPerformanceEvaluator");
+	}
+}
@@ -0,0 +1,113 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import moa.classifiers.bayes.NaiveBayes;
+import moa.classifiers.functions.MajorityClass;
+import moa.core.Example;
+import moa.core.ModelSizeMeasurer;
+import moa.evaluation.BasicClassificationPerformanceEvaluator;
+import moa.evaluation.BasicRegressionPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.streams.generators.RandomTreeGenerator;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Prediction;
+
+/**
+ * Tests the micro-batched prequential evaluation loop.
+ */
+public class PrequentialEvaluationEngineTest {
+
+	private static LearningCurve runEngine(int batchSize, int maxInstances, int sampleFrequency) {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		NaiveBayes learner = new NaiveBayes();
+		learner.prepareForUse();
+		learner.setModelContext(stream.getHeader());
+		BasicClassificationPerformanceEvaluator evaluator = new BasicClassificationPerformanceEvaluator();
+		evaluator.prepareForUse();
+		PrequentialEvaluationEngine engine = new PrequentialEvaluationEngine(learner, stream, evaluator,
+				new ModelSizeMeasurer(ModelSizeMeasurer.ESTIMATED, 1));
+		engine.setBatchSize(batchSize);
+		engine.setInstanceLimit(maxInstances);
+		engine.setSampleFrequency(sampleFrequency);
+		engine.addStage(engine.predictVotes());
+		engine.addStage(engine.evaluate());
+		engine.addStage(engine.train());
+		return engine.run(new NullMonitor());
+	}
+
+	private static double accuracy(LearningCurve curve, int entry) {
+		return curve.getMeasurement(entry, 4);
+	}
+
+	@Test
+	public void testSingleInstanceBatchesMatchTestThenTrain() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		NaiveBayes learner = new NaiveBayes();
+		learner.prepareForUse();
+		learner.setModelContext(stream.getHeader());
+		BasicClassificationPerformanceEvaluator evaluator = new BasicClassificationPerformanceEvaluator();
+		evaluator.prepareForUse();
+		for (int i = 0; i < 3000; i++) {
+			Example<Instance> example = stream.nextInstance();
+			evaluator.addResult(example, learner.getVotesForInstance(example));
+			learner.trainOnInstance(example);
+		}
+		LearningCurve curve = runEngine(1, 3000, 1000);
+		assertEquals(3, curve.numEntries());
+		assertEquals(evaluator.getPerformanceMeasurements()[1].getValue(), accuracy(curve, 2), 0.0);
+	}
+
+	@Test
+	public void testBatchesKeepSamplingPoints() {
+		LearningCurve single = runEngine(1, 2500, 400);
+		LearningCurve batched = runEngine(37, 2500, 400);
+		assertEquals(single.numEntries(), batched.numEntries());
+		List<Double> counts = new ArrayList<Double>();
+		for (int i = 0; i < batched.numEntries(); i++) {
+			assertEquals(single.getMeasurement(i, 0), batched.getMeasurement(i, 0), 0.0);
+			counts.add(batched.getMeasurement(i, 0));
+		}
+		assertEquals(400.0, counts.get(0), 0.0);
+		assertEquals(2400.0, counts.get(counts.size() - 1), 0.0);
+		// every instance is still evaluated once
+		assertEquals(2400.0, batched.getMeasurement(batched.numEntries() - 1, 3), 0.0);
+	}
+
+	@Test
+	public void testNullPredictionsAreNotEvaluatedAsVotes() {
+		RandomTreeGenerator stream = new RandomTreeGenerator();
+		stream.prepareForUse();
+		MajorityClass learner = new MajorityClass() {
+			@Override
+			public Prediction getPredictionForInstance(Example<Instance> example) {
+				return null;
+			}
+		};
+		learner.prepareForUse();
+		learner.setModelContext(stream.getHeader());
+		BasicRegressionPerformanceEvaluator evaluator = new BasicRegressionPerformanceEvaluator();
+		evaluator.prepareForUse();
+		PrequentialEvaluationEngine engine = new PrequentialEvaluationEngine(learner, stream, evaluator,
+				new ModelSizeMeasurer(ModelSizeMeasurer.ESTIMATED, 1));
+		engine.setBatchSize(10);
+		engine.setInstanceLimit(500);
+		engine.setSampleFrequency(100);
+		engine.addStage(engine.predictPredictions());
+		engine.addStage(engine.evaluate());
+		engine.addStage(engine.train());
+		LearningCurve curve = engine.run(new NullMonitor());
+		assertEquals(5, curve.numEntries());
+		assertEquals(500.0, curve.getMeasurement(curve.numEntries() - 1, 0), 0.0);
+		// a null prediction adds no result
+		assertEquals(0.0, evaluator.getPerformanceMeasurements()[0].getValue(), 0.0);
+	}
+}
@@ -0,0 +1,64 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import moa.core.Measurement;
+import moa.evaluation.LearningEvaluation;
+import moa.options.ClassOption;
+
+import org.junit.Test;
+
+/**
+ * Tests that the experiment grid writes one result per configuration and
+ * skips finished configurations when run again.
+ */
+public class RunExperimentGridTest {
+
+	private static double measurement(LearningEvaluation evaluation, String name) {
+		for (Measurement m : evaluation.getMeasurements())
+			if (m.getName().equals(name))
+				return m.getValue();
+		fail("missing measurement " + name);
+		return 0.0;
+	}
+
+	private static LearningEvaluation runGrid(File directory) throws Exception {
+		RunExperimentGrid grid = (RunExperimentGrid) ClassOption.cliStringToObject(
+				"RunExperimentGrid -t (EvaluatePrequential -i 500 -f 100)"
+				+ " -l (moa.classifiers.bayes.NaiveBayes,moa.classifiers.meta.OzaBag)"
+				+ " -s (generators.RandomTreeGenerator) -k i -n 2 -w 2 -o " + directory.getPath(),
+				Task.class, null);
+		return (LearningEvaluation) grid.doTask();
+	}
+
+	@Test
+	public void testRunAndResume() throws Exception {
+		File directory = Files.createTempDirectory("grid").toFile();
+		LearningEvaluation first = runGrid(directory);
+		assertEquals(4, measurement(first, "configurations"), 0.0);
+		assertEquals(4, measurement(first, "completed configurations"), 0.0);
+		assertEquals(0, measurement(first, "failed configurations"), 0.0);
+		File[] results = directory.listFiles((dir, name) -> name.endsWith(".csv") && !name.equals(RunExperimentGrid.SUMMARY_FILE));
+		assertEquals(4, results.length);
+		for (File result : results)
+			assertEquals(7, Files.readAllLines(result.toPath()).size());
+		assertEquals(5, Files.readAllLines(new File(directory, RunExperimentGrid.SUMMARY_FILE).toPath()).size());
+
+		assertTrue(results[0].delete());
+		LearningEvaluation second = runGrid(directory);
+		assertEquals(3, measurement(second, "skipped configurations"), 0.0);
+		assertEquals(1, measurement(second, "completed configurations"), 0.0);
+		assertTrue(results[0].exists());
+		deleteDirectory(directory);
+	}
+
+	private static void deleteDirectory(File directory) throws IOException {
+		for (File file : directory.listFiles())
+			Files.delete(file.toPath());
+		Files.delete(directory.toPath());
+	}
+}